@@ -0,0 +1,307 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+/**
+ * Writes JPEG tiles at a quality chosen for each tile. A flat tile looks as good
+ * at a low quality as at a high one, while a busy tile needs a high quality, so a
+ * single quality for all tiles either wastes bytes on the flat tiles or spoils the
+ * busy ones.
+ *
+ * <p>The quality of a tile is searched for by bisection between the lowest and
+ * highest quality, with a bounded number of trial encodes. The trials are encoded
+ * in memory by a writer that is kept for each thread, and the bytes of the chosen
+ * trial are written without encoding the tile again. A tile is written at the
+ * lowest quality whose luma error is within the error limit, unless that is too
+ * large for the byte budget, in which case it is written at the highest quality
+ * that fits. The highest quality can be lowered for the coarser levels, whose
+ * tiles are only seen briefly while zooming.
+ *
+ * <p>Every tile is also compared with its size at the fixed {@code jpegQuality},
+ * and a report of the bytes saved is printed when the pyramid is finished.
+ */
+class AdaptiveJpegOutput implements MakeImagePyramid.Output {
+    
+    /**
+     * Qualities closer than this aren't told apart by the search.
+     */
+    private final static float QUALITY_RESOLUTION = 0.01f;
+    
+    /**
+     * The level of the images that aren't tiles, such as the poster and atlas.
+     */
+    private final static int OTHER = -1;
+    
+    /**
+     * The totals of the tiles of a level.
+     */
+    private static class LevelTotals {
+        public long tiles = 0;
+        public long referenceBytes = 0;
+        public long bytes = 0;
+        public long trials = 0;
+        public double qualitySum = 0;
+    }
+    
+    /**
+     * The totals of all levels, shared by the outputs of the levels of a pyramid.
+     */
+    private static class Report {
+        private final Map<Integer,LevelTotals> levels = new TreeMap<Integer,LevelTotals> ();
+        
+        public synchronized void add (int zoom, int referenceBytes, int bytes, int trials, float quality) {
+            LevelTotals totals = levels.get (zoom);
+            if (totals == null) {
+                totals = new LevelTotals ();
+                levels.put (zoom, totals);
+            }
+            totals.tiles++;
+            totals.referenceBytes += referenceBytes;
+            totals.bytes += bytes;
+            totals.trials += trials;
+            totals.qualitySum += quality;
+        }
+        
+        private static String format (String name, LevelTotals totals) {
+            long saved = totals.referenceBytes - totals.bytes;
+            return String.format (Locale.US, "%s: %d images, %d bytes, %d bytes (%.1f%%) saved, mean quality %.2f, %.1f trials per image.",
+                name, totals.tiles, totals.bytes, saved,
+                totals.referenceBytes > 0 ? 100.0 * saved / totals.referenceBytes : 0.0,
+                totals.qualitySum / totals.tiles, (double) totals.trials / totals.tiles);
+        }
+        
+        public synchronized void print (float referenceQuality) {
+            LevelTotals all = new LevelTotals ();
+            for (LevelTotals totals : levels.values ()) {
+                all.tiles += totals.tiles;
+                all.referenceBytes += totals.referenceBytes;
+                all.bytes += totals.bytes;
+                all.trials += totals.trials;
+                all.qualitySum += totals.qualitySum;
+            }
+            if (all.tiles == 0) {
+                return;
+            }
+            System.out.println (String.format (Locale.US, "Adaptive JPEG quality, compared with %d bytes at quality %.2f:", all.referenceBytes, referenceQuality));
+            for (Map.Entry<Integer,LevelTotals> e : levels.entrySet ()) {
+                System.out.println ("    " + format (e.getKey () == OTHER ? "Poster and atlas" : "Level " + e.getKey (), e.getValue ()));
+            }
+            System.out.println ("    " + format ("Total", all));
+        }
+    }
+    
+    /**
+     * An encoded trial.
+     */
+    private static class Trial {
+        public final float quality;
+        public final byte[] data;
+        
+        public Trial (float quality, byte[] data) {
+            this.quality = quality;
+            this.data = data;
+        }
+    }
+    
+    private final static ThreadLocal<ImageWriter> WRITERS = new ThreadLocal<ImageWriter> () {
+            protected ImageWriter initialValue () {
+                return ImageIO.getImageWritersByFormatName ("jpeg").next ();
+            }
+        };
+    
+    private float quality;
+    private float minQuality;
+    private float levelQualityStep;
+    private int tileBudget;
+    private double maxError;
+    private int trials;
+    private int zoom = OTHER;
+    
+    /**
+     * The highest quality of this level.
+     */
+    private float maxQuality;
+    private Report report = new Report ();
+    
+    public AdaptiveJpegOutput () {
+    }
+    
+    /**
+     * Returns true if the parameters ask for adaptive JPEG quality.
+     */
+    public static boolean isEnabled (ImagePyramidParameters parameters) {
+        return parameters.containsKey (ImagePyramidParameters.JPEG_TILE_BUDGET)
+            || parameters.containsKey (ImagePyramidParameters.JPEG_MAX_ERROR)
+            || parameters.containsKey (ImagePyramidParameters.JPEG_LEVEL_QUALITY_STEP);
+    }
+    
+    /**
+     * Reads the qualities, byte budget and error limit.
+     *
+     * @throws IllegalArgumentException if the qualities, budget or number of
+     * trials are out of range
+     */
+    public void configure (ImagePyramidParameters parameters) {
+        quality = parameters.optJpegQuality (0.7f);
+        minQuality = Math.min (parameters.optJpegMinQuality (0.3f), quality);
+        levelQualityStep = parameters.optJpegLevelQualityStep (0.0f);
+        tileBudget = parameters.optJpegTileBudget (0);
+        maxError = parameters.optJpegMaxError (0.0f);
+        trials = parameters.optJpegTrials (6);
+        maxQuality = quality;
+        
+        if (quality <= 0.0f || quality > 1.0f || minQuality <= 0.0f) {
+            throw new IllegalArgumentException ("JPEG qualities must be above 0.0 and at most 1.0: " + minQuality + " - " + quality);
+        }
+        if (levelQualityStep < 0.0f) {
+            throw new IllegalArgumentException ("The JPEG level quality step must not be negative: " + levelQualityStep);
+        }
+        if (trials < 1) {
+            throw new IllegalArgumentException ("The number of JPEG trials must be at least 1: " + trials);
+        }
+    }
+    
+    public String getSuffix () {
+        return ".jpg";
+    }
+    
+    public MakeImagePyramid.Output forLevel (int zoom) {
+        AdaptiveJpegOutput level = new AdaptiveJpegOutput ();
+        level.quality = quality;
+        level.minQuality = minQuality;
+        level.levelQualityStep = levelQualityStep;
+        level.tileBudget = tileBudget;
+        level.maxError = maxError;
+        level.trials = trials;
+        level.zoom = zoom;
+        level.maxQuality = Math.max (minQuality, quality - zoom * levelQualityStep);
+        level.report = report;
+        return level;
+    }
+    
+    public void finish () {
+        report.print (quality);
+    }
+    
+    private static byte[] encode (BufferedImage image, float quality) throws Exception {
+        ImageWriter writer = WRITERS.get ();
+        ImageWriteParam iwp = writer.getDefaultWriteParam ();
+        iwp.setCompressionMode (ImageWriteParam.MODE_EXPLICIT);
+        iwp.setCompressionQuality (quality);
+        
+        ByteArrayOutputStream bos = new ByteArrayOutputStream ();
+        MemoryCacheImageOutputStream os = new MemoryCacheImageOutputStream (bos);
+        try {
+            writer.setOutput (os);
+            writer.write (null, new IIOImage (image, null, null), iwp);
+        } finally {
+            os.close ();
+            writer.reset ();
+        }
+        return bos.toByteArray ();
+    }
+    
+    /**
+     * Returns the root-mean-square difference of the luma of an image and an
+     * encoded copy of it.
+     */
+    private static double getError (BufferedImage image, byte[] data) throws Exception {
+        BufferedImage decoded = ImageIO.read (new ByteArrayInputStream (data));
+        int w = image.getWidth ();
+        int h = image.getHeight ();
+        int[] a = image.getRGB (0, 0, w, h, null, 0, w);
+        int[] b = decoded.getRGB (0, 0, w, h, null, 0, w);
+        double sum = 0;
+        for (int i = 0; i < a.length; ++i) {
+            double d = luma (a[i]) - luma (b[i]);
+            sum += d * d;
+        }
+        return Math.sqrt (sum / a.length);
+    }
+    
+    private static double luma (int rgb) {
+        return 0.299 * ((rgb >> 16) & 0xff) + 0.587 * ((rgb >> 8) & 0xff) + 0.114 * (rgb & 0xff);
+    }
+    
+    public void write (BufferedImage image, File output) throws Exception {
+        Trial first = new Trial (maxQuality, encode (image, maxQuality));
+        Trial best = first;
+        int used = 1;
+        
+        if (maxError > 0 && getError (image, best.data) <= maxError) {
+            // Lower the quality as long as the error stays within the limit.
+            float low = minQuality;
+            while (used < trials && best.quality - low > QUALITY_RESOLUTION) {
+                float q = (low + best.quality) / 2;
+                Trial trial = new Trial (q, encode (image, q));
+                ++used;
+                if (getError (image, trial.data) <= maxError) {
+                    best = trial;
+                } else {
+                    low = q;
+                }
+            }
+        }
+        
+        if (tileBudget > 0 && best.data.length > tileBudget) {
+            // Lower the quality until the tile fits.
+            Trial fit = null;
+            float low = minQuality;
+            float high = best.quality;
+            while (used < trials && high - low > QUALITY_RESOLUTION) {
+                float q = (low + high) / 2;
+                Trial trial = new Trial (q, encode (image, q));
+                ++used;
+                if (trial.data.length <= tileBudget) {
+                    fit = trial;
+                    low = q;
+                } else {
+                    high = q;
+                }
+            }
+            if (fit == null) {
+                fit = new Trial (minQuality, encode (image, minQuality));
+                ++used;
+            }
+            best = fit;
+        }
+        
+        // The size at the fixed quality, for the report.
+        int referenceBytes = maxQuality == quality ? first.data.length : encode (image, quality).length;
+        report.add (zoom, referenceBytes, best.data.length, used, best.quality);
+        
+        FileOutputStream os = new FileOutputStream (output);
+        try {
+            os.write (best.data);
+        } finally {
+            os.close ();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package bigshot;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Scales an image by area averaging, a band of rows at a time. The result is the
+ * same as that of {@link java.awt.Image#SCALE_AREA_AVERAGING}, computed in the
+ * same order, but a destination row only needs the source rows that it covers.
+ * This lets the parts of a sharded build reduce their own bands of a level, and
+ * lets the merge make the rows between the bands, with the same result as
+ * reducing the whole level at once. See {@link Shard}.
+ *
+ * <p>The source and destination are divided into a common grid of
+ * {@code srcHeight * destHeight} units along each axis. Each source row covers
+ * {@code destHeight} units, and each destination row covers {@code srcHeight}
+ * units. A destination pixel is the average of the source pixels it covers,
+ * weighted by the covered area.
+ */
+class AreaAveragingScaler {
+    
+    private final int srcWidth;
+    private final int srcHeight;
+    private final int destWidth;
+    private final int destHeight;
+    
+    /**
+     * Creates a scaler.
+     *
+     * @throws IllegalArgumentException if a size is less than 1
+     */
+    public AreaAveragingScaler (int srcWidth, int srcHeight, int destWidth, int destHeight) {
+        if (srcWidth < 1 || srcHeight < 1 || destWidth < 1 || destHeight < 1) {
+            throw new IllegalArgumentException ("Can't scale " + srcWidth + " x " + srcHeight + " to " + destWidth + " x " + destHeight + ".");
+        }
+        this.srcWidth = srcWidth;
+        this.srcHeight = srcHeight;
+        this.destWidth = destWidth;
+        this.destHeight = destHeight;
+    }
+    
+    /**
+     * Returns the first source row that a destination row covers.
+     */
+    public int getFirstSourceRow (int destRow) {
+        return (int) (((long) destRow) * srcHeight / destHeight);
+    }
+    
+    /**
+     * Returns the source row after the last one that a destination row covers.
+     */
+    public int getEndSourceRow (int destRow) {
+        return (int) ((((long) destRow + 1) * srcHeight + destHeight - 1) / destHeight);
+    }
+    
+    /**
+     * Returns the first destination row that only covers source rows from
+     * {@code sourceRow} on.
+     */
+    public int getFirstDestRow (int sourceRow) {
+        return (int) ((((long) sourceRow) * destHeight + srcHeight - 1) / srcHeight);
+    }
+    
+    /**
+     * Returns the destination row after the last one that only covers source
+     * rows before {@code sourceRow}.
+     */
+    public int getEndDestRow (int sourceRow) {
+        return (int) (((long) sourceRow) * destHeight / srcHeight);
+    }
+    
+    /**
+     * Scales the whole image.
+     */
+    public BufferedImage scale (BufferedImage source) {
+        return scale (source, 0, 0, destHeight);
+    }
+    
+    /**
+     * Scales a band of destination rows.
+     *
+     * @param source the source rows, as wide as the source image
+     * @param sourceTop the index of the first row of {@code source} in the source image
+     * @param first the first destination row
+     * @param end the destination row after the last
+     * @return the destination rows, as an image of type {@link BufferedImage#TYPE_INT_RGB}
+     * @throws IllegalArgumentException if the source rows don't hold all rows
+     * that the destination rows cover
+     */
+    public BufferedImage scale (BufferedImage source, int sourceTop, int first, int end) {
+        if (first < 0 || end > destHeight || first >= end) {
+            throw new IllegalArgumentException ("Rows " + first + " to " + end + " are out of range.");
+        }
+        if (getFirstSourceRow (first) < sourceTop || getEndSourceRow (end - 1) > sourceTop + source.getHeight ()) {
+            throw new IllegalArgumentException ("Source rows " + sourceTop + " to " + (sourceTop + source.getHeight ()) + " don't cover rows " + first + " to " + end + ".");
+        }
+        
+        int[] out = new int[destWidth * (end - first)];
+        int[] line = new int[srcWidth];
+        float[] alphas = new float[destWidth];
+        float[] reds = new float[destWidth];
+        float[] greens = new float[destWidth];
+        float[] blues = new float[destWidth];
+        boolean opaque = true;
+        
+        int sy = getFirstSourceRow (first);
+        int syrem = (int) (((long) sy + 1) * destHeight - ((long) first) * srcHeight);
+        int dy = first;
+        int dyrem = 0;
+        int lineRow = -1;
+        while (dy < end) {
+            if (dyrem == 0) {
+                for (int i = 0; i < destWidth; i++) {
+                    alphas[i] = reds[i] = greens[i] = blues[i] = 0f;
+                }
+                dyrem = srcHeight;
+            }
+            int amty = syrem < dyrem ? syrem : dyrem;
+            if (lineRow != sy) {
+                source.getRGB (0, sy - sourceTop, srcWidth, 1, line, 0, srcWidth);
+                lineRow = sy;
+            }
+            int sx = 0;
+            int dx = 0;
+            int sxrem = 0;
+            int dxrem = srcWidth;
+            float a = 0f, r = 0f, g = 0f, b = 0f;
+            while (sx < srcWidth) {
+                if (sxrem == 0) {
+                    sxrem = destWidth;
+                    int rgb = line[sx];
+                    a = rgb >>> 24;
+                    r = (rgb >> 16) & 0xff;
+                    g = (rgb >> 8) & 0xff;
+                    b = rgb & 0xff;
+                    // The components are premultiplied while they are summed.
+                    if (a != 255.0f) {
+                        float ascale = a / 255.0f;
+                        r *= ascale;
+                        g *= ascale;
+                        b *= ascale;
+                    }
+                }
+                int amtx = sxrem < dxrem ? sxrem : dxrem;
+                float mult = ((float) amtx) * amty;
+                alphas[dx] += mult * a;
+                reds[dx] += mult * r;
+                greens[dx] += mult * g;
+                blues[dx] += mult * b;
+                if ((sxrem -= amtx) == 0) {
+                    sx++;
+                }
+                if ((dxrem -= amtx) == 0) {
+                    dx++;
+                    dxrem = srcWidth;
+                }
+            }
+            if ((dyrem -= amty) == 0) {
+                opaque &= calcRow (alphas, reds, greens, blues, out, (dy - first) * destWidth);
+                dy++;
+                // When scaling up, a source row can make more than one destination row.
+                while ((syrem -= amty) >= amty && amty == srcHeight && dy < end) {
+                    System.arraycopy (out, (dy - 1 - first) * destWidth, out, (dy - first) * destWidth, destWidth);
+                    dy++;
+                }
+            } else {
+                syrem -= amty;
+            }
+            if (syrem == 0) {
+                syrem = destHeight;
+                sy++;
+            }
+        }
+        
+        BufferedImage result = new BufferedImage (destWidth, end - first, BufferedImage.TYPE_INT_RGB);
+        if (opaque) {
+            int[] pixels = ((DataBufferInt) result.getRaster ().getDataBuffer ()).getData ();
+            for (int i = 0; i < out.length; ++i) {
+                pixels[i] = out[i] & 0xffffff;
+            }
+        } else {
+            // Drawn over black, in the same way as the scaled instance is drawn.
+            BufferedImage argb = new BufferedImage (destWidth, end - first, BufferedImage.TYPE_INT_ARGB);
+            argb.setRGB (0, 0, destWidth, end - first, out, 0, destWidth);
+            Graphics2D g = result.createGraphics ();
+            g.drawImage (argb, 0, 0, null);
+            g.dispose ();
+        }
+        return result;
+    }
+    
+    /**
+     * Makes a destination row from the sums of its source pixels.
+     *
+     * @return true if the row is opaque
+     */
+    private boolean calcRow (float[] alphas, float[] reds, float[] greens, float[] blues, int[] out, int offset) {
+        float origmult = ((float) srcWidth) * srcHeight;
+        boolean opaque = true;
+        for (int x = 0; x < destWidth; x++) {
+            float mult = origmult;
+            int a = Math.round (alphas[x] / mult);
+            if (a <= 0) {
+                a = 0;
+            } else if (a >= 255) {
+                a = 255;
+            } else {
+                // Dividing by the alpha here un-premultiplies the components.
+                mult = alphas[x] / 255;
+            }
+            int r = clamp (Math.round (reds[x] / mult));
+            int g = clamp (Math.round (greens[x] / mult));
+            int b = clamp (Math.round (blues[x] / mult));
+            out[offset + x] = a << 24 | r << 16 | g << 8 | b;
+            opaque &= a == 255;
+        }
+        return opaque;
+    }
+    
+    private static int clamp (int c) {
+        return c < 0 ? 0 : (c > 255 ? 255 : c);
+    }
+}
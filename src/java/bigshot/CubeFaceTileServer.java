@@ -0,0 +1,594 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot;
+
+import bigshot.tools.minihttpd.HttpRequest;
+import bigshot.tools.minihttpd.HttpResponse;
+import bigshot.tools.minihttpd.MinimalHttpd;
+import bigshot.tools.minihttpd.ResponseCache;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves the six cube faces of a VR panorama without building the pyramids first.
+ * Each tile is rendered from the equirectangular (or cylindrical) image map when it
+ * is first requested, using {@link AbstractCubicTransform#transform(int,int,int,int)}
+ * at the resolution of its level, and is then kept in a disk cache. Recently used
+ * tiles are also kept in memory by the {@link ResponseCache} of the server.
+ *
+ * <p>The URLs are the same as for a pyramid built by {@link MakeImagePyramid} with
+ * the same parameters and folder output: {@code face_f/descriptor} (or {@code face_f.xml}
+ * for DZI descriptors), {@code face_f/poster.jpg} and {@code face_f/}<i>level</i>{@code /}<i>x</i>{@code _}<i>y</i>{@code .jpg},
+ * and likewise for the faces r, b, l, u and d.
+ *
+ * <p>The image map is decoded once and kept in memory, together with copies at 1/2,
+ * 1/4, ... of its resolution. Each level is rendered from the smallest copy with
+ * enough resolution, so that the coarse levels are neither slow nor aliased.
+ * Requests for a tile that is already being rendered wait for that rendering
+ * instead of starting another.
+ *
+ * <p>Usage: <code>java -cp bigshot.jar bigshot.CubeFaceTileServer <i>input</i> <i>cache folder</i>
+ * [--port <i>port</i>] [--threads <i>n</i>] [--disk-cache-size <i>bytes</i>] [--cache-size <i>bytes</i>]
+ * [<i>pyramid options</i>]</code>. The pyramid options are those of {@link MakeImagePyramid},
+ * such as {@code --face-size}, {@code --tile-size}, {@code --overlap}, {@code --preset dzi-cubemap}
+ * and {@code --transform cylinder-facemap}.
+ */
+public class CubeFaceTileServer extends MinimalHttpd {
+    
+    private final static String[] FACES = { "f", "r", "b", "l", "u", "d" };
+    
+    /**
+     * Yaw and pitch of each face, in the order of {@link #FACES}.
+     */
+    private final static double[][] FACE_VIEWS = { { 0, 0 }, { 90, 0 }, { 180, 0 }, { -90, 0 }, { 0, 90 }, { 0, -90 } };
+    
+    /**
+     * Name of the file in the cache folder that records the input and parameters
+     * the cached tiles were rendered with.
+     */
+    private final static String CACHE_KEY_FILE = "cache-key";
+    
+    private final ImagePyramidParameters parameters;
+    private final File cacheFolder;
+    
+    /**
+     * The image map at full resolution and at successive halvings.
+     */
+    private final Image[] sources;
+    
+    /**
+     * Horizontal field of view of the image map, in degrees.
+     */
+    private final double inputHfov;
+    
+    private final MakeImagePyramid.Output output;
+    private final String suffix;
+    private final int faceSize;
+    private final int tileSize;
+    private final int overlap;
+    private final boolean exactEdgeTiles;
+    private final int maxZoom;
+    private final int posterWidth;
+    private final Pattern tilePattern;
+    
+    private final ExecutorService renderers;
+    private final DiskCache diskCache;
+    
+    /**
+     * Renderings in progress, keyed by the path of the tile.
+     */
+    private final ConcurrentMap<String,FutureTask<File>> inFlight = new ConcurrentHashMap<String,FutureTask<File>> ();
+    
+    /**
+     * A bounded set of files, deleted in least-recently-used order. Files that are
+     * pinned, because a response is waiting to send them, aren't deleted until
+     * they are unpinned.
+     */
+    private static class DiskCache {
+        private final long capacity;
+        private long size = 0;
+        private final LinkedHashMap<File,Long> files = new LinkedHashMap<File,Long> (16, 0.75f, true);
+        private final Map<File,Integer> pins = new HashMap<File,Integer> ();
+        
+        public DiskCache (long capacity) {
+            this.capacity = capacity;
+        }
+        
+        /**
+         * Returns true if the file is in the cache, and marks it as recently used.
+         */
+        public synchronized boolean touch (File f) {
+            return files.get (f) != null;
+        }
+        
+        /**
+         * Adds the files in a folder and its subfolders, oldest first.
+         */
+        public synchronized void scan (File folder, final String suffix) {
+            List<File> found = new ArrayList<File> ();
+            find (folder, suffix, found);
+            Collections.sort (found, new Comparator<File> () {
+                    public int compare (File a, File b) {
+                        long diff = a.lastModified () - b.lastModified ();
+                        return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+                    }
+                });
+            for (File f : found) {
+                add (f);
+            }
+        }
+        
+        private static void find (File folder, String suffix, List<File> found) {
+            File[] children = folder.listFiles ();
+            if (children != null) {
+                for (File child : children) {
+                    if (child.isDirectory ()) {
+                        find (child, suffix, found);
+                    } else if (child.getName ().endsWith (suffix)) {
+                        found.add (child);
+                    }
+                }
+            }
+        }
+        
+        public synchronized void add (File f) {
+            Long old = files.put (f, f.length ());
+            if (old != null) {
+                size -= old;
+            }
+            size += f.length ();
+            evict (f);
+        }
+        
+        /**
+         * Keeps a file from being deleted. A file can be pinned before it is added.
+         */
+        public synchronized void pin (File f) {
+            Integer count = pins.get (f);
+            pins.put (f, count == null ? 1 : count + 1);
+        }
+        
+        /**
+         * Lets a file be deleted again. Files that were kept while pinned are
+         * deleted when the next file is added.
+         */
+        public synchronized void unpin (File f) {
+            Integer count = pins.get (f);
+            if (count == null || count <= 1) {
+                pins.remove (f);
+            } else {
+                pins.put (f, count - 1);
+            }
+        }
+        
+        /**
+         * Deletes the least recently used files that aren't pinned until the
+         * cache fits its capacity.
+         *
+         * @param keep a file that isn't deleted
+         */
+        private void evict (File keep) {
+            Iterator<Map.Entry<File,Long>> iter = files.entrySet ().iterator ();
+            while (size > capacity && iter.hasNext ()) {
+                Map.Entry<File,Long> e = iter.next ();
+                if (e.getKey ().equals (keep) || pins.containsKey (e.getKey ())) {
+                    continue;
+                }
+                e.getKey ().delete ();
+                size -= e.getValue ();
+                iter.remove ();
+            }
+        }
+    }
+    
+    /**
+     * The response to a request for a tile that is being rendered. Once the tile
+     * is in the disk cache, it is served like any other file. The tile is pinned
+     * in the disk cache until the response has been created, so that tiles that
+     * are rendered at the same time don't evict it.
+     */
+    private class RenderedResponse implements Future<HttpResponse> {
+        
+        private final Future<File> rendering;
+        private final HttpRequest request;
+        private final File file;
+        private boolean released = false;
+        
+        public RenderedResponse (Future<File> rendering, HttpRequest request, File file) {
+            this.rendering = rendering;
+            this.request = request;
+            this.file = file;
+            diskCache.pin (file);
+        }
+        
+        private synchronized void release () {
+            if (!released) {
+                released = true;
+                diskCache.unpin (file);
+            }
+        }
+        
+        /**
+         * Unpins the tile. The rendering may be shared with other requests, so it
+         * isn't cancelled.
+         */
+        public boolean cancel (boolean mayInterruptIfRunning) {
+            release ();
+            return false;
+        }
+        
+        public boolean isCancelled () {
+            return false;
+        }
+        
+        public boolean isDone () {
+            return rendering.isDone ();
+        }
+        
+        public HttpResponse get () throws InterruptedException, ExecutionException {
+            try {
+                rendering.get ();
+                return respond (request);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (ExecutionException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new ExecutionException (e);
+            } finally {
+                release ();
+            }
+        }
+        
+        public HttpResponse get (long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            try {
+                rendering.get (timeout, unit);
+            } catch (ExecutionException e) {
+                release ();
+                throw e;
+            }
+            return get ();
+        }
+    }
+    
+    /**
+     * Creates a new server.
+     *
+     * @param input the image map
+     * @param cacheFolder the folder to keep rendered tiles and descriptors in
+     * @param parameters the pyramid parameters, as for {@link MakeImagePyramid}
+     * @param port the port to listen to
+     * @param threads the number of tiles to render at once
+     * @param diskCacheSize the largest number of bytes of tiles to keep in the cache folder
+     */
+    public CubeFaceTileServer (File input, File cacheFolder, ImagePyramidParameters parameters, int port, int threads, long diskCacheSize) throws Exception {
+        super (cacheFolder, Integer.MAX_VALUE, "/index.html", port);
+        
+        this.parameters = parameters;
+        this.cacheFolder = cacheFolder;
+        
+        if (parameters.transform () == null) {
+            parameters.transform (ImagePyramidParameters.Transform.FACEMAP);
+        } else if (parameters.transform () != ImagePyramidParameters.Transform.FACEMAP &&
+            parameters.transform () != ImagePyramidParameters.Transform.CYLINDER_FACEMAP) {
+            throw new IllegalArgumentException ("Only the facemap and cylinder-facemap transforms can be served: " + parameters.transform ());
+        }
+        if (parameters.folderLayout () == ImagePyramidParameters.FolderLayout.BUCKETED) {
+            throw new IllegalArgumentException ("The bucketed folder layout can't be served.");
+        }
+        MakeImagePyramid.setInputImageParameters (parameters, input);
+        if (parameters.preset () == ImagePyramidParameters.Preset.DZI_CUBEMAP) {
+            MakeImagePyramid.presetDziCubemap (parameters);
+        }
+        
+        this.output = MakeImagePyramid.createOutput (parameters);
+        this.suffix = output.getSuffix ();
+        this.overlap = parameters.optOverlap (0);
+        this.faceSize = parameters.optFaceSize (2048) + overlap;
+        this.tileSize = parameters.optTileSize (256) + overlap;
+        this.exactEdgeTiles = parameters.optExactEdgeTiles (false);
+        this.maxZoom = MakeImagePyramid.getLevels (faceSize, faceSize, tileSize, parameters);
+        int posterSize = parameters.optPosterSize (512);
+        double posterScale = ((double) posterSize) / faceSize;
+        this.posterWidth = (int) (faceSize * posterScale);
+        this.tilePattern = Pattern.compile ("/?face_([frblud])/(?:(poster)|([0-9]+)/([0-9]+)_([0-9]+))" + Pattern.quote (suffix));
+        
+        System.out.println ("Reading " + input.getPath ());
+        List<Image> levels = new ArrayList<Image> ();
+        levels.add (Image.read (input));
+        while (Math.min (levels.get (levels.size () - 1).width (), levels.get (levels.size () - 1).height ()) >= 512) {
+            levels.add (levels.get (levels.size () - 1).halve ());
+        }
+        this.sources = levels.toArray (new Image[levels.size ()]);
+        this.inputHfov = createTransform (0, 0).inputHfov ();
+        
+        prepareCacheFolder (input);
+        
+        this.diskCache = new DiskCache (diskCacheSize);
+        for (String face : FACES) {
+            diskCache.scan (new File (cacheFolder, "face_" + face), suffix);
+        }
+        this.renderers = Executors.newFixedThreadPool (threads);
+        System.out.println ("Serving " + maxZoom + " levels of " + faceSize + " x " + faceSize + " faces, " + tileSize + " pixel tiles.");
+    }
+    
+    /**
+     * Empties the cache folder if it holds tiles rendered from another input or
+     * with other parameters, and writes the descriptors.
+     */
+    private void prepareCacheFolder (File input) throws Exception {
+        cacheFolder.mkdirs ();
+        String key = input.getCanonicalPath () + "\n" + input.lastModified () + "\n" + input.length () + "\n" + parameters + "\n";
+        File keyFile = new File (cacheFolder, CACHE_KEY_FILE);
+        if (!key.equals (readText (keyFile))) {
+            System.out.println ("Clearing " + cacheFolder.getPath ());
+            for (String face : FACES) {
+                deleteAll (new File (cacheFolder, "face_" + face));
+                new File (cacheFolder, "face_" + face + ".xml").delete ();
+            }
+            FileOutputStream os = new FileOutputStream (keyFile);
+            try {
+                os.write (key.getBytes ("UTF-8"));
+            } finally {
+                os.close ();
+            }
+        }
+        
+        for (String face : FACES) {
+            File folder = new File (cacheFolder, "face_" + face);
+            folder.mkdirs ();
+            MakeImagePyramid.DescriptorOutput descriptor = MakeImagePyramid.createDescriptor (parameters);
+            descriptor.setSuffix (suffix);
+            descriptor.setFullSize (faceSize, faceSize);
+            descriptor.setPosterSize (parameters.optPosterSize (512), posterWidth, posterWidth);
+            descriptor.setTileSize (tileSize, overlap, (-maxZoom + 1));
+            descriptor.output (folder);
+        }
+    }
+    
+    private static String readText (File f) throws IOException {
+        if (!f.isFile ()) {
+            return null;
+        }
+        byte[] data = new byte[(int) f.length ()];
+        FileInputStream is = new FileInputStream (f);
+        try {
+            int n = 0;
+            while (n < data.length) {
+                int r = is.read (data, n, data.length - n);
+                if (r < 0) {
+                    break;
+                }
+                n += r;
+            }
+        } finally {
+            is.close ();
+        }
+        return new String (data, "UTF-8");
+    }
+    
+    private static void deleteAll (File f) {
+        File[] children = f.listFiles ();
+        if (children != null) {
+            for (File child : children) {
+                deleteAll (child);
+            }
+        }
+        f.delete ();
+    }
+    
+    /**
+     * Returns the size of the faces at a level.
+     */
+    private int getLevelSize (int zoom) {
+        int w = faceSize;
+        for (int i = 0; i < zoom; ++i) {
+            w = (w - overlap) / 2 + overlap;
+        }
+        return w;
+    }
+    
+    /**
+     * Creates a transform that renders a face at the given size, reading the
+     * smallest copy of the image map that has enough resolution.
+     */
+    private AbstractCubicTransform<? extends AbstractCubicTransform> createTransform (int face, int size) throws Exception {
+        int level = 0;
+        // A face spans 90 degrees, so it needs (input hfov / 90) input pixels per face pixel.
+        while (level + 1 < sources.length && size > 0 && sources[level + 1].width () >= size * inputHfov / 90) {
+            ++level;
+        }
+        AbstractCubicTransform<? extends AbstractCubicTransform> xform = MakeImagePyramid.createFaceTransform (parameters);
+        xform.inputSubsampling = 1 << level;
+        xform.input (sources[level]);
+        MakeImagePyramid.configureFaceTransform (xform, parameters);
+        xform.size (Math.max (size, 1), Math.max (size, 1))
+            .view (FACE_VIEWS[face][0], FACE_VIEWS[face][1], 0);
+        return xform;
+    }
+    
+    /**
+     * Renders a tile, or the poster if {@code zoom} is negative, to a file.
+     */
+    private void render (int face, int zoom, int tx, int ty, File f) throws Exception {
+        BufferedImage image;
+        if (zoom < 0) {
+            image = createTransform (face, posterWidth).transform ().toBuffered ();
+        } else {
+            int levelSize = getLevelSize (zoom);
+            int x = tx * (tileSize - overlap);
+            int y = ty * (tileSize - overlap);
+            int w = Math.min (x + tileSize, levelSize) - x;
+            int h = Math.min (y + tileSize, levelSize) - y;
+            BufferedImage section = createTransform (face, levelSize).transform (x, y, w, h).toBuffered ();
+            
+            if (exactEdgeTiles) {
+                image = section;
+            } else {
+                // Pad edge tiles, as MakeImagePyramid does.
+                image = new BufferedImage (tileSize, tileSize, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = image.createGraphics ();
+                g.setColor (Color.BLACK);
+                g.fillRect (0, 0, tileSize, tileSize);
+                g.drawImage (section, 0, 0, null);
+                g.dispose ();
+            }
+        }
+        
+        // Write to a temporary file first, so that a partial tile is never served.
+        f.getParentFile ().mkdirs ();
+        File temp = new File (f.getParentFile (), f.getName () + "." + Thread.currentThread ().getId () + ".tmp");
+        (zoom < 0 ? output : output.forLevel (zoom)).write (image, temp);
+        if (!temp.renameTo (f)) {
+            f.delete ();
+            if (!temp.renameTo (f)) {
+                temp.delete ();
+                throw new IOException ("Unable to rename " + temp.getPath () + " to " + f.getPath ());
+            }
+        }
+    }
+    
+    /**
+     * Starts rendering a tile, or returns the rendering in progress.
+     */
+    private Future<File> render (final String path, final int face, final int zoom, final int tx, final int ty) {
+        FutureTask<File> task = inFlight.get (path);
+        if (task != null) {
+            return task;
+        }
+        final File f = new File (cacheFolder, path);
+        FutureTask<File> newTask = new FutureTask<File> (new Callable<File> () {
+                public File call () throws Exception {
+                    render (face, zoom, tx, ty, f);
+                    diskCache.add (f);
+                    return f;
+                }
+            }) {
+            protected void done () {
+                inFlight.remove (path, this);
+                wakeup ();
+            }
+        };
+        task = inFlight.putIfAbsent (path, newTask);
+        if (task == null) {
+            task = newTask;
+            renderers.execute (newTask);
+        }
+        return task;
+    }
+    
+    /**
+     * Renders tiles and posters that aren't in the cache. Other requests, and tiles
+     * that are cached, are answered by {@link #respond}.
+     */
+    protected Future<HttpResponse> respondLater (HttpRequest request) throws Exception {
+        String path = request.getParameters ()[0];
+        Matcher m = tilePattern.matcher (path);
+        if (!m.matches ()) {
+            return null;
+        }
+        if (path.startsWith ("/")) {
+            path = path.substring (1);
+        }
+        File f = new File (cacheFolder, path);
+        if (diskCache.touch (f)) {
+            return null;
+        }
+        
+        int face = Arrays.asList (FACES).indexOf (m.group (1));
+        if (m.group (2) != null) {
+            return new RenderedResponse (render (path, face, -1, 0, 0), request, f);
+        }
+        
+        int zoom = -1;
+        for (int i = 0; i < maxZoom; ++i) {
+            if (MakeImagePyramid.getLevelName (i, maxZoom, parameters).equals (m.group (3))) {
+                zoom = i;
+            }
+        }
+        if (zoom < 0) {
+            return null;
+        }
+        int tx = Integer.parseInt (m.group (4));
+        int ty = Integer.parseInt (m.group (5));
+        int levelSize = getLevelSize (zoom);
+        if (tx * (tileSize - overlap) >= levelSize - overlap || ty * (tileSize - overlap) >= levelSize - overlap) {
+            // No such tile. Let respond () answer 404.
+            return null;
+        }
+        return new RenderedResponse (render (path, face, zoom, tx, ty), request, f);
+    }
+    
+    public static void main (String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println ("Usage: CubeFaceTileServer input cache-folder [--port port] [--threads n] [--disk-cache-size bytes] [--cache-size bytes] [pyramid options]");
+            System.exit (1);
+        }
+        File input = new File (args[0]);
+        File cacheFolder = new File (args[1]);
+        Map<String,String> options = new HashMap<String,String> ();
+        Map<String,String> pyramidOptions = new HashMap<String,String> ();
+        List<String> serverOptions = Arrays.asList ("port", "threads", "disk-cache-size", "cache-size");
+        for (int i = 2; i + 1 < args.length; i += 2) {
+            if (args[i].startsWith ("--")) {
+                String key = args[i].substring (2);
+                if (serverOptions.contains (key)) {
+                    options.put (key, args[i + 1]);
+                } else {
+                    pyramidOptions.put (key, args[i + 1]);
+                }
+            }
+        }
+        
+        int port = options.containsKey ("port") ? Integer.parseInt (options.get ("port")) : 80;
+        int threads = options.containsKey ("threads") ? Integer.parseInt (options.get ("threads")) : Runtime.getRuntime ().availableProcessors ();
+        long diskCacheSize = options.containsKey ("disk-cache-size") ? Long.parseLong (options.get ("disk-cache-size")) : 1024L * 1024 * 1024;
+        long cacheSize = options.containsKey ("cache-size") ? Long.parseLong (options.get ("cache-size")) : 64L * 1024 * 1024;
+        
+        CubeFaceTileServer server = new CubeFaceTileServer (input, cacheFolder, new ImagePyramidParameters (pyramidOptions), port, threads, diskCacheSize);
+        if (cacheSize > 0) {
+            server.cache (new ResponseCache (cacheSize));
+        }
+        server.run ();
+    }
+}
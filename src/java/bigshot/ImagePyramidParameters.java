@@ -1,243 +1,364 @@
-/*
- * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
- *  
- * Licensed under the Apache License, Version 2.0 (the "License"); 
- * you may not use this file except in compliance with the License. 
- * You may obtain a copy of the License at 
- * 
- *     http://www.apache.org/licenses/LICENSE-2.0 
- *     
- * Unless required by applicable law or agreed to in writing, software 
- * distributed under the License is distributed on an "AS IS" BASIS, 
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
- * See the License for the specific language governing permissions and 
- * limitations under the License. 
- */
-package bigshot;
-
-import java.util.Map;
-import java.util.TreeMap;
-
-/**
- * A typesafe interface to the parameters for MakeImagePyramid.
- */
-public class ImagePyramidParameters extends TreeMap<String,String> {
-    
-    /**
-     * Creates an empty parameter set.
-     */
-    public ImagePyramidParameters () {
-    }
-    
-    /**
-     * Creates a parameter set by copying another set.
-     */
-    public ImagePyramidParameters (Map<String,String> params) {
-        this.putAll (params);
-    }
-    
-    /**
-     * Sets the given parameter if it is not set.
-     */
-    public void putIfEmpty (String key, String value) {
-        if (!containsKey (key)) {
-            put (key, value);
-        }
-    }
-    
-    @CLASSNAME
-        ImagePyramidParameters
-        ;
-    
-    @STRINGENUM 
-        Preset
-        A preset set of parameters.
-        dzi-cubemap 
-        Preset for Deep Zoom cubemaps
-        ;
-    
-    @STRINGENUM 
-        Format
-        The output format for the image pyramid.
-        archive
-        A single-file {@code .bigshot} archive.
-        folders
-        A folder structure.
-        ;
-    
-    @STRINGENUM
-        Transform
-        The input image transform
-        facemap
-        Create a cubic facemap from an equirectangular projection image map
-        cylinder-facemap
-        Create a cubic facemap from a cylindrical projection image map
-        face
-        Output a single rectilinear image
-        ;
-    
-    @INTEGER
-        inputWidth
-        Width of the source image. Set internally by the application.
-        ;
-    
-    @INTEGER
-        inputHeight
-        Height of the source image. Set internally by the application.
-        ;
-    
-    @INTEGER
-        posterSize
-        Size of the low-resolution preview image along the longest image dimension (width or height).
-        ;
-
-    @INTEGER
-        tileSize
-        Size in pixels of an image tile.
-        ;
-
-    @INTEGER
-        levels
-        Number of levels in the image pyramid. Cannot be used with wrapX. Default: Enough to shrink the image to half a tile along the longest dimension.
-        ;
-        
-    @BOOLEAN
-        wrapX
-        The number of levels in the pyramid to the number of times the image can be reduced by a factor of 2 before it no longer falls on tile boundaries. Cannot be used with levels.
-        ;
-    
-    @INTEGER
-        overlap
-        Number of pixels overlap between tiles. Default: 0
-        ;
-
-    @STRINGENUM
-        ImageFormat
-        Image format for the tiles and everything.
-        jpg 
-        Create JPEG files.
-        png 
-        Create PNG files.
-        ;
-        
-    @FLOAT
-        jpegQuality
-        Jpeg output quality, between 0.0 and 1.0. Only has effect if imageFormat is JPG. Default: 0.7
-        ;
-
-    @INTEGER
-        faceSize
-        The size of each cube map face. Only applicable when using Transform.FACEMAP or Transform.CYLINDER_FACEMAP
-        ;
-
-    @STRINGENUM
-        FolderLayout
-        The folder structure of the output pyramid. Default is BIGSHOT.
-        bigshot
-        Outputs a folder layout compatible with the default Bigshot filesystem adapters.
-        dzi
-        Outputs a folder layout compatible with Microsoft's Deep Zoom Image format.
-        ;
-
-    @STRINGENUM
-        DescriptorFormat
-        The descriptor format for the output pyramid.
-        bigshot
-        Outputs a descriptor compatible with the default Bigshot filesystem adapters.
-        dzi
-        Outputs a descriptor compatible with Microsoft's Deep Zoom Image format.
-        ;
-
-    @STRINGENUM
-        LevelNumbering 
-        If set to "invert", inverts the level numbering. By default, zoom level 0 is the full-size image, level 1 is half the size of level 0, and so on. In the Deep Zoom Image format, level N is the image at a resolution where the largest dimension is 2^n pixels. For example, a 2048x2048 Deep Zoom image would be at full resolution at level 11, half resolution at level 10, and so on.
-        invert
-        Inverts the level numbering.
-        ;
-        
-
-    @FLOAT
-        yaw
-        The yaw angle, in degrees, of the viewer when using the "face" transform.
-        ;
-
-    @FLOAT
-        pitch
-        The pitch angle, in degrees, of the viewer when using the "face" transform.
-        ;
-
-    @FLOAT
-        roll
-        The roll angle, in degrees, of the viewer when using the "face" transform.
-        ;
-
-    @FLOAT
-        yawOffset
-        The initial yaw offset to apply when using the "face" or "*-facemap" transforms, in degrees.
-        ;
-
-    @FLOAT
-        pitchOffset
-        The initial pitch offset to apply when using the "face" or "*-facemap" transforms, in degrees.
-        ;
-
-    @FLOAT
-        rollOffset
-        The initial roll offset to apply when using the "face" or "*-facemap" transforms, in degrees.
-        ;
-
-    @INTEGER
-        inputHorizon
-        For the "*-facemap" transforms, the y-coordinate of the horizon in the map image.
-        ;
-
-    @FLOAT
-        inputVfov
-        For the "*-facemap" transforms, the vertical field of view of the map image, in degrees.
-        ;
-
-    @FLOAT
-        inputHfov
-        For the "*-facemap" transforms, the horizontal field of view of the map image, in degrees.
-        ;
-
-    @STRING 
-        transformPto
-        For the "*-facemap" transforms, sets the input-vfov, input-hfov and input-horizon parameters from a Hugin .pto file. Note: You must still specify the transform (cylindrical or equirectangular).
-        ;
-
-    @INTEGER
-        oversampling
-        The resolution, along each axis, of the oversampling grid when using the "face" transform.
-        ;
-
-    @FLOAT
-        jitter
-        The random sampling jitter to use when using the "face" transform.
-        ;
-
-    @FLOAT
-        fov
-        The output field of view when using the "face" transform.
-        ;
-
-    @INTEGER
-        outputWidth
-        The output image width when using the "face" transform.
-        ;
-
-    @INTEGER
-        outputHeight
-        The output image width when using the "face" transform.
-        ;
-
-    @BOOLEAN
-        topCap
-        Set to true to attempt to fill in the missing top-section of VR panoramas where the map doesn't go all the way to zenith.
-        ;
-    
-    @BOOLEAN
-        bottomCap
-        Set to true to attempt to fill in the missing bottom-section of VR panoramas where the map doesn't go all the way to nadir.
-        ;
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A typesafe interface to the parameters for MakeImagePyramid.
+ */
+public class ImagePyramidParameters extends TreeMap<String,String> {
+    
+    /**
+     * Creates an empty parameter set.
+     */
+    public ImagePyramidParameters () {
+    }
+    
+    /**
+     * Creates a parameter set by copying another set.
+     */
+    public ImagePyramidParameters (Map<String,String> params) {
+        this.putAll (params);
+    }
+    
+    /**
+     * Sets the given parameter if it is not set.
+     */
+    public void putIfEmpty (String key, String value) {
+        if (!containsKey (key)) {
+            put (key, value);
+        }
+    }
+    
+    @CLASSNAME
+        ImagePyramidParameters
+        ;
+    
+    @STRINGENUM 
+        Preset
+        A preset set of parameters.
+        dzi-cubemap 
+        Preset for Deep Zoom cubemaps
+        ;
+    
+    @STRINGENUM 
+        Format
+        The output format for the image pyramid.
+        archive
+        A single-file {@code .bigshot} archive.
+        folders
+        A folder structure.
+        ;
+    
+    @STRING
+        profiles
+        A file listing several output profiles to write from the same input in one run. The input is decoded, transformed and reduced once, and only the tiling and encoding are done for each profile. The output is then a folder, and each profile is written to its own folder or archive in it. See OutputProfile for the format.
+        ;
+    
+    @STRING
+        shard
+        Makes one part of a build that is split over several processes, given as index/count, such as 0/4. The part is written to the folder output.shard-index next to the output. Cube maps are split by face, other images by bands of tile rows, and each part only decodes and reduces its band. Can't be used with mosaic input, progressive builds or output profiles, nor with draft builds of images other than cube maps. See Shard.
+        ;
+    
+    @INTEGER
+        mergeShards
+        Merges the given number of parts of a sharded build into the output, and writes the descriptor and archive. Run with the same input and parameters as the parts, without the shard. The output is the same as that of a single build.
+        ;
+    
+    @STRINGENUM 
+        InputFormat
+        The type of the input file. Default: mosaic if the input file name ends in ".mosaic", image otherwise.
+        image
+        A single image file.
+        mosaic
+        A mosaic descriptor listing a grid of source tiles. See Mosaic for the format.
+        ;
+    
+    @STRINGENUM
+        Quality
+        The build quality. Default: final
+        final
+        Full resolution, full quality.
+        draft
+        A quick preview with the same layout as a final build but fewer levels. The input is read at reduced resolution, the transforms use nearest-neighbour sampling without oversampling or jitter, and the tiles are written with low JPEG quality.
+        ;
+    
+    @INTEGER
+        draftSubsampling
+        For draft builds, read only every n:th pixel of the input along each axis. Default: the smallest power of two that brings the longest input dimension to 4096 pixels or less.
+        ;
+    
+    @STRINGENUM
+        Transform
+        The input image transform
+        facemap
+        Create a cubic facemap from an equirectangular projection image map
+        cylinder-facemap
+        Create a cubic facemap from a cylindrical projection image map
+        face
+        Output a single rectilinear image
+        ;
+    
+    @INTEGER
+        inputWidth
+        Width of the source image. Set internally by the application.
+        ;
+    
+    @INTEGER
+        inputHeight
+        Height of the source image. Set internally by the application.
+        ;
+    
+    @INTEGER
+        posterSize
+        Size of the low-resolution preview image along the longest image dimension (width or height).
+        ;
+    
+    @INTEGER
+        tileSize
+        Size in pixels of an image tile.
+        ;
+    
+    @INTEGER
+        levels
+        Number of levels in the image pyramid. Cannot be used with wrapX. Default: Enough to shrink the image to half a tile along the longest dimension.
+        ;
+    
+    @BOOLEAN
+        wrapX
+        The number of levels in the pyramid to the number of times the image can be reduced by a factor of 2 before it no longer falls on tile boundaries. Cannot be used with levels.
+        ;
+    
+    @BOOLEAN
+        progressive
+        Write the descriptor and poster first, then the levels from the coarsest to the finest, and keep a status file listing the completed levels, so that the pyramid can be served while it is being built. Only has effect for folder output. Default: false
+        ;
+    
+    @INTEGER
+        overlap
+        Number of pixels overlap between tiles. Default: 0
+        ;
+    
+    @STRINGENUM
+        ImageFormat
+        Image format for the tiles and everything.
+        jpg 
+        Create JPEG files.
+        png 
+        Create PNG files.
+        ;
+    
+    @FLOAT
+        jpegQuality
+        Jpeg output quality, between 0.0 and 1.0. Only has effect if imageFormat is JPG. Default: 0.7
+        ;
+    
+    @INTEGER
+        jpegTileBudget
+        Adaptive JPEG quality: the largest size of a tile, in bytes. Each tile is written at the highest quality, up to jpegQuality, that fits. Tiles that don't fit at jpegMinQuality are written at jpegMinQuality. Default: no budget
+        ;
+    
+    @FLOAT
+        jpegMaxError
+        Adaptive JPEG quality: the largest root-mean-square error of the luma of a tile, in levels from 0 to 255. Each tile is written at the lowest quality, down to jpegMinQuality, that stays within it. Combined with jpegTileBudget, the budget wins. Default: no limit
+        ;
+    
+    @FLOAT
+        jpegMinQuality
+        Adaptive JPEG quality: the lowest quality that a tile is written at. Default: 0.3
+        ;
+    
+    @INTEGER
+        jpegTrials
+        Adaptive JPEG quality: the largest number of trial encodes to search for the quality of a tile. Default: 6
+        ;
+    
+    @FLOAT
+        jpegLevelQualityStep
+        Lower the highest JPEG quality by this much for each level above the full resolution level, down to jpegMinQuality. Also enables the adaptive quality report. Default: 0
+        ;
+    
+    @BOOLEAN
+        losslessJpegTiling
+        Cut the full-resolution level of a baseline JPEG input into tiles in the DCT domain, without decoding and re-encoding it. Only has effect if imageFormat is JPG, no transform, color operations or adaptive JPEG quality are used, and the tile size and overlap fall on MCU boundaries. The tiles keep the quality of the input, so jpegQuality has no effect on the full-resolution level. Default: false
+        ;
+    
+    @BOOLEAN
+        skipEmptyTiles
+        Leave out tiles that are filled entirely with the empty tile color, and record them in an occupancy map in the descriptor, so that the viewer draws the color instead of loading them. Has no effect on progressive builds. Default: false
+        ;
+    
+    @STRING
+        emptyTileColor
+        The color of empty tiles, as six hex digits. Default: 000000
+        ;
+    
+    @STRINGENUM
+        TileOrder
+        The order of the tiles in an archive. Tiles are grouped by level, coarsest first, and by face, and ordered along a curve within each group, so that tiles that are shown together are stored close together. Default: hilbert
+        hilbert
+        Order the tiles along a Hilbert curve.
+        morton
+        Order the tiles along a Morton, or Z-order, curve.
+        none
+        Store the tiles in the order they are found in the output folders.
+        ;
+    
+    @INTEGER
+        atlasLevelSize
+        Pack the levels whose width and height are at most this many pixels into one atlas image, instead of writing them as tiles, so that the viewer loads them with one request. Needs the bigshot descriptor format. Default: 0, no atlas
+        ;
+    
+    @BOOLEAN
+        exactEdgeTiles
+        Write the tiles at the right and bottom edges of each level at their exact size, instead of padding them with black to the full tile size. Deep Zoom images always have exact edge tiles. Default: false
+        ;
+    
+    @BOOLEAN
+        deduplicate
+        Encode tiles of a single colour only once, and store identical tiles only once in archives, with the index entries pointing to the same data. Default: true
+        ;
+    
+    @INTEGER
+        faceSize
+        The size of each cube map face. Only applicable when using Transform.FACEMAP or Transform.CYLINDER_FACEMAP
+        ;
+    
+    @STRINGENUM
+        FolderLayout
+        The folder structure of the output pyramid. Default is BIGSHOT.
+        bigshot
+        Outputs a folder layout compatible with the default Bigshot filesystem adapters.
+        dzi
+        Outputs a folder layout compatible with Microsoft's Deep Zoom Image format.
+        bucketed
+        Outputs the Bigshot folder layout with the tiles of each level spread over bucket folders, so that no folder holds more than tileBucketSize * tileBucketSize tiles.
+        ;
+    
+    @INTEGER
+        tileBucketSize
+        The number of tiles along each side of a bucket in the bucketed folder layout. Default: 32
+        ;
+    
+    @STRINGENUM
+        DescriptorFormat
+        The descriptor format for the output pyramid.
+        bigshot
+        Outputs a descriptor compatible with the default Bigshot filesystem adapters.
+        dzi
+        Outputs a descriptor compatible with Microsoft's Deep Zoom Image format.
+        ;
+    
+    @STRINGENUM
+        LevelNumbering 
+        If set to "invert", inverts the level numbering. By default, zoom level 0 is the full-size image, level 1 is half the size of level 0, and so on. In the Deep Zoom Image format, level N is the image at a resolution where the largest dimension is 2^n pixels. For example, a 2048x2048 Deep Zoom image would be at full resolution at level 11, half resolution at level 10, and so on.
+        invert
+        Inverts the level numbering.
+        ;
+    
+    
+    @FLOAT
+        yaw
+        The yaw angle, in degrees, of the viewer when using the "face" transform.
+        ;
+    
+    @FLOAT
+        pitch
+        The pitch angle, in degrees, of the viewer when using the "face" transform.
+        ;
+    
+    @FLOAT
+        roll
+        The roll angle, in degrees, of the viewer when using the "face" transform.
+        ;
+    
+    @FLOAT
+        yawOffset
+        The initial yaw offset to apply when using the "face" or "*-facemap" transforms, in degrees.
+        ;
+    
+    @FLOAT
+        pitchOffset
+        The initial pitch offset to apply when using the "face" or "*-facemap" transforms, in degrees.
+        ;
+    
+    @FLOAT
+        rollOffset
+        The initial roll offset to apply when using the "face" or "*-facemap" transforms, in degrees.
+        ;
+    
+    @INTEGER
+        inputHorizon
+        For the "*-facemap" transforms, the y-coordinate of the horizon in the map image.
+        ;
+    
+    @FLOAT
+        inputVfov
+        For the "*-facemap" transforms, the vertical field of view of the map image, in degrees.
+        ;
+    
+    @FLOAT
+        inputHfov
+        For the "*-facemap" transforms, the horizontal field of view of the map image, in degrees.
+        ;
+    
+    @STRING 
+        transformPto
+        For the "*-facemap" transforms, sets the input-vfov, input-hfov and input-horizon parameters from a Hugin .pto file. Note: You must still specify the transform (cylindrical or equirectangular).
+        ;
+    
+    @INTEGER
+        oversampling
+        The resolution, along each axis, of the oversampling grid when using the "face" transform.
+        ;
+    
+    @FLOAT
+        jitter
+        The random sampling jitter to use when using the "face" transform.
+        ;
+    
+    @FLOAT
+        fov
+        The output field of view when using the "face" transform.
+        ;
+    
+    @INTEGER
+        outputWidth
+        The output image width when using the "face" transform.
+        ;
+    
+    @INTEGER
+        outputHeight
+        The output image width when using the "face" transform.
+        ;
+    
+    @BOOLEAN
+        topCap
+        Set to true to attempt to fill in the missing top-section of VR panoramas where the map doesn't go all the way to zenith.
+        ;
+    
+    @BOOLEAN
+        bottomCap
+        Set to true to attempt to fill in the missing bottom-section of VR panoramas where the map doesn't go all the way to nadir.
+        ;
+    
+    @STRING
+        colorOperations
+        A comma-separated chain of colour operations (multiply, offset, gamma, mix, levels) applied to the output pixels as they are written. See PixelOperations for the syntax.
+        ;
 }
\ No newline at end of file
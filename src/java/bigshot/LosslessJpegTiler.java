@@ -0,0 +1,810 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.imageio.plugins.jpeg.JPEGHuffmanTable;
+
+/**
+ * Cuts a baseline JPEG into JPEG tiles without decoding it to pixels, in the style of
+ * {@code jpegtran -crop}. The entropy-coded data is Huffman-decoded into quantized DCT
+ * coefficient blocks, and each tile is written by copying the blocks that fall inside
+ * it and Huffman-coding them again with the standard tables. There is no inverse DCT
+ * and no requantization, so the tiles are exact copies of the source image data.
+ *
+ * <p>The source is decoded one band of MCU rows at a time. Only the rows of the current
+ * row of tiles are kept in memory.
+ *
+ * <p>This only works if the tile size and the distance between tiles fall on MCU
+ * boundaries. Use {@link #open} to check if a file can be tiled this way. Blocks in
+ * edge tiles that fall outside of the source image are filled with black. Blocks that
+ * are partially outside the image keep the edge padding of the source encoder.
+ *
+ * <p>Exact-size edge tiles are made the way {@code jpegtran -crop} makes them: only
+ * the blocks that cover the image are written, and the frame header gives the size
+ * of the image area, so that decoders drop the rest of the last blocks.
+ */
+public class LosslessJpegTiler {
+    
+    private final static int SOF0 = 0xc0;
+    private final static int SOF1 = 0xc1;
+    private final static int DHT = 0xc4;
+    private final static int SOI = 0xd8;
+    private final static int EOI = 0xd9;
+    private final static int SOS = 0xda;
+    private final static int DQT = 0xdb;
+    private final static int DRI = 0xdd;
+    private final static int APP0 = 0xe0;
+    private final static int APP14 = 0xee;
+    
+    /**
+     * A frame component, as given by the SOF marker, with the band of
+     * coefficient blocks for the current row of tiles.
+     */
+    private static class Component {
+        public int id;
+        public int h;
+        public int v;
+        public int tq;
+        
+        /**
+         * DC and AC Huffman tables used in the scan.
+         */
+        public HuffmanDecoder dc;
+        public HuffmanDecoder ac;
+        
+        /**
+         * Number of blocks per row in the source, including MCU padding.
+         */
+        public int blocksAcross;
+        
+        /**
+         * The quantized coefficients of the band, in zigzag order,
+         * 64 per block, {@link #blocksAcross} blocks per row.
+         */
+        public short[] band;
+        
+        /**
+         * The quantized DC coefficient of a black block.
+         */
+        public short blackDc;
+    }
+    
+    /**
+     * Huffman decoding table, as described in section F.2.2.3 of the JPEG specification.
+     */
+    private static class HuffmanDecoder {
+        private final int[] maxcode = new int[18];
+        private final int[] valptr = new int[17];
+        private final int[] mincode = new int[17];
+        private final int[] huffval;
+        
+        /**
+         * Lookup table for codes of up to 8 bits. Each entry is
+         * <code>(code length &lt;&lt; 8) | value</code>, or 0 if the
+         * code is longer than 8 bits.
+         */
+        private final int[] lookahead = new int[256];
+        
+        public HuffmanDecoder (int[] bits, int[] huffval) {
+            this.huffval = huffval;
+            int k = 0;
+            int code = 0;
+            for (int l = 1; l <= 16; ++l) {
+                valptr[l] = k;
+                mincode[l] = code;
+                for (int i = 0; i < bits[l]; ++i) {
+                    if (l <= 8) {
+                        int first = code << (8 - l);
+                        int count = 1 << (8 - l);
+                        for (int j = 0; j < count; ++j) {
+                            lookahead[first + j] = (l << 8) | huffval[k + i];
+                        }
+                    }
+                    ++code;
+                }
+                k += bits[l];
+                maxcode[l] = bits[l] > 0 ? code - 1 : -1;
+                code <<= 1;
+            }
+            maxcode[17] = Integer.MAX_VALUE;
+        }
+        
+        public int decode (BitReader in) throws IOException {
+            int look = lookahead[in.peek (8)];
+            if (look != 0) {
+                in.skip (look >> 8);
+                return look & 0xff;
+            }
+            int code = in.peek (8);
+            in.skip (8);
+            int l = 8;
+            while (code > maxcode[l]) {
+                code = (code << 1) | in.getBits (1);
+                ++l;
+                if (l > 16) {
+                    throw new IOException ("Corrupt JPEG data: bad Huffman code");
+                }
+            }
+            return huffval[valptr[l] + code - mincode[l]];
+        }
+    }
+    
+    /**
+     * Huffman encoding table, as described in section C of the JPEG specification.
+     */
+    private static class HuffmanEncoder {
+        public final int[] code = new int[256];
+        public final int[] size = new int[256];
+        public final short[] bits;
+        public final short[] values;
+        
+        public HuffmanEncoder (JPEGHuffmanTable table) {
+            bits = table.getLengths ();
+            values = table.getValues ();
+            int k = 0;
+            int c = 0;
+            for (int l = 1; l <= 16; ++l) {
+                for (int i = 0; i < bits[l - 1]; ++i) {
+                    int symbol = values[k++];
+                    code[symbol] = c;
+                    size[symbol] = l;
+                    ++c;
+                }
+                c <<= 1;
+            }
+        }
+    }
+    
+    /**
+     * Reads bits from the entropy-coded segment, removing stuffed zero bytes
+     * and stopping at markers.
+     */
+    private static class BitReader {
+        private final InputStream in;
+        private int buffer = 0;
+        private int count = 0;
+        
+        /**
+         * The marker that ended the entropy-coded segment, or -1 if none has
+         * been seen.
+         */
+        public int marker = -1;
+        
+        public BitReader (InputStream in) {
+            this.in = in;
+        }
+        
+        private void fill () throws IOException {
+            while (count <= 24) {
+                int b = 0;
+                if (marker == -1) {
+                    b = in.read ();
+                    if (b == 0xff) {
+                        int b2 = in.read ();
+                        while (b2 == 0xff) {
+                            b2 = in.read ();
+                        }
+                        if (b2 == 0) {
+                            b = 0xff;
+                        } else {
+                            marker = b2 < 0 ? EOI : b2;
+                            b = 0;
+                        }
+                    } else if (b < 0) {
+                        marker = EOI;
+                        b = 0;
+                    }
+                }
+                buffer = (buffer << 8) | b;
+                count += 8;
+            }
+        }
+        
+        public int peek (int n) throws IOException {
+            if (count < n) {
+                fill ();
+            }
+            return (buffer >>> (count - n)) & ((1 << n) - 1);
+        }
+        
+        public void skip (int n) {
+            count -= n;
+        }
+        
+        public int getBits (int n) throws IOException {
+            if (n == 0) {
+                return 0;
+            }
+            int v = peek (n);
+            count -= n;
+            return v;
+        }
+        
+        /**
+         * Discards any remaining bits and reads the next RST marker.
+         */
+        public void restart () throws IOException {
+            count = 0;
+            buffer = 0;
+            if (marker == -1) {
+                int b = in.read ();
+                while (b != 0xff && b >= 0) {
+                    b = in.read ();
+                }
+                while (b == 0xff) {
+                    b = in.read ();
+                }
+                marker = b;
+            }
+            if (marker < 0xd0 || marker > 0xd7) {
+                throw new IOException ("Corrupt JPEG data: expected RST marker, found " + Integer.toHexString (marker));
+            }
+            marker = -1;
+        }
+    }
+    
+    /**
+     * Writes bits to an entropy-coded segment, stuffing zero bytes after 0xFF.
+     */
+    private static class BitWriter {
+        private final ByteArrayOutputStream out;
+        private int buffer = 0;
+        private int count = 0;
+        
+        public BitWriter (ByteArrayOutputStream out) {
+            this.out = out;
+        }
+        
+        public void put (int bits, int n) {
+            buffer = (buffer << n) | (bits & ((1 << n) - 1));
+            count += n;
+            while (count >= 8) {
+                int b = (buffer >> (count - 8)) & 0xff;
+                out.write (b);
+                if (b == 0xff) {
+                    out.write (0);
+                }
+                count -= 8;
+            }
+        }
+        
+        public void flush () {
+            if (count > 0) {
+                put (0x7f, 8 - count);
+            }
+        }
+    }
+    
+    private final File file;
+    private final List<byte[]> quantizationSegments = new ArrayList<byte[]> ();
+    private final int[][] quantizationDc = new int[4][];
+    private byte[] adobeSegment = null;
+    private int sofMarker;
+    private int width;
+    private int height;
+    private Component[] components;
+    private int hmax = 1;
+    private int vmax = 1;
+    private int restartInterval = 0;
+    private final HuffmanDecoder[][] decoders = new HuffmanDecoder[2][4];
+    
+    /**
+     * Offset of the entropy-coded data in the file.
+     */
+    private long dataOffset = 0;
+    
+    private LosslessJpegTiler (File file) {
+        this.file = file;
+    }
+    
+    /**
+     * Parses the headers of a JPEG file and checks that it can be tiled losslessly.
+     *
+     * @param file the JPEG file
+     * @param tileSize the size of a tile, in pixels, including overlap
+     * @param overlap the tile overlap, in pixels
+     * @return a tiler, or null if the file can't be tiled losslessly with the
+     * given parameters
+     */
+    public static LosslessJpegTiler open (File file, int tileSize, int overlap) throws Exception {
+        LosslessJpegTiler tiler = new LosslessJpegTiler (file);
+        DataInputStream in = new DataInputStream (new BufferedInputStream (new FileInputStream (file), 65536));
+        try {
+            String reason = tiler.readHeaders (in);
+            if (reason == null) {
+                int mcuWidth = 8 * tiler.hmax;
+                int mcuHeight = 8 * tiler.vmax;
+                int step = tileSize - overlap;
+                if (tileSize % mcuWidth != 0 || tileSize % mcuHeight != 0 || step % mcuWidth != 0 || step % mcuHeight != 0) {
+                    reason = "tile size " + tileSize + " and overlap " + overlap + " do not fall on " + mcuWidth + "x" + mcuHeight + " MCU boundaries";
+                }
+            }
+            if (reason != null) {
+                System.out.println ("Not using lossless JPEG tiling: " + reason + ".");
+                return null;
+            }
+            return tiler;
+        } finally {
+            in.close ();
+        }
+    }
+    
+    private int readMarker (DataInputStream in) throws IOException {
+        int b = in.readUnsignedByte ();
+        ++dataOffset;
+        if (b != 0xff) {
+            throw new IOException ("Expected JPEG marker, found " + Integer.toHexString (b));
+        }
+        while (b == 0xff) {
+            b = in.readUnsignedByte ();
+            ++dataOffset;
+        }
+        return b;
+    }
+    
+    /**
+     * Reads the headers up to and including the SOS marker.
+     *
+     * @return null if the file can be tiled, or the reason why it can't
+     */
+    private String readHeaders (DataInputStream in) throws IOException {
+        if (readMarker (in) != SOI) {
+            return "not a JPEG file";
+        }
+        // The Adobe colour transform, or -1 if there is no Adobe segment. The
+        // segment usually comes before the frame header, so the check for RGB
+        // coding waits for the scan header, when the components are known.
+        int adobeTransform = -1;
+        while (true) {
+            int marker = readMarker (in);
+            int length = in.readUnsignedShort () - 2;
+            byte[] segment = new byte[length];
+            in.readFully (segment);
+            dataOffset += 2 + length;
+            
+            if (marker == SOF0 || marker == SOF1) {
+                sofMarker = marker;
+                if ((segment[0] & 0xff) != 8) {
+                    return "sample precision is not 8 bits";
+                }
+                height = ((segment[1] & 0xff) << 8) | (segment[2] & 0xff);
+                width = ((segment[3] & 0xff) << 8) | (segment[4] & 0xff);
+                int nf = segment[5] & 0xff;
+                if (height == 0) {
+                    return "image height is defined by a DNL marker";
+                }
+                if (nf != 1 && nf != 3) {
+                    return nf + " color components";
+                }
+                components = new Component[nf];
+                for (int i = 0; i < nf; ++i) {
+                    Component c = new Component ();
+                    c.id = segment[6 + i * 3] & 0xff;
+                    c.h = (segment[7 + i * 3] >> 4) & 0x0f;
+                    c.v = segment[7 + i * 3] & 0x0f;
+                    c.tq = segment[8 + i * 3] & 0x0f;
+                    if (nf == 1) {
+                        // A single component is always coded as one block per MCU.
+                        c.h = 1;
+                        c.v = 1;
+                    }
+                    hmax = Math.max (hmax, c.h);
+                    vmax = Math.max (vmax, c.v);
+                    components[i] = c;
+                }
+            } else if (marker >= 0xc2 && marker <= 0xcf && marker != DHT && marker != 0xc8 && marker != 0xcc) {
+                return "not a baseline or extended sequential Huffman-coded JPEG";
+            } else if (marker == DQT) {
+                quantizationSegments.add (segment);
+                int p = 0;
+                while (p < segment.length) {
+                    int pq = (segment[p] >> 4) & 0x0f;
+                    int tq = segment[p] & 0x0f;
+                    int dc = pq == 0 ? (segment[p + 1] & 0xff) : (((segment[p + 1] & 0xff) << 8) | (segment[p + 2] & 0xff));
+                    quantizationDc[tq] = new int[]{ dc };
+                    p += 1 + 64 * (pq + 1);
+                }
+            } else if (marker == DHT) {
+                int p = 0;
+                while (p < segment.length) {
+                    int tc = (segment[p] >> 4) & 0x0f;
+                    int th = segment[p] & 0x0f;
+                    int[] bits = new int[17];
+                    int total = 0;
+                    for (int i = 1; i <= 16; ++i) {
+                        bits[i] = segment[p + i] & 0xff;
+                        total += bits[i];
+                    }
+                    int[] values = new int[total];
+                    for (int i = 0; i < total; ++i) {
+                        values[i] = segment[p + 17 + i] & 0xff;
+                    }
+                    decoders[tc][th] = new HuffmanDecoder (bits, values);
+                    p += 17 + total;
+                }
+            } else if (marker == DRI) {
+                restartInterval = ((segment[0] & 0xff) << 8) | (segment[1] & 0xff);
+            } else if (marker == APP14) {
+                if (segment.length >= 12 && new String (segment, 0, 5, "ISO-8859-1").equals ("Adobe")) {
+                    adobeTransform = segment[11] & 0xff;
+                    adobeSegment = segment;
+                }
+            } else if (marker == SOS) {
+                if (components == null) {
+                    return "no SOF marker before SOS";
+                }
+                if (adobeTransform == 0 && components.length == 3) {
+                    // The black padding is only right for YCbCr.
+                    return "Adobe RGB-coded JPEG";
+                }
+                int ns = segment[0] & 0xff;
+                if (ns != components.length) {
+                    return "multi-scan JPEG";
+                }
+                for (int i = 0; i < ns; ++i) {
+                    int cs = segment[1 + i * 2] & 0xff;
+                    int td = (segment[2 + i * 2] >> 4) & 0x0f;
+                    int ta = segment[2 + i * 2] & 0x0f;
+                    Component c = null;
+                    for (Component candidate : components) {
+                        if (candidate.id == cs) {
+                            c = candidate;
+                        }
+                    }
+                    if (c == null || decoders[0][td] == null || decoders[1][ta] == null) {
+                        return "bad scan header";
+                    }
+                    c.dc = decoders[0][td];
+                    c.ac = decoders[1][ta];
+                }
+                for (Component c : components) {
+                    if (quantizationDc[c.tq] == null) {
+                        return "missing quantization table";
+                    }
+                    // Black is -128 after level shift, so the DC coefficient is 8 * -128.
+                    c.blackDc = c == components[0] ? (short) Math.round (-1024.0 / quantizationDc[c.tq][0]) : 0;
+                }
+                return null;
+            } else if (marker == EOI) {
+                return "no image data";
+            }
+        }
+    }
+    
+    /**
+     * Width of the source image, in pixels.
+     */
+    public int width () {
+        return width;
+    }
+    
+    /**
+     * Height of the source image, in pixels.
+     */
+    public int height () {
+        return height;
+    }
+    
+    private static int extend (int v, int t) {
+        return v < (1 << (t - 1)) ? v - (1 << t) + 1 : v;
+    }
+    
+    private void decodeBlock (BitReader in, Component c, short[] dest, int offset, int[] pred, int ci) throws IOException {
+        Arrays.fill (dest, offset, offset + 64, (short) 0);
+        int t = c.dc.decode (in);
+        int diff = t == 0 ? 0 : extend (in.getBits (t), t);
+        pred[ci] += diff;
+        dest[offset] = (short) pred[ci];
+        for (int k = 1; k < 64; ++k) {
+            int rs = c.ac.decode (in);
+            int r = rs >> 4;
+            int s = rs & 0x0f;
+            if (s == 0) {
+                if (r == 15) {
+                    k += 15;
+                    continue;
+                }
+                break;
+            }
+            k += r;
+            if (k > 63) {
+                throw new IOException ("Corrupt JPEG data: coefficient index out of range");
+            }
+            dest[offset + k] = (short) extend (in.getBits (s), s);
+        }
+    }
+    
+    private static void encodeBlock (BitWriter out, short[] src, int offset, int dc, int[] pred, int ci, HuffmanEncoder dcTable, HuffmanEncoder acTable) {
+        int diff = dc - pred[ci];
+        pred[ci] = dc;
+        int a = diff < 0 ? -diff : diff;
+        int s = a == 0 ? 0 : 32 - Integer.numberOfLeadingZeros (a);
+        out.put (dcTable.code[s], dcTable.size[s]);
+        if (s > 0) {
+            out.put (diff < 0 ? diff - 1 : diff, s);
+        }
+        
+        if (src == null) {
+            out.put (acTable.code[0], acTable.size[0]);
+            return;
+        }
+        
+        int run = 0;
+        for (int k = 1; k < 64; ++k) {
+            int v = src[offset + k];
+            if (v == 0) {
+                ++run;
+            } else {
+                while (run > 15) {
+                    out.put (acTable.code[0xf0], acTable.size[0xf0]);
+                    run -= 16;
+                }
+                a = v < 0 ? -v : v;
+                s = 32 - Integer.numberOfLeadingZeros (a);
+                int symbol = (run << 4) | s;
+                out.put (acTable.code[symbol], acTable.size[symbol]);
+                out.put (v < 0 ? v - 1 : v, s);
+                run = 0;
+            }
+        }
+        if (run > 0) {
+            out.put (acTable.code[0], acTable.size[0]);
+        }
+    }
+    
+    private static void writeSegment (OutputStream os, int marker, byte[] payload) throws IOException {
+        os.write (0xff);
+        os.write (marker);
+        os.write (((payload.length + 2) >> 8) & 0xff);
+        os.write ((payload.length + 2) & 0xff);
+        os.write (payload);
+    }
+    
+    private static void writeHuffmanTable (ByteArrayOutputStream dht, int tc, int th, HuffmanEncoder table) {
+        dht.write ((tc << 4) | th);
+        for (int i = 0; i < 16; ++i) {
+            dht.write (table.bits[i]);
+        }
+        for (int i = 0; i < table.values.length; ++i) {
+            dht.write (table.values[i]);
+        }
+    }
+    
+    /**
+     * Writes the tiles of a range of tile rows of the source image.
+     *
+     * @param tileSize the size of a tile, in pixels, including overlap
+     * @param overlap the tile overlap, in pixels
+     * @param outputDir the directory to write the tiles to
+     * @param suffix the suffix of the tile files, including the dot
+     * @param bucketSize the bucket size of the bucketed folder layout, or 0
+     * @param exactEdgeTiles if true, the edge tiles are cropped to the image instead
+     * of padded to the full tile size
+     * @param firstTileRow the first tile row to write; the rows above it are still
+     * decoded
+     * @param endTileRow the tile row after the last one to write
+     */
+    public void tile (int tileSize, int overlap, File outputDir, String suffix, int bucketSize, boolean exactEdgeTiles, int firstTileRow, int endTileRow) throws Exception {
+        int mcuWidth = 8 * hmax;
+        int mcuHeight = 8 * vmax;
+        int mcusAcross = (width + mcuWidth - 1) / mcuWidth;
+        int mcusDown = (height + mcuHeight - 1) / mcuHeight;
+        int bandMcuRows = tileSize / mcuHeight;
+        int overlapMcuRows = overlap / mcuHeight;
+        int stepMcuRows = bandMcuRows - overlapMcuRows;
+        
+        for (Component c : components) {
+            c.blocksAcross = mcusAcross * c.h;
+            c.band = new short[c.blocksAcross * bandMcuRows * c.v * 64];
+        }
+        
+        HuffmanEncoder[] dcTables = new HuffmanEncoder[]{
+            new HuffmanEncoder (JPEGHuffmanTable.StdDCLuminance),
+            new HuffmanEncoder (JPEGHuffmanTable.StdDCChrominance)
+        };
+        HuffmanEncoder[] acTables = new HuffmanEncoder[]{
+            new HuffmanEncoder (JPEGHuffmanTable.StdACLuminance),
+            new HuffmanEncoder (JPEGHuffmanTable.StdACChrominance)
+        };
+        
+        byte[] header = createTileHeader (tileSize, tileSize, dcTables, acTables);
+        
+        FileInputStream fis = new FileInputStream (file);
+        InputStream in = new BufferedInputStream (fis, 65536);
+        try {
+            fis.getChannel ().position (dataOffset);
+            BitReader bits = new BitReader (in);
+            int[] pred = new int[components.length];
+            int mcusToRestart = restartInterval;
+            int bufferedMcuRows = 0;
+            int ty = 0;
+            
+            for (int mcuY = 0; mcuY < mcusDown && ty < endTileRow; ++mcuY) {
+                for (int mcuX = 0; mcuX < mcusAcross; ++mcuX) {
+                    if (restartInterval > 0) {
+                        if (mcusToRestart == 0) {
+                            bits.restart ();
+                            Arrays.fill (pred, 0);
+                            mcusToRestart = restartInterval;
+                        }
+                        --mcusToRestart;
+                    }
+                    for (int ci = 0; ci < components.length; ++ci) {
+                        Component c = components[ci];
+                        for (int v = 0; v < c.v; ++v) {
+                            int blockRow = bufferedMcuRows * c.v + v;
+                            for (int h = 0; h < c.h; ++h) {
+                                int blockCol = mcuX * c.h + h;
+                                decodeBlock (bits, c, c.band, (blockRow * c.blocksAcross + blockCol) * 64, pred, ci);
+                            }
+                        }
+                    }
+                }
+                ++bufferedMcuRows;
+                if (bufferedMcuRows == bandMcuRows) {
+                    if (ty >= firstTileRow) {
+                        writeTileRow (ty, bufferedMcuRows, tileSize, overlap, header, dcTables, acTables, outputDir, suffix, bucketSize, exactEdgeTiles);
+                    }
+                    ++ty;
+                    for (Component c : components) {
+                        int blocksPerMcuRow = c.blocksAcross * c.v * 64;
+                        System.arraycopy (c.band, stepMcuRows * blocksPerMcuRow, c.band, 0, overlapMcuRows * blocksPerMcuRow);
+                    }
+                    bufferedMcuRows = overlapMcuRows;
+                }
+            }
+            if (height - ty * (tileSize - overlap) > overlap && ty >= firstTileRow && ty < endTileRow) {
+                writeTileRow (ty, bufferedMcuRows, tileSize, overlap, header, dcTables, acTables, outputDir, suffix, bucketSize, exactEdgeTiles);
+            }
+        } finally {
+            in.close ();
+            for (Component c : components) {
+                c.band = null;
+            }
+        }
+    }
+    
+    /**
+     * Creates the JPEG headers, up to and including the SOS marker, that are shared
+     * by all tiles of the given size.
+     */
+    private byte[] createTileHeader (int tileWidth, int tileHeight, HuffmanEncoder[] dcTables, HuffmanEncoder[] acTables) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream ();
+        os.write (0xff);
+        os.write (SOI);
+        if (adobeSegment != null) {
+            writeSegment (os, APP14, adobeSegment);
+        } else {
+            writeSegment (os, APP0, new byte[]{ 'J', 'F', 'I', 'F', 0, 1, 1, 0, 0, 1, 0, 1, 0, 0 });
+        }
+        for (byte[] dqt : quantizationSegments) {
+            writeSegment (os, DQT, dqt);
+        }
+        
+        ByteArrayOutputStream sof = new ByteArrayOutputStream ();
+        sof.write (8);
+        sof.write ((tileHeight >> 8) & 0xff);
+        sof.write (tileHeight & 0xff);
+        sof.write ((tileWidth >> 8) & 0xff);
+        sof.write (tileWidth & 0xff);
+        sof.write (components.length);
+        for (Component c : components) {
+            sof.write (c.id);
+            sof.write ((c.h << 4) | c.v);
+            sof.write (c.tq);
+        }
+        writeSegment (os, sofMarker, sof.toByteArray ());
+        
+        ByteArrayOutputStream dht = new ByteArrayOutputStream ();
+        writeHuffmanTable (dht, 0, 0, dcTables[0]);
+        writeHuffmanTable (dht, 1, 0, acTables[0]);
+        if (components.length > 1) {
+            writeHuffmanTable (dht, 0, 1, dcTables[1]);
+            writeHuffmanTable (dht, 1, 1, acTables[1]);
+        }
+        writeSegment (os, DHT, dht.toByteArray ());
+        
+        ByteArrayOutputStream sos = new ByteArrayOutputStream ();
+        sos.write (components.length);
+        for (int ci = 0; ci < components.length; ++ci) {
+            sos.write (components[ci].id);
+            sos.write (ci == 0 ? 0x00 : 0x11);
+        }
+        sos.write (0);
+        sos.write (63);
+        sos.write (0);
+        writeSegment (os, SOS, sos.toByteArray ());
+        return os.toByteArray ();
+    }
+    
+    /**
+     * Writes one row of tiles from the buffered band.
+     */
+    private void writeTileRow (int ty, int bufferedMcuRows, int tileSize, int overlap, byte[] header, HuffmanEncoder[] dcTables, HuffmanEncoder[] acTables, File outputDir, String suffix, int bucketSize, boolean exactEdgeTiles) throws IOException {
+        int mcuWidth = 8 * hmax;
+        int mcuHeight = 8 * vmax;
+        int[] pred = new int[components.length];
+        ByteArrayOutputStream data = new ByteArrayOutputStream ();
+        
+        int tileHeight = tileSize;
+        if (exactEdgeTiles) {
+            tileHeight = Math.min (tileSize, height - ty * (tileSize - overlap));
+        }
+        int tileMcuRows = (tileHeight + mcuHeight - 1) / mcuHeight;
+        
+        int tx = 0;
+        for (int x = 0; x < width - overlap; x += tileSize - overlap) {
+            int firstMcu = x / mcuWidth;
+            int tileWidth = tileSize;
+            if (exactEdgeTiles) {
+                tileWidth = Math.min (tileSize, width - x);
+            }
+            int tileMcus = (tileWidth + mcuWidth - 1) / mcuWidth;
+            data.reset ();
+            Arrays.fill (pred, 0);
+            BitWriter bits = new BitWriter (data);
+            for (int my = 0; my < tileMcuRows; ++my) {
+                for (int mx = 0; mx < tileMcus; ++mx) {
+                    for (int ci = 0; ci < components.length; ++ci) {
+                        Component c = components[ci];
+                        int table = ci == 0 ? 0 : 1;
+                        for (int v = 0; v < c.v; ++v) {
+                            int blockRow = my * c.v + v;
+                            for (int h = 0; h < c.h; ++h) {
+                                int blockCol = (firstMcu + mx) * c.h + h;
+                                if (my < bufferedMcuRows && blockCol < c.blocksAcross) {
+                                    int offset = (blockRow * c.blocksAcross + blockCol) * 64;
+                                    encodeBlock (bits, c.band, offset, c.band[offset], pred, ci, dcTables[table], acTables[table]);
+                                } else {
+                                    encodeBlock (bits, null, 0, c.blackDc, pred, ci, dcTables[table], acTables[table]);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            bits.flush ();
+            
+            OutputStream os = new BufferedOutputStream (new FileOutputStream (MakeImagePyramid.getTileFile (outputDir, tx, ty, suffix, bucketSize)), 65536);
+            try {
+                if (tileWidth == tileSize && tileHeight == tileSize) {
+                    os.write (header);
+                } else {
+                    os.write (createTileHeader (tileWidth, tileHeight, dcTables, acTables));
+                }
+                data.writeTo (os);
+                os.write (0xff);
+                os.write (EOI);
+            } finally {
+                os.close ();
+            }
+            ++tx;
+        }
+    }
+}
@@ -1,680 +1,2507 @@
-/*
- * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
- *  
- * Licensed under the Apache License, Version 2.0 (the "License"); 
- * you may not use this file except in compliance with the License. 
- * You may obtain a copy of the License at 
- * 
- *     http://www.apache.org/licenses/LICENSE-2.0 
- *     
- * Unless required by applicable law or agreed to in writing, software 
- * distributed under the License is distributed on an "AS IS" BASIS, 
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
- * See the License for the specific language governing permissions and 
- * limitations under the License. 
- */
-package bigshot;
-
-import java.awt.Graphics2D;
-import java.awt.image.BufferedImage;
-import java.awt.image.RenderedImage;
-import java.awt.Color;
-import javax.imageio.ImageIO;
-import javax.imageio.ImageWriter;
-import javax.imageio.ImageReader;
-import javax.imageio.IIOImage;
-import javax.imageio.stream.FileImageOutputStream;
-import javax.imageio.stream.FileImageInputStream;
-import javax.imageio.stream.ImageInputStream;
-import javax.imageio.ImageWriteParam;
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.BufferedOutputStream;
-import java.io.BufferedInputStream;
-import java.io.FileInputStream;
-import java.io.InputStream;
-import java.util.Map;
-import java.util.List;
-import java.util.Locale;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.concurrent.Future;
-
-/**
- * Command-line tool to creates the tiled image pyramids that are used by Bigshot.
- * Run without parameters or with <code>--help</code> to see parameters.
- */
-public class MakeImagePyramid {
-    
-    private static interface DescriptorOutput {
-        public void setSuffix (String suffix);
-        public void setFullSize (int width, int height);
-        public void setTileSize (int tileSize, int overlap, int minZoom);
-        public void setPosterSize (int posterSize, int pw, int ph);
-        public void configure (ImagePyramidParameters parameters);
-        public void output (File targetFile) throws Exception;
-    }
-    
-    private static class BigshotDescriptorOutput implements DescriptorOutput {
-        
-        private final StringBuilder descriptor = new StringBuilder ();
-        
-        public void setSuffix (String suffix) {
-            descriptor.append (":suffix:" + suffix);
-        }        
-        
-        public void setFullSize (int width, int height) {
-            descriptor.append (":width:" + width + ":height:" + height);
-        }
-        
-        public void setTileSize (int tileSize, int overlap, int minZoom) {
-            descriptor.append (":tileSize:" + tileSize + ":overlap:" + overlap);
-            descriptor.append (":minZoom:" + minZoom);
-        }
-        
-        public void setPosterSize (int posterSize, int pw, int ph) {
-            descriptor.append (":posterSize:" + posterSize + ":posterWidth:" + pw + ":posterHeight:" + ph);
-        }
-        
-        public void configure (ImagePyramidParameters parameters) {
-            
-        }
-        
-        public void output (File folders) throws Exception {
-            FileOutputStream descriptorOut = new FileOutputStream (new File (folders, "descriptor"));
-            try {
-                String d = descriptor.toString ();
-                if (d.startsWith (":")) {
-                    d = d.substring (1);
-                }
-                descriptorOut.write (d.getBytes ());
-            } finally {
-                descriptorOut.close ();
-            }
-        }
-    }
-    
-    private static class DziDescriptorOutput implements DescriptorOutput {
-        
-        private final StringBuilder descriptor = new StringBuilder ();
-        
-        private String suffix;
-        private int width;
-        private int height;
-        private int tileSize;
-        private int overlap;
-        
-        public void setSuffix (String suffix) {
-            this.suffix = suffix;
-            if (this.suffix.startsWith (".")) {
-                this.suffix = this.suffix.substring (1);
-            }
-        }        
-        
-        public void setFullSize (int width, int height) {
-            this.width = width;
-            this.height = height;
-        }
-        
-        public void setTileSize (int tileSize, int overlap, int minZoom) {
-            this.tileSize = tileSize;
-            this.overlap = overlap;
-        }
-        
-        public void setPosterSize (int posterSize, int pw, int ph) {
-        }
-        
-        public void configure (ImagePyramidParameters parameters) {
-            
-        }
-        
-        public void output (File folders) throws Exception {
-            /*
-             * <?xml version=\"1.0\" encoding=\"utf-8\"?>
-             * <Image TileSize=\"375\" Overlap=\"1\" Format=\"jpg\" ServerFormat=\"Default\" xmnls=\"http://schemas.microsoft.com/deepzoom/2009\">
-             * <Size Width=\"1500\" Height=\"1500\" />
-             * </Image>
-             */
-            StringBuilder descriptor = new StringBuilder (
-                "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
-                "<Image TileSize=\"" + tileSize + "\" Overlap=\"" + overlap + "\" Format=\"" + suffix + "\" ServerFormat=\"Default\" xmnls=\"http://schemas.microsoft.com/deepzoom/2009\">\n" +
-                "<Size Width=\"" + width + "\" Height=\"" + height + "\" />\n" +
-                "</Image>\n"
-                );
-            
-            FileOutputStream descriptorOut = new FileOutputStream (new File (folders.getParentFile (), folders.getName () + ".xml"));
-            try {
-                descriptorOut.write (descriptor.toString ().getBytes ());
-            } finally {
-                descriptorOut.close ();
-            }
-        }
-    }
-    
-    
-    private static interface Output {
-        public void write (BufferedImage image, File output) throws Exception;
-        public String getSuffix ();
-        public void configure (ImagePyramidParameters parameters);
-    }
-    
-    private static class PngOutput implements Output {
-        public String getSuffix () {
-            return ".png";
-        }
-        
-        public void write (BufferedImage image, File output) throws Exception {
-            ImageIO.write (image, "PNG", output);
-        }
-        
-        public void configure (ImagePyramidParameters parameters) {
-        }
-    }
-    
-    private static class JpegOutput implements Output {
-        
-        private double quality;
-        
-        public void configure (ImagePyramidParameters parameters) {
-            quality = parameters.optJpegQuality (0.7f);
-        }
-        
-        public String getSuffix () {
-            return ".jpg";
-        }
-        
-        public void write (BufferedImage image, File output) throws Exception {
-            ImageWriter writer = ImageIO.getImageWritersByFormatName ("jpeg").next ();
-            try {
-                ImageWriteParam iwp = writer.getDefaultWriteParam();
-                
-                iwp.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
-                iwp.setCompressionQuality ((float) quality);
-                
-                FileImageOutputStream os = new FileImageOutputStream (output);
-                try {
-                    writer.setOutput(os);
-                    IIOImage iioImage = new IIOImage ((RenderedImage) image, null, null);
-                    writer.write (null, iioImage, iwp);
-                } finally {
-                    os.close ();
-                }
-                
-            } finally {
-                writer.dispose();
-            }
-        }
-    }
-    
-    private static void tile (BufferedImage full, int tileWidth, int overlap, File outputBase, Output output) throws Exception {
-        BufferedImage tile = new BufferedImage (tileWidth, tileWidth, BufferedImage.TYPE_INT_RGB);
-        int startOffset = 0;
-        
-        int ty = 0;
-        for (int y = startOffset; y < full.getHeight () - overlap; y += tileWidth - overlap) {
-            int tx = 0;
-            for (int x = startOffset; x < full.getWidth () - overlap; x += tileWidth - overlap) {
-                int w = Math.min (x + tileWidth, full.getWidth ()) - x;
-                int h = Math.min (y + tileWidth, full.getHeight ()) - y;
-                
-                // System.out.println ("Generating tile " + tx + "," + ty + " = [" + x + "," + y + "] + [" + w + "," + h + "] -> [" + (x + w) + "," + (y + h) + "]...");
-                
-                BufferedImage section = full.getSubimage (x, y, w, h);
-                Graphics2D g = tile.createGraphics ();
-                g.setColor (Color.BLACK);
-                g.fillRect (0, 0, tileWidth, tileWidth);
-                g.drawImage (section, 0, 0, null);
-                g.dispose ();
-                String filename = tx + "_" + ty + output.getSuffix ();
-                output.write (tile, new File (outputBase, filename));
-                
-                ++tx;
-            }
-            ++ty;
-        }
-    }
-    
-    private static void showHelp () throws Exception {
-        byte[] buffer = new byte[1024];
-        InputStream is = MakeImagePyramid.class.getResourceAsStream ("help.txt");
-        try {
-            while (true) {
-                int numRead = is.read (buffer);
-                if (numRead < 1) {
-                    break;
-                }
-                System.err.write (buffer, 0, numRead);
-            }
-        } finally {
-            is.close ();
-        }
-    }
-    
-    private static boolean isPowerOfTwo (int i) {
-        return (i & (i - 1)) == 0;
-    }
-    
-    private static void presetDziCubemap (ImagePyramidParameters parameters) throws Exception {
-        int overlap = parameters.optOverlap (2);
-        int tileSize = parameters.optTileSize (256 - overlap);
-        
-        int optimalImageSize = parameters.inputWidth () / 4;
-        int optimalFaceSize = tileSize;
-        while (optimalFaceSize < (optimalImageSize * 1.2) / 2) {
-            optimalFaceSize <<= 1;
-        }
-        
-        int faceSize = parameters.optFaceSize (optimalFaceSize);
-        
-        System.out.println ("Using face size " + faceSize + " optimal is " + optimalImageSize);
-        
-        if (!isPowerOfTwo (tileSize + overlap)) {
-            System.err.println ("WARNING: Resulting image tile size (tile-size + overlap) is not a power of two:" + (tileSize + overlap));
-        }
-        
-        if ((faceSize % tileSize) != 0) {
-            System.err.println ("WARNING: face-size is not an even multiple of tile-size:" + faceSize + " % " + tileSize + " != 0");
-        }
-        
-        parameters.putIfEmpty (ImagePyramidParameters.OVERLAP, String.valueOf (overlap));
-        parameters.putIfEmpty (ImagePyramidParameters.TILE_SIZE, String.valueOf (tileSize));
-        parameters.putIfEmpty (ImagePyramidParameters.FACE_SIZE, String.valueOf (faceSize));
-        parameters.putIfEmpty (ImagePyramidParameters.TRANSFORM, ImagePyramidParameters.Transform.FACEMAP.toString ());
-        
-        int levels = (int) Math.ceil (Math.log (faceSize + overlap) / Math.log (2));
-        parameters.putIfEmpty (ImagePyramidParameters.LEVELS, String.valueOf (levels + 1));
-        parameters.putIfEmpty (ImagePyramidParameters.DESCRIPTOR_FORMAT, ImagePyramidParameters.DescriptorFormat.DZI.toString ());
-        parameters.putIfEmpty (ImagePyramidParameters.FOLDER_LAYOUT, ImagePyramidParameters.FolderLayout.DZI.toString ());
-        parameters.putIfEmpty (ImagePyramidParameters.LEVEL_NUMBERING, ImagePyramidParameters.LevelNumbering.INVERT.toString ());
-    }
-    
-    private static void setInputImageParameters (ImagePyramidParameters parameters, File input) throws Exception {
-        String path = input.getPath ();
-        
-        String suffix = path.substring (path.lastIndexOf ('.') + 1);
-        for (Iterator<ImageReader> iter = ImageIO.getImageReadersBySuffix (suffix);
-            iter.hasNext ();
-            ) {
-            
-            ImageReader reader = iter.next ();
-            try {
-                ImageInputStream stream = new FileImageInputStream(new File(path));
-                reader.setInput(stream);
-                int width = reader.getWidth (reader.getMinIndex ());
-                int height = reader.getHeight (reader.getMinIndex ());
-                
-                parameters
-                    .inputWidth (width)
-                    .inputHeight (height);
-                return;
-            } finally {
-                reader.dispose();
-            }
-        }
-        throw new Exception ("Unable to get input image size.");
-    }
-    
-    /**
-     * Command line interface. Parses the command line options and invokes the
-     * {@link #process} method.
-     * To run this fro your own code, use the {@link #process} method. This method
-     * may call {@code System.exit()}.
-     */
-    public static void main (String[] args) throws Exception {
-        if (args.length < 2) {
-            showHelp ();
-            System.err.println ("No input files specified.");
-            System.exit (1);
-        } else if (args.length == 1 && (args[0].equals ("-h") || args[0].equals ("--help"))) {
-            showHelp ();
-            System.exit (0);
-        } else {
-            File input = new File (args[0]);
-            File outputBase = new File (args[1]);
-            Map<String,String> parameters = new HashMap<String,String> ();
-            for (int i = 2; i < args.length; i += 2) {
-                if (args[i].startsWith ("--")) {
-                    String key = args[i].substring (2);
-                    String value = args[i + 1];
-                    parameters.put (key, value);
-                }
-            }
-            
-            process (input, outputBase, new ImagePyramidParameters (parameters));
-        }
-    }
-    
-    /**
-     * Creates an image pyramid.
-     * 
-     * @param input the input image map
-     * @param outputBase the output base directory (for folder output) or bigshot archive file (for archive output)
-     */
-    public static void process (File input, File outputBase, ImagePyramidParameters parameters) throws Exception {
-        setInputImageParameters (parameters, input);
-        
-        if (parameters.preset () == ImagePyramidParameters.Preset.DZI_CUBEMAP) {
-            presetDziCubemap (parameters);
-        }
-        
-        if (parameters.transform () == ImagePyramidParameters.Transform.FACEMAP || 
-            parameters.transform () == ImagePyramidParameters.Transform.CYLINDER_FACEMAP) {
-            boolean archive = parameters.format () == ImagePyramidParameters.Format.ARCHIVE;
-            
-            AbstractCubicTransform<? extends AbstractCubicTransform> xform = null;
-            if (parameters.transform () == ImagePyramidParameters.Transform.CYLINDER_FACEMAP) {
-                xform = new CylindricalToCubic ();
-            } else {
-                xform = new EquirectangularToCubic ();
-            }
-            int xformFaceSize = parameters.optFaceSize (2048) + parameters.optOverlap (0);
-            xform.input (input)
-                .vfov (90)
-                .size (xformFaceSize, xformFaceSize)
-                .oversampling (parameters.optOversampling (1))
-                .jitter (parameters.optJitter (-1))
-                .topCap (parameters.optTopCap (false))
-                .bottomCap (parameters.optBottomCap (false))
-                .offset (parameters.optYawOffset (0), parameters.optPitchOffset (0), parameters.optRollOffset (0));
-            
-            if (parameters.containsKey (ImagePyramidParameters.TRANSFORM_PTO)) {
-                xform.fromHuginPto (new File (parameters.transformPto ()));
-            }
-            if (parameters.containsKey (ImagePyramidParameters.INPUT_VFOV)) {
-                xform.inputVfov (parameters.inputVfov ());
-            }
-            if (parameters.containsKey (ImagePyramidParameters.INPUT_HFOV)) {
-                xform.inputHfov (parameters.inputHfov ());
-            }
-            if (parameters.containsKey (ImagePyramidParameters.INPUT_HORIZON)) {
-                xform.inputHorizon (parameters.inputHorizon ());
-            }
-            
-            System.out.println (String.format (Locale.US, "Input FOV: %.2f x %.2f degrees", xform.inputHfov (), xform.inputVfov ()));
-            
-            parameters.remove (ImagePyramidParameters.FORMAT);
-            parameters.remove (ImagePyramidParameters.FOLDER_LAYOUT);
-            
-            File pyramidBase = outputBase;
-            if (archive) {
-                pyramidBase = File.createTempFile ("makeimagepyramid", "bigshot");
-                pyramidBase.delete ();
-                pyramidBase.mkdirs ();
-            }
-            
-            for (Future<Image> face : xform.transformToFaces ()) {
-                Image img = face.get ();
-                System.out.println ("Making pyramid for " + img.getName ());
-                File out = new File (pyramidBase, img.getName ());
-                BufferedImage buffered = img.toBuffered ();
-                img = null;
-                
-                makePyramid (buffered, out, parameters);
-            }
-            
-            if (archive) {
-                pack (pyramidBase, outputBase);
-                deleteAll (pyramidBase);
-            }
-        } else if (parameters.transform () == ImagePyramidParameters.Transform.FACE) {
-            double fov = parameters.optFov (60);
-            double yaw = parameters.optYaw (0);
-            double pitch = parameters.optPitch (0);
-            double roll = parameters.optRoll (0);
-            double yawOffset = parameters.optYawOffset (0);
-            double pitchOffset = parameters.optPitchOffset (0);
-            double rollOffset = parameters.optRollOffset (0);
-            int oversampling = parameters.optOversampling (1);
-            double jitter = parameters.optJitter (-1);
-            
-            int outputSizeW = parameters.optOutputWidth (640);
-            int outputSizeH = parameters.optOutputHeight (480);
-            
-            Output output = null;
-            ImagePyramidParameters.ImageFormat imageFormat = parameters.optImageFormat (ImagePyramidParameters.ImageFormat.JPG);
-            if (ImagePyramidParameters.ImageFormat.JPG == imageFormat) {
-                output = new JpegOutput ();
-            } else if (ImagePyramidParameters.ImageFormat.PNG == imageFormat) {
-                output = new PngOutput ();
-            } else {
-                System.err.println ("Unknown image format: \"" + imageFormat + "\". Using JPEG.");
-                output = new JpegOutput ();
-            }
-            output.configure (parameters);
-            
-            Image in = Image.read (input);
-            
-            Image outImage = new EquirectangularToCubic ()
-                .input (in)
-                .vfov (fov)
-                .offset (yawOffset, pitchOffset, rollOffset)
-                .view (yaw, pitch, roll)
-                .size (outputSizeW, outputSizeH)
-                .oversampling (oversampling)
-                .jitter (jitter)
-                .transform ();
-            
-            output.write (outImage.toBuffered (), outputBase);
-        } else {
-            makePyramid (input, outputBase, parameters);
-        }
-    }
-    
-    private static class PackageEntry {
-        public String key;
-        public File file;
-        public long start;
-        public long length;
-        public String toString () {
-            return key + ":" + start + "+" + length;
-        }
-    }
-    
-    private static long scan (File directory, List<PackageEntry> result, String relativePath, long currentPosition) {
-        for (File f : directory.listFiles ()) {
-            if (f.isDirectory ()) {
-                currentPosition = scan (f, result, relativePath + f.getName () + "/", currentPosition);
-            } else {
-                PackageEntry p = new PackageEntry ();
-                p.key = relativePath + f.getName ();
-                p.file = f;
-                p.start = currentPosition;
-                p.length = f.length ();
-                
-                currentPosition += p.length;
-                result.add (p);
-            }
-        } 
-        return currentPosition;
-    }
-    
-    private static void pack (File source, File outputBase) throws Exception {
-        File packedOutput = outputBase;
-        List<PackageEntry> fileList = new ArrayList<PackageEntry> ();
-        scan (source, fileList, "", 0);
-        System.out.println ("Packing " + fileList.size () + " files to " + packedOutput.getName ());
-        
-        byte[] buffer = new byte[128000];
-        BufferedOutputStream packageOs = new BufferedOutputStream (new FileOutputStream (packedOutput));
-        try {
-            StringBuilder index = new StringBuilder ();
-            for (PackageEntry pe : fileList) {
-                index.append (pe.key);
-                index.append (":");
-                index.append (pe.start);
-                index.append (":");
-                index.append (pe.length);
-                index.append (":");
-            }
-            
-            byte[] indexBytes = index.toString ().getBytes ();
-            byte[] header = String.format ("BIGSHOT %16x", indexBytes.length).getBytes ();
-            
-            packageOs.write (header);
-            packageOs.write (indexBytes);
-            
-            for (PackageEntry pe : fileList) {
-                FileInputStream is = new FileInputStream (pe.file);
-                try {
-                    while (true) {
-                        int numRead = is.read (buffer);
-                        if (numRead <= 0) {
-                            break;
-                        }
-                        packageOs.write (buffer, 0, numRead);
-                    }
-                } finally {
-                    is.close ();
-                }
-            }
-        } finally {
-            packageOs.close ();
-        }
-    }
-    
-    private static void makePyramid (File input, File outputBase, ImagePyramidParameters parameters) throws Exception {
-        BufferedImage full = ImageIO.read (input);
-        makePyramid (full, outputBase, parameters);
-    }   
-    
-    private static void makePyramid (BufferedImage full, File outputBase, ImagePyramidParameters parameters) throws Exception {
-        boolean outputPackage = parameters.format () == ImagePyramidParameters.Format.ARCHIVE;
-        boolean dziLayout = parameters.folderLayout () == ImagePyramidParameters.FolderLayout.DZI;
-        
-        File folders = outputBase;
-        
-        if (outputPackage) {
-            folders = File.createTempFile ("pyramid", "dir");
-            folders.delete ();
-            folders.mkdirs ();
-        }
-        folders.mkdirs ();
-        
-        if (dziLayout) {
-            folders = new File (folders, outputBase.getName ());
-            folders.mkdirs ();
-        }
-        
-        Output output = null;
-        ImagePyramidParameters.ImageFormat imageFormat = parameters.optImageFormat (ImagePyramidParameters.ImageFormat.JPG);
-        if (ImagePyramidParameters.ImageFormat.JPG == imageFormat) {
-            output = new JpegOutput ();
-        } else if (ImagePyramidParameters.ImageFormat.PNG == imageFormat) {
-            output = new PngOutput ();
-        } else {
-            System.err.println ("Unknown image format: \"" + imageFormat + "\". Using JPEG.");
-            output = new JpegOutput ();
-        }
-        output.configure (parameters);
-        
-        
-        DescriptorOutput descriptor = null;
-        ImagePyramidParameters.DescriptorFormat descriptorFormat = parameters.optDescriptorFormat (ImagePyramidParameters.DescriptorFormat.BIGSHOT);
-        if (ImagePyramidParameters.DescriptorFormat.BIGSHOT.equals (descriptorFormat)) {
-            descriptor = new BigshotDescriptorOutput ();
-        } else if (ImagePyramidParameters.DescriptorFormat.DZI.equals (descriptorFormat)) {
-            descriptor = new DziDescriptorOutput ();
-        } else {
-            System.err.println ("Unknown descriptor format: \"" + descriptorFormat + "\". Using Bigshot.");
-            descriptor = new BigshotDescriptorOutput ();
-        }
-        descriptor.configure (parameters);
-        
-        descriptor.setSuffix (output.getSuffix ());
-        
-        int w = full.getWidth ();
-        int h = full.getHeight ();
-        
-        System.out.println ("Full image size: " + w + " x " + h + "");
-        
-        descriptor.setFullSize (w, h);
-        
-        int maxDimension = Math.max (w, h);
-        
-        {
-            int posterSize = parameters.optPosterSize (512);
-            double posterScale = ((double) posterSize) / maxDimension;
-            
-            int pw = (int) (w * posterScale);
-            int ph = (int) (h * posterScale);
-            
-            descriptor.setPosterSize (posterSize, pw, ph);
-            
-            System.out.println ("Creating " + pw + " x " + ph + " poster image.");
-            
-            BufferedImage poster = new BufferedImage (pw, ph, BufferedImage.TYPE_INT_RGB);
-            Graphics2D g = poster.createGraphics ();
-            g.drawImage (full.getScaledInstance (pw, ph, java.awt.Image.SCALE_AREA_AVERAGING), 0, 0, null);
-            g.dispose ();
-            
-            output.write (poster, new File (folders, "poster" + output.getSuffix ()));
-        }   
-        
-        
-        int tileSize = parameters.optTileSize (256) + parameters.optOverlap (0);
-        int heuristicMaxZoom = (int) (Math.ceil (Math.log (maxDimension) / Math.log (2)) - Math.floor (Math.log (tileSize) / Math.log (2)) + 2);
-        
-        int maxZoom = parameters.optLevels ((int) heuristicMaxZoom);
-        if (parameters.optWrapX (false)) {
-            maxZoom = 0;
-            int wxw = w;
-            while (wxw % tileSize == 0) {
-                wxw /= 2;
-                maxZoom++;
-            }
-        }
-        
-        int overlap = parameters.optOverlap (0);
-        System.out.println ("Creating pyramid with " + maxZoom + " levels.");
-        for (int zoom = 0; zoom < maxZoom; ++zoom) {
-            File outputDir = 
-                ImagePyramidParameters.LevelNumbering.INVERT == parameters.levelNumbering ()
-                ?
-                new File (folders, String.valueOf (maxZoom - zoom - 1))
-                :
-                new File (folders, String.valueOf (zoom));
-            outputDir.mkdirs ();
-            tile (full, tileSize, overlap, outputDir, output);
-            
-            w = (w - overlap) / 2 + overlap;
-            h = (h - overlap) / 2 + overlap;
-            
-            if (zoom < maxZoom - 1) {
-                //System.out.println ("Reducing by factor of 2...");
-                
-                BufferedImage reduced = new BufferedImage (w, h, BufferedImage.TYPE_INT_RGB);
-                Graphics2D g = reduced.createGraphics ();
-                g.drawImage (full.getScaledInstance (w, h, java.awt.Image.SCALE_AREA_AVERAGING), 0, 0, null);
-                g.dispose ();
-                full = reduced;
-            }
-        }
-        
-        descriptor.setTileSize (tileSize, overlap, (-maxZoom + 1));
-        
-        descriptor.output (folders);
-        
-        if (outputPackage) {
-            if (dziLayout) {
-                pack (folders.getParentFile (), outputBase);
-                deleteAll (folders.getParentFile ());
-            } else {
-                pack (folders, outputBase);
-                deleteAll (folders);
-            }
-        }
-    }
-    
-    
-    private static void deleteAll (File f) {
-        if (f.isDirectory ()) {
-            for (File f2 : f.listFiles ()) {
-                deleteAll (f2);
-            }
-            f.delete ();
-        } else {
-            f.delete ();
-        }
-    }
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
+import java.awt.Color;
+import java.awt.RenderingHints;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.ImageReader;
+import javax.imageio.IIOImage;
+import javax.imageio.stream.FileImageOutputStream;
+import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.ImageWriteParam;
+import java.io.File;
+import java.io.IOException;
+import java.io.FileOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.math.BigInteger;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.List;
+import java.util.Locale;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Command-line tool to creates the tiled image pyramids that are used by Bigshot.
+ * Run without parameters or with <code>--help</code> to see parameters.
+ */
+public class MakeImagePyramid {
+    
+    static interface DescriptorOutput {
+        public void setSuffix (String suffix);
+        public void setFullSize (int width, int height);
+        public void setTileSize (int tileSize, int overlap, int minZoom);
+        public void setPosterSize (int posterSize, int pw, int ph);
+        public void setOccupancy (TileOccupancy occupancy, int maxZoom);
+        public void setAtlas (TileAtlas atlas);
+        public void configure (ImagePyramidParameters parameters);
+        public void output (File targetFile) throws Exception;
+    }
+    
+    private static class BigshotDescriptorOutput implements DescriptorOutput {
+        
+        private final StringBuilder descriptor = new StringBuilder ();
+        
+        public void setSuffix (String suffix) {
+            descriptor.append (":suffix:" + suffix);
+        }        
+        
+        public void setFullSize (int width, int height) {
+            descriptor.append (":width:" + width + ":height:" + height);
+        }
+        
+        public void setTileSize (int tileSize, int overlap, int minZoom) {
+            descriptor.append (":tileSize:" + tileSize + ":overlap:" + overlap);
+            descriptor.append (":minZoom:" + minZoom);
+        }
+        
+        public void setPosterSize (int posterSize, int pw, int ph) {
+            descriptor.append (":posterSize:" + posterSize + ":posterWidth:" + pw + ":posterHeight:" + ph);
+        }
+        
+        public void setOccupancy (TileOccupancy occupancy, int maxZoom) {
+            descriptor.append (String.format (":emptyColor:%06x:occupancy:", occupancy.getEmptyColor ()) + occupancy.format (maxZoom));
+        }
+        
+        public void setAtlas (TileAtlas atlas) {
+            descriptor.append (":atlas:" + atlas.format ());
+        }
+        
+        public void configure (ImagePyramidParameters parameters) {
+            int bucketSize = getTileBucketSize (parameters);
+            if (bucketSize > 0) {
+                descriptor.append (":tileBucketSize:" + bucketSize);
+            }
+            if (parameters.optExactEdgeTiles (false)) {
+                descriptor.append (":exactEdgeTiles:true");
+            }
+        }
+        
+        public void output (File folders) throws Exception {
+            FileOutputStream descriptorOut = new FileOutputStream (new File (folders, "descriptor"));
+            try {
+                String d = descriptor.toString ();
+                if (d.startsWith (":")) {
+                    d = d.substring (1);
+                }
+                descriptorOut.write (d.getBytes ());
+            } finally {
+                descriptorOut.close ();
+            }
+        }
+    }
+    
+    private static class DziDescriptorOutput implements DescriptorOutput {
+        
+        private final StringBuilder descriptor = new StringBuilder ();
+        
+        private String suffix;
+        private int width;
+        private int height;
+        private int tileSize;
+        private int overlap;
+        private String occupancy = null;
+        
+        public void setSuffix (String suffix) {
+            this.suffix = suffix;
+            if (this.suffix.startsWith (".")) {
+                this.suffix = this.suffix.substring (1);
+            }
+        }        
+        
+        public void setFullSize (int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+        
+        public void setTileSize (int tileSize, int overlap, int minZoom) {
+            this.tileSize = tileSize;
+            this.overlap = overlap;
+        }
+        
+        public void setPosterSize (int posterSize, int pw, int ph) {
+        }
+        
+        public void setOccupancy (TileOccupancy occupancy, int maxZoom) {
+            this.occupancy = String.format ("<Occupancy EmptyColor=\"%06x\" Map=\"%s\" />\n", occupancy.getEmptyColor (), occupancy.format (maxZoom));
+        }
+        
+        public void setAtlas (TileAtlas atlas) {
+            throw new IllegalArgumentException ("The DZI descriptor format can't describe a tile atlas.");
+        }
+        
+        public void configure (ImagePyramidParameters parameters) {
+            
+        }
+        
+        public void output (File folders) throws Exception {
+            if (occupancy != null) {
+                // The DZI descriptor has no room for it, so it goes in a file next to
+                // it, and the descriptor only records that the file is there.
+                FileOutputStream occupancyOut = new FileOutputStream (new File (folders.getParentFile (), folders.getName () + ".occupancy.xml"));
+                try {
+                    occupancyOut.write (("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" + occupancy).getBytes ());
+                } finally {
+                    occupancyOut.close ();
+                }
+            }
+            /*
+             * <?xml version=\"1.0\" encoding=\"utf-8\"?>
+             * <Image TileSize=\"375\" Overlap=\"1\" Format=\"jpg\" ServerFormat=\"Default\" xmnls=\"http://schemas.microsoft.com/deepzoom/2009\">
+             * <Size Width=\"1500\" Height=\"1500\" />
+             * </Image>
+             */
+            StringBuilder descriptor = new StringBuilder (
+                "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+                "<Image TileSize=\"" + tileSize + "\" Overlap=\"" + overlap + "\" Format=\"" + suffix + "\" ServerFormat=\"Default\"" + (occupancy != null ? " Occupancy=\"true\"" : "") + " xmnls=\"http://schemas.microsoft.com/deepzoom/2009\">\n" +
+                "<Size Width=\"" + width + "\" Height=\"" + height + "\" />\n" +
+                "</Image>\n"
+                );
+            
+            FileOutputStream descriptorOut = new FileOutputStream (new File (folders.getParentFile (), folders.getName () + ".xml"));
+            try {
+                descriptorOut.write (descriptor.toString ().getBytes ());
+            } finally {
+                descriptorOut.close ();
+            }
+        }
+    }
+    
+    
+    static interface Output {
+        public void write (BufferedImage image, File output) throws Exception;
+        public String getSuffix ();
+        public void configure (ImagePyramidParameters parameters);
+        
+        /**
+         * Returns the output for the tiles of a level. Outputs that write all
+         * levels alike return themselves.
+         *
+         * @param zoom the zoom level, 0 for full resolution
+         */
+        public Output forLevel (int zoom);
+        
+        /**
+         * Called when the pyramid is complete.
+         */
+        public void finish ();
+    }
+    
+    private static class PngOutput implements Output {
+        public String getSuffix () {
+            return ".png";
+        }
+        
+        public void write (BufferedImage image, File output) throws Exception {
+            ImageIO.write (image, "PNG", output);
+        }
+        
+        public void configure (ImagePyramidParameters parameters) {
+        }
+        
+        public Output forLevel (int zoom) {
+            return this;
+        }
+        
+        public void finish () {
+        }
+    }
+    
+    private static class JpegOutput implements Output {
+        
+        private double quality;
+        
+        public void configure (ImagePyramidParameters parameters) {
+            quality = parameters.optJpegQuality (0.7f);
+        }
+        
+        public String getSuffix () {
+            return ".jpg";
+        }
+        
+        public Output forLevel (int zoom) {
+            return this;
+        }
+        
+        public void finish () {
+        }
+        
+        public void write (BufferedImage image, File output) throws Exception {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName ("jpeg").next ();
+            try {
+                ImageWriteParam iwp = writer.getDefaultWriteParam();
+                
+                iwp.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                iwp.setCompressionQuality ((float) quality);
+                
+                FileImageOutputStream os = new FileImageOutputStream (output);
+                try {
+                    writer.setOutput(os);
+                    IIOImage iioImage = new IIOImage ((RenderedImage) image, null, null);
+                    writer.write (null, iioImage, iwp);
+                } finally {
+                    os.close ();
+                }
+                
+            } finally {
+                writer.dispose();
+            }
+        }
+    }
+    
+    /**
+     * Writes tiles of a single colour, such as the black padding of edge tiles and
+     * the missing caps of partial panoramas, without encoding them more than once.
+     * The encoded bytes of the first tile of each colour and size are kept and
+     * written again for the following ones. Tiles that are identical without being
+     * uniform are stored once when the pyramid is packed; see {@link #pack}.
+     */
+    private static class DeduplicatingOutput implements Output {
+        
+        private final Output output;
+        
+        /**
+         * Encoded tiles, keyed by width, height and colour.
+         */
+        private final Map<String,byte[]> uniformTiles;
+        
+        /**
+         * Prefix of the keys of this output, for outputs that encode the tiles of
+         * each level differently.
+         */
+        private final String keyPrefix;
+        
+        public DeduplicatingOutput (Output output) {
+            this (output, new HashMap<String,byte[]> (), "");
+        }
+        
+        private DeduplicatingOutput (Output output, Map<String,byte[]> uniformTiles, String keyPrefix) {
+            this.output = output;
+            this.uniformTiles = uniformTiles;
+            this.keyPrefix = keyPrefix;
+        }
+        
+        public String getSuffix () {
+            return output.getSuffix ();
+        }
+        
+        public void configure (ImagePyramidParameters parameters) {
+            output.configure (parameters);
+        }
+        
+        public Output forLevel (int zoom) {
+            Output levelOutput = output.forLevel (zoom);
+            if (levelOutput == output) {
+                return this;
+            }
+            return new DeduplicatingOutput (levelOutput, uniformTiles, zoom + "/");
+        }
+        
+        public void finish () {
+            output.finish ();
+        }
+        
+        /**
+         * Returns the key of a tile of a single colour, or null if the tile has
+         * more than one colour.
+         */
+        private static String getUniformKey (BufferedImage image) {
+            if (image.getType () != BufferedImage.TYPE_INT_RGB) {
+                return null;
+            }
+            int[] pixels = ((DataBufferInt) image.getRaster ().getDataBuffer ()).getData ();
+            int color = pixels[0] & 0xffffff;
+            for (int i = 1; i < pixels.length; ++i) {
+                if ((pixels[i] & 0xffffff) != color) {
+                    return null;
+                }
+            }
+            return image.getWidth () + "x" + image.getHeight () + ":" + Integer.toHexString (color);
+        }
+        
+        public void write (BufferedImage image, File file) throws Exception {
+            String key = getUniformKey (image);
+            if (key == null) {
+                output.write (image, file);
+                return;
+            }
+            key = keyPrefix + key;
+            byte[] data;
+            synchronized (uniformTiles) {
+                data = uniformTiles.get (key);
+            }
+            if (data == null) {
+                output.write (image, file);
+                data = readFully (file);
+                synchronized (uniformTiles) {
+                    uniformTiles.put (key, data);
+                }
+            } else {
+                // Hard links would need Java 7, so the bytes are copied.
+                FileOutputStream os = new FileOutputStream (file);
+                try {
+                    os.write (data);
+                } finally {
+                    os.close ();
+                }
+            }
+        }
+    }
+    
+    private static byte[] readFully (File file) throws IOException {
+        byte[] data = new byte[(int) file.length ()];
+        FileInputStream is = new FileInputStream (file);
+        try {
+            int offset = 0;
+            while (offset < data.length) {
+                int numRead = is.read (data, offset, data.length - offset);
+                if (numRead < 0) {
+                    throw new IOException ("Unexpected end of " + file.getPath ());
+                }
+                offset += numRead;
+            }
+        } finally {
+            is.close ();
+        }
+        return data;
+    }
+    
+    /**
+     * Returns the top left {@code w} by {@code h} pixels of a padded tile as an
+     * image of their own.
+     */
+    static BufferedImage crop (BufferedImage tile, int w, int h) {
+        BufferedImage cropped = new BufferedImage (w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = cropped.createGraphics ();
+        g.drawImage (tile, 0, 0, null);
+        g.dispose ();
+        return cropped;
+    }
+    
+    /**
+     * Cuts a range of tile rows of a level into tiles and writes them.
+     *
+     * @param rows the rows of the level that the tile rows lie in
+     * @param top the index of the first row of {@code rows} in the level
+     * @param levelHeight the height of the level
+     * @param firstTileRow the first tile row to write
+     * @param endTileRow the tile row after the last one to write
+     * @param occupancy if not null, tiles of the empty colour are recorded in it
+     * and not written
+     * @param zoom the zoom level, for the occupancy map
+     * @param bucketSize the bucket size of the bucketed folder layout, or 0
+     * @param exactEdgeTiles if true, the edge tiles are cropped to the image instead
+     * of padded to the full tile size
+     */
+    private static void tile (BufferedImage rows, int top, int levelHeight, int firstTileRow, int endTileRow, int tileWidth, int overlap, File outputBase, Output output, PixelOperations pixelOperations, TileOccupancy occupancy, int zoom, int bucketSize, boolean exactEdgeTiles) throws Exception {
+        Output levelOutput = output.forLevel (zoom);
+        BufferedImage tile = new BufferedImage (tileWidth, tileWidth, BufferedImage.TYPE_INT_RGB);
+        int[] tilePixels = ((DataBufferInt) tile.getRaster ().getDataBuffer ()).getData ();
+        int levelWidth = rows.getWidth ();
+        if (occupancy != null) {
+            occupancy.addLevel (zoom, 
+                TileOccupancy.getTileCount (levelWidth, tileWidth, overlap), 
+                TileOccupancy.getTileCount (levelHeight, tileWidth, overlap));
+        }
+        
+        int ty = firstTileRow;
+        for (int y = firstTileRow * (tileWidth - overlap); ty < endTileRow && y < levelHeight - overlap; y += tileWidth - overlap) {
+            int tx = 0;
+            for (int x = 0; x < levelWidth - overlap; x += tileWidth - overlap) {
+                int w = Math.min (x + tileWidth, levelWidth) - x;
+                int h = Math.min (y + tileWidth, levelHeight) - y;
+                
+                // System.out.println ("Generating tile " + tx + "," + ty + " = [" + x + "," + y + "] + [" + w + "," + h + "] -> [" + (x + w) + "," + (y + h) + "]...");
+                
+                BufferedImage section = rows.getSubimage (x, y - top, w, h);
+                Graphics2D g = tile.createGraphics ();
+                g.setColor (Color.BLACK);
+                g.fillRect (0, 0, tileWidth, tileWidth);
+                g.drawImage (section, 0, 0, null);
+                g.dispose ();
+                if (pixelOperations != null) {
+                    // Only the image area - the padding stays black.
+                    pixelOperations.applyPacked (tilePixels, 0, tileWidth, w, h);
+                }
+                if (occupancy != null && occupancy.isEmpty (tilePixels, 0, tileWidth, w, h)) {
+                    occupancy.setEmpty (zoom, tx, ty);
+                } else if (exactEdgeTiles && (w < tileWidth || h < tileWidth)) {
+                    levelOutput.write (crop (tile, w, h), getTileFile (outputBase, tx, ty, levelOutput.getSuffix (), bucketSize));
+                } else {
+                    levelOutput.write (tile, getTileFile (outputBase, tx, ty, levelOutput.getSuffix (), bucketSize));
+                }
+                
+                ++tx;
+            }
+            ++ty;
+        }
+    }
+    
+    private static void showHelp () throws Exception {
+        byte[] buffer = new byte[1024];
+        InputStream is = MakeImagePyramid.class.getResourceAsStream ("help.txt");
+        try {
+            while (true) {
+                int numRead = is.read (buffer);
+                if (numRead < 1) {
+                    break;
+                }
+                System.err.write (buffer, 0, numRead);
+            }
+        } finally {
+            is.close ();
+        }
+    }
+    
+    private static boolean isPowerOfTwo (int i) {
+        return (i & (i - 1)) == 0;
+    }
+    
+    static void presetDziCubemap (ImagePyramidParameters parameters) throws Exception {
+        int overlap = parameters.optOverlap (2);
+        int tileSize = parameters.optTileSize (256 - overlap);
+        
+        int optimalImageSize = parameters.inputWidth () / 4;
+        int optimalFaceSize = tileSize;
+        while (optimalFaceSize < (optimalImageSize * 1.2) / 2) {
+            optimalFaceSize <<= 1;
+        }
+        
+        int faceSize = parameters.optFaceSize (optimalFaceSize);
+        
+        System.out.println ("Using face size " + faceSize + " optimal is " + optimalImageSize);
+        
+        if (!isPowerOfTwo (tileSize + overlap)) {
+            System.err.println ("WARNING: Resulting image tile size (tile-size + overlap) is not a power of two:" + (tileSize + overlap));
+        }
+        
+        if ((faceSize % tileSize) != 0) {
+            System.err.println ("WARNING: face-size is not an even multiple of tile-size:" + faceSize + " % " + tileSize + " != 0");
+        }
+        
+        parameters.putIfEmpty (ImagePyramidParameters.OVERLAP, String.valueOf (overlap));
+        parameters.putIfEmpty (ImagePyramidParameters.TILE_SIZE, String.valueOf (tileSize));
+        parameters.putIfEmpty (ImagePyramidParameters.FACE_SIZE, String.valueOf (faceSize));
+        parameters.putIfEmpty (ImagePyramidParameters.TRANSFORM, ImagePyramidParameters.Transform.FACEMAP.toString ());
+        
+        int levels = (int) Math.ceil (Math.log (faceSize + overlap) / Math.log (2));
+        parameters.putIfEmpty (ImagePyramidParameters.LEVELS, String.valueOf (levels + 1));
+        parameters.putIfEmpty (ImagePyramidParameters.DESCRIPTOR_FORMAT, ImagePyramidParameters.DescriptorFormat.DZI.toString ());
+        parameters.putIfEmpty (ImagePyramidParameters.FOLDER_LAYOUT, ImagePyramidParameters.FolderLayout.DZI.toString ());
+        parameters.putIfEmpty (ImagePyramidParameters.LEVEL_NUMBERING, ImagePyramidParameters.LevelNumbering.INVERT.toString ());
+    }
+    
+    /**
+     * Sets up the parameters for a draft build. The input is read at a reduced
+     * resolution, so the pyramid has the same layout as the final build, but with
+     * fewer levels. The final build can later be written over it.
+     */
+    private static void presetDraft (ImagePyramidParameters parameters) throws Exception {
+        int maxDimension = Math.max (parameters.inputWidth (), parameters.inputHeight ());
+        int defaultSubsampling = 1;
+        while (maxDimension / defaultSubsampling > 4096) {
+            defaultSubsampling <<= 1;
+        }
+        int subsampling = parameters.optDraftSubsampling (defaultSubsampling);
+        if (subsampling < 1) {
+            throw new IllegalArgumentException ("draft-subsampling < 1 : " + subsampling);
+        }
+        int droppedLevels = (int) Math.floor (Math.log (subsampling) / Math.log (2));
+        
+        System.out.println ("Draft build: reading input at 1/" + subsampling + " resolution.");
+        
+        parameters.draftSubsampling (subsampling);
+        if (parameters.transform () == ImagePyramidParameters.Transform.FACEMAP || 
+            parameters.transform () == ImagePyramidParameters.Transform.CYLINDER_FACEMAP) {
+            parameters.faceSize (Math.max (parameters.optFaceSize (2048) / subsampling, 1));
+        }
+        if (parameters.containsKey (ImagePyramidParameters.LEVELS)) {
+            parameters.levels (Math.max (parameters.levels () - droppedLevels, 1));
+        }
+        parameters.oversampling (1);
+        parameters.jitter (-1);
+        parameters.putIfEmpty (ImagePyramidParameters.JPEG_QUALITY, "0.4");
+        parameters.losslessJpegTiling (false);
+    }
+    
+    static boolean isDraft (ImagePyramidParameters parameters) {
+        return parameters.optQuality (ImagePyramidParameters.Quality.FINAL) == ImagePyramidParameters.Quality.DRAFT;
+    }
+    
+    /**
+     * Scales an image. The fast scaling uses bilinear interpolation, which is
+     * good enough for the factor-of-two reductions between pyramid levels. The
+     * other scaling averages areas, and can also be done a band of rows at a time.
+     */
+    private static BufferedImage scale (BufferedImage source, int w, int h, boolean fast) {
+        if (!fast) {
+            return new AreaAveragingScaler (source.getWidth (), source.getHeight (), w, h).scale (source);
+        }
+        BufferedImage scaled = new BufferedImage (w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics ();
+        g.setRenderingHint (RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage (source, 0, 0, w, h, null);
+        g.dispose ();
+        return scaled;
+    }
+    
+    /**
+     * Parses the colour operations. Returns null if there are none.
+     */
+    static PixelOperations getPixelOperations (ImagePyramidParameters parameters) {
+        if (!parameters.containsKey (ImagePyramidParameters.COLOR_OPERATIONS)) {
+            return null;
+        }
+        PixelOperations pixelOperations = PixelOperations.parse (parameters.colorOperations ());
+        return pixelOperations.isEmpty () ? null : pixelOperations;
+    }
+    
+    static void setInputImageParameters (ImagePyramidParameters parameters, File input) throws Exception {
+        String path = input.getPath ();
+        
+        String suffix = path.substring (path.lastIndexOf ('.') + 1);
+        for (Iterator<ImageReader> iter = ImageIO.getImageReadersBySuffix (suffix);
+            iter.hasNext ();
+            ) {
+            
+            ImageReader reader = iter.next ();
+            try {
+                ImageInputStream stream = new FileImageInputStream(new File(path));
+                reader.setInput(stream);
+                int width = reader.getWidth (reader.getMinIndex ());
+                int height = reader.getHeight (reader.getMinIndex ());
+                
+                parameters
+                    .inputWidth (width)
+                    .inputHeight (height);
+                return;
+            } finally {
+                reader.dispose();
+            }
+        }
+        throw new Exception ("Unable to get input image size.");
+    }
+    
+    /**
+     * Command line interface. Parses the command line options and invokes the
+     * {@link #process} method.
+     * To run this fro your own code, use the {@link #process} method. This method
+     * may call {@code System.exit()}.
+     */
+    public static void main (String[] args) throws Exception {
+        if (args.length < 2) {
+            showHelp ();
+            System.err.println ("No input files specified.");
+            System.exit (1);
+        } else if (args.length == 1 && (args[0].equals ("-h") || args[0].equals ("--help"))) {
+            showHelp ();
+            System.exit (0);
+        } else {
+            File input = new File (args[0]);
+            File outputBase = new File (args[1]);
+            Map<String,String> parameters = new HashMap<String,String> ();
+            for (int i = 2; i < args.length; i += 2) {
+                if (args[i].startsWith ("--")) {
+                    String key = args[i].substring (2);
+                    String value = args[i + 1];
+                    parameters.put (key, value);
+                }
+            }
+            
+            process (input, outputBase, new ImagePyramidParameters (parameters));
+        }
+    }
+    
+    /**
+     * Creates an image pyramid.
+     * 
+     * @param input the input image map
+     * @param outputBase the output base directory (for folder output) or bigshot archive file (for archive output)
+     */
+    public static void process (File input, File outputBase, ImagePyramidParameters parameters) throws Exception {
+        if (parameters.containsKey (ImagePyramidParameters.PROFILES)) {
+            processProfiles (input, outputBase, parameters);
+            return;
+        }
+        
+        ImagePyramidParameters.InputFormat inputFormat = parameters.optInputFormat (
+            input.getName ().endsWith (".mosaic") ? ImagePyramidParameters.InputFormat.MOSAIC : ImagePyramidParameters.InputFormat.IMAGE);
+        if (inputFormat == ImagePyramidParameters.InputFormat.MOSAIC) {
+            if (parameters.transform () != null) {
+                throw new IllegalArgumentException ("Transforms can't be used with mosaic input.");
+            }
+            if (isSharded (parameters)) {
+                throw new IllegalArgumentException ("Mosaic input can't be sharded.");
+            }
+            Mosaic mosaic = new Mosaic (input);
+            parameters
+                .inputWidth (mosaic.width ())
+                .inputHeight (mosaic.height ());
+            if (isDraft (parameters)) {
+                // Mosaic tiles are always read at full resolution.
+                parameters.putIfEmpty (ImagePyramidParameters.JPEG_QUALITY, "0.4");
+            }
+            makeMosaicPyramid (mosaic, outputBase, parameters);
+            return;
+        }
+        
+        setInputImageParameters (parameters, input);
+        
+        if (parameters.preset () == ImagePyramidParameters.Preset.DZI_CUBEMAP) {
+            presetDziCubemap (parameters);
+        }
+        
+        if (isDraft (parameters)) {
+            presetDraft (parameters);
+        }
+        
+        if (isSharded (parameters)) {
+            if (parameters.transform () == ImagePyramidParameters.Transform.FACE) {
+                throw new IllegalArgumentException ("The face transform can't be sharded.");
+            }
+            if (isProgressive (parameters)) {
+                throw new IllegalArgumentException ("Progressive builds can't be sharded.");
+            }
+            if (isDraft (parameters) && 
+                parameters.transform () != ImagePyramidParameters.Transform.FACEMAP && 
+                parameters.transform () != ImagePyramidParameters.Transform.CYLINDER_FACEMAP) {
+                // The fast scaling of draft builds can't be done a band at a time.
+                throw new IllegalArgumentException ("Draft builds can only be sharded for cube maps.");
+            }
+            if (parameters.containsKey (ImagePyramidParameters.SHARD)) {
+                // Fail before the input is decoded.
+                Shard.parse (parameters.shard ());
+            }
+        }
+        
+        if (parameters.containsKey (ImagePyramidParameters.MERGE_SHARDS)) {
+            mergeShards (outputBase, parameters);
+        } else if (parameters.transform () == ImagePyramidParameters.Transform.FACEMAP || 
+            parameters.transform () == ImagePyramidParameters.Transform.CYLINDER_FACEMAP) {
+            makeFacemapPyramids (input, Collections.singletonList (new OutputProfile (outputBase, parameters)), parameters);
+        } else if (parameters.transform () == ImagePyramidParameters.Transform.FACE) {
+            double fov = parameters.optFov (60);
+            double yaw = parameters.optYaw (0);
+            double pitch = parameters.optPitch (0);
+            double roll = parameters.optRoll (0);
+            double yawOffset = parameters.optYawOffset (0);
+            double pitchOffset = parameters.optPitchOffset (0);
+            double rollOffset = parameters.optRollOffset (0);
+            int oversampling = parameters.optOversampling (1);
+            double jitter = parameters.optJitter (-1);
+            
+            int outputSizeW = parameters.optOutputWidth (640);
+            int outputSizeH = parameters.optOutputHeight (480);
+            
+            Output output = createOutput (parameters);
+            
+            Image in = Image.read (input, parameters.optDraftSubsampling (1));
+            
+            Image outImage = new EquirectangularToCubic ()
+                .input (in)
+                .vfov (fov)
+                .offset (yawOffset, pitchOffset, rollOffset)
+                .view (yaw, pitch, roll)
+                .size (outputSizeW, outputSizeH)
+                .oversampling (oversampling)
+                .jitter (jitter)
+                .nearestNeighbour (isDraft (parameters))
+                .pixelOperations (getPixelOperations (parameters))
+                .transform ();
+            
+            output.write (outImage.toBuffered (), outputBase);
+        } else {
+            makeImagePyramids (input, Collections.singletonList (new OutputProfile (outputBase, parameters)), parameters);
+        }
+    }
+    
+    /**
+     * Creates the pyramids of several output profiles from one input. See
+     * {@link OutputProfile} for the profile file.
+     *
+     * @param outputBase the folder that the profiles are written to
+     * @throws IllegalArgumentException if the profiles are combined with a preset,
+     * the face transform or shards
+     */
+    private static void processProfiles (File input, File outputBase, ImagePyramidParameters parameters) throws Exception {
+        File profileFile = new File (parameters.profiles ());
+        ImagePyramidParameters shared = new ImagePyramidParameters (parameters);
+        shared.remove (ImagePyramidParameters.PROFILES);
+        outputBase.mkdirs ();
+        
+        ImagePyramidParameters.InputFormat inputFormat = shared.optInputFormat (
+            input.getName ().endsWith (".mosaic") ? ImagePyramidParameters.InputFormat.MOSAIC : ImagePyramidParameters.InputFormat.IMAGE);
+        if (inputFormat == ImagePyramidParameters.InputFormat.MOSAIC) {
+            // A mosaic is streamed from its source tiles, so there is no decoded
+            // image to share between the profiles.
+            for (OutputProfile profile : OutputProfile.read (profileFile, outputBase, shared)) {
+                System.out.println ("Making pyramid for profile " + profile.getOutput ().getName ());
+                process (input, profile.getOutput (), profile.getParameters ());
+            }
+            return;
+        }
+        if (shared.preset () != null) {
+            throw new IllegalArgumentException ("Presets can't be used with output profiles.");
+        }
+        if (isSharded (shared)) {
+            throw new IllegalArgumentException ("Output profiles can't be sharded.");
+        }
+        if (shared.transform () == ImagePyramidParameters.Transform.FACE) {
+            throw new IllegalArgumentException ("The face transform can't be used with output profiles.");
+        }
+        
+        setInputImageParameters (shared, input);
+        if (isDraft (shared)) {
+            presetDraft (shared);
+        }
+        
+        List<OutputProfile> profiles = OutputProfile.read (profileFile, outputBase, shared);
+        if (shared.transform () == ImagePyramidParameters.Transform.FACEMAP || 
+            shared.transform () == ImagePyramidParameters.Transform.CYLINDER_FACEMAP) {
+            makeFacemapPyramids (input, profiles, shared);
+        } else {
+            makeImagePyramids (input, profiles, shared);
+        }
+    }
+    
+    /**
+     * Creates the pyramids of the faces of a cube map. The image map is read once,
+     * and transformed once for each overlap of the profiles. One part of a sharded
+     * build only makes its own faces, and writes them to the shard folder.
+     *
+     * @param shared the parameters shared by the profiles
+     */
+    private static void makeFacemapPyramids (File input, List<OutputProfile> profiles, ImagePyramidParameters shared) throws Exception {
+        Shard shard = shared.containsKey (ImagePyramidParameters.SHARD) ? Shard.parse (shared.shard ()) : null;
+        int subsampling = shared.optDraftSubsampling (1);
+        Image map = Image.read (input, subsampling);
+        
+        for (List<OutputProfile> group : OutputProfile.groupByOverlap (profiles).values ()) {
+            AbstractCubicTransform<? extends AbstractCubicTransform> xform = createFaceTransform (shared);
+            int xformFaceSize = shared.optFaceSize (2048) + group.get (0).getOverlap ();
+            xform.input (map, subsampling);
+            configureFaceTransform (xform, shared);
+            xform.size (xformFaceSize, xformFaceSize);
+            
+            System.out.println (String.format (Locale.US, "Input FOV: %.2f x %.2f degrees", xform.inputHfov (), xform.inputVfov ()));
+            
+            // The faces are written to folders, that are packed afterwards for archive output.
+            List<File> pyramidBases = new ArrayList<File> ();
+            for (OutputProfile profile : group) {
+                File pyramidBase = profile.getOutput ();
+                if (shard != null) {
+                    pyramidBase = createShardFolder (profile.getOutput (), shard);
+                } else if (profile.getParameters ().format () == ImagePyramidParameters.Format.ARCHIVE) {
+                    pyramidBase = File.createTempFile ("makeimagepyramid", "bigshot");
+                    pyramidBase.delete ();
+                    pyramidBase.mkdirs ();
+                }
+                pyramidBases.add (pyramidBase);
+            }
+            
+            List<Future<Image>> faces = xform.transformToFaces ();
+            for (int f = 0; f < faces.size (); ++f) {
+                if (shard != null && !shard.ownsFace (f)) {
+                    continue;
+                }
+                Image img = faces.get (f).get ();
+                System.out.println ("Making pyramid for " + img.getName ());
+                List<OutputProfile> faceProfiles = new ArrayList<OutputProfile> ();
+                for (int i = 0; i < group.size (); ++i) {
+                    faceProfiles.add (new OutputProfile (new File (pyramidBases.get (i), img.getName ()), getFaceParameters (group.get (i).getParameters ())));
+                }
+                BufferedImage buffered = img.toBuffered ();
+                img = null;
+                
+                makePyramid (buffered, faceProfiles, null);
+            }
+            
+            if (shard != null) {
+                shard.writeManifest (pyramidBases.get (0), new LinkedHashMap<String,String> ());
+                continue;
+            }
+            for (int i = 0; i < group.size (); ++i) {
+                OutputProfile profile = group.get (i);
+                if (profile.getParameters ().format () == ImagePyramidParameters.Format.ARCHIVE) {
+                    pack (pyramidBases.get (i), profile.getOutput (), profile.getParameters ());
+                    deleteAll (pyramidBases.get (i));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Returns the parameters for the pyramid of a face of a cube map. The faces
+     * are always written as folders.
+     */
+    private static ImagePyramidParameters getFaceParameters (ImagePyramidParameters parameters) {
+        boolean archive = parameters.format () == ImagePyramidParameters.Format.ARCHIVE;
+        ImagePyramidParameters faceParameters = new ImagePyramidParameters (parameters);
+        faceParameters.remove (ImagePyramidParameters.FORMAT);
+        if (archive || parameters.folderLayout () != ImagePyramidParameters.FolderLayout.BUCKETED) {
+            faceParameters.remove (ImagePyramidParameters.FOLDER_LAYOUT);
+        }
+        if (archive) {
+            faceParameters.remove (ImagePyramidParameters.PROGRESSIVE);
+        }
+        // Already applied by the transform.
+        faceParameters.remove (ImagePyramidParameters.COLOR_OPERATIONS);
+        // The faces of a part are split between parts, not their tiles.
+        faceParameters.remove (ImagePyramidParameters.SHARD);
+        return faceParameters;
+    }
+    
+    /**
+     * Creates the pyramids of an image. The image is read once, and reduced once
+     * for each overlap of the profiles.
+     *
+     * @param shared the parameters shared by the profiles
+     */
+    private static void makeImagePyramids (File input, List<OutputProfile> profiles, ImagePyramidParameters shared) throws Exception {
+        if (shared.containsKey (ImagePyramidParameters.SHARD)) {
+            // Output profiles can't be sharded, so there is only one.
+            makeShardPyramid (input, profiles.get (0));
+            return;
+        }
+        BufferedImage full = Image.readBuffered (input, shared.optDraftSubsampling (1));
+        for (List<OutputProfile> group : OutputProfile.groupByOverlap (profiles).values ()) {
+            makePyramid (full, group, input);
+        }
+    }
+    
+    private static boolean isSharded (ImagePyramidParameters parameters) {
+        return parameters.containsKey (ImagePyramidParameters.SHARD) || parameters.containsKey (ImagePyramidParameters.MERGE_SHARDS);
+    }
+    
+    /**
+     * Merges the parts of a sharded build into the output, and writes the
+     * descriptor and archive. The parameters must be those of the parts, without
+     * the shard. See {@link Shard} for how a build is split.
+     *
+     * @throws IOException if a part is missing or hasn't finished
+     */
+    private static void mergeShards (File outputBase, ImagePyramidParameters parameters) throws Exception {
+        int count = parameters.mergeShards ();
+        if (count < 1) {
+            throw new IllegalArgumentException ("The number of shards must be at least 1: " + count);
+        }
+        if (parameters.containsKey (ImagePyramidParameters.SHARD)) {
+            throw new IllegalArgumentException ("A part of a sharded build can't also merge the parts.");
+        }
+        ImagePyramidParameters merged = new ImagePyramidParameters (parameters);
+        merged.remove (ImagePyramidParameters.MERGE_SHARDS);
+        
+        // Check that all parts are done before anything is moved.
+        List<File> shardFolders = new ArrayList<File> ();
+        List<Map<String,String>> manifests = new ArrayList<Map<String,String>> ();
+        for (int i = 0; i < count; ++i) {
+            File folder = Shard.getFolder (outputBase, i);
+            shardFolders.add (folder);
+            manifests.add (Shard.readManifest (folder, count));
+        }
+        System.out.println ("Merging " + count + " shards into " + outputBase.getName ());
+        
+        if (merged.transform () == ImagePyramidParameters.Transform.FACEMAP || 
+            merged.transform () == ImagePyramidParameters.Transform.CYLINDER_FACEMAP) {
+            boolean archive = merged.format () == ImagePyramidParameters.Format.ARCHIVE;
+            File pyramidBase = outputBase;
+            if (archive) {
+                pyramidBase = File.createTempFile ("makeimagepyramid", "bigshot");
+                pyramidBase.delete ();
+            }
+            for (File folder : shardFolders) {
+                moveAll (folder, pyramidBase, Collections.singletonList (Shard.getManifest (folder)));
+            }
+            if (archive) {
+                pack (pyramidBase, outputBase, merged);
+                deleteAll (pyramidBase);
+            }
+        } else {
+            int w = Integer.parseInt (manifests.get (0).get ("width"));
+            int h = Integer.parseInt (manifests.get (0).get ("height"));
+            double posterScale = getPosterScale (w, h, merged);
+            int pw = (int) (w * posterScale);
+            int ph = (int) (h * posterScale);
+            PyramidTarget target = new PyramidTarget (outputBase, merged, null, w, h, pw, ph);
+            for (int i = 0; i < count; ++i) {
+                String occupancy = manifests.get (i).get ("occupancy");
+                if (occupancy != null) {
+                    target.addEmptyTiles (occupancy);
+                }
+                File folder = shardFolders.get (i);
+                moveAll (folder, target.getFolders (), Arrays.asList (Shard.getManifest (folder), Shard.getSeamFolder (folder)));
+            }
+            stitchShards (target, merged, shardFolders, pw, ph);
+            target.finish ();
+        }
+        
+        for (File folder : shardFolders) {
+            deleteAll (folder);
+        }
+    }
+    
+    /**
+     * Makes one part of a sharded build of an image. Only the band of the input that
+     * the part makes is decoded, and only the rows of each level that the band
+     * determines are reduced. The part writes the tiles that lie in its rows, and
+     * keeps the rows along the edges of its bands, and its rows of the poster, for
+     * the merge. See {@link Shard}.
+     */
+    private static void makeShardPyramid (File input, OutputProfile profile) throws Exception {
+        ImagePyramidParameters parameters = profile.getParameters ();
+        int subsampling = parameters.optDraftSubsampling (1);
+        int w = (parameters.inputWidth () + subsampling - 1) / subsampling;
+        int h = (parameters.inputHeight () + subsampling - 1) / subsampling;
+        
+        System.out.println ("Full image size: " + w + " x " + h + "");
+        
+        double posterScale = getPosterScale (w, h, parameters);
+        int pw = (int) (w * posterScale);
+        int ph = (int) (h * posterScale);
+        
+        PyramidTarget target = new PyramidTarget (profile.getOutput (), parameters, openLosslessTiler (input, parameters), w, h, pw, ph);
+        Shard shard = Shard.parse (parameters.shard ());
+        int[] levelWidths = target.getLevelWidths ();
+        int[] levelHeights = target.getLevelHeights ();
+        int[][] bands = Shard.getBands (shard.getCount (), levelWidths, levelHeights, target.getTileSize (), target.getOverlap ())[shard.getIndex ()];
+        File seams = Shard.getSeamFolder (target.getFolders ());
+        seams.mkdirs ();
+        
+        BufferedImage rows = null;
+        for (int zoom = 0; zoom < levelHeights.length; ++zoom) {
+            int top = bands[zoom][0];
+            int end = bands[zoom][1];
+            if (top == end) {
+                break;
+            }
+            if (zoom == 0) {
+                System.out.println ("Decoding rows " + top + " to " + end + ".");
+                rows = Image.readBuffered (input, subsampling, top, end - top);
+                
+                AreaAveragingScaler posterScaler = new AreaAveragingScaler (w, h, pw, ph);
+                int posterTop = posterScaler.getFirstDestRow (top);
+                int posterEnd = posterScaler.getEndDestRow (end);
+                if (posterTop < posterEnd) {
+                    writeSeam (posterScaler.scale (rows, top, posterTop, posterEnd), 0, posterEnd - posterTop, new File (seams, "poster_" + posterTop + ".png"));
+                }
+            } else {
+                AreaAveragingScaler scaler = new AreaAveragingScaler (levelWidths[zoom - 1], levelHeights[zoom - 1], levelWidths[zoom], levelHeights[zoom]);
+                rows = scaler.scale (rows, bands[zoom - 1][0], top, end);
+            }
+            
+            boolean atlasLevel = target.isAtlasLevel (zoom);
+            if (!atlasLevel) {
+                target.writeTileRows (zoom, rows, top, bands[zoom][2], bands[zoom][3]);
+            }
+            int keep = getSeamRows (zoom, levelHeights, target.getTileSize (), ph);
+            if (atlasLevel || end - top <= 2 * keep) {
+                writeSeam (rows, 0, end - top, new File (seams, zoom + "_" + top + ".png"));
+            } else {
+                writeSeam (rows, 0, keep, new File (seams, zoom + "_" + top + ".png"));
+                writeSeam (rows, end - top - keep, keep, new File (seams, zoom + "_" + (end - keep) + ".png"));
+            }
+        }
+        target.finish ();
+    }
+    
+    /**
+     * Returns the number of rows along each edge of a band of a level that a part
+     * of a sharded build keeps: enough to make the tiles that cross the edge, and
+     * the rows of the next level and of the poster next to the edge. The full
+     * resolution level has no tiles that cross the edges of the bands.
+     */
+    private static int getSeamRows (int zoom, int[] levelHeights, int tileSize, int ph) {
+        int keep = zoom > 0 ? tileSize : 0;
+        if (zoom + 1 < levelHeights.length) {
+            keep = Math.max (keep, (levelHeights[zoom] + levelHeights[zoom + 1] - 1) / levelHeights[zoom + 1] + 2);
+        }
+        if (zoom == 0) {
+            keep = Math.max (keep, (levelHeights[0] + ph - 1) / Math.max (ph, 1) + 2);
+        }
+        return keep;
+    }
+    
+    /**
+     * Writes rows of an image losslessly, in the type of the image, for the merge
+     * of a sharded build.
+     */
+    private static void writeSeam (BufferedImage image, int y, int height, File file) throws IOException {
+        WritableRaster raster = image.getColorModel ().createCompatibleWritableRaster (image.getWidth (), height);
+        raster.setRect (image.getRaster ().createChild (0, y, image.getWidth (), height, 0, 0, null));
+        BufferedImage rows = new BufferedImage (image.getColorModel (), raster, image.isAlphaPremultiplied (), null);
+        if (!ImageIO.write (rows, "png", file)) {
+            throw new IOException ("Unable to write " + file.getPath ());
+        }
+    }
+    
+    /**
+     * Makes the parts of a sharded build that no part could make from its band:
+     * the rows between the bands of each level, the tiles that cross the edges of
+     * the bands, the atlas and the poster. The rows between the bands are reduced
+     * from the rows of the level below, that the parts kept or that were made
+     * here, so that they are the same as those of a single build.
+     */
+    private static void stitchShards (PyramidTarget target, ImagePyramidParameters parameters, List<File> shardFolders, int pw, int ph) throws Exception {
+        int[] levelWidths = target.getLevelWidths ();
+        int[] levelHeights = target.getLevelHeights ();
+        int tileSize = target.getTileSize ();
+        int step = tileSize - target.getOverlap ();
+        int[][][] bands = Shard.getBands (shardFolders.size (), levelWidths, levelHeights, tileSize, target.getOverlap ());
+        
+        LevelRows previous = null;
+        for (int zoom = 0; zoom < levelHeights.length; ++zoom) {
+            int h = levelHeights[zoom];
+            LevelRows level = new LevelRows (levelWidths[zoom]);
+            BitSet made = new BitSet (h);
+            BitSet written = new BitSet ();
+            for (int i = 0; i < shardFolders.size (); ++i) {
+                level.addSeams (Shard.getSeamFolder (shardFolders.get (i)), zoom + "_", zoom > 0);
+                made.set (bands[i][zoom][0], bands[i][zoom][1]);
+                written.set (bands[i][zoom][2], bands[i][zoom][3]);
+            }
+            if (zoom > 0) {
+                AreaAveragingScaler scaler = new AreaAveragingScaler (levelWidths[zoom - 1], levelHeights[zoom - 1], levelWidths[zoom], h);
+                for (int[] gap : getUnset (made, h)) {
+                    int sourceTop = scaler.getFirstSourceRow (gap[0]);
+                    int sourceEnd = scaler.getEndSourceRow (gap[1] - 1);
+                    level.add (gap[0], scaler.scale (previous.get (sourceTop, sourceEnd), sourceTop, gap[0], gap[1]));
+                }
+            } else {
+                System.out.println ("Creating " + pw + " x " + ph + " poster image.");
+                AreaAveragingScaler posterScaler = new AreaAveragingScaler (levelWidths[0], h, pw, ph);
+                LevelRows poster = new LevelRows (pw);
+                BitSet posterMade = new BitSet (ph);
+                for (int i = 0; i < shardFolders.size (); ++i) {
+                    poster.addSeams (Shard.getSeamFolder (shardFolders.get (i)), "poster_", true);
+                    posterMade.set (posterScaler.getFirstDestRow (bands[i][0][0]), Math.max (posterScaler.getFirstDestRow (bands[i][0][0]), posterScaler.getEndDestRow (bands[i][0][1])));
+                }
+                for (int[] gap : getUnset (posterMade, ph)) {
+                    int sourceTop = posterScaler.getFirstSourceRow (gap[0]);
+                    int sourceEnd = posterScaler.getEndSourceRow (gap[1] - 1);
+                    poster.add (gap[0], posterScaler.scale (level.get (sourceTop, sourceEnd), sourceTop, gap[0], gap[1]));
+                }
+                BufferedImage posterImage = poster.get (0, ph);
+                PixelOperations pixelOperations = getPixelOperations (parameters);
+                if (pixelOperations != null) {
+                    pixelOperations.applyPacked (((DataBufferInt) posterImage.getRaster ().getDataBuffer ()).getData (), 0, pw, pw, ph);
+                }
+                target.writePoster (posterImage);
+            }
+            
+            if (target.isAtlasLevel (zoom)) {
+                target.writeLevel (zoom, level.get (0, h));
+            } else {
+                for (int[] tileRows : getUnset (written, TileOccupancy.getTileCount (h, tileSize, target.getOverlap ()))) {
+                    int top = tileRows[0] * step;
+                    int end = Math.min (h, (tileRows[1] - 1) * step + tileSize);
+                    target.writeTileRows (zoom, level.get (top, end), top, tileRows[0], tileRows[1]);
+                }
+            }
+            previous = level;
+        }
+    }
+    
+    /**
+     * Returns the ranges of the bits of a bit set that aren't set, up to a length,
+     * as <code>{<i>start</i>, <i>end</i>}</code>.
+     */
+    private static List<int[]> getUnset (BitSet set, int length) {
+        List<int[]> ranges = new ArrayList<int[]> ();
+        int start = set.nextClearBit (0);
+        while (start < length) {
+            int end = set.nextSetBit (start);
+            if (end < 0 || end > length) {
+                end = length;
+            }
+            ranges.add (new int[]{ start, end });
+            start = set.nextClearBit (end);
+        }
+        return ranges;
+    }
+    
+    /**
+     * Rows of a level of a sharded build, kept by the parts or made by the merge.
+     * Rows that are kept more than once are the same.
+     */
+    private static class LevelRows {
+        
+        private final int width;
+        private final List<Integer> tops = new ArrayList<Integer> ();
+        private final List<BufferedImage> blocks = new ArrayList<BufferedImage> ();
+        
+        public LevelRows (int width) {
+            this.width = width;
+        }
+        
+        /**
+         * Adds a block of rows.
+         *
+         * @param top the index of the first row of the block in the level
+         */
+        public void add (int top, BufferedImage rows) {
+            tops.add (top);
+            blocks.add (rows);
+        }
+        
+        /**
+         * Adds the rows that a part kept. The files are named
+         * <code><i>prefix</i><i>top</i>.png</code>.
+         *
+         * @param rgb if true, the rows are converted to {@link BufferedImage#TYPE_INT_RGB},
+         * otherwise they keep the type they were read as
+         */
+        public void addSeams (File folder, String prefix, boolean rgb) throws IOException {
+            File[] files = folder.listFiles ();
+            if (files == null) {
+                return;
+            }
+            for (File f : files) {
+                String name = f.getName ();
+                if (!name.startsWith (prefix) || !name.endsWith (".png")) {
+                    continue;
+                }
+                int top = Integer.parseInt (name.substring (prefix.length (), name.length () - 4));
+                BufferedImage rows = ImageIO.read (f);
+                if (rgb && rows.getType () != BufferedImage.TYPE_INT_RGB) {
+                    BufferedImage converted = new BufferedImage (rows.getWidth (), rows.getHeight (), BufferedImage.TYPE_INT_RGB);
+                    int[] pixels = ((DataBufferInt) converted.getRaster ().getDataBuffer ()).getData ();
+                    rows.getRGB (0, 0, rows.getWidth (), rows.getHeight (), pixels, 0, rows.getWidth ());
+                    rows = converted;
+                }
+                add (top, rows);
+            }
+        }
+        
+        /**
+         * Returns a range of rows, in the type of the first block.
+         *
+         * @throws IllegalStateException if a row is missing
+         */
+        public BufferedImage get (int top, int end) {
+            if (blocks.isEmpty ()) {
+                throw new IllegalStateException ("Rows " + top + " to " + end + " are missing.");
+            }
+            ColorModel colorModel = blocks.get (0).getColorModel ();
+            WritableRaster raster = colorModel.createCompatibleWritableRaster (width, end - top);
+            BitSet copied = new BitSet (end - top);
+            for (int i = 0; i < blocks.size (); ++i) {
+                BufferedImage block = blocks.get (i);
+                int blockTop = tops.get (i);
+                int first = Math.max (top, blockTop);
+                int last = Math.min (end, blockTop + block.getHeight ());
+                if (first < last) {
+                    // Copied through a child, as the offset of setRect can't be negative for all rasters.
+                    raster.setRect (block.getRaster ().createChild (0, first - blockTop, width, last - first, 0, first - top, null));
+                    copied.set (first - top, last - top);
+                }
+            }
+            int missing = copied.nextClearBit (0);
+            if (missing < end - top) {
+                throw new IllegalStateException ("Row " + (top + missing) + " is missing.");
+            }
+            return new BufferedImage (colorModel, raster, blocks.get (0).isAlphaPremultiplied (), null);
+        }
+    }
+    
+    /**
+     * Creates the transform for a facemap or cylinder-facemap transform.
+     */
+    static AbstractCubicTransform<? extends AbstractCubicTransform> createFaceTransform (ImagePyramidParameters parameters) {
+        if (parameters.transform () == ImagePyramidParameters.Transform.CYLINDER_FACEMAP) {
+            return new CylindricalToCubic ();
+        } else {
+            return new EquirectangularToCubic ();
+        }
+    }
+    
+    /**
+     * Sets up a face transform from the parameters. The input of the transform must
+     * already be set. The output size and view direction are left to the caller.
+     */
+    static void configureFaceTransform (AbstractCubicTransform<? extends AbstractCubicTransform> xform, ImagePyramidParameters parameters) throws Exception {
+        xform.nearestNeighbour (isDraft (parameters))
+            .vfov (90)
+            .oversampling (parameters.optOversampling (1))
+            .jitter (parameters.optJitter (-1))
+            .topCap (parameters.optTopCap (false))
+            .bottomCap (parameters.optBottomCap (false))
+            .pixelOperations (getPixelOperations (parameters))
+            .offset (parameters.optYawOffset (0), parameters.optPitchOffset (0), parameters.optRollOffset (0));
+        
+        if (parameters.containsKey (ImagePyramidParameters.TRANSFORM_PTO)) {
+            xform.fromHuginPto (new File (parameters.transformPto ()));
+        }
+        if (parameters.containsKey (ImagePyramidParameters.INPUT_VFOV)) {
+            xform.inputVfov (parameters.inputVfov ());
+        }
+        if (parameters.containsKey (ImagePyramidParameters.INPUT_HFOV)) {
+            xform.inputHfov (parameters.inputHfov ());
+        }
+        if (parameters.containsKey (ImagePyramidParameters.INPUT_HORIZON)) {
+            xform.inputHorizon (parameters.inputHorizon ());
+        }
+    }
+    
+    private static class PackageEntry {
+        public String key;
+        public File file;
+        
+        /**
+         * The content of an entry that isn't backed by a file, or null.
+         */
+        public byte[] data;
+        public long start;
+        public long length;
+        public String toString () {
+            return key + ":" + start + "+" + length;
+        }
+    }
+    
+    private static void scan (File directory, List<PackageEntry> result, String relativePath) {
+        for (File f : directory.listFiles ()) {
+            if (f.isDirectory ()) {
+                scan (f, result, relativePath + f.getName () + "/");
+            } else {
+                PackageEntry p = new PackageEntry ();
+                p.key = relativePath + f.getName ();
+                p.file = f;
+                p.length = f.length ();
+                result.add (p);
+            }
+        } 
+    }
+    
+    /**
+     * Writes the data section of an archive to a file and assigns the position of
+     * each entry in it. Files with the same content are stored once, and their
+     * index entries point to the same data. Each file is read once: its digest is
+     * computed while it is copied, and if the same data has already been written,
+     * the copy is overwritten by the next entry.
+     *
+     * @return the number of entries whose data is stored in the archive
+     */
+    private static int writeDeduplicated (List<PackageEntry> fileList, File dataFile) throws Exception {
+        Map<String,PackageEntry> byDigest = new HashMap<String,PackageEntry> ();
+        MessageDigest md = MessageDigest.getInstance ("MD5");
+        byte[] buffer = new byte[128000];
+        int stored = 0;
+        long currentPosition = 0;
+        FileOutputStream os = new FileOutputStream (dataFile);
+        try {
+            FileChannel channel = os.getChannel ();
+            DigestOutputStream digestOs = new DigestOutputStream (os, md);
+            for (PackageEntry pe : fileList) {
+                md.reset ();
+                if (pe.data != null) {
+                    digestOs.write (pe.data);
+                } else {
+                    copy (pe.file, digestOs, buffer);
+                }
+                String digest = new BigInteger (1, md.digest ()).toString (16) + ":" + pe.length;
+                PackageEntry first = byDigest.get (digest);
+                if (first != null) {
+                    pe.start = first.start;
+                    channel.position (currentPosition);
+                    continue;
+                }
+                byDigest.put (digest, pe);
+                pe.start = currentPosition;
+                currentPosition += pe.length;
+                ++stored;
+            }
+            channel.truncate (currentPosition);
+        } finally {
+            os.close ();
+        }
+        return stored;
+    }
+    
+    /**
+     * Matches the path of a tile: an optional face folder, the level folder and the
+     * file name, made up of the tile column and row.
+     */
+    private static final Pattern TILE_PATH = Pattern.compile ("(.*/)?([0-9]+)/([0-9]+)_([0-9]+)\\.[^/]*");
+    
+    /**
+     * Sorts archive entries so that tiles that are shown together are stored close
+     * together. Other entries, such as descriptors and posters, come first. Then come
+     * the tiles, grouped by level, coarsest first, then by face, and ordered along
+     * a space-filling curve within each group.
+     *
+     * @param invertedLevels true if the level numbering is inverted, so that the
+     * coarsest level has the lowest number
+     */
+    private static void order (List<PackageEntry> fileList, final ImagePyramidParameters.TileOrder tileOrder, final boolean invertedLevels) {
+        final Map<PackageEntry,Matcher> tiles = new HashMap<PackageEntry,Matcher> ();
+        final Map<String,Integer> levelSizes = new HashMap<String,Integer> ();
+        for (PackageEntry pe : fileList) {
+            Matcher m = TILE_PATH.matcher (pe.key);
+            if (m.matches ()) {
+                tiles.put (pe, m);
+                String level = m.group (2);
+                int size = Math.max (Integer.parseInt (m.group (3)), Integer.parseInt (m.group (4))) + 1;
+                Integer current = levelSizes.get (level);
+                if (current == null || current < size) {
+                    levelSizes.put (level, size);
+                }
+            }
+        }
+        
+        // The side of the smallest power-of-two grid that covers each level.
+        final Map<String,Integer> gridSizes = new HashMap<String,Integer> ();
+        for (Map.Entry<String,Integer> e : levelSizes.entrySet ()) {
+            int grid = 1;
+            while (grid < e.getValue ()) {
+                grid <<= 1;
+            }
+            gridSizes.put (e.getKey (), grid);
+        }
+        
+        Collections.sort (fileList, new Comparator<PackageEntry> () {
+                private long curveIndex (Matcher m) {
+                    int x = Integer.parseInt (m.group (3));
+                    int y = Integer.parseInt (m.group (4));
+                    if (tileOrder == ImagePyramidParameters.TileOrder.MORTON) {
+                        return MathUtil.mortonIndex (x, y);
+                    } else {
+                        return MathUtil.hilbertIndex (x, y, gridSizes.get (m.group (2)));
+                    }
+                }
+                
+                public int compare (PackageEntry a, PackageEntry b) {
+                    Matcher ma = tiles.get (a);
+                    Matcher mb = tiles.get (b);
+                    if (ma == null || mb == null) {
+                        if (ma != null) {
+                            return 1;
+                        } else if (mb != null) {
+                            return -1;
+                        }
+                        return a.key.compareTo (b.key);
+                    }
+                    int c = levelSizes.get (ma.group (2)).compareTo (levelSizes.get (mb.group (2)));
+                    if (c == 0) {
+                        // Levels of the same size in tiles: the coarsest first.
+                        int la = Integer.parseInt (ma.group (2));
+                        int lb = Integer.parseInt (mb.group (2));
+                        c = la < lb ? -1 : (la > lb ? 1 : 0);
+                        if (!invertedLevels) {
+                            c = -c;
+                        }
+                    }
+                    if (c == 0) {
+                        String fa = ma.group (1) != null ? ma.group (1) : "";
+                        String fb = mb.group (1) != null ? mb.group (1) : "";
+                        c = fa.compareTo (fb);
+                    }
+                    if (c == 0) {
+                        long ia = curveIndex (ma);
+                        long ib = curveIndex (mb);
+                        c = ia < ib ? -1 : (ia > ib ? 1 : 0);
+                    }
+                    return c;
+                }
+            });
+    }
+    
+    private static void copy (File source, OutputStream os, byte[] buffer) throws IOException {
+        FileInputStream is = new FileInputStream (source);
+        try {
+            while (true) {
+                int numRead = is.read (buffer);
+                if (numRead <= 0) {
+                    break;
+                }
+                os.write (buffer, 0, numRead);
+            }
+        } finally {
+            is.close ();
+        }
+    }
+    
+    private static void pack (File source, File outputBase, ImagePyramidParameters parameters) throws Exception {
+        File packedOutput = outputBase;
+        List<PackageEntry> fileList = new ArrayList<PackageEntry> ();
+        scan (source, fileList, "");
+        
+        ImagePyramidParameters.TileOrder tileOrder = parameters.optTileOrder (ImagePyramidParameters.TileOrder.HILBERT);
+        if (tileOrder != ImagePyramidParameters.TileOrder.NONE) {
+            // Record the order, so that tools that rewrite the archive can keep it.
+            PackageEntry layoutEntry = new PackageEntry ();
+            layoutEntry.key = "layout";
+            layoutEntry.data = ("tileOrder:" + tileOrder.name ().toLowerCase ()).getBytes ();
+            layoutEntry.length = layoutEntry.data.length;
+            fileList.add (layoutEntry);
+            order (fileList, tileOrder, ImagePyramidParameters.LevelNumbering.INVERT == parameters.levelNumbering ());
+        }
+        
+        // With deduplication, the positions of the entries are only known once
+        // the data has been read, so the data section is written to a file of
+        // its own and appended after the index.
+        File dataFile = null;
+        int stored = fileList.size ();
+        if (parameters.optDeduplicate (true)) {
+            File absolute = packedOutput.getAbsoluteFile ();
+            dataFile = new File (absolute.getParentFile (), absolute.getName () + ".data");
+            stored = writeDeduplicated (fileList, dataFile);
+        } else {
+            long currentPosition = 0;
+            for (PackageEntry pe : fileList) {
+                pe.start = currentPosition;
+                currentPosition += pe.length;
+            }
+        }
+        System.out.println ("Packing " + fileList.size () + " files to " + packedOutput.getName ()
+            + (stored < fileList.size () ? " (" + stored + " distinct)" : ""));
+        
+        byte[] buffer = new byte[128000];
+        BufferedOutputStream packageOs = new BufferedOutputStream (new FileOutputStream (packedOutput));
+        try {
+            StringBuilder index = new StringBuilder ();
+            for (PackageEntry pe : fileList) {
+                index.append (pe.key);
+                index.append (":");
+                index.append (pe.start);
+                index.append (":");
+                index.append (pe.length);
+                index.append (":");
+            }
+            
+            byte[] indexBytes = index.toString ().getBytes ();
+            byte[] header = String.format ("BIGSHOT %16x", indexBytes.length).getBytes ();
+            
+            packageOs.write (header);
+            packageOs.write (indexBytes);
+            
+            if (dataFile != null) {
+                copy (dataFile, packageOs, buffer);
+            } else {
+                for (PackageEntry pe : fileList) {
+                    if (pe.data != null) {
+                        packageOs.write (pe.data);
+                    } else {
+                        copy (pe.file, packageOs, buffer);
+                    }
+                }
+            }
+        } finally {
+            packageOs.close ();
+            if (dataFile != null) {
+                dataFile.delete ();
+            }
+        }
+    }
+    
+    /**
+     * Opens the input for lossless tiling of the full-resolution level, or returns
+     * null if the tiles have to be encoded from the decoded image.
+     */
+    private static LosslessJpegTiler openLosslessTiler (File input, ImagePyramidParameters parameters) throws Exception {
+        String name = input.getName ().toLowerCase ();
+        if (parameters.optLosslessJpegTiling (false)
+            && (name.endsWith (".jpg") || name.endsWith (".jpeg"))
+            && parameters.optImageFormat (ImagePyramidParameters.ImageFormat.JPG) == ImagePyramidParameters.ImageFormat.JPG
+            && getPixelOperations (parameters) == null
+            && !AdaptiveJpegOutput.isEnabled (parameters)) {
+            return LosslessJpegTiler.open (input, parameters.optTileSize (256) + parameters.optOverlap (0), parameters.optOverlap (0));
+        }
+        return null;
+    }
+    
+    static Output createOutput (ImagePyramidParameters parameters) {
+        Output output = null;
+        ImagePyramidParameters.ImageFormat imageFormat = parameters.optImageFormat (ImagePyramidParameters.ImageFormat.JPG);
+        if (ImagePyramidParameters.ImageFormat.JPG == imageFormat) {
+            output = AdaptiveJpegOutput.isEnabled (parameters) ? new AdaptiveJpegOutput () : new JpegOutput ();
+        } else if (ImagePyramidParameters.ImageFormat.PNG == imageFormat) {
+            output = new PngOutput ();
+        } else {
+            System.err.println ("Unknown image format: \"" + imageFormat + "\". Using JPEG.");
+            output = new JpegOutput ();
+        }
+        output.configure (parameters);
+        if (parameters.optDeduplicate (true)) {
+            output = new DeduplicatingOutput (output);
+        }
+        return output;
+    }
+    
+    static DescriptorOutput createDescriptor (ImagePyramidParameters parameters) {
+        DescriptorOutput descriptor = null;
+        ImagePyramidParameters.DescriptorFormat descriptorFormat = parameters.optDescriptorFormat (ImagePyramidParameters.DescriptorFormat.BIGSHOT);
+        if (ImagePyramidParameters.DescriptorFormat.BIGSHOT.equals (descriptorFormat)) {
+            descriptor = new BigshotDescriptorOutput ();
+        } else if (ImagePyramidParameters.DescriptorFormat.DZI.equals (descriptorFormat)) {
+            descriptor = new DziDescriptorOutput ();
+        } else {
+            System.err.println ("Unknown descriptor format: \"" + descriptorFormat + "\". Using Bigshot.");
+            descriptor = new BigshotDescriptorOutput ();
+        }
+        descriptor.configure (parameters);
+        return descriptor;
+    }
+    
+    /**
+     * Creates the folder that the pyramid levels, poster and descriptor are written to.
+     * For archive output, this is a temporary folder that is packed by {@link #finishPyramid}.
+     */
+    private static File createPyramidFolders (File outputBase, ImagePyramidParameters parameters) throws Exception {
+        boolean outputPackage = parameters.format () == ImagePyramidParameters.Format.ARCHIVE;
+        boolean dziLayout = parameters.folderLayout () == ImagePyramidParameters.FolderLayout.DZI;
+        
+        File folders = outputBase;
+        
+        if (outputPackage) {
+            folders = File.createTempFile ("pyramid", "dir");
+            folders.delete ();
+            folders.mkdirs ();
+        }
+        folders.mkdirs ();
+        
+        if (dziLayout) {
+            folders = new File (folders, outputBase.getName ());
+            folders.mkdirs ();
+        }
+        return folders;
+    }
+    
+    /**
+     * Creates the folder that one part of a sharded build writes to. Anything left
+     * there by an earlier run is removed.
+     */
+    private static File createShardFolder (File outputBase, Shard shard) throws Exception {
+        File folder = Shard.getFolder (outputBase, shard.getIndex ());
+        deleteAll (folder);
+        folder.mkdirs ();
+        return folder;
+    }
+    
+    /**
+     * Packs the pyramid folders into an archive, if archive output was requested.
+     */
+    private static void finishPyramid (File folders, File outputBase, ImagePyramidParameters parameters) throws Exception {
+        boolean outputPackage = parameters.format () == ImagePyramidParameters.Format.ARCHIVE;
+        boolean dziLayout = parameters.folderLayout () == ImagePyramidParameters.FolderLayout.DZI;
+        
+        if (outputPackage) {
+            if (dziLayout) {
+                pack (folders.getParentFile (), outputBase, parameters);
+                deleteAll (folders.getParentFile ());
+            } else {
+                pack (folders, outputBase, parameters);
+                deleteAll (folders);
+            }
+        }
+    }
+    
+    static int getLevels (int w, int h, int tileSize, ImagePyramidParameters parameters) {
+        int maxDimension = Math.max (w, h);
+        int heuristicMaxZoom = (int) (Math.ceil (Math.log (maxDimension) / Math.log (2)) - Math.floor (Math.log (tileSize) / Math.log (2)) + 2);
+        
+        int maxZoom = parameters.optLevels ((int) heuristicMaxZoom);
+        if (parameters.optWrapX (false)) {
+            maxZoom = 0;
+            int wxw = w;
+            while (wxw % tileSize == 0) {
+                wxw /= 2;
+                maxZoom++;
+            }
+        }
+        return maxZoom;
+    }
+    
+    /**
+     * Returns the name of the folder of a level.
+     */
+    static String getLevelName (int zoom, int maxZoom, ImagePyramidParameters parameters) {
+        return ImagePyramidParameters.LevelNumbering.INVERT == parameters.levelNumbering ()
+            ?
+            String.valueOf (maxZoom - zoom - 1)
+            :
+            String.valueOf (zoom);
+    }
+    
+    /**
+     * Returns the number of tiles along each side of a bucket in the bucketed folder
+     * layout, or 0 if the tiles are written directly to the level folders. Archives
+     * have no folders, so they are never bucketed.
+     *
+     * @throws IllegalArgumentException if the bucket size is less than 1, or the
+     * descriptor format can't describe the layout
+     */
+    static int getTileBucketSize (ImagePyramidParameters parameters) {
+        if (parameters.folderLayout () != ImagePyramidParameters.FolderLayout.BUCKETED || parameters.format () == ImagePyramidParameters.Format.ARCHIVE) {
+            return 0;
+        }
+        if (parameters.optDescriptorFormat (ImagePyramidParameters.DescriptorFormat.BIGSHOT) != ImagePyramidParameters.DescriptorFormat.BIGSHOT) {
+            throw new IllegalArgumentException ("The bucketed folder layout needs the bigshot descriptor format.");
+        }
+        int bucketSize = parameters.optTileBucketSize (32);
+        if (bucketSize < 1) {
+            throw new IllegalArgumentException ("The tile bucket size must be at least 1: " + bucketSize);
+        }
+        return bucketSize;
+    }
+    
+    /**
+     * Returns the file of a tile, creating its bucket folder if needed.
+     *
+     * @param levelDir the folder of the level
+     * @param bucketSize the bucket size of the bucketed folder layout, or 0
+     */
+    static File getTileFile (File levelDir, int tx, int ty, String suffix, int bucketSize) {
+        if (bucketSize > 0) {
+            levelDir = new File (levelDir, (tx / bucketSize) + "_" + (ty / bucketSize));
+            levelDir.mkdirs ();
+        }
+        return new File (levelDir, tx + "_" + ty + suffix);
+    }
+    
+    private static File getLevelDirectory (File folders, int zoom, int maxZoom, ImagePyramidParameters parameters) {
+        File outputDir = new File (folders, getLevelName (zoom, maxZoom, parameters));
+        outputDir.mkdirs ();
+        return outputDir;
+    }
+    
+    /**
+     * Scales the source image to poster size and writes it.
+     */
+    private static void writePoster (BufferedImage source, int pw, int ph, File folders, Output output, PixelOperations pixelOperations, boolean fast) throws Exception {
+        output.write (createPoster (source, pw, ph, pixelOperations, fast), new File (folders, "poster" + output.getSuffix ()));
+    }
+    
+    /**
+     * Scales the source image to poster size.
+     */
+    private static BufferedImage createPoster (BufferedImage source, int pw, int ph, PixelOperations pixelOperations, boolean fast) {
+        System.out.println ("Creating " + pw + " x " + ph + " poster image.");
+        
+        BufferedImage poster = scale (source, pw, ph, fast);
+        if (pixelOperations != null) {
+            pixelOperations.applyPacked (((DataBufferInt) poster.getRaster ().getDataBuffer ()).getData (), 0, pw, pw, ph);
+        }
+        return poster;
+    }
+    
+    /**
+     * Creates the atlas of the coarsest levels, or returns null if there is to be
+     * none, or if no level is small enough.
+     *
+     * @throws IllegalArgumentException if the descriptor format isn't bigshot
+     */
+    private static TileAtlas createAtlas (ImagePyramidParameters parameters, int[] levelWidths, int[] levelHeights) {
+        int atlasLevelSize = parameters.optAtlasLevelSize (0);
+        if (atlasLevelSize <= 0) {
+            return null;
+        }
+        if (parameters.optDescriptorFormat (ImagePyramidParameters.DescriptorFormat.BIGSHOT) != ImagePyramidParameters.DescriptorFormat.BIGSHOT) {
+            throw new IllegalArgumentException ("The tile atlas needs the bigshot descriptor format.");
+        }
+        int last = levelWidths.length - 1;
+        if (levelWidths[last] > atlasLevelSize || levelHeights[last] > atlasLevelSize) {
+            return null;
+        }
+        return new TileAtlas (levelWidths, levelHeights, atlasLevelSize);
+    }
+    
+    /**
+     * Writes the atlas image.
+     */
+    private static void writeAtlas (TileAtlas atlas, File folders, Output output, PixelOperations pixelOperations) throws Exception {
+        BufferedImage image = atlas.getImage ();
+        int w = image.getWidth ();
+        int h = image.getHeight ();
+        System.out.println ("Creating " + w + " x " + h + " atlas of the levels from " + atlas.getFirstZoom () + " up.");
+        if (pixelOperations != null) {
+            pixelOperations.applyPacked (((DataBufferInt) image.getRaster ().getDataBuffer ()).getData (), 0, w, w, h);
+        }
+        output.write (image, new File (folders, "atlas" + output.getSuffix ()));
+    }
+    
+    /**
+     * One of the pyramids that a build writes the levels of an image to.
+     */
+    private static class PyramidTarget {
+        
+        private final File outputBase;
+        private final ImagePyramidParameters parameters;
+        private final LosslessJpegTiler losslessTiler;
+        private final File folders;
+        private final Output output;
+        private final DescriptorOutput descriptor;
+        private final PixelOperations pixelOperations;
+        private final int tileSize;
+        private final int overlap;
+        private final int maxZoom;
+        private final TileOccupancy occupancy;
+        private final int bucketSize;
+        private final boolean exactEdgeTiles;
+        private final TileAtlas atlas;
+        private final Shard shard;
+        private final int[] levelWidths;
+        private final int[] levelHeights;
+        private int atlasLevelsAdded = 0;
+        private PyramidStatus status = null;
+        
+        /**
+         * Sets up the folders and descriptor of a pyramid. For progressive builds,
+         * the descriptor is written at once. For one part of a sharded build, the
+         * tiles are written to the shard folder, and no descriptor is written.
+         *
+         * @param losslessTiler if not null, used to create the tiles of the full-resolution level
+         * @param w the width of the full-resolution level
+         * @param h the height of the full-resolution level
+         * @param pw the width of the poster image
+         * @param ph the height of the poster image
+         * @throws IllegalArgumentException if a progressive build is sharded
+         */
+        public PyramidTarget (File outputBase, ImagePyramidParameters parameters, LosslessJpegTiler losslessTiler, int w, int h, int pw, int ph) throws Exception {
+            this.outputBase = outputBase;
+            this.parameters = parameters;
+            this.losslessTiler = losslessTiler;
+            this.shard = parameters.containsKey (ImagePyramidParameters.SHARD) ? Shard.parse (parameters.shard ()) : null;
+            if (shard != null) {
+                if (MakeImagePyramid.isProgressive (parameters)) {
+                    throw new IllegalArgumentException ("Progressive builds can't be sharded.");
+                }
+                this.folders = createShardFolder (outputBase, shard);
+            } else {
+                this.folders = createPyramidFolders (outputBase, parameters);
+            }
+            this.output = createOutput (parameters);
+            this.descriptor = createDescriptor (parameters);
+            this.pixelOperations = getPixelOperations (parameters);
+            
+            descriptor.setSuffix (output.getSuffix ());
+            descriptor.setFullSize (w, h);
+            descriptor.setPosterSize (parameters.optPosterSize (512), pw, ph);
+            
+            this.overlap = parameters.optOverlap (0);
+            this.tileSize = parameters.optTileSize (256) + overlap;
+            this.maxZoom = getLevels (w, h, tileSize, parameters);
+            
+            descriptor.setTileSize (tileSize, overlap, (-maxZoom + 1));
+            
+            this.occupancy = createOccupancy (parameters);
+            this.bucketSize = getTileBucketSize (parameters);
+            this.exactEdgeTiles = parameters.optExactEdgeTiles (false);
+            
+            this.levelWidths = new int[maxZoom];
+            this.levelHeights = new int[maxZoom];
+            for (int zoom = 0, lw = w, lh = h; zoom < maxZoom; ++zoom) {
+                levelWidths[zoom] = lw;
+                levelHeights[zoom] = lh;
+                lw = (lw - overlap) / 2 + overlap;
+                lh = (lh - overlap) / 2 + overlap;
+            }
+            this.atlas = createAtlas (parameters, levelWidths, levelHeights);
+            if (atlas != null) {
+                descriptor.setAtlas (atlas);
+            }
+            
+            if (MakeImagePyramid.isProgressive (parameters)) {
+                descriptor.output (folders);
+                status = new PyramidStatus (folders);
+            }
+        }
+        
+        public int getMaxZoom () {
+            return maxZoom;
+        }
+        
+        public boolean isProgressive () {
+            return status != null;
+        }
+        
+        public int getTileSize () {
+            return tileSize;
+        }
+        
+        
+        public int getOverlap () {
+            return overlap;
+        }
+        
+        public int[] getLevelWidths () {
+            return levelWidths;
+        }
+        
+        public int[] getLevelHeights () {
+            return levelHeights;
+        }
+        
+        /**
+         * Returns true if a level is written to the atlas instead of as tiles.
+         */
+        public boolean isAtlasLevel (int zoom) {
+            return atlas != null && atlas.contains (zoom);
+        }
+        
+        public void writePoster (BufferedImage poster) throws Exception {
+            output.write (poster, new File (folders, "poster" + output.getSuffix ()));
+        }
+        
+        /**
+         * Adds the empty tiles of one part of a sharded build.
+         */
+        public void addEmptyTiles (String format) {
+            if (occupancy != null) {
+                occupancy.addEmptyTiles (format);
+            }
+        }
+        
+        public File getFolders () {
+            return folders;
+        }
+        
+        /**
+         * Tiles a level, or adds it to the atlas. The atlas is written once all of
+         * its levels have been added. Levels beyond the coarsest level of this
+         * pyramid are ignored.
+         */
+        public void writeLevel (int zoom, BufferedImage level) throws Exception {
+            if (zoom >= maxZoom) {
+                return;
+            }
+            if (atlas != null && atlas.contains (zoom)) {
+                atlas.add (zoom, level);
+                if (++atlasLevelsAdded == maxZoom - atlas.getFirstZoom ()) {
+                    writeAtlas (atlas, folders, output, pixelOperations);
+                    if (status != null) {
+                        for (int z = maxZoom - 1; z >= atlas.getFirstZoom (); --z) {
+                            status.levelComplete (new File (folders, getLevelName (z, maxZoom, parameters)));
+                        }
+                    }
+                }
+                return;
+            }
+            File outputDir = getLevelDirectory (folders, zoom, maxZoom, parameters);
+            tileLevel (level, 0, level.getHeight (), 0, Integer.MAX_VALUE, zoom, tileSize, overlap, outputDir, output, pixelOperations, losslessTiler, occupancy, bucketSize, exactEdgeTiles);
+            if (status != null) {
+                status.levelComplete (outputDir);
+            }
+        }
+        
+        /**
+         * Tiles a range of tile rows of a level that isn't in the atlas, for
+         * sharded builds.
+         *
+         * @param rows the rows of the level that the tile rows lie in
+         * @param top the index of the first row of {@code rows} in the level
+         */
+        public void writeTileRows (int zoom, BufferedImage rows, int top, int firstTileRow, int endTileRow) throws Exception {
+            if (firstTileRow < endTileRow) {
+                File outputDir = getLevelDirectory (folders, zoom, maxZoom, parameters);
+                tileLevel (rows, top, levelHeights[zoom], firstTileRow, endTileRow, zoom, tileSize, overlap, outputDir, output, pixelOperations, losslessTiler, occupancy, bucketSize, exactEdgeTiles);
+            }
+        }
+        
+        /**
+         * Writes the descriptor, or marks a progressive build as complete, and
+         * packs the archive. One part of a sharded build only writes its manifest.
+         */
+        public void finish () throws Exception {
+            if (shard != null) {
+                Map<String,String> manifest = new LinkedHashMap<String,String> ();
+                manifest.put ("width", String.valueOf (levelWidths[0]));
+                manifest.put ("height", String.valueOf (levelHeights[0]));
+                if (occupancy != null) {
+                    manifest.put ("occupancy", occupancy.format (maxZoom));
+                }
+                output.finish ();
+                shard.writeManifest (folders, manifest);
+                return;
+            }
+            if (status != null) {
+                status.finish ();
+            } else {
+                if (occupancy != null && occupancy.hasEmptyTiles ()) {
+                    descriptor.setOccupancy (occupancy, maxZoom);
+                }
+                descriptor.output (folders);
+            }
+            output.finish ();
+            finishPyramid (folders, outputBase, parameters);
+        }
+    }
+    
+    /**
+     * Creates pyramids from an image. The poster and the levels are made once and
+     * written to the pyramid of each profile, so the profiles must have the same
+     * overlap. The parameters that aren't set by profiles are taken from the first.
+     *
+     * @param input if not null, the input file, used to tile the full-resolution
+     * level losslessly when possible
+     */
+    private static void makePyramid (BufferedImage full, List<OutputProfile> profiles, File input) throws Exception {
+        ImagePyramidParameters parameters = profiles.get (0).getParameters ();
+        boolean fast = isDraft (parameters);
+        int overlap = profiles.get (0).getOverlap ();
+        
+        int w = full.getWidth ();
+        int h = full.getHeight ();
+        
+        System.out.println ("Full image size: " + w + " x " + h + "");
+        
+        double posterScale = getPosterScale (w, h, parameters);
+        
+        int pw = (int) (w * posterScale);
+        int ph = (int) (h * posterScale);
+        
+        List<PyramidTarget> targets = new ArrayList<PyramidTarget> ();
+        int maxZoom = 0;
+        boolean progressive = false;
+        for (OutputProfile profile : profiles) {
+            LosslessJpegTiler losslessTiler = input != null ? openLosslessTiler (input, profile.getParameters ()) : null;
+            PyramidTarget target = new PyramidTarget (profile.getOutput (), profile.getParameters (), losslessTiler, w, h, pw, ph);
+            targets.add (target);
+            maxZoom = Math.max (maxZoom, target.getMaxZoom ());
+            progressive |= target.isProgressive ();
+        }
+        
+        BufferedImage poster = createPoster (full, pw, ph, getPixelOperations (parameters), fast);
+        for (PyramidTarget target : targets) {
+            target.writePoster (poster);
+        }
+        poster = null;
+        
+        System.out.println ("Creating pyramid with " + maxZoom + " levels.");
+        if (progressive) {
+            // Reduce all levels first, so that they can be written coarsest first.
+            BufferedImage[] levels = new BufferedImage[maxZoom];
+            levels[0] = full;
+            for (int zoom = 1; zoom < maxZoom; ++zoom) {
+                w = (w - overlap) / 2 + overlap;
+                h = (h - overlap) / 2 + overlap;
+                levels[zoom] = scale (levels[zoom - 1], w, h, fast);
+            }
+            full = null;
+            
+            for (int zoom = maxZoom - 1; zoom >= 0; --zoom) {
+                for (PyramidTarget target : targets) {
+                    target.writeLevel (zoom, levels[zoom]);
+                }
+                levels[zoom] = null;
+            }
+        } else {
+            for (int zoom = 0; zoom < maxZoom; ++zoom) {
+                for (PyramidTarget target : targets) {
+                    target.writeLevel (zoom, full);
+                }
+                
+                w = (w - overlap) / 2 + overlap;
+                h = (h - overlap) / 2 + overlap;
+                
+                if (zoom < maxZoom - 1) {
+                    //System.out.println ("Reducing by factor of 2...");
+                    
+                    full = scale (full, w, h, fast);
+                }
+            }
+        }
+        
+        for (PyramidTarget target : targets) {
+            target.finish ();
+        }
+    }
+    
+    /**
+     * Returns the scale of the poster image of a pyramid.
+     */
+    private static double getPosterScale (int w, int h, ImagePyramidParameters parameters) {
+        int maxDimension = Math.max (w, h);
+        int posterSize = parameters.optPosterSize (512);
+        return ((double) posterSize) / maxDimension;
+    }
+    
+    /**
+     * Tiles a range of tile rows of one level of a pyramid.
+     *
+     * @param rows the rows of the level that the tile rows lie in
+     * @param top the index of the first row of {@code rows} in the level
+     * @param losslessTiler if not null, used to create the tiles of the full-resolution level
+     */
+    private static void tileLevel (BufferedImage rows, int top, int levelHeight, int firstTileRow, int endTileRow, int zoom, int tileSize, int overlap, File outputDir, Output output, PixelOperations pixelOperations, LosslessJpegTiler losslessTiler, TileOccupancy occupancy, int bucketSize, boolean exactEdgeTiles) throws Exception {
+        if (zoom == 0 && losslessTiler != null) {
+            // The tiles aren't decoded, so they can't be checked for emptiness.
+            System.out.println ("Tiling full-resolution level in the DCT domain.");
+            losslessTiler.tile (tileSize, overlap, outputDir, output.getSuffix (), bucketSize, exactEdgeTiles, firstTileRow, endTileRow);
+        } else {
+            tile (rows, top, levelHeight, firstTileRow, endTileRow, tileSize, overlap, outputDir, output, pixelOperations, occupancy, zoom, bucketSize, exactEdgeTiles);
+        }
+    }
+    
+    private static boolean isProgressive (ImagePyramidParameters parameters) {
+        return parameters.optProgressive (false) && parameters.format () != ImagePyramidParameters.Format.ARCHIVE;
+    }
+    
+    /**
+     * Creates the occupancy map for a pyramid, or returns null if empty tiles
+     * are to be written. A progressive build publishes the descriptor before the
+     * tiles are made, so it writes all tiles.
+     *
+     * @throws IllegalArgumentException if the empty tile colour is malformed
+     */
+    static TileOccupancy createOccupancy (ImagePyramidParameters parameters) {
+        if (!parameters.optSkipEmptyTiles (false) || isProgressive (parameters)) {
+            return null;
+        }
+        String color = parameters.optEmptyTileColor ("000000");
+        if (!color.matches ("[0-9a-fA-F]{6}")) {
+            throw new IllegalArgumentException ("Malformed empty tile color: \"" + color + "\". Use six hex digits, such as 000000.");
+        }
+        return new TileOccupancy (Integer.parseInt (color, 16));
+    }
+    
+    /**
+     * Records which levels of a pyramid are complete, so that the pyramid can be
+     * served while it is being built. The status is written to a file named
+     * {@code status}, next to the level folders, in the same format as the Bigshot
+     * descriptor. For example, {@code levels:3,2:complete:false} says that the
+     * folders {@code 3} and {@code 2} are complete, but that the pyramid is not.
+     * The file is replaced atomically, so readers never see a partial file.
+     */
+    private static class PyramidStatus {
+        
+        private final File folders;
+        private final StringBuilder levels = new StringBuilder ();
+        
+        public PyramidStatus (File folders) throws Exception {
+            this.folders = folders;
+            write (false);
+        }
+        
+        /**
+         * Marks a level as complete.
+         *
+         * @param levelDirectory the folder of the level
+         */
+        public void levelComplete (File levelDirectory) throws Exception {
+            if (levels.length () > 0) {
+                levels.append (",");
+            }
+            levels.append (levelDirectory.getName ());
+            write (false);
+        }
+        
+        /**
+         * Marks the pyramid as complete.
+         */
+        public void finish () throws Exception {
+            write (true);
+        }
+        
+        private void write (boolean complete) throws Exception {
+            File target = new File (folders, "status");
+            File temp = new File (folders, "status.tmp");
+            FileOutputStream os = new FileOutputStream (temp);
+            try {
+                os.write (("levels:" + levels + ":complete:" + complete).getBytes ());
+                os.getFD ().sync ();
+            } finally {
+                os.close ();
+            }
+            if (!temp.renameTo (target)) {
+                // Some platforms can't rename over an existing file.
+                target.delete ();
+                if (!temp.renameTo (target)) {
+                    throw new IOException ("Unable to rename " + temp.getPath () + " to " + target.getPath ());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Tiles one level of a pyramid from a stream of rows, top to bottom, and feeds
+     * the rows, reduced by a factor of two, to the next level. Only the rows of the
+     * current row of tiles are kept in memory.
+     */
+    private static class LevelWriter {
+        
+        private final int width;
+        private final int height;
+        private final int tileSize;
+        private final int overlap;
+        private final File outputDir;
+        private final Output output;
+        private final PixelOperations pixelOperations;
+        private final LevelWriter next;
+        private final TileOccupancy occupancy;
+        private final int zoom;
+        private final int bucketSize;
+        private final boolean exactEdgeTiles;
+        
+        /**
+         * The rows of the current row of tiles.
+         */
+        private final int[] rows;
+        private int bufferedRows = 0;
+        private int ty = 0;
+        
+        /**
+         * Number of rows received so far.
+         */
+        private int received = 0;
+        
+        /**
+         * First row of the pair that is reduced into one row of the next level.
+         */
+        private final int[] pendingRow;
+        private boolean hasPendingRow = false;
+        private final int[] reducedRow;
+        
+        private final BufferedImage tile;
+        private final int[] tilePixels;
+        
+        private BufferedImage retained = null;
+        private int[] retainedPixels = null;
+        private boolean tiled = true;
+        
+        public LevelWriter (int width, int height, int tileSize, int overlap, File outputDir, Output output, PixelOperations pixelOperations, LevelWriter next, TileOccupancy occupancy, int zoom, int bucketSize, boolean exactEdgeTiles) {
+            this.width = width;
+            this.height = height;
+            this.tileSize = tileSize;
+            this.overlap = overlap;
+            this.outputDir = outputDir;
+            this.output = output.forLevel (zoom);
+            this.pixelOperations = pixelOperations;
+            this.next = next;
+            this.occupancy = occupancy;
+            this.zoom = zoom;
+            this.bucketSize = bucketSize;
+            this.exactEdgeTiles = exactEdgeTiles;
+            if (occupancy != null) {
+                occupancy.addLevel (zoom, 
+                    TileOccupancy.getTileCount (width, tileSize, overlap), 
+                    TileOccupancy.getTileCount (height, tileSize, overlap));
+            }
+            this.rows = new int[width * tileSize];
+            this.tile = new BufferedImage (tileSize, tileSize, BufferedImage.TYPE_INT_RGB);
+            this.tilePixels = ((DataBufferInt) tile.getRaster ().getDataBuffer ()).getData ();
+            if (next != null) {
+                this.pendingRow = new int[width];
+                this.reducedRow = new int[next.width];
+            } else {
+                this.pendingRow = null;
+                this.reducedRow = null;
+            }
+        }
+        
+        /**
+         * Keeps a copy of the complete level in memory, for use as poster source.
+         */
+        public void retain () {
+            if (retained == null) {
+                retained = new BufferedImage (width, height, BufferedImage.TYPE_INT_RGB);
+                retainedPixels = ((DataBufferInt) retained.getRaster ().getDataBuffer ()).getData ();
+            }
+        }
+        
+        /**
+         * Keeps a copy of the complete level in memory for the atlas, instead of
+         * writing it as tiles.
+         */
+        public void atlas () {
+            retain ();
+            tiled = false;
+        }
+        
+        public BufferedImage getRetained () {
+            return retained;
+        }
+        
+        /**
+         * Adds the next row of the level.
+         *
+         * @param src the 24-bit pixel data
+         * @param offset the index of the first pixel of the row in {@code src}
+         */
+        public void addRow (int[] src, int offset) throws Exception {
+            if (received >= height) {
+                return;
+            }
+            if (retained != null) {
+                System.arraycopy (src, offset, retainedPixels, received * width, width);
+            }
+            ++received;
+            
+            System.arraycopy (src, offset, rows, bufferedRows * width, width);
+            ++bufferedRows;
+            if (bufferedRows == tileSize) {
+                writeTileRow ();
+            }
+            
+            if (next != null) {
+                if (hasPendingRow) {
+                    reduce (pendingRow, 0, src, offset);
+                    next.addRow (reducedRow, 0);
+                    hasPendingRow = false;
+                } else {
+                    System.arraycopy (src, offset, pendingRow, 0, width);
+                    hasPendingRow = true;
+                }
+            }
+        }
+        
+        /**
+         * Averages 2x2 pixel blocks from two rows into {@link #reducedRow}.
+         */
+        private void reduce (int[] a, int aOffset, int[] b, int bOffset) {
+            for (int x = 0; x < reducedRow.length; ++x) {
+                int x0 = Math.min (x * 2, width - 1);
+                int x1 = Math.min (x * 2 + 1, width - 1);
+                int p0 = a[aOffset + x0];
+                int p1 = a[aOffset + x1];
+                int p2 = b[bOffset + x0];
+                int p3 = b[bOffset + x1];
+                int r = (((p0 >> 16) & 0xff) + ((p1 >> 16) & 0xff) + ((p2 >> 16) & 0xff) + ((p3 >> 16) & 0xff) + 2) >> 2;
+                int g = (((p0 >>  8) & 0xff) + ((p1 >>  8) & 0xff) + ((p2 >>  8) & 0xff) + ((p3 >>  8) & 0xff) + 2) >> 2;
+                int bl = ((p0 & 0xff) + (p1 & 0xff) + (p2 & 0xff) + (p3 & 0xff) + 2) >> 2;
+                reducedRow[x] = (r << 16) | (g << 8) | bl;
+            }
+        }
+        
+        private void writeTileRow () throws Exception {
+            int step = tileSize - overlap;
+            int tx = 0;
+            for (int x = 0; tiled && x < width - overlap; x += step) {
+                int w = Math.min (x + tileSize, width) - x;
+                Arrays.fill (tilePixels, 0);
+                for (int y = 0; y < bufferedRows; ++y) {
+                    System.arraycopy (rows, y * width + x, tilePixels, y * tileSize, w);
+                }
+                if (pixelOperations != null) {
+                    pixelOperations.applyPacked (tilePixels, 0, tileSize, w, bufferedRows);
+                }
+                if (occupancy != null && occupancy.isEmpty (tilePixels, 0, tileSize, w, bufferedRows)) {
+                    occupancy.setEmpty (zoom, tx, ty);
+                } else if (exactEdgeTiles && (w < tileSize || bufferedRows < tileSize)) {
+                    output.write (crop (tile, w, bufferedRows), getTileFile (outputDir, tx, ty, output.getSuffix (), bucketSize));
+                } else {
+                    output.write (tile, getTileFile (outputDir, tx, ty, output.getSuffix (), bucketSize));
+                }
+                ++tx;
+            }
+            ++ty;
+            
+            // Keep the overlapping rows for the next row of tiles.
+            System.arraycopy (rows, step * width, rows, 0, overlap * width);
+            bufferedRows = overlap;
+        }
+        
+        /**
+         * Writes the last row of tiles and finishes the following levels.
+         */
+        public void finish () throws Exception {
+            if (bufferedRows > overlap) {
+                writeTileRow ();
+            }
+            if (next != null) {
+                if (hasPendingRow) {
+                    reduce (pendingRow, 0, pendingRow, 0);
+                    next.addRow (reducedRow, 0);
+                    hasPendingRow = false;
+                }
+                // Repeat the last row if the reduced level is taller than half this one.
+                while (next.received < next.height) {
+                    next.addRow (reducedRow, 0);
+                }
+                next.finish ();
+            }
+        }
+    }
+    
+    /**
+     * Creates an image pyramid from a mosaic of source tiles, without assembling
+     * the full image. The mosaic is read in bands, and each level is built from the
+     * rows of the level below as they are produced.
+     */
+    private static void makeMosaicPyramid (Mosaic mosaic, File outputBase, ImagePyramidParameters parameters) throws Exception {
+        File folders = createPyramidFolders (outputBase, parameters);
+        
+        Output output = createOutput (parameters);
+        DescriptorOutput descriptor = createDescriptor (parameters);
+        
+        descriptor.setSuffix (output.getSuffix ());
+        
+        PixelOperations pixelOperations = getPixelOperations (parameters);
+        
+        int w = mosaic.width ();
+        int h = mosaic.height ();
+        
+        System.out.println ("Full image size: " + w + " x " + h + "");
+        
+        descriptor.setFullSize (w, h);
+        
+        int posterSize = parameters.optPosterSize (512);
+        double posterScale = ((double) posterSize) / Math.max (w, h);
+        int pw = (int) (w * posterScale);
+        int ph = (int) (h * posterScale);
+        descriptor.setPosterSize (posterSize, pw, ph);
+        
+        int tileSize = parameters.optTileSize (256) + parameters.optOverlap (0);
+        int maxZoom = getLevels (w, h, tileSize, parameters);
+        int overlap = parameters.optOverlap (0);
+        
+        descriptor.setTileSize (tileSize, overlap, (-maxZoom + 1));
+        
+        TileOccupancy occupancy = createOccupancy (parameters);
+        int bucketSize = getTileBucketSize (parameters);
+        boolean exactEdgeTiles = parameters.optExactEdgeTiles (false);
+        
+        int[] levelWidths = new int[maxZoom];
+        int[] levelHeights = new int[maxZoom];
+        int posterLevel = 0;
+        for (int zoom = 0; zoom < maxZoom; ++zoom) {
+            levelWidths[zoom] = w;
+            levelHeights[zoom] = h;
+            if (Math.max (w, h) >= posterSize) {
+                posterLevel = zoom;
+            }
+            w = (w - overlap) / 2 + overlap;
+            h = (h - overlap) / 2 + overlap;
+        }
+        TileAtlas atlas = createAtlas (parameters, levelWidths, levelHeights);
+        if (atlas != null) {
+            descriptor.setAtlas (atlas);
+        }
+        
+        // All levels are built in a single pass, so they are all completed at the end.
+        PyramidStatus status = null;
+        if (isProgressive (parameters)) {
+            descriptor.output (folders);
+            status = new PyramidStatus (folders);
+        }
+        
+        System.out.println ("Creating pyramid with " + maxZoom + " levels.");
+        
+        LevelWriter[] writers = new LevelWriter[maxZoom];
+        LevelWriter level0 = null;
+        LevelWriter posterSource = null;
+        for (int zoom = maxZoom - 1; zoom >= 0; --zoom) {
+            if (atlas != null && atlas.contains (zoom)) {
+                level0 = new LevelWriter (levelWidths[zoom], levelHeights[zoom], tileSize, overlap, 
+                    null, output, pixelOperations, level0, null, zoom, bucketSize, exactEdgeTiles);
+                level0.atlas ();
+            } else {
+                level0 = new LevelWriter (levelWidths[zoom], levelHeights[zoom], tileSize, overlap, 
+                    getLevelDirectory (folders, zoom, maxZoom, parameters), output, pixelOperations, level0, occupancy, zoom, bucketSize, exactEdgeTiles);
+            }
+            writers[zoom] = level0;
+            if (zoom == posterLevel) {
+                level0.retain ();
+                posterSource = level0;
+            }
+        }
+        
+        int bandHeight = tileSize;
+        int[] band = new int[levelWidths[0] * bandHeight];
+        for (int y = 0; y < levelHeights[0]; y += bandHeight) {
+            int rows = Math.min (bandHeight, levelHeights[0] - y);
+            mosaic.readRows (rows, band);
+            for (int i = 0; i < rows; ++i) {
+                level0.addRow (band, i * levelWidths[0]);
+            }
+        }
+        band = null;
+        level0.finish ();
+        
+        writePoster (posterSource.getRetained (), pw, ph, folders, output, pixelOperations, isDraft (parameters));
+        if (atlas != null) {
+            for (int zoom = atlas.getFirstZoom (); zoom < maxZoom; ++zoom) {
+                atlas.add (zoom, writers[zoom].getRetained ());
+            }
+            writeAtlas (atlas, folders, output, pixelOperations);
+        }
+        
+        if (status != null) {
+            for (int zoom = maxZoom - 1; zoom >= 0; --zoom) {
+                if (atlas != null && atlas.contains (zoom)) {
+                    status.levelComplete (new File (folders, getLevelName (zoom, maxZoom, parameters)));
+                } else {
+                    status.levelComplete (getLevelDirectory (folders, zoom, maxZoom, parameters));
+                }
+            }
+            status.finish ();
+        } else {
+            if (occupancy != null && occupancy.hasEmptyTiles ()) {
+                descriptor.setOccupancy (occupancy, maxZoom);
+            }
+            descriptor.output (folders);
+        }
+        output.finish ();
+        
+        finishPyramid (folders, outputBase, parameters);
+    }
+    
+    /**
+     * Moves the files in a folder into another folder, merging their subfolders.
+     *
+     * @param skip files and folders that are left where they are
+     */
+    private static void moveAll (File from, File to, Collection<File> skip) throws IOException {
+        to.mkdirs ();
+        for (File f : from.listFiles ()) {
+            File target = new File (to, f.getName ());
+            if (skip.contains (f)) {
+                continue;
+            } else if (f.isDirectory ()) {
+                moveAll (f, target, skip);
+            } else {
+                target.delete ();
+                if (!f.renameTo (target)) {
+                    throw new IOException ("Unable to move " + f.getPath () + " to " + target.getPath ());
+                }
+            }
+        }
+    }
+    
+    private static void deleteAll (File f) {
+        if (f.isDirectory ()) {
+            for (File f2 : f.listFiles ()) {
+                deleteAll (f2);
+            }
+            f.delete ();
+        } else {
+            f.delete ();
+        }
+    }
 }
\ No newline at end of file
@@ -1,66 +1,111 @@
-/*
- * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
- *  
- * Licensed under the Apache License, Version 2.0 (the "License"); 
- * you may not use this file except in compliance with the License. 
- * You may obtain a copy of the License at 
- * 
- *     http://www.apache.org/licenses/LICENSE-2.0 
- *     
- * Unless required by applicable law or agreed to in writing, software 
- * distributed under the License is distributed on an "AS IS" BASIS, 
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
- * See the License for the specific language governing permissions and 
- * limitations under the License. 
- */
-package bigshot;
-
-/**
- * Math utility functions.
- */
-public class MathUtil {
-    
-    /**
-     * Private ctor.
-     */
-    private MathUtil () {
-    }
-    
-    /**
-     * Converts degrees to radians.
-     *
-     * @param deg the angle in degrees
-     * @return the angle in radians
-     */
-    public static double toRad (double deg) {
-        return deg * Math.PI / 180;
-    }
-    
-    /**
-     * Converts radians to degrees.
-     *
-     * @param rad the angle in radians
-     * @return the angle in degrees
-     */
-    public static double toDeg (double rad) {
-        return rad * 180 / Math.PI;
-    }
-        
-    /**
-     * Clamps the value between two endpoints.
-     *
-     * @param a the lowest value that will be returned
-     * @param b the highest value that will be returned
-     * @param x the value to clamp
-     * @return a, if x &lt;= a; b, if x &gt;= b; x otherwise
-     */
-    public static int clamp (int a, int x, int b) {
-        if (x < a) {
-            return a;
-        } else if (x > b) {
-            return b;
-        } else {
-            return x;
-        }
-    }
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot;
+
+/**
+ * Math utility functions.
+ */
+public class MathUtil {
+    
+    /**
+     * Private ctor.
+     */
+    private MathUtil () {
+    }
+    
+    /**
+     * Converts degrees to radians.
+     *
+     * @param deg the angle in degrees
+     * @return the angle in radians
+     */
+    public static double toRad (double deg) {
+        return deg * Math.PI / 180;
+    }
+    
+    /**
+     * Converts radians to degrees.
+     *
+     * @param rad the angle in radians
+     * @return the angle in degrees
+     */
+    public static double toDeg (double rad) {
+        return rad * 180 / Math.PI;
+    }
+    
+    /**
+     * Clamps the value between two endpoints.
+     *
+     * @param a the lowest value that will be returned
+     * @param b the highest value that will be returned
+     * @param x the value to clamp
+     * @return a, if x &lt;= a; b, if x &gt;= b; x otherwise
+     */
+    public static int clamp (int a, int x, int b) {
+        if (x < a) {
+            return a;
+        } else if (x > b) {
+            return b;
+        } else {
+            return x;
+        }
+    }
+    
+    /**
+     * Returns the distance along a Hilbert curve that covers a square grid.
+     * Cells that are close in the grid are, for the most part, close on the curve.
+     *
+     * @param x the column
+     * @param y the row
+     * @param size the side of the grid; a power of two, greater than x and y
+     * @return the index of the cell on the curve, between 0 and size * size - 1
+     */
+    public static long hilbertIndex (int x, int y, int size) {
+        long d = 0;
+        for (int s = size / 2; s > 0; s /= 2) {
+            int rx = (x & s) != 0 ? 1 : 0;
+            int ry = (y & s) != 0 ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ ry);
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = size - 1 - x;
+                    y = size - 1 - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return d;
+    }
+    
+    /**
+     * Returns the Morton, or Z-order, index of a grid cell: the bits of x and y,
+     * interleaved.
+     *
+     * @param x the column
+     * @param y the row
+     * @return the index of the cell
+     */
+    public static long mortonIndex (int x, int y) {
+        long d = 0;
+        for (int i = 0; i < 31; ++i) {
+            d |= ((long) ((x >> i) & 1)) << (2 * i);
+            d |= ((long) ((y >> i) & 1)) << (2 * i + 1);
+        }
+        return d;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * An image assembled from a grid of source tiles, as produced by scanners and
+ * stitchers. The full image is never assembled in memory - it is read as a sequence
+ * of horizontal bands, top to bottom, and only the source tiles that intersect the
+ * current band are kept in memory. Each source tile is read exactly once.
+ *
+ * <p>A mosaic is described by a text file. Empty lines and lines starting with
+ * <code>#</code> are ignored. Each other line is one of:
+ *
+ * <ul>
+ * <li><code><i>x</i> <i>y</i> <i>file</i></code>: a source tile with its top-left corner
+ *     at (<i>x</i>, <i>y</i>) in the full image.
+ * <li><code>grid <i>columns</i> <i>rows</i> <i>tileWidth</i> <i>tileHeight</i> <i>pattern</i></code>:
+ *     a regular grid of source tiles. The file name of each tile is created by
+ *     {@link String#format(String,Object...)} with the pattern, the column and the row,
+ *     for example <code>scan_%2$03d_%1$03d.jpg</code>.
+ * <li><code>size <i>width</i> <i>height</i></code>: sets the size of the full image.
+ *     Default: the bounding box of all source tiles.
+ * </ul>
+ *
+ * File names are resolved relative to the directory of the mosaic descriptor.
+ */
+public class Mosaic {
+    
+    /**
+     * A source tile.
+     */
+    private static class SourceTile {
+        public File file;
+        public int x;
+        public int y;
+        public int width;
+        public int height;
+        public BufferedImage image;
+    }
+    
+    /**
+     * Width of the full image, in pixels.
+     */
+    private int width;
+    
+    /**
+     * Height of the full image, in pixels.
+     */
+    private int height;
+    
+    /**
+     * Source tiles that have not been loaded yet, sorted by y-coordinate.
+     */
+    private final List<SourceTile> pending = new ArrayList<SourceTile> ();
+    
+    /**
+     * Source tiles that are in memory.
+     */
+    private final List<SourceTile> loaded = new ArrayList<SourceTile> ();
+    
+    /**
+     * The first row that has not yet been read.
+     */
+    private int nextRow = 0;
+    
+    /**
+     * Reads a mosaic descriptor.
+     *
+     * @param descriptor the mosaic descriptor file
+     */
+    public Mosaic (File descriptor) throws Exception {
+        File base = descriptor.getAbsoluteFile ().getParentFile ();
+        int explicitWidth = -1;
+        int explicitHeight = -1;
+        BufferedReader br = new BufferedReader (new FileReader (descriptor));
+        try {
+            String line = null;
+            while ((line = br.readLine ()) != null) {
+                line = line.trim ();
+                if (line.length () == 0 || line.startsWith ("#")) {
+                    continue;
+                }
+                String[] tokens = line.split ("\\s+", 6);
+                if (tokens[0].equals ("size")) {
+                    if (tokens.length < 3) {
+                        throw new IllegalArgumentException ("Malformed size line in " + descriptor.getPath () + ": " + line);
+                    }
+                    explicitWidth = Integer.parseInt (tokens[1]);
+                    explicitHeight = Integer.parseInt (tokens[2]);
+                    if (explicitWidth < 1 || explicitHeight < 1) {
+                        throw new IllegalArgumentException ("Invalid size in " + descriptor.getPath () + ": " + line);
+                    }
+                } else if (tokens[0].equals ("grid")) {
+                    if (tokens.length < 6) {
+                        throw new IllegalArgumentException ("Malformed grid line in " + descriptor.getPath () + ": " + line);
+                    }
+                    int columns = Integer.parseInt (tokens[1]);
+                    int rows = Integer.parseInt (tokens[2]);
+                    int tileWidth = Integer.parseInt (tokens[3]);
+                    int tileHeight = Integer.parseInt (tokens[4]);
+                    String pattern = tokens[5];
+                    for (int row = 0; row < rows; ++row) {
+                        for (int column = 0; column < columns; ++column) {
+                            addTile (new File (base, String.format (pattern, column, row)), column * tileWidth, row * tileHeight);
+                        }
+                    }
+                } else {
+                    tokens = line.split ("\\s+", 3);
+                    if (tokens.length < 3) {
+                        throw new IllegalArgumentException ("Malformed tile line in " + descriptor.getPath () + ": " + line);
+                    }
+                    addTile (new File (base, tokens[2]), Integer.parseInt (tokens[0]), Integer.parseInt (tokens[1]));
+                }
+            }
+        } finally {
+            br.close ();
+        }
+        
+        if (pending.isEmpty ()) {
+            throw new IllegalArgumentException ("No source tiles in " + descriptor.getPath ());
+        }
+        
+        for (SourceTile st : pending) {
+            width = Math.max (width, st.x + st.width);
+            height = Math.max (height, st.y + st.height);
+        }
+        if (explicitWidth > 0) {
+            width = explicitWidth;
+            height = explicitHeight;
+        }
+        
+        Collections.sort (pending, new Comparator<SourceTile> () {
+                public int compare (SourceTile a, SourceTile b) {
+                    return a.y < b.y ? -1 : (a.y == b.y ? 0 : 1);
+                }
+            });
+    }
+    
+    /**
+     * Adds a source tile, reading its size from the image header.
+     */
+    private void addTile (File file, int x, int y) throws Exception {
+        SourceTile st = new SourceTile ();
+        st.file = file;
+        st.x = x;
+        st.y = y;
+        
+        String path = file.getPath ();
+        String suffix = path.substring (path.lastIndexOf ('.') + 1);
+        Iterator<ImageReader> iter = ImageIO.getImageReadersBySuffix (suffix);
+        if (!iter.hasNext ()) {
+            throw new IOException ("No image reader for " + path);
+        }
+        ImageReader reader = iter.next ();
+        ImageInputStream stream = new FileImageInputStream (file);
+        try {
+            reader.setInput (stream);
+            st.width = reader.getWidth (reader.getMinIndex ());
+            st.height = reader.getHeight (reader.getMinIndex ());
+        } finally {
+            reader.dispose ();
+            stream.close ();
+        }
+        pending.add (st);
+    }
+    
+    /**
+     * Width of the full image, in pixels.
+     */
+    public int width () {
+        return width;
+    }
+    
+    /**
+     * Height of the full image, in pixels.
+     */
+    public int height () {
+        return height;
+    }
+    
+    /**
+     * Reads the next band of rows of the full image. Bands must be read in order,
+     * top to bottom. Source tiles are loaded when the first band that intersects
+     * them is read, and released after the last one.
+     *
+     * @param rows the number of rows to read
+     * @param dest the array to put the 24-bit <code>0xRRGGBB</code> pixels in. Must hold
+     * at least <code>width () * rows</code> pixels. Areas not covered by any source tile
+     * are black.
+     */
+    public void readRows (int rows, int[] dest) throws Exception {
+        int y0 = nextRow;
+        int y1 = Math.min (y0 + rows, height);
+        nextRow = y1;
+        
+        Arrays.fill (dest, 0, width * (y1 - y0), 0);
+        
+        while (!pending.isEmpty () && pending.get (0).y < y1) {
+            SourceTile st = pending.remove (0);
+            st.image = ImageIO.read (st.file);
+            if (st.image == null) {
+                throw new IOException ("Unable to read " + st.file.getPath ());
+            }
+            loaded.add (st);
+        }
+        
+        for (Iterator<SourceTile> iter = loaded.iterator (); iter.hasNext ();) {
+            SourceTile st = iter.next ();
+            int top = Math.max (st.y, y0);
+            int bottom = Math.min (st.y + st.height, y1);
+            int left = Math.max (st.x, 0);
+            int right = Math.min (st.x + st.width, width);
+            if (top < bottom && left < right) {
+                st.image.getRGB (left - st.x, top - st.y, right - left, bottom - top,
+                    dest, (top - y0) * width + left, width);
+            }
+            if (st.y + st.height <= y1) {
+                st.image = null;
+                iter.remove ();
+            }
+        }
+    }
+}
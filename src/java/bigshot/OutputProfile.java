@@ -0,0 +1,175 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One of several pyramids written from the same input in one run of
+ * MakeImagePyramid. The input is decoded, transformed and reduced once, and the
+ * levels are tiled and encoded for each profile.
+ *
+ * <p>The profiles are listed in a text file. Empty lines and lines starting with
+ * <code>#</code> are ignored. Each other line is
+ * <code><i>output</i> [--<i>option</i> <i>value</i> ...]</code>, where <i>output</i>
+ * is the folder or archive that the profile is written to, relative to the output
+ * of the run. The options override the options of the run, for example:
+ *
+ * <pre>
+ * dom      --tile-size 256
+ * webgl    --tile-size 512 --format archive
+ * partner  --tile-size 254 --overlap 1 --descriptor-format dzi --folder-layout dzi
+ * </pre>
+ *
+ * Only the options that set the layout and encoding of the pyramid can be given
+ * in a profile. The others, such as the transform, face size and levels, are
+ * shared by all profiles. The level sizes depend on the overlap, so profiles
+ * with different overlaps share the decoded input, but not the transform or the
+ * level reduction.
+ */
+class OutputProfile {
+    
+    /**
+     * The options that can be given in a profile.
+     */
+    private final static Set<String> PROFILE_OPTIONS = new HashSet<String> (Arrays.asList (
+            ImagePyramidParameters.FORMAT,
+            ImagePyramidParameters.IMAGE_FORMAT,
+            ImagePyramidParameters.JPEG_QUALITY,
+            ImagePyramidParameters.JPEG_TILE_BUDGET,
+            ImagePyramidParameters.JPEG_MAX_ERROR,
+            ImagePyramidParameters.JPEG_MIN_QUALITY,
+            ImagePyramidParameters.JPEG_TRIALS,
+            ImagePyramidParameters.JPEG_LEVEL_QUALITY_STEP,
+            ImagePyramidParameters.TILE_SIZE,
+            ImagePyramidParameters.OVERLAP,
+            ImagePyramidParameters.PROGRESSIVE,
+            ImagePyramidParameters.FOLDER_LAYOUT,
+            ImagePyramidParameters.TILE_BUCKET_SIZE,
+            ImagePyramidParameters.DESCRIPTOR_FORMAT,
+            ImagePyramidParameters.LEVEL_NUMBERING,
+            ImagePyramidParameters.DEDUPLICATE,
+            ImagePyramidParameters.SKIP_EMPTY_TILES,
+            ImagePyramidParameters.EMPTY_TILE_COLOR,
+            ImagePyramidParameters.TILE_ORDER,
+            ImagePyramidParameters.ATLAS_LEVEL_SIZE,
+            ImagePyramidParameters.EXACT_EDGE_TILES
+        ));
+    
+    private final File output;
+    private final ImagePyramidParameters parameters;
+    
+    /**
+     * Creates a profile.
+     *
+     * @param output the output folder or archive
+     * @param parameters the parameters of the pyramid
+     */
+    public OutputProfile (File output, ImagePyramidParameters parameters) {
+        this.output = output;
+        this.parameters = parameters;
+    }
+    
+    public File getOutput () {
+        return output;
+    }
+    
+    public ImagePyramidParameters getParameters () {
+        return parameters;
+    }
+    
+    public int getOverlap () {
+        return parameters.optOverlap (0);
+    }
+    
+    /**
+     * Reads a profile file.
+     *
+     * @param file the profile file
+     * @param outputBase the output folder of the run, that the outputs of the
+     * profiles are resolved against
+     * @param shared the parameters of the run, that the profiles override
+     * @throws IllegalArgumentException if the file is malformed, lists no profiles,
+     * lists an output twice, or a profile sets a shared option
+     */
+    public static List<OutputProfile> read (File file, File outputBase, ImagePyramidParameters shared) throws Exception {
+        List<OutputProfile> profiles = new ArrayList<OutputProfile> ();
+        Set<String> outputs = new HashSet<String> ();
+        BufferedReader br = new BufferedReader (new FileReader (file));
+        try {
+            String line = null;
+            while ((line = br.readLine ()) != null) {
+                line = line.trim ();
+                if (line.length () == 0 || line.startsWith ("#")) {
+                    continue;
+                }
+                String[] tokens = line.split ("\\s+");
+                if (tokens.length % 2 != 1) {
+                    throw new IllegalArgumentException ("Malformed profile line in " + file.getPath () + ": " + line);
+                }
+                if (!outputs.add (tokens[0])) {
+                    throw new IllegalArgumentException ("The output " + tokens[0] + " is listed twice in " + file.getPath () + ".");
+                }
+                ImagePyramidParameters parameters = new ImagePyramidParameters (shared);
+                for (int i = 1; i < tokens.length; i += 2) {
+                    if (!tokens[i].startsWith ("--")) {
+                        throw new IllegalArgumentException ("Malformed profile line in " + file.getPath () + ": " + line);
+                    }
+                    String key = tokens[i].substring (2);
+                    if (!PROFILE_OPTIONS.contains (key)) {
+                        throw new IllegalArgumentException ("The option " + key + " is shared by all profiles and can't be set for " + tokens[0] + ".");
+                    }
+                    parameters.put (key, tokens[i + 1]);
+                }
+                profiles.add (new OutputProfile (new File (outputBase, tokens[0]), parameters));
+            }
+        } finally {
+            br.close ();
+        }
+        if (profiles.isEmpty ()) {
+            throw new IllegalArgumentException ("No profiles in " + file.getPath () + ".");
+        }
+        return profiles;
+    }
+    
+    /**
+     * Groups profiles by overlap. The profiles in a group have the same level
+     * sizes, so they can share the transform and the level reduction.
+     *
+     * @return the groups, in the order of the first profile of each
+     */
+    public static Map<Integer,List<OutputProfile>> groupByOverlap (List<OutputProfile> profiles) {
+        Map<Integer,List<OutputProfile>> groups = new LinkedHashMap<Integer,List<OutputProfile>> ();
+        for (OutputProfile profile : profiles) {
+            List<OutputProfile> group = groups.get (profile.getOverlap ());
+            if (group == null) {
+                group = new ArrayList<OutputProfile> ();
+                groups.put (profile.getOverlap (), group);
+            }
+            group.add (profile);
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,449 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A chain of per-pixel colour operations. The chain is applied to pixels as they are
+ * written - by the cubic transforms and by the tiling step of {@link MakeImagePyramid} -
+ * so colour correction doesn't need any passes over the full image of its own.
+ *
+ * <p>Consecutive operations that treat each channel separately are folded into
+ * a single lookup table per channel, so a chain of any length costs at most one
+ * table lookup per channel, plus one matrix multiplication for every channel mix
+ * in the chain.
+ *
+ * <p>Chains are usually created from a string using {@link #parse}. The string is
+ * a comma-separated list of operations, each with colon-separated arguments:
+ *
+ * <ul>
+ * <li><code>multiply:<i>f</i></code> or <code>multiply:<i>r</i>:<i>g</i>:<i>b</i></code> - scales the channel values.
+ * <li><code>offset:<i>o</i></code> or <code>offset:<i>r</i>:<i>g</i>:<i>b</i></code> - adds a value (0-255 scale) to the channels.
+ * <li><code>gamma:<i>g</i></code> or <code>gamma:<i>r</i>:<i>g</i>:<i>b</i></code> - applies a gamma curve.
+ * <li><code>mix:<i>rr</i>:<i>rg</i>:<i>rb</i>:<i>gr</i>:<i>gg</i>:<i>gb</i>:<i>br</i>:<i>bg</i>:<i>bb</i></code> -
+ *     mixes the channels using a 3x3 matrix, given row by row.
+ * <li><code>levels:<i>black</i>:<i>white</i></code> or <code>levels:<i>black</i>:<i>white</i>:<i>gamma</i></code> -
+ *     maps the input range [black, white] to [0, 255], with an optional midtone gamma.
+ * </ul>
+ */
+public class PixelOperations {
+    
+    /**
+     * The largest channel value.
+     */
+    private final static int MAX = 255;
+    
+    /**
+     * The operations, in the order they are applied.
+     */
+    private final List<PixelOperation> operations = new ArrayList<PixelOperation> ();
+    
+    /**
+     * The compiled stages. They are compiled when an operation is added, so that
+     * the threads that apply the chain share them without locking.
+     */
+    private volatile Stages stages = new Stages (operations);
+    
+    /**
+     * A single colour operation. The values are in the range [0, 255]. Within a
+     * run of separable operations, intermediate results may fall outside of that
+     * range, but the result of each run, and of each channel mix, is rounded and
+     * clamped before it is passed to the next operation.
+     */
+    public static abstract class PixelOperation {
+        
+        /**
+         * Applies the operation in-place to a red, green and blue triple.
+         *
+         * @param rgb the pixel. rgb[0] = red, rgb[1] = green, rgb[2] = blue
+         */
+        public abstract void apply (double[] rgb);
+        
+        /**
+         * Returns true if each output channel only depends on the same input channel.
+         * Runs of separable operations are folded into lookup tables.
+         */
+        public boolean isSeparable () {
+            return true;
+        }
+    }
+    
+    /**
+     * Scales the channels.
+     */
+    public static class Multiply extends PixelOperation {
+        private final double r;
+        private final double g;
+        private final double b;
+        
+        public Multiply (double r, double g, double b) {
+            this.r = r;
+            this.g = g;
+            this.b = b;
+        }
+        
+        public void apply (double[] rgb) {
+            rgb[0] *= r;
+            rgb[1] *= g;
+            rgb[2] *= b;
+        }
+    }
+    
+    /**
+     * Adds a value to the channels.
+     */
+    public static class Offset extends PixelOperation {
+        private final double r;
+        private final double g;
+        private final double b;
+        
+        public Offset (double r, double g, double b) {
+            this.r = r;
+            this.g = g;
+            this.b = b;
+        }
+        
+        public void apply (double[] rgb) {
+            rgb[0] += r;
+            rgb[1] += g;
+            rgb[2] += b;
+        }
+    }
+    
+    /**
+     * Applies a gamma curve. Values are raised to the power of <code>1 / gamma</code>,
+     * so gamma values above one brighten the image.
+     */
+    public static class Gamma extends PixelOperation {
+        private final double r;
+        private final double g;
+        private final double b;
+        
+        public Gamma (double r, double g, double b) {
+            this.r = 1.0 / r;
+            this.g = 1.0 / g;
+            this.b = 1.0 / b;
+        }
+        
+        private static double gamma (double v, double exp) {
+            if (v <= 0) {
+                return v;
+            }
+            return MAX * Math.pow (v / MAX, exp);
+        }
+        
+        public void apply (double[] rgb) {
+            rgb[0] = gamma (rgb[0], r);
+            rgb[1] = gamma (rgb[1], g);
+            rgb[2] = gamma (rgb[2], b);
+        }
+    }
+    
+    /**
+     * Maps the input range [black, white] onto [0, 255] with a midtone gamma.
+     */
+    public static class Levels extends PixelOperation {
+        private final double black;
+        private final double white;
+        private final double exp;
+        
+        public Levels (double black, double white, double gamma) {
+            if (white <= black) {
+                throw new IllegalArgumentException ("levels: white point " + white + " <= black point " + black);
+            }
+            this.black = black;
+            this.white = white;
+            this.exp = 1.0 / gamma;
+        }
+        
+        private double levels (double v) {
+            double n = (v - black) / (white - black);
+            if (n <= 0) {
+                return 0;
+            } else if (n >= 1) {
+                return MAX;
+            }
+            return MAX * Math.pow (n, exp);
+        }
+        
+        public void apply (double[] rgb) {
+            rgb[0] = levels (rgb[0]);
+            rgb[1] = levels (rgb[1]);
+            rgb[2] = levels (rgb[2]);
+        }
+    }
+    
+    /**
+     * Mixes the channels using a 3x3 matrix.
+     */
+    public static class ChannelMix extends PixelOperation {
+        private final double[] m;
+        
+        /**
+         * Creates a new channel mix.
+         *
+         * @param m the matrix, row by row. The red output is
+         * <code>m[0] * r + m[1] * g + m[2] * b</code>, and so on.
+         */
+        public ChannelMix (double[] m) {
+            if (m.length != 9) {
+                throw new IllegalArgumentException ("mix: expected 9 coefficients, got " + m.length);
+            }
+            this.m = m.clone ();
+        }
+        
+        public void apply (double[] rgb) {
+            double r = rgb[0];
+            double g = rgb[1];
+            double b = rgb[2];
+            rgb[0] = m[0] * r + m[1] * g + m[2] * b;
+            rgb[1] = m[3] * r + m[4] * g + m[5] * b;
+            rgb[2] = m[6] * r + m[7] * g + m[8] * b;
+        }
+        
+        public boolean isSeparable () {
+            return false;
+        }
+    }
+    
+    /**
+     * A run of separable operations folded into one lookup table per channel.
+     */
+    private static class LookupStage {
+        public final int[][] lut = new int[3][MAX + 1];
+        
+        public LookupStage (List<PixelOperation> run) {
+            double[] rgb = new double[3];
+            for (int i = 0; i <= MAX; ++i) {
+                rgb[0] = i;
+                rgb[1] = i;
+                rgb[2] = i;
+                for (PixelOperation op : run) {
+                    op.apply (rgb);
+                }
+                for (int c = 0; c < 3; ++c) {
+                    lut[c][i] = clamp (rgb[c]);
+                }
+            }
+        }
+    }
+    
+    /**
+     * The chain with runs of separable operations folded into lookup tables. For
+     * each stage, either the tables or the non-separable operation is set.
+     */
+    private static class Stages {
+        public final int[][][] luts;
+        public final PixelOperation[] operations;
+        
+        public Stages (List<PixelOperation> chain) {
+            List<int[][]> lutList = new ArrayList<int[][]> ();
+            List<PixelOperation> operationList = new ArrayList<PixelOperation> ();
+            List<PixelOperation> run = new ArrayList<PixelOperation> ();
+            for (PixelOperation op : chain) {
+                if (op.isSeparable ()) {
+                    run.add (op);
+                } else {
+                    if (!run.isEmpty ()) {
+                        lutList.add (new LookupStage (run).lut);
+                        operationList.add (null);
+                        run.clear ();
+                    }
+                    lutList.add (null);
+                    operationList.add (op);
+                }
+            }
+            if (!run.isEmpty ()) {
+                lutList.add (new LookupStage (run).lut);
+                operationList.add (null);
+            }
+            this.luts = lutList.toArray (new int[lutList.size ()][][]);
+            this.operations = operationList.toArray (new PixelOperation[operationList.size ()]);
+        }
+    }
+    
+    /**
+     * Creates an empty chain.
+     */
+    public PixelOperations () {
+    }
+    
+    /**
+     * Appends an operation to the chain.
+     */
+    public PixelOperations add (PixelOperation operation) {
+        operations.add (operation);
+        stages = new Stages (operations);
+        return this;
+    }
+    
+    /**
+     * Returns true if the chain has no operations.
+     */
+    public boolean isEmpty () {
+        return operations.isEmpty ();
+    }
+    
+    private static int clamp (double v) {
+        return MathUtil.clamp (0, (int) (v + 0.5), MAX);
+    }
+    
+    /**
+     * Applies the chain in-place to a red, green and blue triple.
+     *
+     * @param rgb the buffer holding the pixel
+     * @param offset the index of the red component. The green and blue components
+     * follow immediately.
+     */
+    public void apply (int[] rgb, int offset) {
+        apply (stages, rgb, offset);
+    }
+    
+    private static void apply (Stages stages, int[] rgb, int offset) {
+        int[][][] luts = stages.luts;
+        PixelOperation[] operations = stages.operations;
+        int r = MathUtil.clamp (0, rgb[offset + 0], MAX);
+        int g = MathUtil.clamp (0, rgb[offset + 1], MAX);
+        int b = MathUtil.clamp (0, rgb[offset + 2], MAX);
+        double[] mix = null;
+        for (int i = 0; i < luts.length; ++i) {
+            int[][] lut = luts[i];
+            if (lut != null) {
+                r = lut[0][r];
+                g = lut[1][g];
+                b = lut[2][b];
+            } else {
+                if (mix == null) {
+                    mix = new double[3];
+                }
+                mix[0] = r;
+                mix[1] = g;
+                mix[2] = b;
+                operations[i].apply (mix);
+                r = clamp (mix[0]);
+                g = clamp (mix[1]);
+                b = clamp (mix[2]);
+            }
+        }
+        rgb[offset + 0] = r;
+        rgb[offset + 1] = g;
+        rgb[offset + 2] = b;
+    }
+    
+    /**
+     * Applies the chain in-place to a rectangle of 24-bit <code>0xRRGGBB</code> pixels,
+     * such as the data buffer of a {@link java.awt.image.BufferedImage#TYPE_INT_RGB} image.
+     *
+     * @param pixels the pixel data
+     * @param offset index of the top-left pixel of the rectangle
+     * @param scanline the distance between two rows in the pixel data
+     * @param w the width of the rectangle
+     * @param h the height of the rectangle
+     */
+    public void applyPacked (int[] pixels, int offset, int scanline, int w, int h) {
+        Stages stages = this.stages;
+        if (stages.luts.length == 1 && stages.luts[0] != null) {
+            // The common case of a chain without channel mixes: a single table lookup.
+            int[] rLut = stages.luts[0][0];
+            int[] gLut = stages.luts[0][1];
+            int[] bLut = stages.luts[0][2];
+            for (int y = 0; y < h; ++y) {
+                int p = offset + y * scanline;
+                for (int x = 0; x < w; ++x) {
+                    int v = pixels[p];
+                    pixels[p] = (rLut[(v >> 16) & 0xff] << 16) | (gLut[(v >> 8) & 0xff] << 8) | bLut[v & 0xff];
+                    ++p;
+                }
+            }
+            return;
+        }
+        int[] rgb = new int[3];
+        for (int y = 0; y < h; ++y) {
+            int p = offset + y * scanline;
+            for (int x = 0; x < w; ++x) {
+                int v = pixels[p];
+                rgb[0] = (v >> 16) & 0xff;
+                rgb[1] = (v >>  8) & 0xff;
+                rgb[2] = (v      ) & 0xff;
+                apply (stages, rgb, 0);
+                pixels[p] = (rgb[0] << 16) | (rgb[1] << 8) | rgb[2];
+                ++p;
+            }
+        }
+    }
+    
+    private static double[] parseArguments (String[] tokens) {
+        double[] args = new double[tokens.length - 1];
+        for (int i = 0; i < args.length; ++i) {
+            args[i] = Double.parseDouble (tokens[i + 1]);
+        }
+        return args;
+    }
+    
+    private static double[] perChannel (String op, double[] args) {
+        if (args.length == 1) {
+            return new double[]{ args[0], args[0], args[0] };
+        } else if (args.length == 3) {
+            return args;
+        } else {
+            throw new IllegalArgumentException (op + ": expected 1 or 3 arguments, got " + args.length);
+        }
+    }
+    
+    /**
+     * Parses a chain specification. See the class documentation for the syntax.
+     *
+     * @param spec the specification, for example <code>"levels:8:248,gamma:1.2"</code>
+     * @return the chain
+     */
+    public static PixelOperations parse (String spec) {
+        PixelOperations result = new PixelOperations ();
+        for (String opSpec : spec.split (",")) {
+            opSpec = opSpec.trim ();
+            if (opSpec.length () == 0) {
+                continue;
+            }
+            String[] tokens = opSpec.split (":");
+            String op = tokens[0];
+            double[] args = parseArguments (tokens);
+            if (op.equals ("multiply")) {
+                double[] c = perChannel (op, args);
+                result.add (new Multiply (c[0], c[1], c[2]));
+            } else if (op.equals ("offset")) {
+                double[] c = perChannel (op, args);
+                result.add (new Offset (c[0], c[1], c[2]));
+            } else if (op.equals ("gamma")) {
+                double[] c = perChannel (op, args);
+                result.add (new Gamma (c[0], c[1], c[2]));
+            } else if (op.equals ("mix")) {
+                result.add (new ChannelMix (args));
+            } else if (op.equals ("levels")) {
+                if (args.length == 2) {
+                    result.add (new Levels (args[0], args[1], 1.0));
+                } else if (args.length == 3) {
+                    result.add (new Levels (args[0], args[1], args[2]));
+                } else {
+                    throw new IllegalArgumentException ("levels: expected 2 or 3 arguments, got " + args.length);
+                }
+            } else {
+                throw new IllegalArgumentException ("Unknown color operation: \"" + op + "\"");
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One part of a pyramid build that is split over several processes. Each process
+ * is given its part as <code><i>index</i>/<i>count</i></code>, and writes its tiles
+ * to a shard folder next to the output. When all parts are done, the shard folders
+ * are merged into the output, and the descriptor and archive are written.
+ *
+ * <p>For cube maps, each part makes the pyramids of every <i>count</i>:th face.
+ * For other images, the tile rows of the full resolution level are split into
+ * <i>count</i> bands, and each part only decodes the rows of its band. The reduced
+ * levels are made with {@link AreaAveragingScaler}, so a part can make the rows of
+ * each level whose source rows all lie in its band of the level below, and these
+ * rows are the same as those of a single build. Each part writes the tiles that
+ * lie in its rows, and keeps the rows along the edges of its band, and its rows of
+ * the poster, in a {@code seams} folder. The merge makes the rows between the
+ * bands from the kept rows, level by level, and writes the poster, the atlas and
+ * the tiles that cross the edges of the bands.
+ *
+ * <p>A part that is done writes a manifest, a file named {@code shard} in the
+ * same format as the Bigshot descriptor, to its shard folder. It holds the size of
+ * the full resolution level and, if empty tiles are skipped, the occupancy map of
+ * the tiles of the part.
+ */
+class Shard {
+    
+    private final static String MANIFEST = "shard";
+    private final static String SEAMS = "seams";
+    
+    private final int index;
+    private final int count;
+    
+    /**
+     * Creates a part.
+     *
+     * @param index the index of the part, from 0
+     * @param count the number of parts
+     * @throws IllegalArgumentException if the index is out of range
+     */
+    public Shard (int index, int count) {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException ("Shard " + index + "/" + count + " is out of range.");
+        }
+        this.index = index;
+        this.count = count;
+    }
+    
+    /**
+     * Parses a part given as <code><i>index</i>/<i>count</i></code>.
+     *
+     * @throws IllegalArgumentException if the part is malformed or out of range
+     */
+    public static Shard parse (String shard) {
+        int slash = shard.indexOf ('/');
+        try {
+            return new Shard (Integer.parseInt (shard.substring (0, slash)), Integer.parseInt (shard.substring (slash + 1)));
+        } catch (RuntimeException e) {
+            if (e instanceof IllegalArgumentException && !(e instanceof NumberFormatException)) {
+                throw e;
+            }
+            throw new IllegalArgumentException ("Malformed shard: \"" + shard + "\". Use index/count, such as 0/4.");
+        }
+    }
+    
+    public int getIndex () {
+        return index;
+    }
+    
+    public int getCount () {
+        return count;
+    }
+    
+    /**
+     * Returns true if this part makes a face of a cube map.
+     *
+     * @param face the index of the face, in the order of
+     * {@link AbstractCubicTransform#transformToFaces()}
+     */
+    public boolean ownsFace (int face) {
+        return face % count == index;
+    }
+    
+    /**
+     * Returns the bands of the levels of an image that each part makes. The band
+     * of the full resolution level is the rows of its tile rows, and the band of
+     * each reduced level is the rows whose source rows all lie in the band of the
+     * level below. The tile rows of a band are those that lie in it and not in the
+     * band of an earlier part.
+     *
+     * @param count the number of parts
+     * @param levelWidths the width of each level
+     * @param levelHeights the height of each level
+     * @param tileSize the tile size, including the overlap
+     * @param overlap the tile overlap
+     * @return the bands, indexed by part and zoom level, as
+     * <code>{<i>top</i>, <i>end</i>, <i>firstTileRow</i>, <i>endTileRow</i>}</code>,
+     * where the ends are exclusive
+     */
+    public static int[][][] getBands (int count, int[] levelWidths, int[] levelHeights, int tileSize, int overlap) {
+        int levels = levelHeights.length;
+        int step = tileSize - overlap;
+        int fullHeight = levelHeights[0];
+        int fullTileRows = TileOccupancy.getTileCount (fullHeight, tileSize, overlap);
+        int[][][] bands = new int[count][levels][];
+        // The tile row after the last one that an earlier part writes.
+        int[] writtenEnd = new int[levels];
+        for (int i = 0; i < count; ++i) {
+            int firstRow = (int) ((((long) i) * fullTileRows + count - 1) / count);
+            int endRow = (int) ((((long) i + 1) * fullTileRows + count - 1) / count);
+            int top = Math.min (fullHeight, firstRow * step);
+            int end = firstRow < endRow ? Math.min (fullHeight, endRow * step + overlap) : top;
+            for (int zoom = 0; zoom < levels; ++zoom) {
+                if (zoom > 0) {
+                    AreaAveragingScaler scaler = new AreaAveragingScaler (levelWidths[zoom - 1], levelHeights[zoom - 1], levelWidths[zoom], levelHeights[zoom]);
+                    top = scaler.getFirstDestRow (top);
+                    end = Math.max (top, scaler.getEndDestRow (end));
+                }
+                int height = levelHeights[zoom];
+                int firstTileRow = (top + step - 1) / step;
+                int endTileRow;
+                if (end == height) {
+                    endTileRow = TileOccupancy.getTileCount (height, tileSize, overlap);
+                } else if (end >= tileSize) {
+                    endTileRow = (end - tileSize) / step + 1;
+                } else {
+                    endTileRow = 0;
+                }
+                if (firstTileRow < endTileRow) {
+                    int written = writtenEnd[zoom];
+                    writtenEnd[zoom] = Math.max (written, endTileRow);
+                    firstTileRow = Math.max (firstTileRow, written);
+                }
+                bands[i][zoom] = new int[]{ top, end, firstTileRow, Math.max (firstTileRow, endTileRow) };
+            }
+        }
+        return bands;
+    }
+    
+    /**
+     * Returns the folder that a part writes to.
+     *
+     * @param outputBase the output of the build
+     * @param index the index of the part
+     */
+    public static File getFolder (File outputBase, int index) {
+        File absolute = outputBase.getAbsoluteFile ();
+        return new File (absolute.getParentFile (), absolute.getName () + ".shard-" + index);
+    }
+    
+    /**
+     * Returns the folder that a part keeps the rows along the edges of its bands in.
+     *
+     * @param folder the shard folder
+     */
+    public static File getSeamFolder (File folder) {
+        return new File (folder, SEAMS);
+    }
+    
+    /**
+     * Writes the manifest of this part.
+     *
+     * @param folder the shard folder
+     * @param values the keys and values of the manifest
+     */
+    public void writeManifest (File folder, Map<String,String> values) throws IOException {
+        StringBuilder sb = new StringBuilder ();
+        sb.append ("shard:").append (index).append ("/").append (count);
+        for (Map.Entry<String,String> e : values.entrySet ()) {
+            sb.append (":").append (e.getKey ()).append (":").append (e.getValue ());
+        }
+        FileOutputStream os = new FileOutputStream (getManifest (folder));
+        try {
+            os.write (sb.toString ().getBytes ("UTF-8"));
+        } finally {
+            os.close ();
+        }
+    }
+    
+    /**
+     * Reads the manifest of a part.
+     *
+     * @param folder the shard folder
+     * @param count the number of parts of the build
+     * @throws IOException if the part hasn't been made, or belongs to a build
+     * with a different number of parts
+     */
+    public static Map<String,String> readManifest (File folder, int count) throws IOException {
+        File manifest = getManifest (folder);
+        if (!manifest.exists ()) {
+            throw new IOException ("The part in " + folder.getPath () + " is missing or hasn't finished.");
+        }
+        byte[] data = new byte[(int) manifest.length ()];
+        FileInputStream is = new FileInputStream (manifest);
+        try {
+            int read = 0;
+            while (read < data.length) {
+                int r = is.read (data, read, data.length - read);
+                if (r < 0) {
+                    throw new IOException ("Unexpected end of " + manifest.getPath ());
+                }
+                read += r;
+            }
+        } finally {
+            is.close ();
+        }
+        String[] substrings = new String (data, "UTF-8").split (":", -1);
+        Map<String,String> values = new LinkedHashMap<String,String> ();
+        for (int i = 0; i + 1 < substrings.length; i += 2) {
+            values.put (substrings[i], substrings[i + 1]);
+        }
+        String shard = values.get ("shard");
+        if (shard == null || !shard.endsWith ("/" + count)) {
+            throw new IOException ("The part in " + folder.getPath () + " is " + shard + ", not one of " + count + " parts.");
+        }
+        return values;
+    }
+    
+    /**
+     * Returns the manifest file of a part.
+     *
+     * @param folder the shard folder
+     */
+    public static File getManifest (File folder) {
+        return new File (folder, MANIFEST);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Packs the coarsest levels of a pyramid into a single image, so that the viewer
+ * can load them with one request instead of one request per tile. The levels are
+ * small, but there are many of them, and for cube maps there are six of each.
+ *
+ * <p>The largest level of the atlas is placed in the top left corner, and the
+ * smaller levels are stacked below each other to the right of it, in the way
+ * mipmaps are often laid out. The positions are aligned to 16 pixels, so that the
+ * JPEG blocks of one level don't reach into another.
+ *
+ * <p>The layout is written to the descriptor as a comma-separated list of levels,
+ * starting with the full resolution level. A level in the atlas is written as
+ * <code><i>x</i>.<i>y</i>.<i>width</i>.<i>height</i></code>. A level that isn't in
+ * the atlas is written as an empty string. The tiles of a level in the atlas are
+ * the parts of its rectangle that they would cover in the level image.
+ */
+class TileAtlas {
+    
+    private final static int ALIGN = 16;
+    
+    private final int firstZoom;
+    private final int[] x;
+    private final int[] y;
+    private final int[] widths;
+    private final int[] heights;
+    private final BufferedImage image;
+    
+    /**
+     * Lays out the levels whose width and height are at most {@code maxLevelSize}.
+     *
+     * @param levelWidths the width of each level, starting with the full resolution level
+     * @param levelHeights the height of each level
+     * @param maxLevelSize the largest size of a level in the atlas
+     * @throws IllegalArgumentException if no level is small enough
+     */
+    public TileAtlas (int[] levelWidths, int[] levelHeights, int maxLevelSize) {
+        int first = levelWidths.length;
+        while (first > 0 && levelWidths[first - 1] <= maxLevelSize && levelHeights[first - 1] <= maxLevelSize) {
+            --first;
+        }
+        if (first == levelWidths.length) {
+            throw new IllegalArgumentException ("No level is small enough for an atlas of levels up to " + maxLevelSize + " pixels.");
+        }
+        this.firstZoom = first;
+        int levels = levelWidths.length - first;
+        this.x = new int[levels];
+        this.y = new int[levels];
+        this.widths = new int[levels];
+        this.heights = new int[levels];
+        
+        int column = align (levelWidths[first]);
+        int width = levelWidths[first];
+        int height = levelHeights[first];
+        int nextY = 0;
+        for (int i = 0; i < levels; ++i) {
+            widths[i] = levelWidths[first + i];
+            heights[i] = levelHeights[first + i];
+            if (i > 0) {
+                x[i] = column;
+                y[i] = nextY;
+                nextY += align (heights[i]);
+                width = Math.max (width, x[i] + widths[i]);
+                height = Math.max (height, y[i] + heights[i]);
+            }
+        }
+        this.image = new BufferedImage (width, height, BufferedImage.TYPE_INT_RGB);
+    }
+    
+    private static int align (int i) {
+        return (i + ALIGN - 1) / ALIGN * ALIGN;
+    }
+    
+    /**
+     * Returns true if a level is in the atlas.
+     *
+     * @param zoom the zoom level, 0 for full resolution
+     */
+    public boolean contains (int zoom) {
+        return zoom >= firstZoom && zoom < firstZoom + x.length;
+    }
+    
+    /**
+     * The zoom level of the largest level in the atlas.
+     */
+    public int getFirstZoom () {
+        return firstZoom;
+    }
+    
+    /**
+     * Draws a level into the atlas.
+     *
+     * @throws IllegalArgumentException if the level isn't in the atlas
+     */
+    public void add (int zoom, BufferedImage level) {
+        if (!contains (zoom)) {
+            throw new IllegalArgumentException ("Level " + zoom + " is not in the atlas.");
+        }
+        int i = zoom - firstZoom;
+        Graphics2D g = image.createGraphics ();
+        g.drawImage (level, x[i], y[i], null);
+        g.dispose ();
+    }
+    
+    public BufferedImage getImage () {
+        return image;
+    }
+    
+    /**
+     * Returns the layout in the descriptor format.
+     */
+    public String format () {
+        StringBuilder sb = new StringBuilder ();
+        for (int zoom = 0; zoom < firstZoom + x.length; ++zoom) {
+            if (zoom > 0) {
+                sb.append (",");
+            }
+            if (contains (zoom)) {
+                int i = zoom - firstZoom;
+                sb.append (x[i]).append (".").append (y[i]).append (".").append (widths[i]).append (".").append (heights[i]);
+            }
+        }
+        return sb.toString ();
+    }
+}
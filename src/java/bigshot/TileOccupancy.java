@@ -0,0 +1,218 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records which tiles of a pyramid are empty, that is, filled entirely with the
+ * empty colour, so that they can be left out of the output and the viewer can
+ * draw the colour instead of loading them. The empty tiles are typically the
+ * parts of cube faces that fall outside the input field of view, and the missing
+ * caps of cylindrical panoramas.
+ *
+ * <p>The occupancy map is written to the descriptor as a comma-separated list of
+ * levels, starting with the full resolution level. Each level is written as
+ * <code><i>columns</i>x<i>rows</i>/<i>runs</i></code>, where <i>runs</i> is a
+ * period-separated list of run lengths of the tiles in row order, alternating
+ * between occupied and empty tiles and starting with occupied tiles. For example,
+ * {@code 4x2/2.2.4} is a level of four by two tiles where tiles 2 and 3 of the
+ * first row are empty. A level that isn't recorded is written as an empty string,
+ * and all its tiles are taken to be occupied.
+ */
+class TileOccupancy {
+    
+    private static class Level {
+        public final int columns;
+        public final int rows;
+        public final BitSet empty;
+        
+        public Level (int columns, int rows) {
+            this.columns = columns;
+            this.rows = rows;
+            this.empty = new BitSet (columns * rows);
+        }
+    }
+    
+    private final int emptyColor;
+    private final Map<Integer,Level> levels = new TreeMap<Integer,Level> ();
+    
+    /**
+     * Creates a new, empty occupancy map.
+     *
+     * @param emptyColor the 24-bit RGB colour of empty tiles
+     */
+    public TileOccupancy (int emptyColor) {
+        this.emptyColor = emptyColor & 0xffffff;
+    }
+    
+    public int getEmptyColor () {
+        return emptyColor;
+    }
+    
+    /**
+     * Returns the number of tiles along one side of a level.
+     *
+     * @param size the width or height of the level
+     * @param tileSize the tile size, including the overlap
+     * @param overlap the tile overlap
+     */
+    public static int getTileCount (int size, int tileSize, int overlap) {
+        return Math.max (1, (size - overlap + tileSize - overlap - 1) / (tileSize - overlap));
+    }
+    
+    /**
+     * Starts recording a level. A level that has already been added with the same
+     * number of tiles is kept, so that a level can be tiled in several parts.
+     *
+     * @param zoom the zoom level, 0 for full resolution
+     * @param columns the number of tile columns
+     * @param rows the number of tile rows
+     */
+    public synchronized void addLevel (int zoom, int columns, int rows) {
+        Level level = levels.get (zoom);
+        if (level == null || level.columns != columns || level.rows != rows) {
+            levels.put (zoom, new Level (columns, rows));
+        }
+    }
+    
+    /**
+     * Returns true if all pixels of a tile have the empty colour.
+     *
+     * @param pixels the packed 24-bit pixels of the tile
+     * @param offset the index of the top left pixel
+     * @param scanline the distance between rows
+     * @param w the width of the tile
+     * @param h the height of the tile
+     */
+    public boolean isEmpty (int[] pixels, int offset, int scanline, int w, int h) {
+        for (int y = 0; y < h; ++y) {
+            int p = offset + y * scanline;
+            for (int x = 0; x < w; ++x) {
+                if ((pixels[p + x] & 0xffffff) != emptyColor) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Marks a tile as empty.
+     *
+     * @throws IllegalArgumentException if the level hasn't been added
+     */
+    public synchronized void setEmpty (int zoom, int tileX, int tileY) {
+        Level level = levels.get (zoom);
+        if (level == null) {
+            throw new IllegalArgumentException ("Level " + zoom + " has not been added.");
+        }
+        level.empty.set (tileY * level.columns + tileX);
+    }
+    
+    /**
+     * Returns true if at least one tile is empty.
+     */
+    public synchronized boolean hasEmptyTiles () {
+        for (Level level : levels.values ()) {
+            if (!level.empty.isEmpty ()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Adds the empty tiles of an occupancy map in the descriptor format, such as the
+     * map of one part of a sharded build. Levels that haven't been added are added.
+     *
+     * @throws IllegalArgumentException if the map is malformed, or a level has a
+     * different number of tiles than the level already added
+     */
+    public synchronized void addEmptyTiles (String format) {
+        String[] levelFormats = format.split (",", -1);
+        for (int zoom = 0; zoom < levelFormats.length; ++zoom) {
+            String levelFormat = levelFormats[zoom];
+            if (levelFormat.length () == 0) {
+                continue;
+            }
+            try {
+                int x = levelFormat.indexOf ('x');
+                int slash = levelFormat.indexOf ('/');
+                int columns = Integer.parseInt (levelFormat.substring (0, x));
+                int rows = Integer.parseInt (levelFormat.substring (x + 1, slash));
+                Level level = levels.get (zoom);
+                if (level == null) {
+                    level = new Level (columns, rows);
+                    levels.put (zoom, level);
+                } else if (level.columns != columns || level.rows != rows) {
+                    throw new IllegalArgumentException ("Level " + zoom + " has " + level.columns + "x" + level.rows + " tiles, not " + columns + "x" + rows + ".");
+                }
+                String[] runs = levelFormat.substring (slash + 1).split ("\\.");
+                int i = 0;
+                boolean empty = false;
+                for (String run : runs) {
+                    int length = Integer.parseInt (run);
+                    if (empty) {
+                        level.empty.set (i, i + length);
+                    }
+                    i += length;
+                    empty = !empty;
+                }
+            } catch (IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException ("Malformed occupancy map for level " + zoom + ": " + levelFormat);
+            }
+        }
+    }
+    
+    /**
+     * Returns the occupancy map in the descriptor format.
+     *
+     * @param maxZoom the number of levels in the pyramid
+     */
+    public synchronized String format (int maxZoom) {
+        StringBuilder sb = new StringBuilder ();
+        for (int zoom = 0; zoom < maxZoom; ++zoom) {
+            if (zoom > 0) {
+                sb.append (",");
+            }
+            Level level = levels.get (zoom);
+            if (level == null) {
+                continue;
+            }
+            sb.append (level.columns).append ("x").append (level.rows).append ("/");
+            int tiles = level.columns * level.rows;
+            boolean empty = false;
+            int run = 0;
+            boolean first = true;
+            for (int i = 0; i <= tiles; ++i) {
+                if (i == tiles || level.empty.get (i) != empty) {
+                    if (!first) {
+                        sb.append (".");
+                    }
+                    sb.append (run);
+                    first = false;
+                    run = 0;
+                    empty = !empty;
+                }
+                ++run;
+            }
+        }
+        return sb.toString ();
+    }
+}
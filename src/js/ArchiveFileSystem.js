@@ -1,126 +1,153 @@
-/*
- * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
- *  
- * Licensed under the Apache License, Version 2.0 (the "License"); 
- * you may not use this file except in compliance with the License. 
- * You may obtain a copy of the License at 
- * 
- *     http://www.apache.org/licenses/LICENSE-2.0 
- *     
- * Unless required by applicable law or agreed to in writing, software 
- * distributed under the License is distributed on an "AS IS" BASIS, 
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
- * See the License for the specific language governing permissions and 
- * limitations under the License. 
- */
-
-/**
- * Creates a new instance of a <code>.bigshot</code> archive filesystem adapter.
- * 
- * @class Bigshot archive filesystem.
- * @param {bigshot.ImageParameters|bigshot.VRPanoramaParameters} parameters the associated image parameters
- * @augments bigshot.FileSystem
- * @constructor
- */     
-bigshot.ArchiveFileSystem = function (parameters) {
-    this.indexSize = 0;
-    this.offset = 0;
-    this.index = {};
-    this.prefix = "";
-    this.suffix = "";
-    this.parameters = parameters;
-    
-    var browser = new bigshot.Browser ();
-    var req = browser.createXMLHttpRequest ();
-    req.open("GET", this.parameters.basePath + "&start=0&length=24&type=text/plain", false);   
-    req.send(null);  
-    if(req.status == 200) {
-        if (req.responseText.substring (0, 7) != "BIGSHOT") {
-            alert ("\"" + this.parameters.basePath + "\" is not a valid bigshot file");
-            return;
-        }
-        this.indexSize = parseInt (req.responseText.substring (8), 16);
-        this.offset = this.indexSize + 24;
-        
-        req.open("GET", this.parameters.basePath + "&type=text/plain&start=24&length=" + this.indexSize, false);   
-        req.send(null);  
-        if(req.status == 200) {
-            var substrings = req.responseText.split (":");
-            for (var i = 0; i < substrings.length; i += 3) {
-                this.index[substrings[i]] = {
-                    start : parseInt (substrings[i + 1]) + this.offset,
-                    length : parseInt (substrings[i + 2])
-                };
-            }
-        } else {
-            alert ("The index of \"" + this.parameters.basePath + "\" could not be loaded: " + req.status);
-        }
-    } else {
-        alert ("The header of \"" + this.parameters.basePath + "\" could not be loaded: " + req.status);
-    }
-};
-
-
-bigshot.ArchiveFileSystem.prototype = { 
-    getDescriptor : function () {
-        this.browser = new bigshot.Browser ();
-        var req = this.browser.createXMLHttpRequest ();
-        
-        req.open("GET", this.getFilename ("descriptor"), false);   
-        req.send(null); 
-        var descriptor = {};
-        if(req.status == 200) {
-            var substrings = req.responseText.split (":");
-            for (var i = 0; i < substrings.length; i += 2) {
-                if (substrings[i] == "suffix") {
-                    descriptor[substrings[i]] = substrings[i + 1];
-                } else {
-                    descriptor[substrings[i]] = parseInt (substrings[i + 1]);
-                }
-            }
-            this.suffix = descriptor.suffix;
-            return descriptor;
-        } else {
-            throw new Error ("Unable to find descriptor.");
-        }
-    },
-    
-    getPosterFilename : function () {
-        return this.getFilename ("poster" + this.suffix);
-    },
-    
-    getFilename : function (name) {
-        name = this.getPrefix () + name;
-        if (!this.index[name] && console) {
-            console.log ("Can't find " + name);
-        }
-        var f = this.parameters.basePath + "&start=" + this.index[name].start + "&length=" + this.index[name].length;
-        if (name.substring (name.length - 4) == ".jpg") {
-            f = f + "&type=image/jpeg";
-        } else if (name.substring (name.length - 4) == ".png") {
-            f = f + "&type=image/png";
-        } else {
-            f = f + "&type=text/plain";
-        }
-        return f;
-    },
-    
-    getImageFilename : function (tileX, tileY, zoomLevel) {
-        var key = (-zoomLevel) + "/" + tileX + "_" + tileY + this.suffix;
-        return this.getFilename (key);
-    },
-    
-    getPrefix : function () {
-        if (this.prefix) {
-            return this.prefix + "/";
-        } else {
-            return "";
-        }
-    },
-    
-    setPrefix : function (prefix) {
-        this.prefix = prefix;
-    }
-}
-
-bigshot.Object.validate ("bigshot.ArchiveFileSystem", bigshot.FileSystem);
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+/**
+ * Creates a new instance of a <code>.bigshot</code> archive filesystem adapter.
+ * If {@link bigshot.ImageParameters#rangeRequests} is set, the archive is
+ * read with HTTP range requests from the URL in <code>basePath</code>, so it 
+ * can be served by any static file server or CDN. Otherwise <code>basePath</code>
+ * is the URL of a script, such as <code>bigshot.php</code>, that takes
+ * <code>start</code> and <code>length</code> parameters.
+ * 
+ * @class Bigshot archive filesystem.
+ * @param {bigshot.ImageParameters|bigshot.VRPanoramaParameters} parameters the associated image parameters
+ * @augments bigshot.FileSystem
+ * @constructor
+ */     
+bigshot.ArchiveFileSystem = function (parameters) {
+    this.indexSize = 0;
+    this.offset = 0;
+    this.index = {};
+    this.prefix = "";
+    this.suffix = "";
+    this.parameters = parameters;
+    this.browser = new bigshot.Browser ();
+    
+    var header = this.readText (0, 24);
+    if (header != null) {
+        if (header.substring (0, 7) != "BIGSHOT") {
+            alert ("\"" + this.parameters.basePath + "\" is not a valid bigshot file");
+            return;
+        }
+        this.indexSize = parseInt (header.substring (8), 16);
+        this.offset = this.indexSize + 24;
+        
+        var index = this.readText (24, this.indexSize);
+        if (index != null) {
+            var substrings = index.split (":");
+            for (var i = 0; i < substrings.length; i += 3) {
+                this.index[substrings[i]] = {
+                    start : parseInt (substrings[i + 1]) + this.offset,
+                    length : parseInt (substrings[i + 2])
+                };
+            }
+        } else {
+            alert ("The index of \"" + this.parameters.basePath + "\" could not be loaded.");
+        }
+    } else {
+        alert ("The header of \"" + this.parameters.basePath + "\" could not be loaded.");
+    }
+};
+
+
+bigshot.ArchiveFileSystem.prototype = { 
+    /**
+     * Reads a part of the archive as text.
+     *
+     * @param {int} start the offset of the first byte
+     * @param {int} length the number of bytes to read
+     * @returns the text, or null if it couldn't be read
+     * @private
+     */
+    readText : function (start, length) {
+        var req = this.browser.createXMLHttpRequest ();
+        if (this.parameters.rangeRequests) {
+            req.open ("GET", this.parameters.basePath, false);
+            req.setRequestHeader ("Range", "bytes=" + start + "-" + (start + length - 1));
+            req.send (null);
+            // A 200 response means that the server ignored the range.
+            return req.status == 206 ? req.responseText : null;
+        } else {
+            req.open ("GET", this.parameters.basePath + "&type=text/plain&start=" + start + "&length=" + length, false);
+            req.send (null);
+            return req.status == 200 ? req.responseText : null;
+        }
+    },
+    
+    getDescriptor : function () {
+        var entry = this.index[this.getPrefix () + "descriptor"];
+        var text = entry ? this.readText (entry.start, entry.length) : null;
+        var descriptor = {};
+        if (text != null) {
+            var substrings = text.split (":");
+            for (var i = 0; i < substrings.length; i += 2) {
+                if (substrings[i] == "suffix" || substrings[i] == "emptyColor" || substrings[i] == "occupancy" || substrings[i] == "atlas") {
+                    descriptor[substrings[i]] = substrings[i + 1];
+                } else if (substrings[i] == "exactEdgeTiles") {
+                    descriptor[substrings[i]] = substrings[i + 1] == "true";
+                } else {
+                    descriptor[substrings[i]] = parseInt (substrings[i + 1]);
+                }
+            }
+            this.suffix = descriptor.suffix;
+            return descriptor;
+        } else {
+            throw new Error ("Unable to find descriptor.");
+        }
+    },
+    
+    getPosterFilename : function () {
+        return this.getFilename ("poster" + this.suffix);
+    },
+    
+    getFilename : function (name) {
+        name = this.getPrefix () + name;
+        if (!this.index[name] && console) {
+            console.log ("Can't find " + name);
+        }
+        if (this.parameters.rangeRequests) {
+            return this.parameters.basePath + "#bytes=" + this.index[name].start + "-" + (this.index[name].start + this.index[name].length - 1);
+        }
+        var f = this.parameters.basePath + "&start=" + this.index[name].start + "&length=" + this.index[name].length;
+        if (name.substring (name.length - 4) == ".jpg") {
+            f = f + "&type=image/jpeg";
+        } else if (name.substring (name.length - 4) == ".png") {
+            f = f + "&type=image/png";
+        } else {
+            f = f + "&type=text/plain";
+        }
+        return f;
+    },
+    
+    getImageFilename : function (tileX, tileY, zoomLevel) {
+        var key = (-zoomLevel) + "/" + tileX + "_" + tileY + this.suffix;
+        return this.getFilename (key);
+    },
+    
+    getPrefix : function () {
+        if (this.prefix) {
+            return this.prefix + "/";
+        } else {
+            return "";
+        }
+    },
+    
+    setPrefix : function (prefix) {
+        this.prefix = prefix;
+    }
+}
+
+bigshot.Object.validate ("bigshot.ArchiveFileSystem", bigshot.FileSystem);
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+/**
+ * Creates a new batching data loader.
+ *
+ * @param {int} [maxRetries=0] the maximum number of times to retry requests
+ * @param {int} [maxBatchSize=32] the maximum number of images in one request
+ * @class Data loader that collects the images requested while a frame is
+ * drawn and loads them with one request to the batch endpoint of 
+ * <code>bigshot.php</code> or <code>MinimalHttpd</code>. Archive regions, given by
+ * <code>start</code> and <code>length</code> parameters, and tiles in folder
+ * pyramids are batched. Other images are loaded one by one, as are the images of 
+ * a failed batch request. If the server doesn't answer batch requests, batching 
+ * is turned off for that archive or folder.
+ * @augments bigshot.DataLoader
+ */
+bigshot.BatchingDataLoader = function (maxRetries, maxBatchSize) {
+    this.maxRetries = maxRetries;
+    this.maxBatchSize = maxBatchSize;
+    
+    if (!this.maxRetries) {
+        this.maxRetries = 0;
+    }
+    if (!this.maxBatchSize) {
+        this.maxBatchSize = 32;
+    }
+    
+    this.fallback = new bigshot.DefaultDataLoader (this.maxRetries);
+    
+    /**
+     * Maps the url of a batch request to the requests waiting for it.
+     * @private
+     */
+    this.pending = {};
+    
+    /**
+     * Urls of batch requests that the server doesn't answer.
+     * @private
+     */
+    this.unsupported = {};
+    
+    this.flushScheduled = false;
+}
+
+bigshot.BatchingDataLoader.prototype = {
+    browser : new bigshot.Browser (),
+    
+    /**
+     * Splits an image url into the url of a batch request and the name of the
+     * image in the batch.
+     *
+     * @param {String} url the image url
+     * @returns an object with <code>base</code> and <code>item</code> members,
+     * or null if the image can't be loaded in a batch
+     * @private
+     */
+    getBatchItem : function (url) {
+        if (url.indexOf ("#") >= 0 || url.indexOf ("data:") == 0 || url.indexOf ("blob:") == 0) {
+            return null;
+        }
+        var start = /&start=([0-9]+)/.exec (url);
+        var length = /&length=([0-9]+)/.exec (url);
+        if (start && length) {
+            return {
+                base : url.replace (/&(start|length|type)=[^&]*/g, ""),
+                item : start[1] + ":" + length[1]
+            };
+        }
+        if (url.indexOf ("?") >= 0) {
+            return null;
+        }
+        // A folder tile: the level folder and the file name.
+        var slash = url.lastIndexOf ("/");
+        var folder = slash > 0 ? url.lastIndexOf ("/", slash - 1) : -1;
+        if (folder < 0) {
+            return null;
+        }
+        return {
+            base : url.substring (0, folder),
+            item : url.substring (folder + 1)
+        };
+    },
+    
+    loadImage : function (url, onloaded) {
+        var batchItem = this.getBatchItem (url);
+        if (batchItem == null || this.unsupported[batchItem.base]) {
+            return this.fallback.loadImage (url, onloaded);
+        }
+        
+        var tile = document.createElement ("img");
+        tile.retries = 0;
+        var that = this;
+        var onerror = function () {
+            tile.retries++;
+            if (tile.retries <= that.maxRetries) {
+                setTimeout (function () {
+                        that.browser.setImageSource (tile, url, onerror);
+                    }, tile.retries * 1000);
+            } else {
+                if (onloaded) {
+                    onloaded (null);
+                }
+            }
+        };
+        this.browser.registerListener (tile, "load", function () {
+                if (onloaded) {
+                    onloaded (tile);
+                }
+            }, false);
+        this.browser.registerListener (tile, "error", onerror, false);
+        
+        if (!this.pending[batchItem.base]) {
+            this.pending[batchItem.base] = [];
+        }
+        this.pending[batchItem.base].push ({
+                item : batchItem.item,
+                url : url,
+                tile : tile,
+                onerror : onerror
+            });
+        if (!this.flushScheduled) {
+            this.flushScheduled = true;
+            setTimeout (function () {
+                    that.flush ();
+                }, 0);
+        }
+        return tile;
+    },
+    
+    /**
+     * Sends the batch requests for the images requested since the last flush.
+     * @private
+     */
+    flush : function () {
+        this.flushScheduled = false;
+        var pending = this.pending;
+        this.pending = {};
+        for (var base in pending) {
+            var requests = pending[base];
+            for (var i = 0; i < requests.length; i += this.maxBatchSize) {
+                this.loadBatch (base, requests.slice (i, i + this.maxBatchSize));
+            }
+        }
+    },
+    
+    /**
+     * Loads a batch of images.
+     * @private
+     */
+    loadBatch : function (base, requests) {
+        var items = [];
+        for (var i = 0; i < requests.length; ++i) {
+            items.push (encodeURIComponent (requests[i].item));
+        }
+        
+        var that = this;
+        var req = this.browser.createXMLHttpRequest ();
+        req.open ("GET", base + (base.indexOf ("?") >= 0 ? "&" : "?") + "batch=" + items.join (","), true);
+        req.responseType = "arraybuffer";
+        req.onreadystatechange = function () {
+            if (req.readyState != 4) {
+                return;
+            }
+            var parts = null;
+            if (req.status == 200 && req.getResponseHeader ("Content-Type") == "application/x-bigshot-batch") {
+                parts = that.parseBatch (req.response, requests.length);
+            }
+            if (parts == null && req.status != 0) {
+                that.unsupported[base] = true;
+            }
+            for (var i = 0; i < requests.length; ++i) {
+                if (parts != null && parts[i] != null) {
+                    that.browser.setImageBlob (requests[i].tile, parts[i]);
+                } else {
+                    that.browser.setImageSource (requests[i].tile, requests[i].url, requests[i].onerror);
+                }
+            }
+        };
+        req.send (null);
+    },
+    
+    /**
+     * Splits the body of a batch response into one blob per image.
+     *
+     * @param {ArrayBuffer} buffer the response body
+     * @param {int} count the number of images requested
+     * @returns an array of blobs, with null for missing images, or
+     * null if the body is malformed
+     * @private
+     */
+    parseBatch : function (buffer, count) {
+        var bytes = new Uint8Array (buffer);
+        var newline = -1;
+        for (var i = 0; i < bytes.length && i < 8192; ++i) {
+            if (bytes[i] == 10) {
+                newline = i;
+                break;
+            }
+        }
+        if (newline < 0) {
+            return null;
+        }
+        var lengths = String.fromCharCode.apply (null, bytes.subarray (0, newline)).split (":");
+        if (lengths.length != count) {
+            return null;
+        }
+        var parts = [];
+        var offset = newline + 1;
+        for (var i = 0; i < count; ++i) {
+            var length = parseInt (lengths[i]);
+            if (isNaN (length) || offset + length > bytes.length) {
+                return null;
+            }
+            if (length < 0) {
+                parts.push (null);
+            } else {
+                parts.push (new Blob ([bytes.subarray (offset, offset + length)]));
+                offset += length;
+            }
+        }
+        return parts;
+    },
+    
+    loadXml : function (url, async, onloaded) {
+        return this.fallback.loadXml (url, async, onloaded);
+    }
+}
+
+bigshot.Object.validate ("bigshot.BatchingDataLoader", bigshot.DataLoader);
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+/**
+ * Creates a new tile atlas.
+ *
+ * @class The coarsest levels of an image pyramid, packed by MakeImagePyramid into
+ * a single image so that they can be loaded with one request. The layout is a
+ * comma-separated list of levels, starting with the full resolution level. A
+ * level in the atlas is written as
+ * <code><i>x</i>.<i>y</i>.<i>width</i>.<i>height</i></code>, the rectangle of
+ * the atlas image that holds the level. A level that isn't in the atlas is
+ * written as an empty string. The tiles of a level in the atlas are cut out of
+ * its rectangle.
+ * @param {String} text the atlas layout
+ * @param {bigshot.ImageParameters|bigshot.VRPanoramaParameters} parameters the
+ * image parameters, for the tile size, overlap and edge tiles
+ * @constructor
+ */
+bigshot.TileAtlas = function (text, parameters) {
+    this.tileSize = parameters.tileSize;
+    this.overlap = parameters.overlap ? parameters.overlap : 0;
+    this.exactEdgeTiles = parameters.exactEdgeTiles;
+    
+    /**
+     * The levels, indexed by the negated zoom level. Each level is an object
+     * with the <code>x</code>, <code>y</code>, <code>width</code> and
+     * <code>height</code> of its rectangle in the atlas image.
+     *
+     * @private
+     */
+    this.levels = [];
+    
+    var levels = text.split (",");
+    for (var i = 0; i < levels.length; ++i) {
+        if (levels[i].length == 0) {
+            this.levels.push (null);
+            continue;
+        }
+        var r = levels[i].split (".");
+        this.levels.push ({
+                x : parseInt (r[0]),
+                y : parseInt (r[1]),
+                width : parseInt (r[2]),
+                height : parseInt (r[3])
+            });
+    }
+}
+
+bigshot.TileAtlas.prototype = {
+    /**
+     * Returns true if a zoom level is in the atlas.
+     *
+     * @param {int} zoomLevel the zoom level
+     */
+    contains : function (zoomLevel) {
+        return this.levels[-zoomLevel] ? true : false;
+    },
+    
+    /**
+     * Cuts a tile out of the atlas image. Edge tiles are padded with black to
+     * the full tile size, as in the pyramid, unless edge tiles are exact.
+     *
+     * @param {HTMLImageElement} image the atlas image
+     * @param {int} tileX the tile column
+     * @param {int} tileY the tile row
+     * @param {int} zoomLevel the zoom level
+     * @returns {HTMLCanvasElement} the tile, or null if the tile is outside
+     * the level or the browser doesn't support the canvas element
+     */
+    createTile : function (image, tileX, tileY, zoomLevel) {
+        var level = this.levels[-zoomLevel];
+        var step = this.tileSize - this.overlap;
+        var x = tileX * step;
+        var y = tileY * step;
+        if (!level || tileX < 0 || tileY < 0 || x >= level.width || y >= level.height) {
+            return null;
+        }
+        var w = Math.min (this.tileSize, level.width - x);
+        var h = Math.min (this.tileSize, level.height - y);
+        
+        var canvas = document.createElement ("canvas");
+        if (!canvas["width"]) {
+            return null;
+        }
+        canvas.width = this.exactEdgeTiles ? w : this.tileSize;
+        canvas.height = this.exactEdgeTiles ? h : this.tileSize;
+        var ctx = canvas.getContext ("2d");
+        ctx.fillStyle = "#000000";
+        ctx.fillRect (0, 0, canvas.width, canvas.height);
+        ctx.drawImage (image, level.x + x, level.y + y, w, h, 0, 0, w, h);
+        return canvas;
+    }
+};
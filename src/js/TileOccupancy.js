@@ -0,0 +1,104 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+/**
+ * Creates a new occupancy map.
+ *
+ * @class The tiles of an image pyramid that were left out because they are
+ * filled entirely with the empty color. The map is written by MakeImagePyramid
+ * as a comma-separated list of levels, starting with the full resolution level.
+ * Each level is written as <code><i>columns</i>x<i>rows</i>/<i>runs</i></code>, 
+ * where <i>runs</i> is a period-separated list of run lengths of the tiles in 
+ * row order, alternating between occupied and empty tiles and starting with 
+ * occupied tiles. All tiles of a level that is written as an empty string are 
+ * occupied.
+ * @param {String} text the occupancy map
+ * @param {String} emptyColor the color of the empty tiles, as six hex digits
+ * @constructor
+ */
+bigshot.TileOccupancy = function (text, emptyColor) {
+    this.emptyColor = "#" + (emptyColor ? emptyColor : "000000");
+    
+    /**
+     * The levels, indexed by the negated zoom level. Each level is an object 
+     * with the <code>columns</code> and <code>rows</code> of tiles, and an 
+     * array, <code>empty</code>, of booleans in row order.
+     *
+     * @private
+     */
+    this.levels = [];
+    
+    var levels = text.split (",");
+    for (var i = 0; i < levels.length; ++i) {
+        var slash = levels[i].indexOf ("/");
+        if (slash < 0) {
+            this.levels.push (null);
+            continue;
+        }
+        var size = levels[i].substring (0, slash).split ("x");
+        var runs = levels[i].substring (slash + 1).split (".");
+        var level = {
+            columns : parseInt (size[0]),
+            rows : parseInt (size[1]),
+            empty : []
+        };
+        for (var r = 0; r < runs.length; ++r) {
+            var run = parseInt (runs[r]);
+            for (var j = 0; j < run; ++j) {
+                level.empty.push ((r % 2) == 1);
+            }
+        }
+        this.levels.push (level);
+    }
+}
+
+bigshot.TileOccupancy.prototype = {
+    /**
+     * Returns true if a tile is known to be empty.
+     *
+     * @param {int} tileX the tile column
+     * @param {int} tileY the tile row
+     * @param {int} zoomLevel the zoom level
+     */
+    isEmpty : function (tileX, tileY, zoomLevel) {
+        var level = this.levels[-zoomLevel];
+        if (!level || tileX < 0 || tileY < 0 || tileX >= level.columns || tileY >= level.rows) {
+            return false;
+        }
+        return level.empty[tileY * level.columns + tileX] == true;
+    },
+    
+    /**
+     * Creates a tile filled with the empty color, to use in place of an
+     * empty tile.
+     *
+     * @param {int} tileSize the size of the tile
+     * @returns {HTMLCanvasElement} the tile, or null if the browser doesn't
+     * support the canvas element
+     */
+    createEmptyTile : function (tileSize) {
+        var canvas = document.createElement ("canvas");
+        if (!canvas["width"]) {
+            return null;
+        }
+        canvas.width = tileSize;
+        canvas.height = tileSize;
+        var ctx = canvas.getContext ("2d");
+        ctx.fillStyle = this.emptyColor;
+        ctx.fillRect (0, 0, tileSize, tileSize);
+        return canvas;
+    }
+};
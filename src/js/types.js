@@ -1,53 +1,53 @@
-/*
- * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
- *  
- * Licensed under the Apache License, Version 2.0 (the "License"); 
- * you may not use this file except in compliance with the License. 
- * You may obtain a copy of the License at 
- * 
- *     http://www.apache.org/licenses/LICENSE-2.0 
- *     
- * Unless required by applicable law or agreed to in writing, software 
- * distributed under the License is distributed on an "AS IS" BASIS, 
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
- * See the License for the specific language governing permissions and 
- * limitations under the License. 
- */
-
-/**
- * This class has no constructor, it is created as an object literal.
- * @name bigshot.HomogeneousPoint3D
- * @class A 3d homogenous point. 
- * @property {number} x the x-coordinate
- * @property {number} y the y-coordinate
- * @property {number} z the z-coordinate
- * @property {number} w the w-coordinate
- */
-
-/**
- * This class has no constructor, it is created as an object literal.
- * @name bigshot.Point3D
- * @class A 3d point. 
- * @property {number} x the x-coordinate
- * @property {number} y the y-coordinate
- * @property {number} z the z-coordinate
- */
-
-/**
- * This class has no constructor, it is created as an object literal.
- * @name bigshot.Point2D
- * @class A 2d point. 
- * @property {number} x the x-coordinate
- * @property {number} y the y-coordinate
- */
-
-/**
- * This class has no constructor, it is created as an object literal.
- * @name bigshot.Rotation
- * @class A rotation specified as a yaw-pitch-roll triplet. 
- * @property {number} y the rotation around the yaw (y) axis
- * @property {number} p the rotation around the pitch (x) axis
- * @property {number} r the rotation around the roll (z) axis
- */
-
-
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+/**
+ * This class has no constructor, it is created as an object literal.
+ * @name bigshot.HomogeneousPoint3D
+ * @class A 3d homogenous point. 
+ * @property {number} x the x-coordinate
+ * @property {number} y the y-coordinate
+ * @property {number} z the z-coordinate
+ * @property {number} w the w-coordinate
+ */
+
+/**
+ * This class has no constructor, it is created as an object literal.
+ * @name bigshot.Point3D
+ * @class A 3d point. 
+ * @property {number} x the x-coordinate
+ * @property {number} y the y-coordinate
+ * @property {number} z the z-coordinate
+ */
+
+/**
+ * This class has no constructor, it is created as an object literal.
+ * @name bigshot.Point2D
+ * @class A 2d point. 
+ * @property {number} x the x-coordinate
+ * @property {number} y the y-coordinate
+ */
+
+/**
+ * This class has no constructor, it is created as an object literal.
+ * @name bigshot.Rotation
+ * @class A rotation specified as a yaw-pitch-roll triplet. 
+ * @property {number} y the rotation around the yaw (y) axis
+ * @property {number} p the rotation around the pitch (x) axis
+ * @property {number} r the rotation around the roll (z) axis
+ */
+
+
@@ -1,99 +1,325 @@
-<?php
-    /*
-     * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
-     *  
-     * Licensed under the Apache License, Version 2.0 (the "License"); 
-     * you may not use this file except in compliance with the License. 
-     * You may obtain a copy of the License at 
-     * 
-     *     http://www.apache.org/licenses/LICENSE-2.0 
-     *     
-     * Unless required by applicable law or agreed to in writing, software 
-     * distributed under the License is distributed on an "AS IS" BASIS, 
-     * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
-     * See the License for the specific language governing permissions and 
-     * limitations under the License. 
-     */
-    
-    /**
-     * This script serves up parts of a .bigshot image pyramid archive.
-     * It is controlled with five parameters:
-     *
-     * file : the path to the .bigshot file, relative to the script
-     *
-     * Either
-     *     start : offset in bytes from the start of the file
-     *     length : number of bytes to read
-     * or
-     *     entry : the name of the entry in the bigshot archive.
-     *
-     * Using the "entry" parameter requires two extra file accesses server side.
-     * It is recommended that a client parses the file header and index and then
-     * uses the start/length combo to read the data from the archive. The purpose
-     * of the "entry" parameters is to make it possible to use, for example, 
-     * SaladoPlayer, to show VR panoramas archived in a Bigshot archive.
-     *
-     * type : MIME-type for the Content-Type header being returned.
-     *
-     * To avoid path traversal attacks, the script will only read from 
-     * files ending in ".bigshot", and will remove any ".." and "." path 
-     * components from the file name. It will also remove any initial slashes.
-     */
-    
-    $filename = $_GET["file"];
-    $start = (int) $_GET["start"];
-    $length = (int) $_GET["length"];
-    $type = $_GET["type"];
-    $entry = $_GET["entry"];
-    
-    // Clean the path, make sure it is relative to the script
-    // and doesn't allow any traversals upward in the directory 
-    // hierarchy
-    $pathComponents = explode ("/", $filename);
-    $filename = "";
-    foreach ($pathComponents as $i => $value) {
-        if ($value != ".." && $value != ".") {
-            if (strlen ($filename) > 0) {
-                $filename = $filename . "/";
-            }
-            $filename = $filename . $value;
-        }
-    }
-    
-    // Make sure we're serving up a bigshot file.
-    if (substr ($filename, -8) != ".bigshot") {
-        trigger_error ($filename . " is not a bigshot file.", E_USER_ERROR);
-    }
-    
-    // If the user specified an entry, load the index and find it.
-    // This overwrites the start & length parameters.
-    if ($entry) {
-        $header = file_get_contents ($filename, false, NULL, 8, 16);
-        $indexSize = intval (trim ($header), 16);
-        $index = file_get_contents ($filename, false, NULL, 24, $indexSize);
-        $indexEntries = explode (":", $index);
-        foreach ($indexEntries as $i => $value) {
-            if ($value == $entry) {
-                $start = ((int) $indexEntries[$i + 1]) + 24 + $indexSize;
-                $length = (int) $indexEntries[$i + 2];
-                break;
-            }
-        }
-    }
-    
-    if ($start < 0) {
-        trigger_error ("start is negative: " . $start, E_USER_ERROR);
-    }
-    
-    if ($length < 0) {
-        trigger_error ("length is negative: " . $length, E_USER_ERROR);
-    }
-    
-    if (!file_exists ($filename)) {
-        trigger_error ($filename . " not found.", E_USER_ERROR);
-    }
-    
-    header ("Content-Type: " . $type);
-    
-    echo file_get_contents ($filename, false, NULL, $start, $length);
+<?php
+    /*
+     * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+     *  
+     * Licensed under the Apache License, Version 2.0 (the "License"); 
+     * you may not use this file except in compliance with the License. 
+     * You may obtain a copy of the License at 
+     * 
+     *     http://www.apache.org/licenses/LICENSE-2.0 
+     *     
+     * Unless required by applicable law or agreed to in writing, software 
+     * distributed under the License is distributed on an "AS IS" BASIS, 
+     * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+     * See the License for the specific language governing permissions and 
+     * limitations under the License. 
+     */
+    
+    /**
+     * This script serves up parts of a .bigshot image pyramid archive.
+     * It is controlled with five parameters:
+     *
+     * file : the path to the .bigshot file, relative to the script
+     *
+     * Either
+     *     start : offset in bytes from the start of the file
+     *     length : number of bytes to read
+     * or
+     *     entry : the name of the entry in the bigshot archive.
+     *
+     * Using the "entry" parameter requires two extra file accesses server side.
+     * It is recommended that a client parses the file header and index and then
+     * uses the start/length combo to read the data from the archive. The purpose
+     * of the "entry" parameters is to make it possible to use, for example, 
+     * SaladoPlayer, to show VR panoramas archived in a Bigshot archive.
+     *
+     * type : MIME-type for the Content-Type header being returned.
+     *
+     * To avoid path traversal attacks, the script will only read from 
+     * files ending in ".bigshot", and will remove any ".." and "." path 
+     * components from the file name. It will also remove any initial slashes.
+     *
+     * Responses carry an ETag, made from the modification time of the archive
+     * and the offset and length of the data, and a Last-Modified header.
+     * Conditional requests are answered with 304 Not Modified. Images are
+     * tiles or posters, which never change once the pyramid has been built,
+     * and are sent with "Cache-Control: immutable" and a max-age of 
+     * $tileMaxAge seconds. Publish a rebuilt pyramid under a new name. 
+     * Everything else, such as the header, index and descriptor, gets a
+     * max-age of $maxAge seconds.
+     *
+     * Range requests, including multi-range requests, are supported. The 
+     * ranges are relative to the selected data, that is, to the entry or to
+     * the start parameter.
+     *
+     * batch : a comma-separated list of entries, or of regions given as
+     *     start:length, to return in one response. The response starts 
+     *     with a line listing the length of each item, separated by colons,
+     *     with -1 for missing items, followed by the data of the items in 
+     *     the order they were requested. Regions that are next to each 
+     *     other in the archive are read together. A batch with an item 
+     *     larger than $maxBatchItemSize bytes is rejected with 400 Bad 
+     *     Request, and a batch whose items add up to more than 
+     *     $maxBatchSize bytes with 413 Payload Too Large.
+     */
+    
+    $tileMaxAge = 31536000;
+    $maxAge = 0;
+    $maxBatchItemSize = 4194304;
+    $maxBatchSize = 16777216;
+    
+    /**
+     * Parses a Range header. Returns an array of (first, last) byte pairs,
+     * inclusive, for the satisfiable ranges, or NULL if the header is
+     * malformed. If no range is satisfiable, returns an empty array.
+     */
+    function parseRanges ($header, $length) {
+        $header = trim ($header);
+        if (substr ($header, 0, 6) != "bytes=") {
+            return NULL;
+        }
+        $specs = explode (",", substr ($header, 6));
+        if (count ($specs) > 64) {
+            return NULL;
+        }
+        $ranges = array ();
+        foreach ($specs as $spec) {
+            if (!preg_match ('/^\s*(\d*)\s*-\s*(\d*)\s*$/', $spec, $matches)) {
+                return NULL;
+            }
+            if ($matches[1] === "") {
+                // A suffix range: the last n bytes.
+                if ($matches[2] === "" || (int) $matches[2] == 0) {
+                    continue;
+                }
+                $first = max (0, $length - (int) $matches[2]);
+                $last = $length - 1;
+            } else {
+                $first = (int) $matches[1];
+                if ($matches[2] === "") {
+                    $last = $length - 1;
+                } else {
+                    $last = (int) $matches[2];
+                    if ($last < $first) {
+                        return NULL;
+                    }
+                    $last = min ($last, $length - 1);
+                }
+            }
+            if ($first < $length) {
+                $ranges[] = array ($first, $last);
+            }
+        }
+        return $ranges;
+    }
+    
+    /**
+     * Orders two batch regions, given as (start, length, item) arrays, by
+     * their start, so that regions next to each other can be read together.
+     * Used with usort.
+     */
+    function compareRegions ($a, $b) {
+        if ($a[0] == $b[0]) {
+            return 0;
+        }
+        return $a[0] < $b[0] ? -1 : 1;
+    }
+    
+    $filename = $_GET["file"];
+    $start = (int) $_GET["start"];
+    $length = (int) $_GET["length"];
+    $type = $_GET["type"];
+    $entry = $_GET["entry"];
+    
+    // Clean the path, make sure it is relative to the script
+    // and doesn't allow any traversals upward in the directory 
+    // hierarchy
+    $pathComponents = explode ("/", $filename);
+    $filename = "";
+    foreach ($pathComponents as $i => $value) {
+        if ($value != ".." && $value != ".") {
+            if (strlen ($filename) > 0) {
+                $filename = $filename . "/";
+            }
+            $filename = $filename . $value;
+        }
+    }
+    
+    // Make sure we're serving up a bigshot file.
+    if (substr ($filename, -8) != ".bigshot") {
+        trigger_error ($filename . " is not a bigshot file.", E_USER_ERROR);
+    }
+    
+    if (isset ($_GET["batch"])) {
+        if (!file_exists ($filename)) {
+            trigger_error ($filename . " not found.", E_USER_ERROR);
+        }
+        $items = explode (",", $_GET["batch"]);
+        if (count ($items) > 256) {
+            trigger_error ("Too many items in batch: " . count ($items), E_USER_ERROR);
+        }
+        $fileSize = filesize ($filename);
+        
+        $header = file_get_contents ($filename, false, NULL, 8, 16);
+        $indexSize = intval (trim ($header), 16);
+        $index = explode (":", file_get_contents ($filename, false, NULL, 24, $indexSize));
+        $entries = array ();
+        for ($i = 0; $i + 2 < count ($index); $i += 3) {
+            $entries[$index[$i]] = array (((int) $index[$i + 1]) + 24 + $indexSize, (int) $index[$i + 2]);
+        }
+        
+        $regions = array ();
+        $total = 0;
+        foreach ($items as $i => $item) {
+            $colon = strpos ($item, ":");
+            if ($colon !== false) {
+                $region = array ((int) substr ($item, 0, $colon), (int) substr ($item, $colon + 1));
+            } else if (isset ($entries[$item])) {
+                $region = $entries[$item];
+            } else {
+                continue;
+            }
+            if ($region[0] >= 0 && $region[1] >= 0 && $region[0] <= $fileSize - $region[1]) {
+                if ($region[1] > $maxBatchItemSize) {
+                    header ($_SERVER["SERVER_PROTOCOL"] . " 400 Bad Request");
+                    exit;
+                }
+                $regions[] = array ($region[0], $region[1], $i);
+                $total += $region[1];
+            }
+        }
+        // This also bounds the runs, which are never longer than their regions together.
+        if ($total > $maxBatchSize) {
+            header ($_SERVER["SERVER_PROTOCOL"] . " 413 Payload Too Large");
+            exit;
+        }
+        usort ($regions, "compareRegions");
+        
+        // Read each run of adjacent or overlapping regions at once.
+        $data = array ();
+        $fp = fopen ($filename, "rb");
+        $runStart = 0;
+        while ($runStart < count ($regions)) {
+            $start = $regions[$runStart][0];
+            $end = $start + $regions[$runStart][1];
+            $runEnd = $runStart + 1;
+            while ($runEnd < count ($regions) && $regions[$runEnd][0] <= $end) {
+                $end = max ($end, $regions[$runEnd][0] + $regions[$runEnd][1]);
+                ++$runEnd;
+            }
+            $run = stream_get_contents ($fp, $end - $start, $start);
+            for ($i = $runStart; $i < $runEnd; ++$i) {
+                $data[$regions[$i][2]] = substr ($run, $regions[$i][0] - $start, $regions[$i][1]);
+            }
+            $runStart = $runEnd;
+        }
+        fclose ($fp);
+        
+        $lengths = array ();
+        foreach ($items as $i => $item) {
+            $lengths[] = isset ($data[$i]) ? strlen ($data[$i]) : -1;
+        }
+        header ("Content-Type: application/x-bigshot-batch");
+        echo implode (":", $lengths) . "\n";
+        foreach ($items as $i => $item) {
+            if (isset ($data[$i])) {
+                echo $data[$i];
+            }
+        }
+        exit;
+    }
+    
+    // If the user specified an entry, load the index and find it.
+    // This overwrites the start & length parameters.
+    if ($entry) {
+        $header = file_get_contents ($filename, false, NULL, 8, 16);
+        $indexSize = intval (trim ($header), 16);
+        $index = file_get_contents ($filename, false, NULL, 24, $indexSize);
+        $indexEntries = explode (":", $index);
+        foreach ($indexEntries as $i => $value) {
+            if ($value == $entry) {
+                $start = ((int) $indexEntries[$i + 1]) + 24 + $indexSize;
+                $length = (int) $indexEntries[$i + 2];
+                break;
+            }
+        }
+    }
+    
+    if ($start < 0) {
+        trigger_error ("start is negative: " . $start, E_USER_ERROR);
+    }
+    
+    if ($length < 0) {
+        trigger_error ("length is negative: " . $length, E_USER_ERROR);
+    }
+    
+    if (!file_exists ($filename)) {
+        trigger_error ($filename . " not found.", E_USER_ERROR);
+    }
+    
+    $lastModified = filemtime ($filename);
+    $etag = "\"" . dechex ($lastModified) . "-" . dechex ($start) . "-" . dechex ($length) . "\"";
+    
+    header ("ETag: " . $etag);
+    header ("Last-Modified: " . gmdate ("D, d M Y H:i:s", $lastModified) . " GMT");
+    if (substr ($type, 0, 6) == "image/" && $tileMaxAge > 0) {
+        header ("Cache-Control: public, max-age=" . $tileMaxAge . ", immutable");
+    } else {
+        header ("Cache-Control: max-age=" . $maxAge);
+    }
+    
+    // If-None-Match takes precedence over If-Modified-Since.
+    $notModified = false;
+    if (isset ($_SERVER["HTTP_IF_NONE_MATCH"])) {
+        foreach (explode (",", $_SERVER["HTTP_IF_NONE_MATCH"]) as $tag) {
+            $tag = trim ($tag);
+            if (substr ($tag, 0, 2) == "W/") {
+                $tag = substr ($tag, 2);
+            }
+            if ($tag == "*" || $tag == $etag) {
+                $notModified = true;
+                break;
+            }
+        }
+    } else if (isset ($_SERVER["HTTP_IF_MODIFIED_SINCE"])) {
+        $since = strtotime ($_SERVER["HTTP_IF_MODIFIED_SINCE"]);
+        $notModified = $since !== false && $lastModified <= $since;
+    }
+    
+    if ($notModified) {
+        header ($_SERVER["SERVER_PROTOCOL"] . " 304 Not Modified");
+        exit;
+    }
+    
+    $ranges = NULL;
+    if (isset ($_SERVER["HTTP_RANGE"]) && (!isset ($_SERVER["HTTP_IF_RANGE"]) || trim ($_SERVER["HTTP_IF_RANGE"]) == $etag)) {
+        $ranges = parseRanges ($_SERVER["HTTP_RANGE"], $length);
+    }
+    
+    if ($ranges === NULL) {
+        header ("Accept-Ranges: bytes");
+        header ("Content-Type: " . $type);
+        echo file_get_contents ($filename, false, NULL, $start, $length);
+    } else if (count ($ranges) == 0) {
+        header ($_SERVER["SERVER_PROTOCOL"] . " 416 Range Not Satisfiable");
+        header ("Content-Range: bytes */" . $length);
+    } else if (count ($ranges) == 1) {
+        list ($first, $last) = $ranges[0];
+        header ($_SERVER["SERVER_PROTOCOL"] . " 206 Partial Content");
+        header ("Content-Range: bytes " . $first . "-" . $last . "/" . $length);
+        header ("Content-Type: " . $type);
+        echo file_get_contents ($filename, false, NULL, $start + $first, $last - $first + 1);
+    } else {
+        $boundary = "BIGSHOT" . uniqid ();
+        header ($_SERVER["SERVER_PROTOCOL"] . " 206 Partial Content");
+        header ("Content-Type: multipart/byteranges; boundary=" . $boundary);
+        foreach ($ranges as $range) {
+            list ($first, $last) = $range;
+            echo "\r\n--" . $boundary . "\r\n";
+            echo "Content-Type: " . $type . "\r\n";
+            echo "Content-Range: bytes " . $first . "-" . $last . "/" . $length . "\r\n\r\n";
+            echo file_get_contents ($filename, false, NULL, $start + $first, $last - $first + 1);
+        }
+        echo "\r\n--" . $boundary . "--\r\n";
+    }
 ?>
\ No newline at end of file
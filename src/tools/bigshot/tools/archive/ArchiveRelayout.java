@@ -0,0 +1,330 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot.tools.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rewrites a {@code .bigshot} archive so that the entries that are requested the
+ * most are stored together at the front of the data section, in order of
+ * popularity. The hot part of the archive is then a single, small, contiguous
+ * region that stays in the page cache or can be read ahead of time.
+ *
+ * <p>The index keeps its entries in the same order; only the offsets change.
+ * Entries that were never requested keep their relative order, such as the
+ * tile order chosen when the archive was made. The archive's {@code layout}
+ * entry, which is added if missing, records <i>hotBytes</i>: the length of
+ * the front of the data section that served the target share of the requests.
+ *
+ * <p>The tool also reports, for a range of hit rates, how many bytes must be
+ * cached to serve that share of the requests from cache, and how many 4 KiB pages
+ * those bytes span before and after the rewrite.
+ *
+ * <p>Usage: <code>ArchiveRelayout <i>archive</i> <i>log</i>... [--output <i>file</i>]
+ * [--hit-rate <i>rate</i>] [--path <i>request path</i>]</code>, where the logs are
+ * access logs in the combined log format (see {@link EntryHits}), <i>rate</i> is the
+ * target hit rate, 0.9 by default, and <i>request path</i> is the path of the archive
+ * on the server, if its file name isn't enough to tell the requests for it apart.
+ * Without an output file, only the report is printed.
+ */
+public class ArchiveRelayout {
+    
+    private final static int PAGE_SIZE = 4096;
+    
+    private final static double[] REPORT_HIT_RATES = { 0.5, 0.8, 0.9, 0.95, 0.99, 1.0 };
+    
+    private final EntryHits hits;
+    private double hitRate = 0.9;
+    
+    public ArchiveRelayout (EntryHits hits) {
+        this.hits = hits;
+    }
+    
+    /**
+     * Sets the target hit rate, used to compute the <i>hotBytes</i> recorded in the
+     * {@code layout} entry.
+     *
+     * @throws IllegalArgumentException if the rate is not between 0 and 1
+     */
+    public ArchiveRelayout hitRate (double hitRate) {
+        if (hitRate <= 0.0 || hitRate > 1.0) {
+            throw new IllegalArgumentException ("The hit rate must be greater than 0 and at most 1: " + hitRate);
+        }
+        this.hitRate = hitRate;
+        return this;
+    }
+    
+    /**
+     * Returns the blocks in the new order: by number of hits, most hits first, and in
+     * archive order among blocks with the same number of hits.
+     */
+    public List<EntryHits.Block> getOrder () {
+        List<EntryHits.Block> order = new ArrayList<EntryHits.Block> (hits.getBlocks ());
+        Collections.sort (order, new Comparator<EntryHits.Block> () {
+                public int compare (EntryHits.Block a, EntryHits.Block b) {
+                    return a.hits > b.hits ? -1 : (a.hits < b.hits ? 1 : 0);
+                }
+            });
+        return order;
+    }
+    
+    private static long totalHits (List<EntryHits.Block> blocks) {
+        long total = 0;
+        for (EntryHits.Block block : blocks) {
+            total += block.hits;
+        }
+        return total;
+    }
+    
+    /**
+     * Returns the number of blocks, taken from the start of the new order, that
+     * serve a share of the hits.
+     */
+    private static int getHotCount (List<EntryHits.Block> order, double rate) {
+        long total = totalHits (order);
+        long needed = (long) Math.ceil (total * rate);
+        long covered = 0;
+        int count = 0;
+        while (count < order.size () && covered < needed) {
+            covered += order.get (count).hits;
+            ++count;
+        }
+        return count;
+    }
+    
+    /**
+     * Returns the number of pages spanned by blocks.
+     *
+     * @param offsets maps each block to its offset in the data section
+     */
+    private static long countPages (List<EntryHits.Block> blocks, Map<EntryHits.Block,Long> offsets, long dataOffset) {
+        Set<Long> pages = new HashSet<Long> ();
+        for (EntryHits.Block block : blocks) {
+            if (block.length == 0) {
+                continue;
+            }
+            long start = dataOffset + offsets.get (block);
+            for (long p = start / PAGE_SIZE; p <= (start + block.length - 1) / PAGE_SIZE; ++p) {
+                pages.add (p);
+            }
+        }
+        return pages.size ();
+    }
+    
+    /**
+     * Prints the number of requests counted, and the cache footprint needed for a
+     * range of hit rates.
+     */
+    public void report (PrintStream out) {
+        List<EntryHits.Block> order = getOrder ();
+        Map<EntryHits.Block,Long> oldOffsets = new HashMap<EntryHits.Block,Long> ();
+        Map<EntryHits.Block,Long> newOffsets = new HashMap<EntryHits.Block,Long> ();
+        long position = 0;
+        for (EntryHits.Block block : order) {
+            oldOffsets.put (block, block.start);
+            newOffsets.put (block, position);
+            position += block.length;
+        }
+        
+        out.println (hits.getArchive ().getName () + ": " + hits.getBlocks ().size () + " blocks, "
+            + hits.getRequests () + " requests for entries, " + hits.getIndexRequests () + " for the index only, "
+            + totalHits (order) + " entry hits");
+        out.println (String.format ("%8s %8s %12s %12s %12s", "hit rate", "entries", "bytes", "pages before", "pages after"));
+        double[] rates = REPORT_HIT_RATES;
+        boolean listed = false;
+        for (double rate : rates) {
+            listed |= rate == hitRate;
+        }
+        if (!listed) {
+            rates = new double[REPORT_HIT_RATES.length + 1];
+            System.arraycopy (REPORT_HIT_RATES, 0, rates, 0, REPORT_HIT_RATES.length);
+            rates[rates.length - 1] = hitRate;
+            Arrays.sort (rates);
+        }
+        for (double rate : rates) {
+            List<EntryHits.Block> hot = order.subList (0, getHotCount (order, rate));
+            long bytes = 0;
+            for (EntryHits.Block block : hot) {
+                bytes += block.length;
+            }
+            out.println (String.format ("%7.1f%% %8d %12d %12d %12d%s",
+                    rate * 100, hot.size (), bytes,
+                    countPages (hot, oldOffsets, hits.getDataOffset ()),
+                    countPages (hot, newOffsets, hits.getDataOffset ()),
+                    rate == hitRate ? " (target)" : ""));
+        }
+    }
+    
+    /**
+     * Parses the {@code key:value} pairs of a {@code layout} entry.
+     */
+    private static Map<String,String> parseLayout (byte[] data) throws IOException {
+        Map<String,String> values = new LinkedHashMap<String,String> ();
+        String[] substrings = new String (data, "UTF-8").trim ().split (":");
+        for (int i = 0; i + 1 < substrings.length; i += 2) {
+            values.put (substrings[i], substrings[i + 1]);
+        }
+        return values;
+    }
+    
+    private static byte[] read (RandomAccessFile raf, long position, long length) throws IOException {
+        byte[] data = new byte[(int) length];
+        raf.seek (position);
+        raf.readFully (data);
+        return data;
+    }
+    
+    /**
+     * Writes the rewritten archive.
+     *
+     * @throws IllegalArgumentException if the output is the input archive
+     */
+    public void write (File output) throws IOException {
+        if (output.getCanonicalFile ().equals (hits.getArchive ().getCanonicalFile ())) {
+            throw new IllegalArgumentException ("The output must not be the input archive: " + output.getPath ());
+        }
+        List<EntryHits.Block> order = getOrder ();
+        List<EntryHits.Block> hot = order.subList (0, getHotCount (order, hitRate));
+        long hotBytes = 0;
+        for (EntryHits.Block block : hot) {
+            hotBytes += block.length;
+        }
+        
+        RandomAccessFile in = new RandomAccessFile (hits.getArchive (), "r");
+        try {
+            // The layout entry isn't requested by viewers, so it is cold and is
+            // written after the hot blocks, whose offsets are unaffected by its length.
+            EntryHits.Block layoutBlock = hits.getBlock ("layout");
+            Map<String,String> layout = layoutBlock != null ?
+                parseLayout (read (in, hits.getDataOffset () + layoutBlock.start, layoutBlock.length)) :
+                new LinkedHashMap<String,String> ();
+            layout.put ("hotBytes", String.valueOf (hotBytes));
+            StringBuilder layoutText = new StringBuilder ();
+            for (Map.Entry<String,String> e : layout.entrySet ()) {
+                if (layoutText.length () > 0) {
+                    layoutText.append (":");
+                }
+                layoutText.append (e.getKey ()).append (":").append (e.getValue ());
+            }
+            byte[] layoutData = layoutText.toString ().getBytes ("UTF-8");
+            
+            Map<EntryHits.Block,Long> offsets = new HashMap<EntryHits.Block,Long> ();
+            long position = 0;
+            for (EntryHits.Block block : order) {
+                if (block == layoutBlock && block.keys.size () == 1) {
+                    continue;
+                }
+                offsets.put (block, position);
+                position += block.length;
+            }
+            long layoutOffset = position;
+            
+            StringBuilder index = new StringBuilder ();
+            for (String key : hits.getKeys ()) {
+                EntryHits.Block block = hits.getBlock (key);
+                boolean isLayout = key.equals ("layout");
+                index.append (key).append (":")
+                    .append (isLayout ? layoutOffset : offsets.get (block)).append (":")
+                    .append (isLayout ? layoutData.length : block.length).append (":");
+            }
+            if (layoutBlock == null) {
+                index.append ("layout:").append (layoutOffset).append (":").append (layoutData.length).append (":");
+            }
+            byte[] indexBytes = index.toString ().getBytes ("ISO-8859-1");
+            
+            OutputStream out = new BufferedOutputStream (new FileOutputStream (output));
+            try {
+                out.write (String.format ("BIGSHOT %16x", indexBytes.length).getBytes ("ISO-8859-1"));
+                out.write (indexBytes);
+                byte[] buffer = new byte[128000];
+                for (EntryHits.Block block : order) {
+                    if (!offsets.containsKey (block)) {
+                        continue;
+                    }
+                    in.seek (hits.getDataOffset () + block.start);
+                    long remaining = block.length;
+                    while (remaining > 0) {
+                        int n = in.read (buffer, 0, (int) Math.min (buffer.length, remaining));
+                        if (n < 0) {
+                            throw new IOException ("Unexpected end of file in " + hits.getArchive ().getPath ());
+                        }
+                        out.write (buffer, 0, n);
+                        remaining -= n;
+                    }
+                }
+                out.write (layoutData);
+            } finally {
+                out.close ();
+            }
+        } finally {
+            in.close ();
+        }
+    }
+    
+    public static void main (String[] args) throws Exception {
+        List<String> positional = new ArrayList<String> ();
+        Map<String,String> options = new HashMap<String,String> ();
+        for (int i = 0; i < args.length; ++i) {
+            if (args[i].startsWith ("--") && i + 1 < args.length) {
+                options.put (args[i].substring (2), args[i + 1]);
+                ++i;
+            } else {
+                positional.add (args[i]);
+            }
+        }
+        if (positional.size () < 2) {
+            System.err.println ("Usage: ArchiveRelayout archive log... [--output file] [--hit-rate rate] [--path request-path]");
+            System.exit (1);
+        }
+        
+        EntryHits hits = new EntryHits (new File (positional.get (0)));
+        if (options.containsKey ("path")) {
+            hits.path (options.get ("path"));
+        }
+        for (String log : positional.subList (1, positional.size ())) {
+            int malformed = hits.read (new File (log));
+            if (malformed > 0) {
+                System.err.println (log + ": skipped " + malformed + " malformed lines");
+            }
+        }
+        
+        ArchiveRelayout relayout = new ArchiveRelayout (hits);
+        if (options.containsKey ("hit-rate")) {
+            relayout.hitRate (Double.parseDouble (options.get ("hit-rate")));
+        }
+        relayout.report (System.out);
+        if (options.containsKey ("output")) {
+            relayout.write (new File (options.get ("output")));
+            System.out.println ("Wrote " + options.get ("output"));
+        }
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot.tools.archive;
+
+import bigshot.tools.minihttpd.MinimalHttpd;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The entries of a {@code .bigshot} archive and the number of requests for each,
+ * counted from access logs.
+ *
+ * <p>The logs are in the combined log format. A request is counted if it was for
+ * the archive, as told by the file name in the request path or in the <i>file</i>
+ * parameter, and was answered with 200 or 206. The entries it read are found from
+ * the <i>entry</i>, <i>batch</i>, <i>start</i> and <i>length</i> parameters
+ * understood by {@code MinimalHttpd} and {@code bigshot.php}, and from the Range
+ * header if the log has it in a quoted field after the user agent, as written by
+ * {@link bigshot.tools.minihttpd.AccessLog}. Requests for the whole archive are
+ * not counted.
+ *
+ * <p>Entries that were deduplicated when the archive was made share their data.
+ * The data is kept as one {@link Block}, and a request for any of the entries
+ * counts as a hit on the block.
+ */
+public class EntryHits {
+    
+    /**
+     * Size of the archive header, in bytes.
+     */
+    public final static int HEADER_SIZE = 24;
+    
+    private final static Pattern COMBINED = Pattern.compile (
+        "^\\S+ \\S+ \\S+ \\[[^\\]]*\\] \"(\\S+) (\\S+)[^\"]*\" (\\d{3}) \\S+(?: \"(?:[^\"\\\\]|\\\\.)*\" \"(?:[^\"\\\\]|\\\\.)*\"(?: \"((?:[^\"\\\\]|\\\\.)*)\")?)?.*$");
+    
+    /**
+     * A region of the data section of the archive, holding the data of one or
+     * more entries.
+     */
+    public static class Block {
+        /**
+         * The offset of the data, relative to the start of the data section.
+         */
+        public final long start;
+        public final long length;
+        public final List<String> keys = new ArrayList<String> ();
+        public long hits = 0;
+        
+        public Block (long start, long length) {
+            this.start = start;
+            this.length = length;
+        }
+    }
+    
+    private final File archive;
+    private final long dataOffset;
+    
+    /**
+     * The entries, in index order, mapped to their blocks.
+     */
+    private final Map<String,Block> entries = new LinkedHashMap<String,Block> ();
+    
+    /**
+     * The blocks, in archive order.
+     */
+    private final List<Block> blocks = new ArrayList<Block> ();
+    private final long[] blockStarts;
+    private String path = null;
+    private long requests = 0;
+    private long indexRequests = 0;
+    
+    /**
+     * Reads the index of an archive.
+     *
+     * @throws IOException if the file can't be read or isn't an archive
+     */
+    public EntryHits (File archive) throws IOException {
+        this.archive = archive;
+        RandomAccessFile raf = new RandomAccessFile (archive, "r");
+        try {
+            byte[] header = new byte[HEADER_SIZE];
+            raf.readFully (header);
+            String headerString = new String (header, "ISO-8859-1");
+            if (!headerString.startsWith ("BIGSHOT")) {
+                throw new IOException (archive.getPath () + " is not a Bigshot archive");
+            }
+            int indexSize;
+            try {
+                indexSize = Integer.parseInt (headerString.substring (7).trim (), 16);
+            } catch (NumberFormatException nfe) {
+                throw new IOException ("Malformed archive header in " + archive.getPath ());
+            }
+            byte[] indexBytes = new byte[indexSize];
+            raf.readFully (indexBytes);
+            this.dataOffset = HEADER_SIZE + indexSize;
+            
+            Map<String,Block> byExtents = new HashMap<String,Block> ();
+            String[] substrings = new String (indexBytes, "ISO-8859-1").split (":");
+            for (int i = 0; i + 2 < substrings.length; i += 3) {
+                long start = Long.parseLong (substrings[i + 1]);
+                long length = Long.parseLong (substrings[i + 2]);
+                String extents = start + "+" + length;
+                Block block = byExtents.get (extents);
+                if (block == null) {
+                    block = new Block (start, length);
+                    byExtents.put (extents, block);
+                    blocks.add (block);
+                }
+                block.keys.add (substrings[i]);
+                entries.put (substrings[i], block);
+            }
+        } finally {
+            raf.close ();
+        }
+        Collections.sort (blocks, new Comparator<Block> () {
+                public int compare (Block a, Block b) {
+                    return a.start < b.start ? -1 : (a.start > b.start ? 1 : 0);
+                }
+            });
+        blockStarts = new long[blocks.size ()];
+        for (int i = 0; i < blockStarts.length; ++i) {
+            blockStarts[i] = blocks.get (i).start;
+        }
+    }
+    
+    /**
+     * Sets the request path of the archive. By default, any request whose path,
+     * or <i>file</i> parameter, ends in the file name of the archive is counted.
+     */
+    public EntryHits path (String path) {
+        this.path = path;
+        return this;
+    }
+    
+    public File getArchive () {
+        return archive;
+    }
+    
+    /**
+     * The offset of the data section in the archive, that is, the size of the
+     * header and index.
+     */
+    public long getDataOffset () {
+        return dataOffset;
+    }
+    
+    /**
+     * The entry names, in index order.
+     */
+    public List<String> getKeys () {
+        return new ArrayList<String> (entries.keySet ());
+    }
+    
+    public Block getBlock (String key) {
+        return entries.get (key);
+    }
+    
+    /**
+     * The blocks, in archive order.
+     */
+    public List<Block> getBlocks () {
+        return Collections.unmodifiableList (blocks);
+    }
+    
+    /**
+     * The number of counted requests that read at least one entry.
+     */
+    public long getRequests () {
+        return requests;
+    }
+    
+    /**
+     * The number of counted requests that only read the header and index.
+     */
+    public long getIndexRequests () {
+        return indexRequests;
+    }
+    
+    /**
+     * Counts the requests in a log file.
+     *
+     * @return the number of lines that couldn't be parsed
+     */
+    public int read (File log) throws IOException {
+        int malformed = 0;
+        BufferedReader in = new BufferedReader (new InputStreamReader (new FileInputStream (log), "UTF-8"));
+        try {
+            while (true) {
+                String line = in.readLine ();
+                if (line == null) {
+                    break;
+                }
+                if (line.trim ().length () == 0) {
+                    continue;
+                }
+                Matcher m = COMBINED.matcher (line);
+                if (!m.matches ()) {
+                    ++malformed;
+                    continue;
+                }
+                int status = Integer.parseInt (m.group (3));
+                if (status != 200 && status != 206) {
+                    continue;
+                }
+                String range = m.group (4);
+                if (range != null) {
+                    range = range.replace ("\\\"", "\"").replace ("\\\\", "\\");
+                }
+                try {
+                    count (m.group (2), range == null || range.equals ("-") ? null : range);
+                } catch (Exception e) {
+                    ++malformed;
+                }
+            }
+        } finally {
+            in.close ();
+        }
+        return malformed;
+    }
+    
+    private boolean isArchive (String requestPath) {
+        if (path != null) {
+            return requestPath.equals (path);
+        }
+        return requestPath.equals (archive.getName ()) || requestPath.endsWith ("/" + archive.getName ());
+    }
+    
+    /**
+     * Counts one request.
+     *
+     * @param target the request target
+     * @param range the Range header, or null
+     */
+    private void count (String target, String range) throws Exception {
+        String[] parameters = target.split ("\\?|&");
+        String file = URLDecoder.decode (MinimalHttpd.getParameter (parameters, "file", parameters[0]), "UTF-8");
+        if (!isArchive (file) && !isArchive (URLDecoder.decode (parameters[0], "UTF-8"))) {
+            return;
+        }
+        
+        List<Block> hit = new ArrayList<Block> ();
+        String entry = MinimalHttpd.getParameter (parameters, "entry", null);
+        String batch = MinimalHttpd.getParameter (parameters, "batch", null);
+        String start = MinimalHttpd.getParameter (parameters, "start", null);
+        boolean index = false;
+        if (entry != null) {
+            Block block = entries.get (URLDecoder.decode (entry, "UTF-8"));
+            if (block != null) {
+                hit.add (block);
+            }
+        } else if (batch != null) {
+            for (String item : batch.split (",")) {
+                item = URLDecoder.decode (item, "UTF-8");
+                int colon = item.indexOf (':');
+                if (colon >= 0) {
+                    long s = Long.parseLong (item.substring (0, colon));
+                    index |= addRange (hit, s, s + Long.parseLong (item.substring (colon + 1)));
+                } else if (entries.containsKey (item)) {
+                    hit.add (entries.get (item));
+                }
+            }
+        } else {
+            long bodyStart = start != null ? Long.parseLong (start) : 0;
+            long bodyEnd = archive.length ();
+            String length = MinimalHttpd.getParameter (parameters, "length", null);
+            if (length != null) {
+                bodyEnd = bodyStart + Long.parseLong (length);
+            }
+            if (range != null && range.trim ().startsWith ("bytes=")) {
+                long bodyLength = bodyEnd - bodyStart;
+                for (String spec : range.trim ().substring (6).split (",")) {
+                    spec = spec.trim ();
+                    int dash = spec.indexOf ('-');
+                    long first;
+                    long last;
+                    if (dash == 0) {
+                        first = Math.max (0, bodyLength - Long.parseLong (spec.substring (1)));
+                        last = bodyLength - 1;
+                    } else {
+                        first = Long.parseLong (spec.substring (0, dash));
+                        last = dash == spec.length () - 1 ? bodyLength - 1 : Math.min (bodyLength - 1, Long.parseLong (spec.substring (dash + 1)));
+                    }
+                    index |= addRange (hit, bodyStart + first, bodyStart + last + 1);
+                }
+            } else if (start != null) {
+                index |= addRange (hit, bodyStart, bodyEnd);
+            }
+        }
+        if (!hit.isEmpty ()) {
+            ++requests;
+            for (Block block : new LinkedHashSet<Block> (hit)) {
+                block.hits++;
+            }
+        } else if (index) {
+            ++indexRequests;
+        }
+    }
+    
+    /**
+     * Adds the blocks that overlap a range of the archive.
+     *
+     * @param start the first byte, relative to the start of the archive
+     * @param end the byte after the last, relative to the start of the archive
+     * @return true if the range overlaps the header or index
+     */
+    private boolean addRange (List<Block> hit, long start, long end) {
+        boolean index = start < dataOffset;
+        start = Math.max (0, start - dataOffset);
+        end -= dataOffset;
+        int i = Arrays.binarySearch (blockStarts, start);
+        if (i < 0) {
+            i = Math.max (0, -i - 2);
+        }
+        for (; i < blocks.size () && blocks.get (i).start < end; ++i) {
+            Block block = blocks.get (i);
+            if (block.start + block.length > start && block.length > 0) {
+                hit.add (block);
+            }
+        }
+        return index;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot.tools.loadgen;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects the latency, size and outcome of requests, grouped by request class,
+ * and reports throughput and latency percentiles. Every latency is kept, so the
+ * percentiles are exact.
+ */
+public class LatencyStats {
+    
+    private static class RequestClass {
+        private long[] latencies = new long[1024];
+        private int count = 0;
+        private int errors = 0;
+        private long bytes = 0;
+        
+        public void add (long latency, long bytes, boolean error) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf (latencies, count * 2);
+            }
+            latencies[count++] = latency;
+            this.bytes += bytes;
+            if (error) {
+                ++errors;
+            }
+        }
+    }
+    
+    private final Map<String,RequestClass> classes = new TreeMap<String,RequestClass> ();
+    
+    /**
+     * Records a request.
+     *
+     * @param type the request class
+     * @param latency the time from sending the request until the whole body was
+     * received, in microseconds
+     * @param bytes the size of the body
+     * @param error true if the request failed
+     */
+    public synchronized void add (String type, long latency, long bytes, boolean error) {
+        RequestClass rc = classes.get (type);
+        if (rc == null) {
+            rc = new RequestClass ();
+            classes.put (type, rc);
+        }
+        rc.add (latency, bytes, error);
+    }
+    
+    /**
+     * Returns the number of requests recorded for a class.
+     */
+    public synchronized int getCount (String type) {
+        RequestClass rc = classes.get (type);
+        return rc == null ? 0 : rc.count;
+    }
+    
+    private static double percentile (long[] sorted, int count, double p) {
+        if (count == 0) {
+            return 0.0;
+        }
+        int rank = (int) Math.ceil (p * count) - 1;
+        return sorted[Math.max (0, Math.min (count - 1, rank))] / 1000.0;
+    }
+    
+    /**
+     * Prints the report.
+     *
+     * @param out where to print it
+     * @param seconds the length of the measurement, in seconds
+     */
+    public synchronized void report (PrintStream out, double seconds) {
+        out.println (String.format ("%-12s %8s %9s %9s %9s %9s %9s %9s %7s",
+                "class", "count", "req/s", "MB/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "errors"));
+        for (Map.Entry<String,RequestClass> e : classes.entrySet ()) {
+            RequestClass rc = e.getValue ();
+            long[] sorted = Arrays.copyOf (rc.latencies, rc.count);
+            Arrays.sort (sorted);
+            out.println (String.format ("%-12s %8d %9.1f %9.2f %9.1f %9.1f %9.1f %9.1f %7d",
+                    e.getKey (),
+                    rc.count,
+                    rc.count / seconds,
+                    rc.bytes / seconds / (1024 * 1024),
+                    percentile (sorted, rc.count, 0.50),
+                    percentile (sorted, rc.count, 0.95),
+                    percentile (sorted, rc.count, 0.99),
+                    percentile (sorted, rc.count, 1.0),
+                    rc.errors));
+        }
+    }
+}
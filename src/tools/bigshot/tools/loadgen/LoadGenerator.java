@@ -0,0 +1,483 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot.tools.loadgen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Replays viewer sessions against a server and reports the throughput and latency
+ * percentiles for each class of request. Used to measure serving performance
+ * reproducibly, against {@code MinimalHttpd}, {@code bigshot.php} or any other
+ * server that holds a Bigshot or Deep Zoom pyramid.
+ *
+ * <p>Each virtual user loads the pyramid as the viewer does: the archive index, if
+ * any, then the descriptor, the poster and the atlas of the coarsest levels, if there
+ * is one. It then plays a {@link Session}, and for each frame requests the tiles in
+ * view that it hasn't already loaded, using up to
+ * <i>connections</i> requests at a time, like a browser. The tiles of a frame must
+ * all arrive before the next frame is shown. If the user falls behind the session,
+ * the frames that are already past are skipped, as the viewer would. When a session
+ * ends before the test does, the user loads the pyramid again and starts a new session.
+ *
+ * <p>Sessions are either read from a file, see {@link Session}, or made up at random.
+ * Random sessions are made from the seed and the number of the user, so a run with the
+ * same options makes the same requests.
+ *
+ * <p>Usage: <code>LoadGenerator <i>url</i> [--layout folder|archive|dzi] [--prefix <i>prefix</i>]
+ * [--range-requests true|false] [--users <i>n</i>] [--connections <i>n</i>] [--duration <i>seconds</i>]
+ * [--warmup <i>seconds</i>] [--ramp-up <i>seconds</i>] [--viewport <i>width</i>x<i>height</i>]
+ * [--fps <i>n</i>] [--session-length <i>seconds</i>] [--seed <i>seed</i>] [--client-cache <i>tiles</i>]
+ * [--trace <i>file</i>] [--save-trace <i>file</i>]</code>
+ *
+ * <ul>
+ * <li><i>url</i>: the folder, archive or DZI descriptor. See {@link Pyramid} for the layouts.
+ *     For {@code bigshot.php}, use the script URL with the <i>file</i> parameter, such as
+ *     <code>http://localhost/bigshot.php?file=image.bigshot</code>.</li>
+ * <li><i>users</i>: the number of virtual users. Default 10.</li>
+ * <li><i>connections</i>: the number of requests each user may have outstanding. Default 6.</li>
+ * <li><i>duration</i>: how long to run. Default 60 seconds, or, if a trace is given,
+ *     until every user has played its session.</li>
+ * <li><i>warmup</i>: requests that complete in the first <i>warmup</i> seconds aren't counted.
+ *     Default 0.</li>
+ * <li><i>ramp-up</i>: the users are started evenly over this many seconds. Default 0.</li>
+ * <li><i>viewport</i>: the size of the viewer. Default 1024x768.</li>
+ * <li><i>fps</i>, <i>session-length</i>: the frame rate and length of random sessions.
+ *     Default 10 frames per second and 60 seconds.</li>
+ * <li><i>client-cache</i>: the number of tiles each user keeps, like the viewer's tile
+ *     cache. Default 512.</li>
+ * <li><i>trace</i>: play the sessions in this file instead of random ones. User <i>n</i>
+ *     plays sessions <i>n</i>, <i>n</i> + <i>users</i> and so on.</li>
+ * <li><i>save-trace</i>: write the random sessions of the users to this file, so that
+ *     they can be played again with <i>trace</i>.</li>
+ * </ul>
+ */
+public class LoadGenerator {
+    
+    private final Pyramid pyramid;
+    private final LatencyStats stats = new LatencyStats ();
+    
+    private int users = 10;
+    private int connections = 6;
+    private int viewportWidth = 1024;
+    private int viewportHeight = 768;
+    private int fps = 10;
+    private long sessionLength = 60000;
+    private long seed = 0;
+    private int clientCache = 512;
+    private List<Session> trace = null;
+    
+    private long measureStart;
+    private long deadline;
+    
+    /**
+     * Creates a new load generator.
+     *
+     * @param pyramid the pyramid to request
+     */
+    public LoadGenerator (Pyramid pyramid) {
+        this.pyramid = pyramid;
+    }
+    
+    public LoadGenerator users (int users) {
+        if (users < 1) {
+            throw new IllegalArgumentException ("users must be at least 1: " + users);
+        }
+        this.users = users;
+        return this;
+    }
+    
+    public LoadGenerator connections (int connections) {
+        if (connections < 1) {
+            throw new IllegalArgumentException ("connections must be at least 1: " + connections);
+        }
+        this.connections = connections;
+        return this;
+    }
+    
+    public LoadGenerator viewport (int viewportWidth, int viewportHeight) {
+        this.viewportWidth = viewportWidth;
+        this.viewportHeight = viewportHeight;
+        return this;
+    }
+    
+    public LoadGenerator fps (int fps) {
+        if (fps < 1) {
+            throw new IllegalArgumentException ("fps must be at least 1: " + fps);
+        }
+        this.fps = fps;
+        return this;
+    }
+    
+    /**
+     * Sets the length of random sessions, in milliseconds.
+     */
+    public LoadGenerator sessionLength (long sessionLength) {
+        this.sessionLength = sessionLength;
+        return this;
+    }
+    
+    public LoadGenerator seed (long seed) {
+        this.seed = seed;
+        return this;
+    }
+    
+    /**
+     * Sets the number of tiles each user keeps.
+     */
+    public LoadGenerator clientCache (int clientCache) {
+        this.clientCache = clientCache;
+        return this;
+    }
+    
+    /**
+     * Sets the sessions to play. If null, random sessions are played.
+     */
+    public LoadGenerator trace (List<Session> trace) {
+        this.trace = trace;
+        return this;
+    }
+    
+    /**
+     * Returns session number <i>n</i> of a user, or null if the user has no more
+     * sessions to play.
+     */
+    Session getSession (int user, int n) {
+        if (trace != null) {
+            int i = user + n * users;
+            return i < trace.size () ? trace.get (i) : null;
+        }
+        Random random = new Random (seed * 1000003 + user * 1009 + n);
+        return Session.synthetic (pyramid, viewportWidth, viewportHeight, sessionLength, fps, random);
+    }
+    
+    /**
+     * Fetches a request and returns the body.
+     *
+     * @throws IOException if the request fails
+     */
+    static byte[] fetch (Pyramid.Request request) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL (request.url).openConnection ();
+        if (request.range != null) {
+            conn.setRequestProperty ("Range", "bytes=" + request.range[0] + "-" + request.range[1]);
+        }
+        int status = conn.getResponseCode ();
+        InputStream is = status >= 400 ? conn.getErrorStream () : conn.getInputStream ();
+        ByteArrayOutputStream body = new ByteArrayOutputStream ();
+        if (is != null) {
+            try {
+                byte[] buffer = new byte[16384];
+                while (true) {
+                    int n = is.read (buffer);
+                    if (n < 0) {
+                        break;
+                    }
+                    body.write (buffer, 0, n);
+                }
+            } finally {
+                is.close ();
+            }
+        }
+        if (status >= 400) {
+            throw new IOException ("HTTP " + status + " for " + request);
+        }
+        if (request.range != null && status != 206) {
+            throw new IOException ("Range ignored for " + request);
+        }
+        return body.toByteArray ();
+    }
+    
+    /**
+     * Fetches a request and records it.
+     *
+     * @return the number of bytes received
+     */
+    long fetchAndRecord (Pyramid.Request request) {
+        long start = System.nanoTime ();
+        long bytes = 0;
+        boolean error = false;
+        try {
+            bytes = fetch (request).length;
+        } catch (IOException e) {
+            error = true;
+        }
+        long latency = (System.nanoTime () - start) / 1000;
+        record (request.type, latency, bytes, error);
+        return bytes;
+    }
+    
+    private void record (String type, long latency, long bytes, boolean error) {
+        long now = System.currentTimeMillis ();
+        if (now >= measureStart && now <= deadline) {
+            stats.add (type, latency, bytes, error);
+            if (!type.equals ("frame")) {
+                stats.add ("all", latency, bytes, error);
+            }
+        }
+    }
+    
+    /**
+     * Returns the requests for the tiles in view in a frame, in the order the
+     * viewer lays them out.
+     */
+    List<Pyramid.Request> getVisibleTiles (Session.Frame frame) {
+        int zoom = Math.max (pyramid.getMinZoom (), Math.min (0, (int) Math.ceil (frame.zoom)));
+        double tileWidthInRealPixels = pyramid.getTileSize () / Math.pow (2, zoom);
+        double scale = Math.pow (2, frame.zoom);
+        int x0 = Math.max (0, (int) Math.floor ((frame.x - viewportWidth / 2 / scale) / tileWidthInRealPixels));
+        int y0 = Math.max (0, (int) Math.floor ((frame.y - viewportHeight / 2 / scale) / tileWidthInRealPixels));
+        int x1 = Math.min (pyramid.getTilesX (zoom) - 1, (int) Math.floor ((frame.x + viewportWidth / 2 / scale) / tileWidthInRealPixels));
+        int y1 = Math.min (pyramid.getTilesY (zoom) - 1, (int) Math.floor ((frame.y + viewportHeight / 2 / scale) / tileWidthInRealPixels));
+        List<Pyramid.Request> tiles = new ArrayList<Pyramid.Request> ();
+        if (pyramid.isAtlasLevel (zoom)) {
+            // The level was loaded with the atlas.
+            return tiles;
+        }
+        for (int y = y0; y <= y1; ++y) {
+            for (int x = x0; x <= x1; ++x) {
+                tiles.add (pyramid.getTileRequest (x, y, zoom));
+            }
+        }
+        return tiles;
+    }
+    
+    private class VirtualUser implements Runnable {
+        
+        private final int user;
+        private final ExecutorService pool;
+        
+        public VirtualUser (int user) {
+            this.user = user;
+            this.pool = Executors.newFixedThreadPool (connections);
+        }
+        
+        public void run () {
+            try {
+                for (int n = 0; System.currentTimeMillis () < deadline; ++n) {
+                    Session session = getSession (user, n);
+                    if (session == null) {
+                        break;
+                    }
+                    play (session);
+                }
+            } catch (InterruptedException e) {
+                // Stop.
+            } catch (Exception e) {
+                e.printStackTrace ();
+            } finally {
+                pool.shutdown ();
+            }
+        }
+        
+        private void play (Session session) throws Exception {
+            // The tiles the viewer has loaded, least recently used first.
+            final Map<String,Boolean> loaded = new LinkedHashMap<String,Boolean> (16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+                
+                protected boolean removeEldestEntry (Map.Entry<String,Boolean> eldest) {
+                    return size () > clientCache;
+                }
+            };
+            
+            for (Pyramid.Request r : pyramid.getSetupRequests ()) {
+                fetchAndRecord (r);
+            }
+            fetchAndRecord (pyramid.getPosterRequest ());
+            if (pyramid.getAtlasRequest () != null) {
+                fetchAndRecord (pyramid.getAtlasRequest ());
+            }
+            
+            List<Session.Frame> frames = session.getFrames ();
+            long start = System.currentTimeMillis ();
+            int i = 0;
+            while (i < frames.size () && System.currentTimeMillis () < deadline) {
+                long elapsed = System.currentTimeMillis () - start;
+                if (frames.get (i).time > elapsed) {
+                    Thread.sleep (Math.min (frames.get (i).time - elapsed, deadline - System.currentTimeMillis ()) + 1);
+                    continue;
+                }
+                // Skip to the latest frame that is due.
+                while (i + 1 < frames.size () && frames.get (i + 1).time <= elapsed) {
+                    ++i;
+                }
+                
+                List<Future<Long>> responses = new ArrayList<Future<Long>> ();
+                long frameStart = System.nanoTime ();
+                for (final Pyramid.Request tile : getVisibleTiles (frames.get (i))) {
+                    String key = tile.toString ();
+                    if (loaded.get (key) == null) {
+                        loaded.put (key, Boolean.TRUE);
+                        responses.add (pool.submit (new Callable<Long> () {
+                                    public Long call () {
+                                        return fetchAndRecord (tile);
+                                    }
+                                }));
+                    }
+                }
+                if (!responses.isEmpty ()) {
+                    long bytes = 0;
+                    for (Future<Long> f : responses) {
+                        bytes += f.get ();
+                    }
+                    record ("frame", (System.nanoTime () - frameStart) / 1000, bytes, false);
+                }
+                ++i;
+            }
+        }
+    }
+    
+    /**
+     * Runs the load test and prints the report.
+     *
+     * @param duration how long to run, in milliseconds
+     * @param warmup the number of milliseconds at the start that aren't measured
+     * @param rampUp the number of milliseconds over which the users are started
+     * @param out where to print the report
+     */
+    public void run (long duration, long warmup, long rampUp, PrintStream out) throws Exception {
+        // Let every connection of every user be kept alive.
+        System.setProperty ("http.maxConnections", String.valueOf (users * connections));
+        
+        long start = System.currentTimeMillis ();
+        measureStart = start + warmup;
+        deadline = start + duration;
+        
+        List<Thread> threads = new ArrayList<Thread> ();
+        for (int u = 0; u < users; ++u) {
+            long delay = users > 1 ? rampUp * u / (users - 1) : 0;
+            long now = System.currentTimeMillis ();
+            if (start + delay > now) {
+                Thread.sleep (start + delay - now);
+            }
+            Thread t = new Thread (new VirtualUser (u), "user-" + u);
+            t.start ();
+            threads.add (t);
+        }
+        for (Thread t : threads) {
+            t.join ();
+        }
+        
+        long end = Math.min (System.currentTimeMillis (), deadline);
+        double seconds = Math.max (1, end - measureStart) / 1000.0;
+        out.println (pyramid);
+        out.println (users + " users, " + connections + " connections each, "
+            + String.format ("%.1f", seconds) + " s measured");
+        stats.report (out, seconds);
+    }
+    
+    public static void main (String[] args) throws Exception {
+        List<String> positional = new ArrayList<String> ();
+        Map<String,String> options = new HashMap<String,String> ();
+        for (int i = 0; i < args.length; ++i) {
+            if (args[i].startsWith ("--") && i + 1 < args.length) {
+                options.put (args[i].substring (2), args[i + 1]);
+                ++i;
+            } else {
+                positional.add (args[i]);
+            }
+        }
+        if (positional.size () != 1) {
+            System.err.println ("Usage: LoadGenerator url [options]");
+            System.exit (1);
+        }
+        
+        Pyramid pyramid = Pyramid.open (
+            options.get ("layout"),
+            positional.get (0),
+            options.get ("prefix"),
+            Boolean.parseBoolean (options.get ("range-requests")),
+            new Pyramid.Fetcher () {
+                public byte[] fetch (Pyramid.Request request) throws Exception {
+                    return LoadGenerator.fetch (request);
+                }
+            });
+        
+        LoadGenerator generator = new LoadGenerator (pyramid);
+        if (options.containsKey ("users")) {
+            generator.users (Integer.parseInt (options.get ("users")));
+        }
+        if (options.containsKey ("connections")) {
+            generator.connections (Integer.parseInt (options.get ("connections")));
+        }
+        if (options.containsKey ("viewport")) {
+            String[] size = options.get ("viewport").split ("x");
+            generator.viewport (Integer.parseInt (size[0]), Integer.parseInt (size[1]));
+        }
+        if (options.containsKey ("fps")) {
+            generator.fps (Integer.parseInt (options.get ("fps")));
+        }
+        if (options.containsKey ("session-length")) {
+            generator.sessionLength ((long) (Double.parseDouble (options.get ("session-length")) * 1000));
+        }
+        if (options.containsKey ("seed")) {
+            generator.seed (Long.parseLong (options.get ("seed")));
+        }
+        if (options.containsKey ("client-cache")) {
+            generator.clientCache (Integer.parseInt (options.get ("client-cache")));
+        }
+        
+        long duration = 60000;
+        if (options.containsKey ("trace")) {
+            List<Session> trace = Session.read (new File (options.get ("trace")));
+            generator.trace (trace);
+            // Long enough for the sessions to finish, unless given.
+            duration = Long.MAX_VALUE / 2;
+        }
+        if (options.containsKey ("duration")) {
+            duration = (long) (Double.parseDouble (options.get ("duration")) * 1000);
+        }
+        
+        if (options.containsKey ("save-trace")) {
+            // In the order that --trace hands them out.
+            List<Session> sessions = new ArrayList<Session> ();
+            long perUser = Math.max (1, (duration + generator.sessionLength - 1) / generator.sessionLength);
+            for (int n = 0; n < perUser; ++n) {
+                for (int u = 0; u < generator.users; ++u) {
+                    Session s = generator.getSession (u, n);
+                    if (s != null) {
+                        sessions.add (s);
+                    }
+                }
+            }
+            PrintStream traceOut = new PrintStream (new FileOutputStream (options.get ("save-trace")));
+            try {
+                Session.write (sessions, traceOut);
+            } finally {
+                traceOut.close ();
+            }
+        }
+        
+        long warmup = options.containsKey ("warmup") ? (long) (Double.parseDouble (options.get ("warmup")) * 1000) : 0;
+        long rampUp = options.containsKey ("ramp-up") ? (long) (Double.parseDouble (options.get ("ramp-up")) * 1000) : 0;
+        generator.run (duration, warmup, rampUp, System.out);
+    }
+}
@@ -0,0 +1,393 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot.tools.loadgen;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * An image pyramid on a server, as the viewer sees it. Knows the geometry of the
+ * pyramid and the requests that the viewer's filesystem adapters make for it.
+ *
+ * <p>Three layouts are supported, matching the adapters in the JavaScript library:
+ *
+ * <ul>
+ * <li>{@code folder}: a folder with a Bigshot descriptor, as read by
+ *     {@code bigshot.FolderFileSystem};</li>
+ * <li>{@code archive}: a {@code .bigshot} archive, as read by
+ *     {@code bigshot.ArchiveFileSystem}. If the URL has a query string it is taken to be
+ *     a script, such as {@code bigshot.php} or {@code MinimalHttpd}, that takes
+ *     <i>start</i> and <i>length</i> parameters. Otherwise, or if range requests are
+ *     forced, the archive is read with HTTP range requests;</li>
+ * <li>{@code dzi}: a Deep Zoom Image, as read by {@code bigshot.DeepZoomImageFileSystem}.
+ *     The URL is that of the descriptor, ending in {@code .xml}.</li>
+ * </ul>
+ */
+public abstract class Pyramid {
+    
+    /**
+     * A request for a part of the pyramid.
+     */
+    public static class Request {
+        
+        /**
+         * The request class, used to group the latencies in the report:
+         * {@code index}, {@code descriptor}, {@code poster}, {@code atlas} or {@code tile}.
+         */
+        public final String type;
+        public final String url;
+        
+        /**
+         * The first and last byte to ask for, or null for the whole body.
+         */
+        public final long[] range;
+        
+        public Request (String type, String url, long[] range) {
+            this.type = type;
+            this.url = url;
+            this.range = range;
+        }
+        
+        public String toString () {
+            return range == null ? url : url + " [" + range[0] + "-" + range[1] + "]";
+        }
+    }
+    
+    /**
+     * Fetches the body of a request. Used to read the descriptor and archive index
+     * when the pyramid is opened.
+     */
+    public static interface Fetcher {
+        public byte[] fetch (Request request) throws Exception;
+    }
+    
+    protected int width;
+    protected int height;
+    protected int tileSize;
+    protected int minZoom;
+    protected String suffix;
+    
+    /**
+     * The bucket size of the bucketed folder layout, or 0.
+     */
+    protected int tileBucketSize;
+    
+    /**
+     * The zoom levels that are packed into the atlas, or null if there is no atlas.
+     */
+    protected Set<Integer> atlasLevels;
+    
+    /**
+     * Opens a pyramid.
+     *
+     * @param layout {@code folder}, {@code archive} or {@code dzi}, or null to guess
+     * the layout from the URL
+     * @param url the URL of the folder, archive or DZI descriptor
+     * @param prefix the prefix of the entries to use, such as {@code face_f} for a
+     * cube face of a VR panorama, or null
+     * @param rangeRequests true to read an archive with range requests even if the
+     * URL has a query string
+     * @param fetcher used to read the descriptor and the archive index
+     * @throws IllegalArgumentException if the layout is unknown
+     */
+    public static Pyramid open (String layout, String url, String prefix, boolean rangeRequests, Fetcher fetcher) throws Exception {
+        if (layout == null) {
+            String path = url.indexOf ('?') >= 0 ? url.substring (0, url.indexOf ('?')) : url;
+            if (path.endsWith (".xml")) {
+                layout = "dzi";
+            } else if (url.indexOf (".bigshot") >= 0) {
+                layout = "archive";
+            } else {
+                layout = "folder";
+            }
+        }
+        Pyramid pyramid;
+        if (layout.equals ("folder")) {
+            pyramid = new FolderPyramid (url, prefix);
+        } else if (layout.equals ("archive")) {
+            pyramid = new ArchivePyramid (url, prefix, rangeRequests || url.indexOf ('?') < 0);
+        } else if (layout.equals ("dzi")) {
+            pyramid = new DziPyramid (url, prefix);
+        } else {
+            throw new IllegalArgumentException ("Unknown layout: " + layout);
+        }
+        pyramid.load (fetcher);
+        return pyramid;
+    }
+    
+    /**
+     * Reads the descriptor, and the index if there is one.
+     */
+    protected void load (Fetcher fetcher) throws Exception {
+        Request[] setup = getSetupRequests ();
+        parseDescriptor (new String (fetcher.fetch (setup[setup.length - 1]), "UTF-8"));
+    }
+    
+    /**
+     * Parses a descriptor in the Bigshot {@code key:value:key:value} format.
+     */
+    protected void parseDescriptor (String text) {
+        Map<String,String> values = new HashMap<String,String> ();
+        String[] substrings = text.trim ().split (":");
+        for (int i = 0; i + 1 < substrings.length; i += 2) {
+            values.put (substrings[i], substrings[i + 1]);
+        }
+        width = Integer.parseInt (values.get ("width"));
+        height = Integer.parseInt (values.get ("height"));
+        tileSize = Integer.parseInt (values.get ("tileSize"));
+        minZoom = Integer.parseInt (values.get ("minZoom"));
+        suffix = values.get ("suffix");
+        tileBucketSize = values.containsKey ("tileBucketSize") ? Integer.parseInt (values.get ("tileBucketSize")) : 0;
+        if (values.containsKey ("atlas")) {
+            atlasLevels = new HashSet<Integer> ();
+            String[] levels = values.get ("atlas").split (",");
+            for (int i = 0; i < levels.length; ++i) {
+                if (levels[i].length () > 0) {
+                    atlasLevels.add (-i);
+                }
+            }
+        }
+    }
+    
+    /**
+     * The requests the viewer makes before it can show the pyramid, in order: the
+     * archive header and index, if any, and the descriptor.
+     */
+    public abstract Request[] getSetupRequests ();
+    
+    public abstract Request getPosterRequest ();
+    
+    /**
+     * Returns the request for the atlas of the coarsest levels, or null if the
+     * pyramid has none. The viewer loads the atlas along with the poster, and
+     * doesn't request the tiles of the levels in it.
+     */
+    public Request getAtlasRequest () {
+        return null;
+    }
+    
+    /**
+     * Returns true if the tiles of a zoom level are packed into the atlas.
+     */
+    public boolean isAtlasLevel (int zoom) {
+        return atlasLevels != null && atlasLevels.contains (zoom);
+    }
+    
+    /**
+     * Returns the request for a tile.
+     *
+     * @param x the tile column
+     * @param y the tile row
+     * @param zoom the zoom level: 0 for full resolution, negative for
+     * the downsampled levels
+     */
+    public abstract Request getTileRequest (int x, int y, int zoom);
+    
+    public int getWidth () {
+        return width;
+    }
+    
+    public int getHeight () {
+        return height;
+    }
+    
+    public int getTileSize () {
+        return tileSize;
+    }
+    
+    public int getMinZoom () {
+        return minZoom;
+    }
+    
+    /**
+     * Returns the number of tile columns at a zoom level.
+     */
+    public int getTilesX (int zoom) {
+        return (int) Math.ceil (Math.pow (2, zoom) * width / tileSize);
+    }
+    
+    /**
+     * Returns the number of tile rows at a zoom level.
+     */
+    public int getTilesY (int zoom) {
+        return (int) Math.ceil (Math.pow (2, zoom) * height / tileSize);
+    }
+    
+    public String toString () {
+        return getClass ().getSimpleName () + " " + width + "x" + height + ", tile size " + tileSize
+            + ", zoom " + minZoom + " to 0";
+    }
+    
+    private static String prefixPath (String prefix) {
+        return prefix != null && prefix.length () > 0 ? prefix + "/" : "";
+    }
+    
+    private static class FolderPyramid extends Pyramid {
+        
+        private final String base;
+        
+        public FolderPyramid (String url, String prefix) {
+            if (url.endsWith ("/")) {
+                url = url.substring (0, url.length () - 1);
+            }
+            this.base = url + "/" + prefixPath (prefix);
+        }
+        
+        public Request[] getSetupRequests () {
+            return new Request[]{ new Request ("descriptor", base + "descriptor", null) };
+        }
+        
+        public Request getPosterRequest () {
+            return new Request ("poster", base + "poster" + suffix, null);
+        }
+        
+        public Request getAtlasRequest () {
+            return atlasLevels != null ? new Request ("atlas", base + "atlas" + suffix, null) : null;
+        }
+        
+        public Request getTileRequest (int x, int y, int zoom) {
+            String bucket = tileBucketSize > 0 ? (x / tileBucketSize) + "_" + (y / tileBucketSize) + "/" : "";
+            return new Request ("tile", base + (-zoom) + "/" + bucket + x + "_" + y + suffix, null);
+        }
+    }
+    
+    private static class ArchivePyramid extends Pyramid {
+        
+        /**
+         * Size of the archive header, in bytes.
+         */
+        private final static int HEADER_SIZE = 24;
+        
+        private final String url;
+        private final String prefix;
+        private final boolean rangeRequests;
+        private int indexSize = -1;
+        
+        /**
+         * Maps entry names to {offset in the archive, length}.
+         */
+        private final Map<String,long[]> entries = new HashMap<String,long[]> ();
+        
+        public ArchivePyramid (String url, String prefix, boolean rangeRequests) {
+            this.url = url;
+            this.prefix = prefixPath (prefix);
+            this.rangeRequests = rangeRequests;
+        }
+        
+        private Request createRequest (String type, long start, long length, String contentType) {
+            if (rangeRequests) {
+                return new Request (type, url, new long[]{ start, start + length - 1 });
+            } else {
+                return new Request (type, url + "&start=" + start + "&length=" + length + "&type=" + contentType, null);
+            }
+        }
+        
+        private Request createEntryRequest (String type, String name) {
+            long[] extents = entries.get (prefix + name);
+            if (extents == null) {
+                throw new IllegalArgumentException ("No entry " + prefix + name + " in " + url);
+            }
+            String contentType = name.endsWith (".png") ? "image/png" : (name.endsWith (".jpg") ? "image/jpeg" : "text/plain");
+            return createRequest (type, extents[0], extents[1], contentType);
+        }
+        
+        protected void load (Fetcher fetcher) throws Exception {
+            String header = new String (fetcher.fetch (createRequest ("index", 0, HEADER_SIZE, "text/plain")), "ISO-8859-1");
+            if (!header.startsWith ("BIGSHOT")) {
+                throw new Exception (url + " is not a Bigshot archive");
+            }
+            indexSize = Integer.parseInt (header.substring (7).trim (), 16);
+            String index = new String (fetcher.fetch (createRequest ("index", HEADER_SIZE, indexSize, "text/plain")), "ISO-8859-1");
+            long offset = indexSize + HEADER_SIZE;
+            String[] substrings = index.split (":");
+            for (int i = 0; i + 2 < substrings.length; i += 3) {
+                entries.put (substrings[i], new long[]{
+                        Long.parseLong (substrings[i + 1]) + offset,
+                        Long.parseLong (substrings[i + 2])
+                    });
+            }
+            parseDescriptor (new String (fetcher.fetch (createEntryRequest ("descriptor", "descriptor")), "UTF-8"));
+        }
+        
+        public Request[] getSetupRequests () {
+            return new Request[]{
+                createRequest ("index", 0, HEADER_SIZE, "text/plain"),
+                createRequest ("index", HEADER_SIZE, indexSize, "text/plain"),
+                createEntryRequest ("descriptor", "descriptor")
+            };
+        }
+        
+        public Request getPosterRequest () {
+            return createEntryRequest ("poster", "poster" + suffix);
+        }
+        
+        public Request getAtlasRequest () {
+            return atlasLevels != null ? createEntryRequest ("atlas", "atlas" + suffix) : null;
+        }
+        
+        public Request getTileRequest (int x, int y, int zoom) {
+            return createEntryRequest ("tile", (-zoom) + "/" + x + "_" + y + suffix);
+        }
+    }
+    
+    private static class DziPyramid extends Pyramid {
+        
+        private final String base;
+        private int fullZoomLevel;
+        
+        public DziPyramid (String url, String prefix) {
+            if (url.endsWith (".xml")) {
+                url = url.substring (0, url.length () - 4);
+            }
+            this.base = url + (prefix != null ? prefix : "");
+        }
+        
+        protected void parseDescriptor (String text) {
+            try {
+                Document document = DocumentBuilderFactory.newInstance ().newDocumentBuilder ().parse (new ByteArrayInputStream (text.getBytes ("UTF-8")));
+                Element image = (Element) document.getElementsByTagName ("Image").item (0);
+                Element size = (Element) document.getElementsByTagName ("Size").item (0);
+                width = Integer.parseInt (size.getAttribute ("Width"));
+                height = Integer.parseInt (size.getAttribute ("Height"));
+                tileSize = Integer.parseInt (image.getAttribute ("TileSize"));
+                suffix = "." + image.getAttribute ("Format");
+            } catch (Exception e) {
+                throw new IllegalArgumentException ("Malformed DZI descriptor: " + e.getMessage ());
+            }
+            fullZoomLevel = (int) Math.ceil (Math.log (Math.max (width, height)) / Math.log (2));
+            minZoom = -fullZoomLevel;
+        }
+        
+        public Request[] getSetupRequests () {
+            return new Request[]{ new Request ("descriptor", base + ".xml", null) };
+        }
+        
+        public Request getPosterRequest () {
+            int posterZoomLevel = (int) Math.ceil (Math.log (tileSize) / Math.log (2));
+            return new Request ("poster", getTileRequest (0, 0, posterZoomLevel - fullZoomLevel).url, null);
+        }
+        
+        public Request getTileRequest (int x, int y, int zoom) {
+            return new Request ("tile", base + "/" + (fullZoomLevel + zoom) + "/" + x + "_" + y + suffix, null);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot.tools.loadgen;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * A viewer session: the sequence of views that a user pans and zooms through.
+ *
+ * <p>Sessions are stored as text, one frame per line:
+ * <code><i>time</i> <i>zoom</i> <i>x</i> <i>y</i></code>, where <i>time</i> is the
+ * number of milliseconds since the start of the session, <i>zoom</i> is the viewer
+ * zoom (0 for full resolution, negative when zoomed out) and <i>x</i>, <i>y</i> is the
+ * center of the view in full resolution pixels. A line consisting of the word
+ * {@code session} starts a new session. Empty lines and lines starting with
+ * {@code #} are ignored.
+ */
+public class Session {
+    
+    /**
+     * One view.
+     */
+    public static class Frame {
+        public final long time;
+        public final double zoom;
+        public final double x;
+        public final double y;
+        
+        public Frame (long time, double zoom, double x, double y) {
+            this.time = time;
+            this.zoom = zoom;
+            this.x = x;
+            this.y = y;
+        }
+    }
+    
+    private final List<Frame> frames = new ArrayList<Frame> ();
+    
+    public List<Frame> getFrames () {
+        return Collections.unmodifiableList (frames);
+    }
+    
+    /**
+     * The time of the last frame, in milliseconds.
+     */
+    public long getDuration () {
+        return frames.isEmpty () ? 0 : frames.get (frames.size () - 1).time;
+    }
+    
+    public Session add (Frame frame) {
+        frames.add (frame);
+        return this;
+    }
+    
+    /**
+     * Reads the sessions in a file.
+     *
+     * @throws IOException if the file can't be read or a line is malformed
+     */
+    public static List<Session> read (File file) throws IOException {
+        List<Session> sessions = new ArrayList<Session> ();
+        Session current = null;
+        BufferedReader in = new BufferedReader (new FileReader (file));
+        try {
+            int lineNumber = 0;
+            while (true) {
+                String line = in.readLine ();
+                if (line == null) {
+                    break;
+                }
+                ++lineNumber;
+                line = line.trim ();
+                if (line.length () == 0 || line.startsWith ("#")) {
+                    continue;
+                }
+                if (line.equals ("session")) {
+                    current = null;
+                    continue;
+                }
+                String[] parts = line.split ("\\s+");
+                if (parts.length != 4) {
+                    throw new IOException (file.getPath () + ":" + lineNumber + ": expected time, zoom, x and y");
+                }
+                if (current == null) {
+                    current = new Session ();
+                    sessions.add (current);
+                }
+                try {
+                    current.add (new Frame (
+                            Long.parseLong (parts[0]),
+                            Double.parseDouble (parts[1]),
+                            Double.parseDouble (parts[2]),
+                            Double.parseDouble (parts[3])));
+                } catch (NumberFormatException nfe) {
+                    throw new IOException (file.getPath () + ":" + lineNumber + ": " + nfe.getMessage ());
+                }
+            }
+        } finally {
+            in.close ();
+        }
+        return sessions;
+    }
+    
+    /**
+     * Writes sessions in the format read by {@link #read}.
+     */
+    public static void write (List<Session> sessions, PrintStream out) {
+        for (Session session : sessions) {
+            out.println ("session");
+            for (Frame f : session.frames) {
+                out.println (String.format (Locale.US, "%d %.4f %.1f %.1f", f.time, f.zoom, f.x, f.y));
+            }
+        }
+    }
+    
+    /**
+     * Creates a random session. The user starts with the whole image in view,
+     * then pans, zooms in and out, and pauses to look, at random.
+     *
+     * @param pyramid the image
+     * @param viewportWidth the width of the viewer, in pixels
+     * @param viewportHeight the height of the viewer, in pixels
+     * @param duration the length of the session, in milliseconds
+     * @param fps the number of frames per second while the view moves
+     * @param random the source of the random choices
+     */
+    public static Session synthetic (Pyramid pyramid, int viewportWidth, int viewportHeight, long duration, int fps, Random random) {
+        Session session = new Session ();
+        int width = pyramid.getWidth ();
+        int height = pyramid.getHeight ();
+        double minZoom = pyramid.getMinZoom ();
+        double maxZoom = 0.0;
+        
+        double zoom = Math.log (Math.min ((double) viewportWidth / width, (double) viewportHeight / height)) / Math.log (2);
+        zoom = Math.max (minZoom, Math.min (maxZoom, zoom));
+        double x = width / 2.0;
+        double y = height / 2.0;
+        long time = 0;
+        long frameTime = Math.max (1, 1000 / fps);
+        
+        session.add (new Frame (time, zoom, x, y));
+        while (time < duration) {
+            int frameCount = session.frames.size ();
+            double gesture = random.nextDouble ();
+            if (gesture < 0.45) {
+                // Pan in a random direction, at 300 to 1200 screen pixels per second.
+                long length = Math.max (frameTime, 500 + random.nextInt (1500));
+                double angle = random.nextDouble () * 2 * Math.PI;
+                double speed = (300 + random.nextDouble () * 900) / Math.pow (2, zoom);
+                double vx = Math.cos (angle) * speed / 1000;
+                double vy = Math.sin (angle) * speed / 1000;
+                for (long t = frameTime; t <= length && time + t <= duration; t += frameTime) {
+                    double fx = Math.max (0, Math.min (width, x + vx * t));
+                    double fy = Math.max (0, Math.min (height, y + vy * t));
+                    session.add (new Frame (time + t, zoom, fx, fy));
+                }
+            } else if (gesture < 0.8) {
+                // Zoom in or out by half a level to two levels, toward a point in view.
+                long length = Math.max (frameTime, 300 + random.nextInt (700));
+                double target = zoom + (random.nextBoolean () ? 1 : -1) * (0.5 + random.nextDouble () * 1.5);
+                target = Math.max (minZoom, Math.min (maxZoom, target));
+                double scale = Math.pow (2, zoom);
+                double tx = x + (random.nextDouble () - 0.5) * viewportWidth / scale;
+                double ty = y + (random.nextDouble () - 0.5) * viewportHeight / scale;
+                tx = Math.max (0, Math.min (width, tx));
+                ty = Math.max (0, Math.min (height, ty));
+                for (long t = frameTime; t <= length && time + t <= duration; t += frameTime) {
+                    double a = (double) t / length;
+                    session.add (new Frame (time + t, zoom + (target - zoom) * a, x + (tx - x) * a, y + (ty - y) * a));
+                }
+            } else {
+                // Look at the view for half a second to three seconds.
+                time += 500 + random.nextInt (2500);
+                continue;
+            }
+            if (session.frames.size () == frameCount) {
+                break;
+            }
+            Frame last = session.frames.get (session.frames.size () - 1);
+            time = last.time + frameTime;
+            zoom = last.zoom;
+            x = last.x;
+            y = last.y;
+        }
+        return session;
+    }
+}
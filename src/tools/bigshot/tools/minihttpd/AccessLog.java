@@ -0,0 +1,83 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot.tools.minihttpd;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Writes an access log in the combined log format used by Apache and nginx, with
+ * one extra field: the Range header of the request, quoted, or {@code "-"}. Log
+ * readers that expect the plain combined format ignore trailing fields. The Range
+ * header is needed to tell which archive entries a range request read.
+ *
+ * <p>Each line is written through to the file, so the log can be read while the
+ * server runs.
+ */
+public class AccessLog {
+    
+    private final Writer out;
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat ("dd/MMM/yyyy:HH:mm:ss Z", Locale.US);
+    
+    /**
+     * Opens a log file. Lines are appended to the file if it exists.
+     */
+    public AccessLog (File file) throws IOException {
+        this.out = new OutputStreamWriter (new FileOutputStream (file, true), "UTF-8");
+    }
+    
+    private static String quote (String value) {
+        if (value == null) {
+            return "\"-\"";
+        }
+        return "\"" + value.replace ("\\", "\\\\").replace ("\"", "\\\"") + "\"";
+    }
+    
+    /**
+     * Logs a request.
+     *
+     * @param remoteAddress the address of the client
+     * @param request the request, or null if it couldn't be parsed
+     * @param status the response status
+     * @param bytes the length of the response body
+     */
+    public synchronized void log (String remoteAddress, HttpRequest request, int status, long bytes) {
+        StringBuilder sb = new StringBuilder ();
+        sb.append (remoteAddress).append (" - - [").append (dateFormat.format (new Date ())).append ("] ");
+        if (request != null) {
+            sb.append (quote (request.getMethod () + " " + request.getTarget () + " " + request.getVersion ()));
+        } else {
+            sb.append (quote (null));
+        }
+        sb.append (' ').append (status).append (' ').append (bytes > 0 ? String.valueOf (bytes) : "-");
+        sb.append (' ').append (quote (request != null ? request.getHeader ("referer") : null));
+        sb.append (' ').append (quote (request != null ? request.getHeader ("user-agent") : null));
+        sb.append (' ').append (quote (request != null ? request.getHeader ("range") : null));
+        sb.append ('\n');
+        try {
+            out.write (sb.toString ());
+            out.flush ();
+        } catch (IOException ioe) {
+            System.err.println ("Unable to write to the access log: " + ioe.getMessage ());
+        }
+    }
+}
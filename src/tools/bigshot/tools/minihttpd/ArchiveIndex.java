@@ -0,0 +1,112 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot.tools.minihttpd;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The parsed index of a {@code .bigshot} archive. The index records the
+ * modification time and length of the archive, so that a cached index
+ * can be checked against the file before it is used.
+ */
+public class ArchiveIndex {
+    
+    /**
+     * Size of the archive header, in bytes.
+     */
+    private final static int HEADER_SIZE = 24;
+    
+    private final long lastModified;
+    private final long fileLength;
+    
+    /**
+     * Maps entry names to {offset in the archive, length}, in archive order.
+     */
+    private final Map<String,long[]> entries = new LinkedHashMap<String,long[]> ();
+    
+    private ArchiveIndex (long lastModified, long fileLength) {
+        this.lastModified = lastModified;
+        this.fileLength = fileLength;
+    }
+    
+    /**
+     * Reads the index of an archive.
+     *
+     * @param f the archive
+     * @throws IOException if the file can't be read or isn't an archive
+     */
+    public static ArchiveIndex read (File f) throws IOException {
+        ArchiveIndex index = new ArchiveIndex (f.lastModified (), f.length ());
+        RandomAccessFile raf = new RandomAccessFile (f, "r");
+        try {
+            byte[] header = new byte[HEADER_SIZE];
+            raf.readFully (header);
+            String headerString = new String (header, "ISO-8859-1");
+            if (!headerString.startsWith ("BIGSHOT")) {
+                throw new IOException (f.getPath () + " is not a Bigshot archive");
+            }
+            int indexSize;
+            try {
+                indexSize = Integer.parseInt (headerString.substring (7).trim (), 16);
+            } catch (NumberFormatException nfe) {
+                throw new IOException ("Malformed archive header in " + f.getPath ());
+            }
+            byte[] indexBytes = new byte[indexSize];
+            raf.readFully (indexBytes);
+            
+            long offset = indexSize + HEADER_SIZE;
+            
+            String[] substrings = new String (indexBytes, "ISO-8859-1").split (":");
+            for (int i = 0; i + 2 < substrings.length; i += 3) {
+                index.entries.put (substrings[i], new long[]{
+                        Long.parseLong (substrings[i + 1]) + offset,
+                        Long.parseLong (substrings[i + 2])
+                    });
+            }
+        } finally {
+            raf.close ();
+        }
+        return index;
+    }
+    
+    /**
+     * Returns true if the archive hasn't changed since the index was read.
+     */
+    public boolean isCurrent (File f) {
+        return f.lastModified () == lastModified && f.length () == fileLength;
+    }
+    
+    /**
+     * Returns the offset and length of an entry, or null if there is no
+     * such entry.
+     */
+    public long[] getExtents (String entry) {
+        return entries.get (entry);
+    }
+    
+    /**
+     * The names of all entries, in archive order.
+     */
+    public Set<String> getEntries () {
+        return Collections.unmodifiableSet (entries.keySet ());
+    }
+}
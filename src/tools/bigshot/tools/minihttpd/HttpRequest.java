@@ -0,0 +1,268 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot.tools.minihttpd;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A parsed HTTP request.
+ */
+public class HttpRequest {
+    
+    /**
+     * Largest accepted size of the request line and headers, in bytes.
+     */
+    public final static int MAX_HEADER_SIZE = 65536;
+    
+    /**
+     * Largest accepted size of a request body, in bytes.
+     */
+    public final static int MAX_BODY_SIZE = 1024 * 1024;
+    
+    /**
+     * Largest number of ranges accepted in a Range header.
+     */
+    public final static int MAX_RANGES = 64;
+    
+    private final String method;
+    private final String target;
+    private final String version;
+    private final Map<String,String> headers = new HashMap<String,String> ();
+    private byte[] body = new byte[0];
+    
+    private HttpRequest (String method, String target, String version) {
+        this.method = method;
+        this.target = target;
+        this.version = version;
+    }
+    
+    /**
+     * Parses the next request from a buffer. If the buffer holds a complete
+     * request, the buffer position is advanced past it. Otherwise the
+     * position is left unchanged.
+     *
+     * @param buffer the buffer, ready for reading
+     * @return the request, or null if the buffer does not hold a complete request
+     * @throws IOException if the request is malformed or too large
+     */
+    public static HttpRequest parse (ByteBuffer buffer) throws IOException {
+        int start = buffer.position ();
+        int limit = buffer.limit ();
+        
+        // Tolerate empty lines between pipelined requests.
+        while (start < limit && (buffer.get (start) == '\r' || buffer.get (start) == '\n')) {
+            ++start;
+        }
+        
+        int headerEnd = -1;
+        int bodyStart = -1;
+        for (int i = start; i < limit; ++i) {
+            if (buffer.get (i) == '\n') {
+                if (i + 1 < limit && buffer.get (i + 1) == '\n') {
+                    headerEnd = i;
+                    bodyStart = i + 2;
+                    break;
+                }
+                if (i + 2 < limit && buffer.get (i + 1) == '\r' && buffer.get (i + 2) == '\n') {
+                    headerEnd = i;
+                    bodyStart = i + 3;
+                    break;
+                }
+            }
+        }
+        if (headerEnd < 0) {
+            if (limit - start > MAX_HEADER_SIZE) {
+                throw new IOException ("Request header too large");
+            }
+            buffer.position (start);
+            return null;
+        }
+        
+        byte[] headerBytes = new byte[headerEnd - start];
+        for (int i = 0; i < headerBytes.length; ++i) {
+            headerBytes[i] = buffer.get (start + i);
+        }
+        String[] lines = new String (headerBytes, "ISO-8859-1").split ("\r?\n");
+        String[] requestLine = lines[0].split (" ");
+        if (requestLine.length < 2) {
+            throw new IOException ("Malformed request line: " + lines[0]);
+        }
+        HttpRequest request = new HttpRequest (requestLine[0], requestLine[1], requestLine.length > 2 ? requestLine[2] : "HTTP/1.0");
+        for (int i = 1; i < lines.length; ++i) {
+            int colon = lines[i].indexOf (':');
+            if (colon > 0) {
+                String name = lines[i].substring (0, colon).trim ().toLowerCase ();
+                String value = lines[i].substring (colon + 1).trim ();
+                String existing = request.headers.get (name);
+                request.headers.put (name, existing == null ? value : existing + ", " + value);
+            }
+        }
+        
+        int contentLength = 0;
+        String contentLengthHeader = request.getHeader ("content-length");
+        if (contentLengthHeader != null) {
+            try {
+                contentLength = Integer.parseInt (contentLengthHeader);
+            } catch (NumberFormatException nfe) {
+                throw new IOException ("Malformed Content-Length: " + contentLengthHeader);
+            }
+            if (contentLength < 0 || contentLength > MAX_BODY_SIZE) {
+                throw new IOException ("Request body too large: " + contentLength);
+            }
+        }
+        if (limit - bodyStart < contentLength) {
+            buffer.position (start);
+            return null;
+        }
+        request.body = new byte[contentLength];
+        buffer.position (bodyStart);
+        buffer.get (request.body);
+        return request;
+    }
+    
+    /**
+     * The request method, for example {@code GET}.
+     */
+    public String getMethod () {
+        return method;
+    }
+    
+    /**
+     * The request target, including any query string.
+     */
+    public String getTarget () {
+        return target;
+    }
+    
+    /**
+     * The protocol version, for example {@code HTTP/1.1}.
+     */
+    public String getVersion () {
+        return version;
+    }
+    
+    /**
+     * Returns the value of a header, or null if the header is not present. If the
+     * header is present several times, the values are joined with commas.
+     *
+     * @param name the header name, in lower case
+     */
+    public String getHeader (String name) {
+        return headers.get (name);
+    }
+    
+    /**
+     * The request body. Empty if the request has no body.
+     */
+    public byte[] getBody () {
+        return body;
+    }
+    
+    /**
+     * The path and query parameters of the target, split on {@code ?} and {@code &}.
+     * The first element is the path. Use with {@link MinimalHttpd#getParameter}.
+     */
+    public String[] getParameters () {
+        return target.split ("\\?|&");
+    }
+    
+    /**
+     * Parses the Range header.
+     *
+     * @param length the length of the full body
+     * @return the first and last byte, inclusive, of each satisfiable range, in the order
+     * requested, or null if there is no Range header, the header is malformed or asks for
+     * more than {@link #MAX_RANGES} ranges. An empty array if no range is satisfiable.
+     */
+    public long[][] getRanges (long length) {
+        String range = getHeader ("range");
+        if (range == null || !range.trim ().startsWith ("bytes=")) {
+            return null;
+        }
+        String[] specs = range.trim ().substring (6).split (",");
+        if (specs.length > MAX_RANGES) {
+            return null;
+        }
+        List<long[]> ranges = new ArrayList<long[]> ();
+        for (String spec : specs) {
+            spec = spec.trim ();
+            int dash = spec.indexOf ('-');
+            if (dash < 0) {
+                return null;
+            }
+            try {
+                String firstString = spec.substring (0, dash).trim ();
+                String lastString = spec.substring (dash + 1).trim ();
+                long first;
+                long last;
+                if (firstString.length () == 0) {
+                    // A suffix range: the last n bytes.
+                    long suffix = Long.parseLong (lastString);
+                    if (suffix <= 0) {
+                        continue;
+                    }
+                    first = Math.max (0, length - suffix);
+                    last = length - 1;
+                } else {
+                    first = Long.parseLong (firstString);
+                    if (first < 0) {
+                        return null;
+                    }
+                    if (lastString.length () == 0) {
+                        last = length - 1;
+                    } else {
+                        last = Long.parseLong (lastString);
+                        if (last < first) {
+                            return null;
+                        }
+                        last = Math.min (last, length - 1);
+                    }
+                }
+                if (first < length) {
+                    ranges.add (new long[]{ first, last });
+                }
+            } catch (NumberFormatException nfe) {
+                return null;
+            }
+        }
+        return ranges.toArray (new long[ranges.size ()][]);
+    }
+    
+    /**
+     * Returns true if the connection should be kept open after the response.
+     * HTTP/1.1 connections are persistent unless the client asks for the
+     * connection to be closed. HTTP/1.0 connections are persistent only
+     * if the client asks for it.
+     */
+    public boolean isKeepAlive () {
+        String connection = getHeader ("connection");
+        if (connection != null) {
+            connection = connection.toLowerCase ();
+            if (connection.indexOf ("close") >= 0) {
+                return false;
+            }
+            if (connection.indexOf ("keep-alive") >= 0) {
+                return true;
+            }
+        }
+        return "HTTP/1.1".equals (version);
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot.tools.minihttpd;
+
+import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * An HTTP response. The body is either held in memory, or is a region of a file
+ * that is sent without copying it through the heap.
+ */
+public class HttpResponse {
+    
+    private final int status;
+    private final String reason;
+    private final List<String[]> headers = new ArrayList<String[]> ();
+    
+    private byte[] body = null;
+    private File file = null;
+    private long position = 0;
+    private long length = 0;
+    
+    /**
+     * Creates a response with an empty body.
+     *
+     * @param status the status code
+     * @param reason the reason phrase
+     */
+    public HttpResponse (int status, String reason) {
+        this.status = status;
+        this.reason = reason;
+    }
+    
+    /**
+     * Adds a header.
+     */
+    public HttpResponse header (String name, String value) {
+        headers.add (new String[]{ name, value });
+        return this;
+    }
+    
+    /**
+     * Sets the body to an in-memory byte array.
+     */
+    public HttpResponse body (byte[] body) {
+        this.body = body;
+        this.file = null;
+        this.length = body.length;
+        return this;
+    }
+    
+    /**
+     * Sets the body to a region of a file.
+     *
+     * @param file the file
+     * @param position the offset of the first byte to send
+     * @param length the number of bytes to send
+     */
+    public HttpResponse body (File file, long position, long length) {
+        this.body = null;
+        this.file = file;
+        this.position = position;
+        this.length = length;
+        return this;
+    }
+    
+    public int getStatus () {
+        return status;
+    }
+    
+    /**
+     * The in-memory body, or null if the body is a file region or empty.
+     */
+    public byte[] getBody () {
+        return body;
+    }
+    
+    /**
+     * The file holding the body, or null if the body is in memory or empty.
+     */
+    public File getFile () {
+        return file;
+    }
+    
+    /**
+     * The offset of the body in {@link #getFile}.
+     */
+    public long getPosition () {
+        return position;
+    }
+    
+    /**
+     * The length of the body, in bytes.
+     */
+    public long getContentLength () {
+        return length;
+    }
+    
+    /**
+     * Returns the value of the first header with the given name, ignoring
+     * case, or null if there is no such header.
+     */
+    public String getHeader (String name) {
+        for (String[] header : headers) {
+            if (header[0].equalsIgnoreCase (name)) {
+                return header[1];
+            }
+        }
+        return null;
+    }
+    
+    private static SimpleDateFormat createDateFormat () {
+        SimpleDateFormat format = new SimpleDateFormat ("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+        format.setTimeZone (TimeZone.getTimeZone ("GMT"));
+        return format;
+    }
+    
+    /**
+     * Formats a date for use in a header.
+     */
+    public static String formatDate (long time) {
+        return createDateFormat ().format (new Date (time));
+    }
+    
+    /**
+     * Parses a date from a header.
+     *
+     * @return the time in milliseconds, or -1 if the date can't be parsed
+     */
+    public static long parseDate (String date) {
+        try {
+            return createDateFormat ().parse (date.trim ()).getTime ();
+        } catch (ParseException pe) {
+            return -1;
+        }
+    }
+    
+    /**
+     * Encodes the status line and headers.
+     *
+     * @param keepAlive true if the connection will be kept open after this response
+     */
+    public ByteBuffer encodeHeader (boolean keepAlive) {
+        StringBuilder sb = new StringBuilder ();
+        sb.append ("HTTP/1.1 ").append (status).append (' ').append (reason).append ("\r\n");
+        sb.append ("Date: ").append (formatDate (System.currentTimeMillis ())).append ("\r\n");
+        for (String[] header : headers) {
+            sb.append (header[0]).append (": ").append (header[1]).append ("\r\n");
+        }
+        if (status != 304) {
+            sb.append ("Content-Length: ").append (length).append ("\r\n");
+        }
+        if (!keepAlive) {
+            sb.append ("Connection: close\r\n");
+        }
+        sb.append ("\r\n");
+        try {
+            return ByteBuffer.wrap (sb.toString ().getBytes ("ISO-8859-1"));
+        } catch (UnsupportedEncodingException uee) {
+            throw new Error (uee);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot.tools.minihttpd;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Caches the output of the {@link IncludeProcessor}, keyed by the root file,
+ * the include paths and the defines. The files read for each output, its include
+ * graph, are recorded with their modification times and lengths, and the output
+ * is processed again as soon as any of them changes. Checking the graph only
+ * costs a few file system lookups, instead of reading every file.
+ *
+ * <p>All methods are synchronized, so the cache can be shared between threads.
+ */
+public class IncludeCache {
+    
+    /**
+     * A processed file.
+     */
+    public static class ProcessedSource {
+        public final byte[] data;
+        
+        /**
+         * A strong ETag, made from a digest of the data.
+         */
+        public final String etag;
+        
+        /**
+         * The latest modification time of the files in the include graph.
+         */
+        public final long lastModified;
+        
+        /**
+         * Maps the files in the include graph to their {modification time, length}.
+         */
+        private final Map<File,long[]> dependencies;
+        
+        private ProcessedSource (byte[] data, String etag, long lastModified, Map<File,long[]> dependencies) {
+            this.data = data;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.dependencies = dependencies;
+        }
+        
+        /**
+         * Returns true if no file in the include graph has changed.
+         */
+        public boolean isCurrent () {
+            for (Map.Entry<File,long[]> e : dependencies.entrySet ()) {
+                File f = e.getKey ();
+                if (f.lastModified () != e.getValue ()[0] || f.length () != e.getValue ()[1]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+    
+    private final Map<String,ProcessedSource> entries = new HashMap<String,ProcessedSource> ();
+    private long hits = 0;
+    private long misses = 0;
+    
+    private static String key (IncludeProcessor processor, File root, File[] includePaths) {
+        return root.getPath () + ":" + Arrays.asList (includePaths) + ":" + new TreeMap<String,String> (processor.getDefines ());
+    }
+    
+    /**
+     * Returns the processed file, running the processor if the file isn't cached
+     * or if anything it includes has changed.
+     *
+     * @param processor the processor, with its defines set
+     * @param root the file to process
+     * @param includePaths the folders to look for included files in
+     */
+    public synchronized ProcessedSource get (IncludeProcessor processor, File root, File[] includePaths) throws Exception {
+        String key = key (processor, root, includePaths);
+        ProcessedSource source = entries.get (key);
+        if (source != null && source.isCurrent ()) {
+            ++hits;
+            return source;
+        }
+        ++misses;
+        
+        ByteArrayOutputStream os = new ByteArrayOutputStream ();
+        Map<File,long[]> dependencies = new LinkedHashMap<File,long[]> ();
+        long lastModified = 0;
+        for (String path : processor.process (root, includePaths, os)) {
+            File f = new File (path);
+            dependencies.put (f, new long[]{ f.lastModified (), f.length () });
+            lastModified = Math.max (lastModified, f.lastModified ());
+        }
+        
+        byte[] data = os.toByteArray ();
+        source = new ProcessedSource (data, "\"" + digest (data) + "\"", lastModified, dependencies);
+        entries.put (key, source);
+        return source;
+    }
+    
+    private static String digest (byte[] data) throws Exception {
+        byte[] digest = MessageDigest.getInstance ("MD5").digest (data);
+        StringBuilder sb = new StringBuilder ();
+        for (byte b : digest) {
+            sb.append (Integer.toHexString ((b & 0xff) | 0x100).substring (1));
+        }
+        return sb.toString ();
+    }
+    
+    /**
+     * Removes all processed files.
+     */
+    public synchronized void clear () {
+        entries.clear ();
+    }
+    
+    /**
+     * The number of requests served from the cache.
+     */
+    public synchronized long getHits () {
+        return hits;
+    }
+    
+    /**
+     * The number of requests that had to run the processor.
+     */
+    public synchronized long getMisses () {
+        return misses;
+    }
+}
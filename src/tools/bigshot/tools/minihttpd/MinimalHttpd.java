@@ -1,235 +1,1294 @@
-/*
- * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
- *  
- * Licensed under the Apache License, Version 2.0 (the "License"); 
- * you may not use this file except in compliance with the License. 
- * You may obtain a copy of the License at 
- * 
- *     http://www.apache.org/licenses/LICENSE-2.0 
- *     
- * Unless required by applicable law or agreed to in writing, software 
- * distributed under the License is distributed on an "AS IS" BASIS, 
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
- * See the License for the specific language governing permissions and 
- * limitations under the License. 
- */
-package bigshot.tools.minihttpd;
-
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.io.File;
-import java.io.InputStream;
-import java.io.FileInputStream;
-import java.io.BufferedInputStream;
-import java.io.OutputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.RandomAccessFile;
-
-/**
- * Minimal implementation of a HTTP server. Used to test Bigshot.
- */
-public class MinimalHttpd {
-    
-    private static String readLine (InputStream is) throws Exception {
-        StringBuilder sb = new StringBuilder ();
-        while (true) {
-            int read = is.read ();
-            if (read == -1) {
-                return sb.toString ();
-            } else if (read == '\r') {
-            } else if (read == '\n') {
-                return sb.toString ();
-            } else {
-                sb.append ((char) read);
-            }
-        }
-    }
-    
-    public static String getParameter (String[] params, String name, String defaultValue) throws Exception {
-        for (String s : params) {
-            if (s.startsWith (name + "=")) {
-                return s.substring (s.indexOf ("=") + 1);
-            }
-        }
-        return defaultValue;
-    }
-    
-    public static int getParameter (String[] params, String name, int defaultValue) throws Exception {
-        return Integer.parseInt (getParameter (params, name, String.valueOf (defaultValue)));
-    }
-    
-    public static int[] getExtents (File f, String entry) throws Exception {
-        RandomAccessFile raf = new RandomAccessFile (f, "r");
-        try {
-            byte[] header = new byte[24];
-            raf.readFully (header);
-            int indexSize = Integer.parseInt (new String (header).substring (7).trim (), 16);
-            byte[] index = new byte[indexSize];
-            raf.readFully (index);
-            
-            int offset = indexSize + 24;
-            
-            String[] substrings = new String (index).split (":");
-            for (int i = 0; i < substrings.length; i += 3) {
-                if (substrings[i].equals (entry)) {
-                    return new int[]{
-                        Integer.parseInt (substrings[i + 1]) + offset,
-                        Integer.parseInt (substrings[i + 2])
-                        };
-                }                    
-            }
-            
-            return null;
-        } finally {
-            raf.close ();
-        }
-    }
-    
-    protected static String mimeType (String filename) {
-        if (filename.endsWith ("rss.xml")) {
-            return "application/rss+xml";
-        } else if (filename.endsWith (".html")) {
-            return "text/html";
-        } else if (filename.endsWith (".jpg")) {
-            return "image/jpeg";
-        } else if (filename.endsWith (".png")) {
-            return "image/png";
-        } else if (filename.endsWith (".xml")) {
-            return "text/xml";
-        } else if (filename.endsWith (".swf")) {
-            return "application/x-shockwave-flash";
-        } else if (filename.endsWith (".mp3")) {
-            return "audio/mpeg";
-        } else if (filename.endsWith (".js")) {
-            return "application/javascript";
-        } else {
-            return null;
-        }
-    }
-    
-    public static void main (String[] args) throws Exception {
-        final File root = new File (args[0]);
-        ServerSocket serverSocket = new ServerSocket (80);
-        System.out.println ("Server started on port 80. Root: " + root.getPath ());
-        
-        int _throttle = args.length > 1 ? Integer.parseInt (args[1]) : Integer.MAX_VALUE;
-        if (_throttle < 0) {
-            _throttle = Integer.MAX_VALUE;
-        }
-        final int throttle = _throttle;
-        System.out.println ("Throttled to " + throttle + " B/s");
-        
-        final String indexFile = args.length > 2 ? args[2] : "/index.html";
-        System.out.println ("Index file is " + indexFile);
-                
-        while (true) {
-            final Socket sock = serverSocket.accept ();
-            new Thread () {
-                public void run () {
-                    try {
-                        InputStream is = sock.getInputStream ();
-                        String request = readLine (is);
-                        while (readLine (is).length () > 0) {
-                        }
-                        
-                        String[] path = request.split (" ");
-                        if (path[1].equals ("/")) {
-                            OutputStream os = sock.getOutputStream ();
-                            os.write ("HTTP/1.0 302 Moved Temporarily\r\n".getBytes ());
-                            os.write (("Location: " + indexFile + "\r\n").getBytes ());
-                            os.write ("\r\n".getBytes ());
-                            os.flush ();
-                            return;
-                        }
-                        String file = path[1];
-                        
-                        String[] parameters = file.split ("\\?|&");
-                        String filename = getParameter (parameters, "file", parameters[0]);
-                        String type = getParameter (parameters, "type", mimeType (filename));
-                        String entry = getParameter (parameters, "entry", null);
-                        boolean includeProcessor = getParameter (parameters, "preprocessor", "false").equals ("true");
-                        int startRange = getParameter (parameters, "start", 0);
-                        
-                        if (filename.startsWith ("/")) {
-                            filename = filename.substring (1);
-                        }
-                        
-                        File f = new File (root, filename);
-                        
-                        int lengthRange = getParameter (parameters, "length", (int) f.length ());
-                        
-                        if (entry != null) {
-                            type = mimeType (entry);                            
-                            int[] extents = getExtents (f, entry);
-                            if (extents == null) {
-                                System.err.println (entry + " not found in " + f.getPath ());
-                                return;
-                            } else {
-                                startRange = extents[0];
-                                lengthRange = extents[1];
-                            }
-                        }
-                        
-                        OutputStream os = sock.getOutputStream ();
-                        if (includeProcessor) {
-                            os.write ("HTTP/1.0 200 OK\r\n".getBytes ());
-                            if (type != null) {                                
-                                os.write (("Content-Type: " + type + "\r\n").getBytes ());
-                            }
-                            
-                            os.write ("\r\n".getBytes ());
-                            
-                            IncludeProcessor ip = new IncludeProcessor ();
-                            ip.define ("DEBUG", "true");
-                            ip.process (f, new File[]{ f.getParentFile () }, os);
-                        } else if (f.exists () && !f.isDirectory ()) {
-                            FileInputStream fis = new FileInputStream (f);
-                            try {
-                                os.write ("HTTP/1.0 200 OK\r\n".getBytes ());
-                                if (type != null) {                                
-                                    os.write (("Content-Type: " + type + "\r\n").getBytes ());
-                                }
-                                os.write (("Content-Length: " + lengthRange + "\r\n").getBytes ());
-                                
-                                os.write ("\r\n".getBytes ());
-                                byte[] buffer = new byte[32768];
-                                while (startRange > 0) {
-                                    startRange -= fis.skip (startRange);
-                                }
-                                while (true) {
-                                    int numRead = fis.read (buffer);
-                                    if (numRead <= 0) {
-                                        break;
-                                    }
-                                    long delay = 1000L * numRead / throttle;
-                                    Thread.sleep ((int) delay);
-                                    numRead = Math.min (lengthRange, numRead);
-                                    lengthRange -= numRead;
-                                    os.write (buffer, 0, numRead);                                
-                                    if (lengthRange <= 0) {
-                                        break;
-                                    }
-                                }
-                            } finally {
-                                fis.close ();
-                            }                            
-                        } else {
-                            os.write ("HTTP/1.0 404 Not found\r\n\r\n".getBytes ());
-                        }
-                        os.flush ();
-                        os.close ();
-                    } catch (Throwable t) {
-                        t.printStackTrace ();
-                    } finally {
-                        try {                            
-                            sock.close ();
-                        } catch (Exception e) {
-                            e.printStackTrace ();
-                        }
-                    }
-                }
-            }.start ();
-        }
-    }
-    
-}
\ No newline at end of file
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot.tools.minihttpd;
+
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.ByteArrayOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+/**
+ * Minimal implementation of a HTTP server. Used to test Bigshot.
+ *
+ * <p>All connections are served by a single thread using non-blocking I/O. Connections
+ * are kept open between requests (HTTP/1.1 keep-alive), and pipelined requests are
+ * answered in order. File bodies are sent with {@link FileChannel#transferTo}, so they
+ * are never copied through the heap.
+ *
+ * <p>Small bodies are served from a {@link ResponseCache}, and archive indexes are
+ * kept in memory, so the descriptors, posters and coarse levels that most requests
+ * ask for are not read from disk every time. The output of the {@link IncludeProcessor}
+ * is cached too, and processed again only when a file it includes changes.
+ *
+ * <p>Usage: <code>MinimalHttpd <i>root</i> [<i>throttle</i> [<i>index file</i>]] [--port <i>port</i>]
+ * [--cache-size <i>bytes</i>] [--prewarm-levels <i>levels</i>] [--tile-max-age <i>seconds</i>]
+ * [--max-age <i>seconds</i>] [--profile 3g|lte|dsl] [--latency <i>ms</i>] [--jitter <i>ms</i>]
+ * [--loss <i>probability</i>] [--rate <i>bytes/s</i>] [--connection-rate <i>bytes/s</i>]
+ * [--max-connections <i>n</i>] [--seed <i>seed</i>] [--access-log <i>file</i>]</code>,
+ * where <i>throttle</i> is the maximum number of bytes per second to send on each
+ * connection, or -1 for no limit, unless overridden by <i>connection-rate</i>. The
+ * remaining network options start from the named profile, if any, and are described
+ * in {@link NetworkEmulation}. The cache holds 64 MB by default; a size of 0 turns
+ * it off. <i>levels</i> is the number of coarse levels of each archive to load into
+ * the cache at startup.
+ *
+ * <p>File responses carry an ETag made from the modification time, offset and length
+ * of the body, and a Last-Modified header, and conditional requests are answered with
+ * 304 Not Modified. Tiles are sent with {@code Cache-Control: immutable} and a max-age
+ * of <i>tile-max-age</i>, one year by default, so a rebuilt pyramid should be published
+ * under a new name. Other files, such as descriptors, get a max-age of <i>max-age</i>,
+ * 0 by default, so clients revalidate them on every use.
+ *
+ * <p>Range requests, including multi-range requests, are supported for file responses.
+ * The ranges apply to the selected body, so for archive entries and <i>start</i> and
+ * <i>length</i> parameters they are relative to the start of the entry.
+ *
+ * <p>Metrics are served at <code>/metrics</code>, in the Prometheus text format.
+ * See {@link ServerMetrics}. If an access log is given, every response is logged
+ * in the combined log format, with the Range header of the request added. See
+ * {@link AccessLog}.
+ *
+ * <p>A <i>batch</i> parameter returns several archive entries, or files in a folder,
+ * in one response. See {@link #respondBatch}.
+ */
+public class MinimalHttpd {
+    
+    /**
+     * Largest number of bytes sent in one write when the bandwidth is limited.
+     */
+    private final static int THROTTLE_CHUNK = 32768;
+    
+    /**
+     * When the bandwidth is limited, the number of bytes to wait for before sending,
+     * so that the data isn't sent in tiny pieces.
+     */
+    private final static int MIN_SEND = 4096;
+    
+    /**
+     * Largest number of requests that are queued on a connection before
+     * the server stops reading from it.
+     */
+    private final static int MAX_PIPELINED = 32;
+    
+    /**
+     * Idle connections are closed after this many milliseconds.
+     */
+    private final static long IDLE_TIMEOUT = 60000;
+    
+    /**
+     * Largest number of items in a batch request.
+     */
+    private final static int MAX_BATCH_ITEMS = 256;
+    
+    /**
+     * Largest item, in bytes, in a batch request.
+     */
+    private final static long MAX_BATCH_ITEM_SIZE = 4 * 1024 * 1024;
+    
+    /**
+     * Largest total size, in bytes, of the items of a batch request.
+     */
+    private final static long MAX_BATCH_SIZE = 16 * 1024 * 1024;
+    
+    private final File root;
+    private NetworkEmulation emulation;
+    
+    /**
+     * The number of connections with responses to send, for sharing the
+     * server bandwidth between them.
+     */
+    private int sendingConnections = 1;
+    private final String indexFile;
+    private final int port;
+    
+    private volatile Selector selector;
+    private final Set<Connection> connections = new HashSet<Connection> ();
+    
+    private ResponseCache cache = null;
+    
+    /**
+     * Output of the include processor, for <code>preprocessor=true</code> requests.
+     */
+    private final IncludeCache includeCache = new IncludeCache ();
+    
+    private final ServerMetrics metrics = new ServerMetrics ();
+    private int tileMaxAge = 365 * 24 * 3600;
+    private int maxAge = 0;
+    private AccessLog accessLog = null;
+    private final Map<File,ArchiveIndex> archiveIndexes = new HashMap<File,ArchiveIndex> ();
+    
+    /**
+     * Creates a new server.
+     *
+     * @param root the document root
+     * @param throttle the maximum number of bytes per second to send on each connection
+     * @param indexFile the path that requests for {@code /} are redirected to
+     * @param port the port to listen on
+     */
+    public MinimalHttpd (File root, int throttle, String indexFile, int port) {
+        this.root = root;
+        this.emulation = new NetworkEmulation ().connectionRate (throttle == Integer.MAX_VALUE ? 0 : throttle);
+        this.indexFile = indexFile;
+        this.port = port;
+    }
+    
+    /**
+     * Sets the cache for response bodies. If null, every body is sent from disk.
+     */
+    public MinimalHttpd cache (ResponseCache cache) {
+        this.cache = cache;
+        return this;
+    }
+    
+    /**
+     * Sets the network emulation. Replaces the throttle given to the constructor.
+     */
+    public MinimalHttpd networkEmulation (NetworkEmulation emulation) {
+        this.emulation = emulation;
+        return this;
+    }
+    
+    /**
+     * Sets how long, in seconds, clients may cache tiles without revalidating them.
+     * Tiles are marked immutable. If 0, tiles are cached like other files.
+     */
+    public MinimalHttpd tileMaxAge (int tileMaxAge) {
+        this.tileMaxAge = tileMaxAge;
+        return this;
+    }
+    
+    /**
+     * Sets how long, in seconds, clients may cache files that aren't tiles, such as
+     * descriptors and archive indexes, without revalidating them.
+     */
+    public MinimalHttpd maxAge (int maxAge) {
+        this.maxAge = maxAge;
+        return this;
+    }
+    
+    /**
+     * Sets the access log, or null for none.
+     */
+    public MinimalHttpd accessLog (AccessLog accessLog) {
+        this.accessLog = accessLog;
+        return this;
+    }
+    
+    /**
+     * Loads the descriptor, poster and coarsest levels of every archive under the
+     * document root into the cache. Levels are told apart by the number of tiles
+     * in them, so this works regardless of the level numbering.
+     *
+     * @param levels the number of levels to load for each pyramid in an archive
+     */
+    public MinimalHttpd prewarm (int levels) throws IOException {
+        if (cache != null) {
+            prewarm (root, levels);
+        }
+        return this;
+    }
+    
+    private void prewarm (File dir, int levels) throws IOException {
+        File[] files = dir.listFiles ();
+        if (files == null) {
+            return;
+        }
+        for (File f : files) {
+            if (f.isDirectory ()) {
+                prewarm (f, levels);
+            } else if (f.getName ().endsWith (".bigshot")) {
+                ArchiveIndex index = getArchiveIndex (f);
+                
+                // Group the tile folders by the pyramid they belong to.
+                Map<String,Map<String,Integer>> pyramids = new HashMap<String,Map<String,Integer>> ();
+                List<String> selected = new ArrayList<String> ();
+                for (String entry : index.getEntries ()) {
+                    int slash = entry.lastIndexOf ('/');
+                    if (slash < 0) {
+                        selected.add (entry);
+                        continue;
+                    }
+                    String folder = entry.substring (0, slash);
+                    String pyramid = folder.lastIndexOf ('/') < 0 ? "" : folder.substring (0, folder.lastIndexOf ('/'));
+                    Map<String,Integer> tileCounts = pyramids.get (pyramid);
+                    if (tileCounts == null) {
+                        tileCounts = new HashMap<String,Integer> ();
+                        pyramids.put (pyramid, tileCounts);
+                    }
+                    Integer count = tileCounts.get (folder);
+                    tileCounts.put (folder, count == null ? 1 : count + 1);
+                }
+                
+                Set<String> coarseFolders = new HashSet<String> ();
+                for (final Map<String,Integer> tileCounts : pyramids.values ()) {
+                    List<String> folders = new ArrayList<String> (tileCounts.keySet ());
+                    Collections.sort (folders, new Comparator<String> () {
+                            public int compare (String a, String b) {
+                                return tileCounts.get (a).compareTo (tileCounts.get (b));
+                            }
+                        });
+                    coarseFolders.addAll (folders.subList (0, Math.min (levels, folders.size ())));
+                }
+                for (String entry : index.getEntries ()) {
+                    int slash = entry.lastIndexOf ('/');
+                    if (slash >= 0 && coarseFolders.contains (entry.substring (0, slash))) {
+                        selected.add (entry);
+                    }
+                }
+                
+                for (String entry : selected) {
+                    long[] extents = index.getExtents (entry);
+                    if (cache.isCacheable (extents[1])) {
+                        cache.get (f, extents[0], extents[1]);
+                    }
+                }
+                System.out.println ("Pre-warmed " + selected.size () + " entries of " + f.getPath ());
+            }
+        }
+        System.out.flush ();
+    }
+    
+    /**
+     * Returns the index of an archive, reading it if it isn't cached or if
+     * the archive has changed since it was read.
+     */
+    protected ArchiveIndex getArchiveIndex (File f) throws IOException {
+        ArchiveIndex index = archiveIndexes.get (f);
+        boolean load = index == null || !index.isCurrent (f);
+        if (load) {
+            index = ArchiveIndex.read (f);
+            archiveIndexes.put (f, index);
+        }
+        metrics.archiveIndexLookup (load);
+        return index;
+    }
+    
+    public static String getParameter (String[] params, String name, String defaultValue) throws Exception {
+        for (String s : params) {
+            if (s.startsWith (name + "=")) {
+                return s.substring (s.indexOf ("=") + 1);
+            }
+        }
+        return defaultValue;
+    }
+    
+    public static int getParameter (String[] params, String name, int defaultValue) throws Exception {
+        return Integer.parseInt (getParameter (params, name, String.valueOf (defaultValue)));
+    }
+    
+    public static int[] getExtents (File f, String entry) throws Exception {
+        long[] extents = ArchiveIndex.read (f).getExtents (entry);
+        return extents == null ? null : new int[]{ (int) extents[0], (int) extents[1] };
+    }
+    
+    protected static String mimeType (String filename) {
+        if (filename.endsWith ("rss.xml")) {
+            return "application/rss+xml";
+        } else if (filename.endsWith (".html")) {
+            return "text/html";
+        } else if (filename.endsWith (".jpg")) {
+            return "image/jpeg";
+        } else if (filename.endsWith (".png")) {
+            return "image/png";
+        } else if (filename.endsWith (".xml")) {
+            return "text/xml";
+        } else if (filename.endsWith (".swf")) {
+            return "application/x-shockwave-flash";
+        } else if (filename.endsWith (".mp3")) {
+            return "audio/mpeg";
+        } else if (filename.endsWith (".js")) {
+            return "application/javascript";
+        } else if (filename.endsWith (".bigshot")) {
+            return "application/octet-stream";
+        } else {
+            return null;
+        }
+    }
+    
+    /**
+     * Starts creating a response that takes too long to create on the server
+     * thread. When the returned future is done, its response is sent. Subclasses
+     * that override this must call {@link #wakeup} once the future is done.
+     *
+     * @return the response, or null to create it with {@link #respond}
+     */
+    protected Future<HttpResponse> respondLater (HttpRequest request) throws Exception {
+        return null;
+    }
+    
+    /**
+     * Wakes the server thread, so that it notices responses that have been
+     * completed on other threads. May be called from any thread.
+     */
+    protected void wakeup () {
+        Selector s = selector;
+        if (s != null) {
+            s.wakeup ();
+        }
+    }
+    
+    /**
+     * Creates the response to a request.
+     */
+    protected HttpResponse respond (HttpRequest request) throws Exception {
+        if (!request.getMethod ().equals ("GET") && !request.getMethod ().equals ("HEAD")) {
+            return new HttpResponse (501, "Not Implemented");
+        }
+        
+        if (request.getTarget ().equals ("/")) {
+            return new HttpResponse (302, "Moved Temporarily")
+                .header ("Location", indexFile);
+        }
+        
+        String[] parameters = request.getParameters ();
+        if (parameters[0].equals ("/metrics")) {
+            return new HttpResponse (200, "OK")
+                .header ("Content-Type", "text/plain; version=0.0.4")
+                .header ("Cache-Control", "no-cache")
+                .body (metrics.format (connections.size (), cache, includeCache).getBytes ("UTF-8"));
+        }
+        
+        String filename = getParameter (parameters, "file", parameters[0]);
+        String type = getParameter (parameters, "type", mimeType (filename));
+        String entry = getParameter (parameters, "entry", null);
+        boolean includeProcessor = getParameter (parameters, "preprocessor", "false").equals ("true");
+        long startRange = Long.parseLong (getParameter (parameters, "start", "0"));
+        
+        if (filename.startsWith ("/")) {
+            filename = filename.substring (1);
+        }
+        
+        File f = new File (root, filename);
+        String batch = getParameter (parameters, "batch", null);
+        if (batch != null && filename.indexOf ("..") < 0 && f.exists ()) {
+            if (!f.isDirectory () && !filename.endsWith (".bigshot")) {
+                return new HttpResponse (400, "Bad Request");
+            }
+            return respondBatch (f, batch.split (","));
+        }
+        if (filename.indexOf ("..") >= 0 || !f.exists () || f.isDirectory ()) {
+            return new HttpResponse (404, "Not Found");
+        }
+        
+        long lengthRange = Long.parseLong (getParameter (parameters, "length", String.valueOf (f.length () - startRange)));
+        
+        if (entry != null) {
+            type = mimeType (entry);
+            long[] extents = getArchiveIndex (f).getExtents (entry);
+            if (extents == null) {
+                System.err.println (entry + " not found in " + f.getPath ());
+                return new HttpResponse (404, "Not Found");
+            } else {
+                startRange = extents[0];
+                lengthRange = extents[1];
+            }
+        }
+        
+        if (includeProcessor) {
+            IncludeProcessor ip = new IncludeProcessor ();
+            ip.define ("DEBUG", "true");
+            IncludeCache.ProcessedSource source = includeCache.get (ip, f, new File[]{ f.getParentFile () });
+            HttpResponse response;
+            if (isNotModified (request, source.etag, source.lastModified)) {
+                response = new HttpResponse (304, "Not Modified");
+            } else {
+                response = new HttpResponse (200, "OK")
+                    .body (source.data);
+                if (type != null) {
+                    response.header ("Content-Type", type);
+                }
+            }
+            return response
+                .header ("ETag", source.etag)
+                .header ("Last-Modified", HttpResponse.formatDate (source.lastModified))
+                .header ("Cache-Control", "max-age=" + maxAge);
+        }
+        
+        startRange = Math.max (0, Math.min (startRange, f.length ()));
+        lengthRange = Math.max (0, Math.min (lengthRange, f.length () - startRange));
+        
+        long lastModified = f.lastModified ();
+        String etag = "\"" + Long.toHexString (lastModified) + "-" + Long.toHexString (startRange) + "-" + Long.toHexString (lengthRange) + "\"";
+        
+        // Range requests apply to the selected body, so they work for archive entries too.
+        long[][] ranges = null;
+        String ifRange = request.getHeader ("if-range");
+        if (ifRange == null || ifRange.trim ().equals (etag) || HttpResponse.parseDate (ifRange) / 1000 == lastModified / 1000) {
+            ranges = request.getRanges (lengthRange);
+        }
+        
+        HttpResponse response;
+        if (isNotModified (request, etag, lastModified)) {
+            response = new HttpResponse (304, "Not Modified");
+        } else if (ranges != null && ranges.length == 0) {
+            response = new HttpResponse (416, "Range Not Satisfiable")
+                .header ("Content-Range", "bytes */" + lengthRange);
+        } else if (ranges != null && ranges.length == 1) {
+            response = new HttpResponse (206, "Partial Content")
+                .header ("Content-Range", "bytes " + ranges[0][0] + "-" + ranges[0][1] + "/" + lengthRange);
+            if (type != null) {
+                response.header ("Content-Type", type);
+            }
+            setBody (response, f, startRange + ranges[0][0], ranges[0][1] - ranges[0][0] + 1);
+        } else if (ranges != null) {
+            String boundary = "BIGSHOT" + Long.toHexString (System.nanoTime ());
+            ByteArrayOutputStream os = new ByteArrayOutputStream ();
+            for (long[] range : ranges) {
+                StringBuilder part = new StringBuilder ();
+                part.append ("\r\n--").append (boundary).append ("\r\n");
+                if (type != null) {
+                    part.append ("Content-Type: ").append (type).append ("\r\n");
+                }
+                part.append ("Content-Range: bytes ").append (range[0]).append ('-').append (range[1]).append ('/').append (lengthRange).append ("\r\n\r\n");
+                os.write (part.toString ().getBytes ("ISO-8859-1"));
+                os.write (read (f, startRange + range[0], range[1] - range[0] + 1));
+            }
+            os.write (("\r\n--" + boundary + "--\r\n").getBytes ("ISO-8859-1"));
+            response = new HttpResponse (206, "Partial Content")
+                .header ("Content-Type", "multipart/byteranges; boundary=" + boundary)
+                .body (os.toByteArray ());
+        } else {
+            response = new HttpResponse (200, "OK")
+                .header ("Accept-Ranges", "bytes");
+            if (type != null) {
+                response.header ("Content-Type", type);
+            }
+            setBody (response, f, startRange, lengthRange);
+        }
+        response.header ("ETag", etag);
+        response.header ("Last-Modified", HttpResponse.formatDate (lastModified));
+        if (isTile (f, entry, type) && tileMaxAge > 0) {
+            response.header ("Cache-Control", "public, max-age=" + tileMaxAge + ", immutable");
+        } else {
+            response.header ("Cache-Control", "max-age=" + maxAge);
+        }
+        return response;
+    }
+    
+    /**
+     * Creates the response to a batch request. The items are archive entries, regions
+     * of the archive given as <code><i>start</i>:<i>length</i></code>, or, if
+     * <code>f</code> is a folder, paths relative to it. The body starts with a line
+     * listing the length of each item, separated by colons, with -1 for missing items.
+     * The data of the items follows, in the order they were requested. Regions of
+     * an archive that are next to each other are read together. A batch with an item
+     * larger than {@link #MAX_BATCH_ITEM_SIZE} is rejected with 400 Bad Request, and
+     * a batch whose items add up to more than {@link #MAX_BATCH_SIZE} with
+     * 413 Payload Too Large, before anything is read.
+     *
+     * @param f the archive or folder
+     * @param items the items to return
+     */
+    protected HttpResponse respondBatch (File f, String[] items) throws Exception {
+        if (items.length > MAX_BATCH_ITEMS) {
+            return new HttpResponse (400, "Bad Request");
+        }
+        byte[][] data = new byte[items.length][];
+        if (f.isDirectory ()) {
+            File[] files = new File[items.length];
+            long total = 0;
+            for (int i = 0; i < items.length; ++i) {
+                String item = URLDecoder.decode (items[i], "UTF-8");
+                File file = new File (f, item);
+                if (item.indexOf ("..") < 0 && file.isFile ()) {
+                    if (file.length () > MAX_BATCH_ITEM_SIZE) {
+                        return new HttpResponse (400, "Bad Request");
+                    }
+                    files[i] = file;
+                    total += file.length ();
+                }
+            }
+            if (total > MAX_BATCH_SIZE) {
+                return new HttpResponse (413, "Payload Too Large");
+            }
+            for (int i = 0; i < items.length; ++i) {
+                if (files[i] != null) {
+                    data[i] = read (files[i], 0, files[i].length ());
+                }
+            }
+        } else {
+            ArchiveIndex index = getArchiveIndex (f);
+            List<long[]> regions = new ArrayList<long[]> ();
+            long total = 0;
+            for (int i = 0; i < items.length; ++i) {
+                String item = URLDecoder.decode (items[i], "UTF-8");
+                long[] extents = null;
+                int colon = item.indexOf (':');
+                if (colon >= 0) {
+                    try {
+                        extents = new long[]{ Long.parseLong (item.substring (0, colon)), Long.parseLong (item.substring (colon + 1)) };
+                    } catch (NumberFormatException nfe) {
+                        extents = null;
+                    }
+                } else {
+                    extents = index.getExtents (item);
+                }
+                if (extents != null && extents[0] >= 0 && extents[1] >= 0 && extents[0] <= f.length () - extents[1]) {
+                    if (extents[1] > MAX_BATCH_ITEM_SIZE) {
+                        return new HttpResponse (400, "Bad Request");
+                    }
+                    regions.add (new long[]{ extents[0], extents[1], i });
+                    total += extents[1];
+                }
+            }
+            // This also bounds the runs, which are never longer than their regions together.
+            if (total > MAX_BATCH_SIZE) {
+                return new HttpResponse (413, "Payload Too Large");
+            }
+            Collections.sort (regions, new Comparator<long[]> () {
+                    public int compare (long[] a, long[] b) {
+                        return a[0] < b[0] ? -1 : (a[0] > b[0] ? 1 : 0);
+                    }
+                });
+            
+            // Read each run of adjacent or overlapping regions at once.
+            RandomAccessFile raf = new RandomAccessFile (f, "r");
+            try {
+                int runStart = 0;
+                while (runStart < regions.size ()) {
+                    long start = regions.get (runStart)[0];
+                    long end = start + regions.get (runStart)[1];
+                    int runEnd = runStart + 1;
+                    while (runEnd < regions.size () && regions.get (runEnd)[0] <= end) {
+                        end = Math.max (end, regions.get (runEnd)[0] + regions.get (runEnd)[1]);
+                        ++runEnd;
+                    }
+                    byte[] run = new byte[(int) (end - start)];
+                    raf.seek (start);
+                    raf.readFully (run);
+                    for (int i = runStart; i < runEnd; ++i) {
+                        long[] region = regions.get (i);
+                        byte[] itemData = new byte[(int) region[1]];
+                        System.arraycopy (run, (int) (region[0] - start), itemData, 0, itemData.length);
+                        data[(int) region[2]] = itemData;
+                    }
+                    runStart = runEnd;
+                }
+            } finally {
+                raf.close ();
+            }
+        }
+        
+        StringBuilder lengths = new StringBuilder ();
+        for (int i = 0; i < items.length; ++i) {
+            if (i > 0) {
+                lengths.append (':');
+            }
+            lengths.append (data[i] == null ? -1 : data[i].length);
+        }
+        lengths.append ('\n');
+        ByteArrayOutputStream os = new ByteArrayOutputStream ();
+        os.write (lengths.toString ().getBytes ("ISO-8859-1"));
+        for (byte[] itemData : data) {
+            if (itemData != null) {
+                os.write (itemData);
+            }
+        }
+        return new HttpResponse (200, "OK")
+            .header ("Content-Type", "application/x-bigshot-batch")
+            .body (os.toByteArray ());
+    }
+    
+    /**
+     * Sets the body of a response to a region of a file, from the cache if possible.
+     */
+    protected void setBody (HttpResponse response, File f, long position, long length) throws IOException {
+        if (cache != null && cache.isCacheable (length)) {
+            response.body (cache.get (f, position, length));
+        } else {
+            response.body (f, position, length);
+        }
+    }
+    
+    /**
+     * Reads a region of a file, from the cache if possible.
+     */
+    protected byte[] read (File f, long position, long length) throws IOException {
+        if (cache != null && cache.isCacheable (length)) {
+            return cache.get (f, position, length);
+        }
+        byte[] data = new byte[(int) length];
+        RandomAccessFile raf = new RandomAccessFile (f, "r");
+        try {
+            raf.seek (position);
+            raf.readFully (data);
+        } finally {
+            raf.close ();
+        }
+        return data;
+    }
+    
+    /**
+     * Returns true if the client's copy is current. If-None-Match takes precedence
+     * over If-Modified-Since.
+     */
+    protected static boolean isNotModified (HttpRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader ("if-none-match");
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split (",")) {
+                tag = tag.trim ();
+                if (tag.startsWith ("W/")) {
+                    tag = tag.substring (2);
+                }
+                if (tag.equals ("*") || tag.equals (etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        String ifModifiedSince = request.getHeader ("if-modified-since");
+        if (ifModifiedSince != null) {
+            long since = HttpResponse.parseDate (ifModifiedSince);
+            return since >= 0 && lastModified / 1000 <= since / 1000;
+        }
+        return false;
+    }
+    
+    /**
+     * Returns the kind of resource a request is for, used to break down the metrics:
+     * "tile", "descriptor", "archive_entry", "batch", "source" for include processor
+     * output, "metrics" or "file".
+     */
+    protected String getResourceType (HttpRequest request) throws Exception {
+        String[] parameters = request.getParameters ();
+        String filename = getParameter (parameters, "file", parameters[0]);
+        String entry = getParameter (parameters, "entry", null);
+        if (parameters[0].equals ("/metrics")) {
+            return "metrics";
+        } else if (getParameter (parameters, "batch", null) != null) {
+            return "batch";
+        } else if (getParameter (parameters, "preprocessor", "false").equals ("true")) {
+            return "source";
+        }
+        String name = entry != null ? entry : filename;
+        if (name.equals ("descriptor") || name.endsWith ("/descriptor") || name.endsWith (".xml")) {
+            return "descriptor";
+        }
+        String type = entry != null ? mimeType (entry) : getParameter (parameters, "type", mimeType (filename));
+        if (isTile (new File (root, filename), entry, type)) {
+            return "tile";
+        }
+        return entry != null ? "archive_entry" : "file";
+    }
+    
+    /**
+     * Returns true if a body is a pyramid tile, which never changes once the pyramid
+     * has been built. Tiles are images in archives, or images in a folder named after
+     * a level number.
+     */
+    protected static boolean isTile (File f, String entry, String type) {
+        if (type == null || !type.startsWith ("image/")) {
+            return false;
+        }
+        String folder = null;
+        if (entry != null) {
+            int slash = entry.lastIndexOf ('/');
+            folder = slash < 0 ? "" : entry.substring (entry.lastIndexOf ('/', slash - 1) + 1, slash);
+        } else if (f.getName ().endsWith (".bigshot")) {
+            // A region of an archive. The client has read the index, so this is a tile or the poster.
+            return true;
+        } else if (f.getParentFile () != null) {
+            folder = f.getParentFile ().getName ();
+        }
+        return folder != null && folder.matches ("[0-9]+");
+    }
+    
+    /**
+     * A request and its response, waiting to be sent.
+     */
+    private static class Exchange {
+        public HttpResponse response;
+        
+        /**
+         * If not null, the response is still being created, and replaces
+         * {@link #response} once it is done.
+         */
+        public final Future<HttpResponse> pending;
+        
+        /**
+         * The kind of resource requested, for the metrics.
+         */
+        public final String resourceType;
+        
+        /**
+         * The request, for the access log, or null if it couldn't be parsed.
+         */
+        public final HttpRequest request;
+        public final boolean head;
+        public final boolean keepAlive;
+        
+        /**
+         * The time before which no part of the response may be sent.
+         */
+        public final long readyTime;
+        
+        /**
+         * When the request was received, from {@link System#nanoTime}.
+         */
+        public final long received;
+        
+        /**
+         * True if the response has been created again, because its file was
+         * gone when it was to be sent.
+         */
+        public boolean retried = false;
+        
+        public Exchange (HttpResponse response, Future<HttpResponse> pending, String resourceType, HttpRequest request, boolean head, boolean keepAlive, long readyTime, long received) {
+            this.response = response;
+            this.pending = pending;
+            this.resourceType = resourceType;
+            this.request = request;
+            this.head = head;
+            this.keepAlive = keepAlive;
+            this.readyTime = readyTime;
+            this.received = received;
+        }
+        
+        public boolean isReady () {
+            return pending == null || pending.isDone ();
+        }
+    }
+    
+    /**
+     * The state of a client connection.
+     */
+    private class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private ByteBuffer in = ByteBuffer.allocate (16384);
+        private final LinkedList<Exchange> queue = new LinkedList<Exchange> ();
+        
+        /**
+         * True once no more requests will be read: the client has closed its side,
+         * or a request asked for the connection to be closed.
+         */
+        private boolean readClosed = false;
+        
+        private Exchange current = null;
+        private ByteBuffer header = null;
+        private ByteBuffer body = null;
+        private FileChannel file = null;
+        private long filePosition = 0;
+        private long fileRemaining = 0;
+        
+        /**
+         * The time before which no more data may be sent, because of the
+         * network emulation.
+         */
+        private long resumeTime = 0;
+        private final TokenBucket bucket = emulation.createConnectionBucket ();
+        private long lastActivity = System.currentTimeMillis ();
+        
+        public Connection (SocketChannel channel) throws IOException {
+            this.channel = channel;
+            channel.configureBlocking (false);
+            channel.socket ().setTcpNoDelay (true);
+            this.key = channel.register (selector, SelectionKey.OP_READ, this);
+        }
+        
+        public void read () throws IOException {
+            lastActivity = System.currentTimeMillis ();
+            if (!in.hasRemaining ()) {
+                if (in.capacity () >= HttpRequest.MAX_HEADER_SIZE + HttpRequest.MAX_BODY_SIZE) {
+                    throw new IOException ("Request too large");
+                }
+                ByteBuffer larger = ByteBuffer.allocate (in.capacity () * 2);
+                in.flip ();
+                larger.put (in);
+                in = larger;
+            }
+            int n = channel.read (in);
+            if (n < 0) {
+                readClosed = true;
+            }
+            parseRequests ();
+            updateInterest ();
+        }
+        
+        private void parseRequests () {
+            in.flip ();
+            try {
+                while (!readClosed || in.hasRemaining ()) {
+                    if (queue.size () >= MAX_PIPELINED) {
+                        break;
+                    }
+                    HttpRequest request = null;
+                    try {
+                        request = HttpRequest.parse (in);
+                    } catch (IOException ioe) {
+                        metrics.request ("invalid", 400, 0);
+                        queue.add (new Exchange (new HttpResponse (400, "Bad Request"), null, "invalid", null, false, false, 0, System.nanoTime ()));
+                        in.clear ();
+                        in.flip ();
+                        readClosed = true;
+                        break;
+                    }
+                    if (request == null) {
+                        break;
+                    }
+                    boolean keepAlive = request.isKeepAlive ();
+                    HttpResponse response = null;
+                    Future<HttpResponse> pending = null;
+                    String resourceType = "invalid";
+                    long start = System.nanoTime ();
+                    try {
+                        resourceType = getResourceType (request);
+                        pending = respondLater (request);
+                        if (pending == null) {
+                            response = respond (request);
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace ();
+                        metrics.exception ();
+                        response = new HttpResponse (500, "Internal Server Error");
+                    }
+                    if (pending == null) {
+                        metrics.request (resourceType, response.getStatus (), System.nanoTime () - start);
+                    }
+                    long readyTime = System.currentTimeMillis () + emulation.nextDelay ();
+                    queue.add (new Exchange (response, pending, resourceType, request, request.getMethod ().equals ("HEAD"), keepAlive, readyTime, start));
+                    if (!keepAlive) {
+                        readClosed = true;
+                        in.clear ();
+                        in.flip ();
+                        break;
+                    }
+                }
+            } finally {
+                in.compact ();
+            }
+        }
+        
+        /**
+         * Starts sending the first queued response. If its file has been deleted
+         * since the response was created, the response is created again and
+         * queued, and no response is started.
+         */
+        private void startNext () throws IOException {
+            current = queue.removeFirst ();
+            if (current.pending != null) {
+                try {
+                    current.response = current.pending.get ();
+                } catch (Exception e) {
+                    e.printStackTrace ();
+                    metrics.exception ();
+                    current.response = new HttpResponse (500, "Internal Server Error");
+                }
+                if (!current.retried) {
+                    metrics.request (current.resourceType, current.response.getStatus (), System.nanoTime () - current.received);
+                }
+            }
+            HttpResponse response = current.response;
+            file = null;
+            if (!current.head && response.getBody () == null && response.getFile () != null && response.getContentLength () > 0) {
+                try {
+                    file = new RandomAccessFile (response.getFile (), "r").getChannel ();
+                } catch (FileNotFoundException fnfe) {
+                    if (current.retried || current.request == null) {
+                        throw fnfe;
+                    }
+                    // Deleted after the response was created, for example by
+                    // the eviction of a disk cache.
+                    retryCurrent ();
+                    return;
+                }
+            }
+            if (accessLog != null) {
+                accessLog.log (channel.socket ().getInetAddress ().getHostAddress (), current.request, response.getStatus (), 
+                    current.head ? 0 : response.getContentLength ());
+            }
+            header = response.encodeHeader (current.keepAlive);
+            body = null;
+            fileRemaining = 0;
+            if (!current.head) {
+                if (response.getBody () != null) {
+                    body = ByteBuffer.wrap (response.getBody ());
+                } else if (file != null) {
+                    filePosition = response.getPosition ();
+                    fileRemaining = response.getContentLength ();
+                }
+            }
+        }
+        
+        /**
+         * Creates the response of the current exchange again, and puts it first
+         * in the queue. A subclass may then render the file again in
+         * {@link #respondLater}. The response is only created again once.
+         */
+        private void retryCurrent () {
+            Future<HttpResponse> pending = null;
+            HttpResponse response = null;
+            try {
+                pending = respondLater (current.request);
+                if (pending == null) {
+                    response = respond (current.request);
+                }
+            } catch (Exception e) {
+                e.printStackTrace ();
+                metrics.exception ();
+                response = new HttpResponse (500, "Internal Server Error");
+            }
+            Exchange retry = new Exchange (response, pending, current.resourceType, current.request, current.head, current.keepAlive, current.readyTime, current.received);
+            retry.retried = true;
+            queue.addFirst (retry);
+            current = null;
+        }
+        
+        /**
+         * Sends as much as possible of the queued responses.
+         *
+         * @return false if the connection was closed
+         */
+        public boolean write () throws IOException {
+            lastActivity = System.currentTimeMillis ();
+            while (true) {
+                if (current == null) {
+                    if (queue.isEmpty () || !queue.getFirst ().isReady ()) {
+                        break;
+                    }
+                    startNext ();
+                    if (current == null) {
+                        continue;
+                    }
+                }
+                
+                long now = System.currentTimeMillis ();
+                if (now < current.readyTime) {
+                    resumeTime = current.readyTime;
+                }
+                if (now < resumeTime) {
+                    break;
+                }
+                
+                TokenBucket globalBucket = emulation.getBucket ();
+                boolean limited = bucket != null || globalBucket != null;
+                long budget = Integer.MAX_VALUE;
+                long wait = 0;
+                for (TokenBucket b : new TokenBucket[]{ bucket, globalBucket }) {
+                    if (b != null) {
+                        budget = Math.min (budget, Math.min (THROTTLE_CHUNK, b.available (now)));
+                        wait = Math.max (wait, b.delay (MIN_SEND, now));
+                    }
+                }
+                if (limited && wait > 0) {
+                    resumeTime = now + wait;
+                    break;
+                }
+                long sent = 0;
+                boolean blocked = false;
+                
+                if (header.hasRemaining ()) {
+                    sent += channel.write (header);
+                    blocked = header.hasRemaining ();
+                }
+                if (!blocked && body != null && body.hasRemaining ()) {
+                    int oldLimit = body.limit ();
+                    body.limit ((int) Math.min (oldLimit, body.position () + Math.max (budget - sent, 1)));
+                    sent += channel.write (body);
+                    body.limit (oldLimit);
+                    blocked = body.hasRemaining ();
+                }
+                if (!blocked && file != null && fileRemaining > 0) {
+                    long n = file.transferTo (filePosition, Math.min (fileRemaining, Math.max (budget - sent, 1)), channel);
+                    if (n == 0 && filePosition >= file.size ()) {
+                        // The file was truncated after the response was created.
+                        throw new IOException ("Unexpected end of file");
+                    }
+                    filePosition += n;
+                    fileRemaining -= n;
+                    sent += n;
+                    blocked = fileRemaining > 0;
+                }
+                
+                if (sent > 0) {
+                    metrics.bytesSent (sent);
+                    if (bucket != null) {
+                        bucket.consume (sent, now);
+                    }
+                    if (globalBucket != null) {
+                        globalBucket.consume (sent, now);
+                        // Wait for the other connections to get their share before sending again.
+                        resumeTime = Math.max (resumeTime, now + 1000L * sent * (sendingConnections - 1) / globalBucket.getRate ());
+                    }
+                }
+                
+                if (!header.hasRemaining () && (body == null || !body.hasRemaining ()) && fileRemaining == 0) {
+                    boolean keepAlive = current.keepAlive;
+                    metrics.requestCompleted (System.nanoTime () - current.received);
+                    finishCurrent ();
+                    if (!keepAlive) {
+                        close ();
+                        return false;
+                    }
+                } else if (sent == 0 || !limited || now < resumeTime) {
+                    // The socket buffer is full.
+                    break;
+                }
+            }
+            if (current == null && queue.isEmpty () && readClosed) {
+                close ();
+                return false;
+            }
+            if (!readClosed && queue.size () < MAX_PIPELINED && in.position () > 0) {
+                // Requests may have been held back while the queue was full.
+                parseRequests ();
+            }
+            updateInterest ();
+            return true;
+        }
+        
+        private void finishCurrent () throws IOException {
+            if (file != null) {
+                file.close ();
+                file = null;
+            }
+            current = null;
+            header = null;
+            body = null;
+        }
+        
+        /**
+         * Returns true if the connection has data to send.
+         */
+        public boolean hasResponses () {
+            return current != null || !queue.isEmpty ();
+        }
+        
+        /**
+         * Returns true if the connection has data to send, but must wait for the
+         * network emulation.
+         */
+        public boolean isWaiting () {
+            return hasResponses () && System.currentTimeMillis () < resumeTime;
+        }
+        
+        public long getResumeTime () {
+            return resumeTime;
+        }
+        
+        public boolean isIdle (long now) {
+            return current == null && queue.isEmpty () && now - lastActivity > IDLE_TIMEOUT;
+        }
+        
+        public void updateInterest () {
+            if (!key.isValid ()) {
+                return;
+            }
+            int ops = 0;
+            if (!readClosed && queue.size () < MAX_PIPELINED) {
+                ops |= SelectionKey.OP_READ;
+            }
+            if ((current != null || (!queue.isEmpty () && queue.getFirst ().isReady ())) && System.currentTimeMillis () >= resumeTime) {
+                ops |= SelectionKey.OP_WRITE;
+            }
+            key.interestOps (ops);
+        }
+        
+        public void close () {
+            try {
+                finishCurrent ();
+            } catch (IOException ioe) {
+                ioe.printStackTrace ();
+            }
+            // Tell the responses still being created that they won't be sent.
+            for (Exchange exchange : queue) {
+                if (exchange.pending != null) {
+                    exchange.pending.cancel (false);
+                }
+            }
+            queue.clear ();
+            key.cancel ();
+            try {
+                channel.close ();
+            } catch (IOException ioe) {
+                ioe.printStackTrace ();
+            }
+            connections.remove (this);
+        }
+    }
+    
+    /**
+     * Runs the server. Never returns.
+     */
+    public void run () throws Exception {
+        selector = Selector.open ();
+        ServerSocketChannel serverChannel = ServerSocketChannel.open ();
+        serverChannel.socket ().setReuseAddress (true);
+        serverChannel.socket ().bind (new InetSocketAddress (port), 1024);
+        serverChannel.configureBlocking (false);
+        SelectionKey serverKey = serverChannel.register (selector, SelectionKey.OP_ACCEPT);
+        
+        System.out.println ("Server started on port " + port + ". Root: " + root.getPath ());
+        System.out.println ("Network emulation: " + emulation);
+        
+        long lastSweep = System.currentTimeMillis ();
+        while (true) {
+            long timeout = 1000;
+            long now = System.currentTimeMillis ();
+            sendingConnections = 0;
+            for (Connection c : connections) {
+                if (c.hasResponses ()) {
+                    ++sendingConnections;
+                }
+                if (c.isWaiting ()) {
+                    timeout = Math.max (1, Math.min (timeout, c.getResumeTime () - now));
+                }
+            }
+            selector.select (timeout);
+            
+            for (Iterator<SelectionKey> iter = selector.selectedKeys ().iterator (); iter.hasNext ();) {
+                SelectionKey key = iter.next ();
+                iter.remove ();
+                if (!key.isValid ()) {
+                    continue;
+                }
+                if (key.isAcceptable ()) {
+                    SocketChannel channel = serverChannel.accept ();
+                    if (channel != null) {
+                        connections.add (new Connection (channel));
+                        metrics.connectionAccepted ();
+                    }
+                    continue;
+                }
+                Connection c = (Connection) key.attachment ();
+                try {
+                    boolean open = true;
+                    if (key.isWritable ()) {
+                        open = c.write ();
+                    }
+                    if (open && key.isValid () && key.isReadable ()) {
+                        c.read ();
+                        // Try to send right away, saving a trip through the selector.
+                        c.write ();
+                    }
+                } catch (IOException ioe) {
+                    metrics.connectionError ();
+                    c.close ();
+                }
+            }
+            
+            now = System.currentTimeMillis ();
+            for (Connection c : new ArrayList<Connection> (connections)) {
+                // Wake connections whose wait has passed, or whose next response is done.
+                if (c.hasResponses ()) {
+                    c.updateInterest ();
+                }
+            }
+            if (now - lastSweep > 1000) {
+                lastSweep = now;
+                for (Connection c : new ArrayList<Connection> (connections)) {
+                    if (c.isIdle (now)) {
+                        c.close ();
+                    }
+                }
+            }
+            
+            // Leave further connections in the listen backlog while at the cap.
+            int maxConnections = emulation.getMaxConnections ();
+            serverKey.interestOps (maxConnections > 0 && connections.size () >= maxConnections ? 0 : SelectionKey.OP_ACCEPT);
+        }
+    }
+    
+    public static void main (String[] args) throws Exception {
+        List<String> positional = new ArrayList<String> ();
+        Map<String,String> options = new HashMap<String,String> ();
+        for (int i = 0; i < args.length; ++i) {
+            if (args[i].startsWith ("--") && i + 1 < args.length) {
+                options.put (args[i].substring (2), args[i + 1]);
+                ++i;
+            } else {
+                positional.add (args[i]);
+            }
+        }
+        
+        final File root = new File (positional.get (0));
+        
+        int throttle = positional.size () > 1 ? Integer.parseInt (positional.get (1)) : Integer.MAX_VALUE;
+        if (throttle < 0) {
+            throttle = Integer.MAX_VALUE;
+        }
+        System.out.println ("Throttled to " + throttle + " B/s");
+        
+        final String indexFile = positional.size () > 2 ? positional.get (2) : "/index.html";
+        System.out.println ("Index file is " + indexFile);
+        
+        int port = options.containsKey ("port") ? Integer.parseInt (options.get ("port")) : 80;
+        
+        long cacheSize = options.containsKey ("cache-size") ? Long.parseLong (options.get ("cache-size")) : 64L * 1024 * 1024;
+        int prewarmLevels = options.containsKey ("prewarm-levels") ? Integer.parseInt (options.get ("prewarm-levels")) : 0;
+        
+        NetworkEmulation emulation = options.containsKey ("profile") ? NetworkEmulation.profile (options.get ("profile")) : new NetworkEmulation ();
+        emulation.connectionRate (options.containsKey ("connection-rate") ? Long.parseLong (options.get ("connection-rate")) : 
+            (throttle == Integer.MAX_VALUE ? 0 : throttle));
+        if (options.containsKey ("latency")) {
+            emulation.latency (Integer.parseInt (options.get ("latency")));
+        }
+        if (options.containsKey ("jitter")) {
+            emulation.jitter (Integer.parseInt (options.get ("jitter")));
+        }
+        if (options.containsKey ("loss")) {
+            emulation.loss (Double.parseDouble (options.get ("loss")));
+        }
+        if (options.containsKey ("rate")) {
+            emulation.rate (Long.parseLong (options.get ("rate")));
+        }
+        if (options.containsKey ("max-connections")) {
+            emulation.maxConnections (Integer.parseInt (options.get ("max-connections")));
+        }
+        if (options.containsKey ("seed")) {
+            emulation.seed (Long.parseLong (options.get ("seed")));
+        }
+        
+        MinimalHttpd server = new MinimalHttpd (root, throttle, indexFile, port).networkEmulation (emulation);
+        if (options.containsKey ("tile-max-age")) {
+            server.tileMaxAge (Integer.parseInt (options.get ("tile-max-age")));
+        }
+        if (options.containsKey ("max-age")) {
+            server.maxAge (Integer.parseInt (options.get ("max-age")));
+        }
+        if (options.containsKey ("access-log")) {
+            System.out.println ("Logging requests to " + options.get ("access-log"));
+            server.accessLog (new AccessLog (new File (options.get ("access-log"))));
+        }
+        if (cacheSize > 0) {
+            System.out.println ("Caching up to " + cacheSize + " bytes");
+            server.cache (new ResponseCache (cacheSize));
+            server.prewarm (prewarmLevels);
+        }
+        server.run ();
+    }
+    
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot.tools.minihttpd;
+
+import java.util.Random;
+
+/**
+ * Emulates the network between the server and its clients, so that the viewer
+ * can be tuned for slow links. Emulates:
+ *
+ * <ul>
+ * <li>latency: the time from when a request is received until the first byte of
+ *     the response is sent, with an optional uniform jitter;</li>
+ * <li>loss: with the given probability, a response is held back for a retransmission
+ *     timeout of twice the latency, at least 200 ms, before its first byte;</li>
+ * <li>bandwidth: token buckets for the server as a whole and for each connection;</li>
+ * <li>a cap on the number of connections served at once. Further connections wait
+ *     in the listen backlog.</li>
+ * </ul>
+ *
+ * <p>The jitter and loss are drawn from a random number generator with a fixed seed,
+ * in the order the requests are received, so a benchmark that sends the same requests
+ * in the same order sees the same delays.
+ *
+ * <p>The named profiles are:
+ *
+ * <table>
+ * <tr><th>Profile</th><th>Latency</th><th>Jitter</th><th>Loss</th><th>Bandwidth</th></tr>
+ * <tr><td>3g</td><td>300 ms</td><td>100 ms</td><td>1%</td><td>1.6 Mbit/s</td></tr>
+ * <tr><td>lte</td><td>70 ms</td><td>20 ms</td><td>0.1%</td><td>12 Mbit/s</td></tr>
+ * <tr><td>dsl</td><td>30 ms</td><td>5 ms</td><td>0</td><td>6 Mbit/s</td></tr>
+ * </table>
+ *
+ * <p>The bandwidth of a profile is shared by all connections, as a browser's
+ * connections share one link.
+ */
+public class NetworkEmulation {
+    
+    /**
+     * Smallest retransmission timeout, in milliseconds.
+     */
+    private final static int MIN_RETRANSMISSION_TIMEOUT = 200;
+    
+    private int latency = 0;
+    private int jitter = 0;
+    private double loss = 0.0;
+    private long rate = 0;
+    private long connectionRate = 0;
+    private int maxConnections = 0;
+    private long seed = 0;
+    
+    private Random random = null;
+    private TokenBucket bucket = null;
+    
+    /**
+     * Creates an emulation that doesn't limit anything.
+     */
+    public NetworkEmulation () {
+    }
+    
+    /**
+     * Creates an emulation from a named profile.
+     *
+     * @param name the profile name: "3g", "lte" or "dsl"
+     * @throws IllegalArgumentException if there is no such profile
+     */
+    public static NetworkEmulation profile (String name) {
+        if (name.equals ("3g")) {
+            return new NetworkEmulation ().latency (300).jitter (100).loss (0.01).rate (200000);
+        } else if (name.equals ("lte")) {
+            return new NetworkEmulation ().latency (70).jitter (20).loss (0.001).rate (1500000);
+        } else if (name.equals ("dsl")) {
+            return new NetworkEmulation ().latency (30).jitter (5).rate (750000);
+        } else {
+            throw new IllegalArgumentException ("Unknown network profile: " + name);
+        }
+    }
+    
+    /**
+     * Sets the time, in milliseconds, from when a request is received until the
+     * first byte of the response is sent.
+     */
+    public NetworkEmulation latency (int latency) {
+        this.latency = latency;
+        return this;
+    }
+    
+    /**
+     * Sets the jitter, in milliseconds. The latency of each response varies
+     * uniformly by up to this much in either direction.
+     */
+    public NetworkEmulation jitter (int jitter) {
+        this.jitter = jitter;
+        return this;
+    }
+    
+    /**
+     * Sets the probability, between 0 and 1, that a response is delayed by a
+     * retransmission timeout.
+     */
+    public NetworkEmulation loss (double loss) {
+        this.loss = loss;
+        return this;
+    }
+    
+    /**
+     * Sets the bandwidth of the server as a whole, in bytes per second.
+     * 0 for no limit.
+     */
+    public NetworkEmulation rate (long rate) {
+        this.rate = rate;
+        this.bucket = null;
+        return this;
+    }
+    
+    /**
+     * Sets the bandwidth of each connection, in bytes per second. 0 for no limit.
+     */
+    public NetworkEmulation connectionRate (long connectionRate) {
+        this.connectionRate = connectionRate;
+        return this;
+    }
+    
+    /**
+     * Sets the largest number of connections served at once. 0 for no limit.
+     */
+    public NetworkEmulation maxConnections (int maxConnections) {
+        this.maxConnections = maxConnections;
+        return this;
+    }
+    
+    /**
+     * Sets the seed for the jitter and loss.
+     */
+    public NetworkEmulation seed (long seed) {
+        this.seed = seed;
+        this.random = null;
+        return this;
+    }
+    
+    public int getMaxConnections () {
+        return maxConnections;
+    }
+    
+    /**
+     * Returns the delay, in milliseconds, before the first byte of the next response.
+     */
+    public long nextDelay () {
+        if (jitter == 0 && loss == 0.0) {
+            return latency;
+        }
+        if (random == null) {
+            random = new Random (seed);
+        }
+        long delay = latency;
+        if (jitter > 0) {
+            delay += random.nextInt (2 * jitter + 1) - jitter;
+        }
+        if (loss > 0.0 && random.nextDouble () < loss) {
+            delay += Math.max (MIN_RETRANSMISSION_TIMEOUT, 2 * latency);
+        }
+        return Math.max (0, delay);
+    }
+    
+    private static long burst (long rate) {
+        // Allow bursts of a tenth of a second.
+        return Math.max (16384, rate / 10);
+    }
+    
+    /**
+     * The bucket shared by all connections, or null if the server bandwidth
+     * isn't limited.
+     */
+    public TokenBucket getBucket () {
+        if (rate > 0 && bucket == null) {
+            bucket = new TokenBucket (rate, burst (rate));
+        }
+        return bucket;
+    }
+    
+    /**
+     * Creates a bucket for a new connection, or returns null if the connection
+     * bandwidth isn't limited.
+     */
+    public TokenBucket createConnectionBucket () {
+        return connectionRate > 0 ? new TokenBucket (connectionRate, burst (connectionRate)) : null;
+    }
+    
+    public String toString () {
+        return "latency " + latency + " ms, jitter " + jitter + " ms, loss " + loss
+            + ", bandwidth " + (rate > 0 ? rate + " B/s" : "unlimited")
+            + ", per connection " + (connectionRate > 0 ? connectionRate + " B/s" : "unlimited")
+            + ", connections " + (maxConnections > 0 ? String.valueOf (maxConnections) : "unlimited")
+            + ", seed " + seed;
+    }
+}
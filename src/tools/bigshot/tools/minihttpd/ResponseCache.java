@@ -0,0 +1,172 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot.tools.minihttpd;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An in-memory cache of file regions, bounded by the total number of bytes
+ * held. Regions are keyed by file, offset and length, and are evicted in
+ * least-recently-used order. A cached region is discarded if the modification
+ * time or length of its file has changed since it was read.
+ *
+ * <p>All methods are synchronized, so the cache can be shared between threads.
+ */
+public class ResponseCache {
+    
+    private static class Entry {
+        public final byte[] data;
+        public final long lastModified;
+        public final long fileLength;
+        
+        public Entry (byte[] data, long lastModified, long fileLength) {
+            this.data = data;
+            this.lastModified = lastModified;
+            this.fileLength = fileLength;
+        }
+    }
+    
+    private final long capacity;
+    private final long maxEntrySize;
+    private long size = 0;
+    private long hits = 0;
+    private long misses = 0;
+    
+    private final LinkedHashMap<String,Entry> entries = new LinkedHashMap<String,Entry> (16, 0.75f, true);
+    
+    /**
+     * Creates a new cache. Regions larger than an eighth of the capacity
+     * are never cached, so that one large file can't flush the cache.
+     *
+     * @param capacity the largest number of bytes to hold
+     */
+    public ResponseCache (long capacity) {
+        this.capacity = capacity;
+        this.maxEntrySize = capacity / 8;
+    }
+    
+    /**
+     * Returns true if a region of the given length may be cached.
+     */
+    public boolean isCacheable (long length) {
+        return length <= maxEntrySize;
+    }
+    
+    private static String key (File f, long position, long length) {
+        return f.getPath () + ":" + position + ":" + length;
+    }
+    
+    /**
+     * Returns a region of a file, reading it from disk if it isn't cached
+     * or if the file has changed.
+     *
+     * @param f the file
+     * @param position the offset of the region
+     * @param length the length of the region
+     */
+    public synchronized byte[] get (File f, long position, long length) throws IOException {
+        String key = key (f, position, length);
+        long lastModified = f.lastModified ();
+        long fileLength = f.length ();
+        
+        Entry entry = entries.get (key);
+        if (entry != null) {
+            if (entry.lastModified == lastModified && entry.fileLength == fileLength) {
+                ++hits;
+                return entry.data;
+            }
+            entries.remove (key);
+            size -= entry.data.length;
+        }
+        ++misses;
+        
+        byte[] data = read (f, position, (int) length);
+        if (isCacheable (length)) {
+            entries.put (key, new Entry (data, lastModified, fileLength));
+            size += data.length;
+            evict ();
+        }
+        return data;
+    }
+    
+    private void evict () {
+        Iterator<Map.Entry<String,Entry>> iter = entries.entrySet ().iterator ();
+        while (size > capacity && iter.hasNext ()) {
+            size -= iter.next ().getValue ().data.length;
+            iter.remove ();
+        }
+    }
+    
+    private static byte[] read (File f, long position, int length) throws IOException {
+        byte[] data = new byte[length];
+        RandomAccessFile raf = new RandomAccessFile (f, "r");
+        try {
+            raf.seek (position);
+            raf.readFully (data);
+        } finally {
+            raf.close ();
+        }
+        return data;
+    }
+    
+    /**
+     * Removes all regions.
+     */
+    public synchronized void clear () {
+        entries.clear ();
+        size = 0;
+    }
+    
+    /**
+     * The largest number of bytes the cache will hold.
+     */
+    public long getCapacity () {
+        return capacity;
+    }
+    
+    /**
+     * The number of bytes currently held.
+     */
+    public synchronized long getSize () {
+        return size;
+    }
+    
+    /**
+     * The number of regions currently held.
+     */
+    public synchronized int getEntryCount () {
+        return entries.size ();
+    }
+    
+    /**
+     * The number of requests served from the cache.
+     */
+    public synchronized long getHits () {
+        return hits;
+    }
+    
+    /**
+     * The number of requests that had to read from disk.
+     */
+    public synchronized long getMisses () {
+        return misses;
+    }
+}
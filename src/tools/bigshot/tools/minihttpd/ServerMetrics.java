@@ -0,0 +1,222 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot.tools.minihttpd;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters and histograms describing the work done by the server, written
+ * in the Prometheus text exposition format by {@link #format}. Recording only
+ * updates atomic counters, so it never blocks.
+ */
+public class ServerMetrics {
+    
+    /**
+     * A histogram with fixed bucket bounds, in seconds.
+     */
+    public static class Histogram {
+        private final double[] bounds;
+        private final AtomicLongArray counts;
+        private final AtomicLong count = new AtomicLong ();
+        private final AtomicLong sumNanos = new AtomicLong ();
+        
+        public Histogram (double... bounds) {
+            this.bounds = bounds;
+            this.counts = new AtomicLongArray (bounds.length);
+        }
+        
+        /**
+         * Records an observation.
+         *
+         * @param nanos the observed duration, in nanoseconds
+         */
+        public void observe (long nanos) {
+            double seconds = nanos / 1e9;
+            for (int i = 0; i < bounds.length; ++i) {
+                if (seconds <= bounds[i]) {
+                    counts.incrementAndGet (i);
+                    break;
+                }
+            }
+            count.incrementAndGet ();
+            sumNanos.addAndGet (nanos);
+        }
+        
+        /**
+         * Writes the histogram. The buckets are kept non-cumulative, and summed here.
+         */
+        void format (StringBuilder sb, String name, String help) {
+            sb.append ("# HELP ").append (name).append (' ').append (help).append ('\n');
+            sb.append ("# TYPE ").append (name).append (" histogram\n");
+            long cumulative = 0;
+            for (int i = 0; i < bounds.length; ++i) {
+                cumulative += counts.get (i);
+                sb.append (name).append ("_bucket{le=\"").append (bounds[i]).append ("\"} ").append (cumulative).append ('\n');
+            }
+            // The count is read last, so it is never less than the buckets.
+            long total = Math.max (cumulative, count.get ());
+            sb.append (name).append ("_bucket{le=\"+Inf\"} ").append (total).append ('\n');
+            sb.append (name).append ("_sum ").append (sumNanos.get () / 1e9).append ('\n');
+            sb.append (name).append ("_count ").append (total).append ('\n');
+        }
+    }
+    
+    private final static double[] LATENCY_BOUNDS = { 
+        0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10 };
+    
+    /**
+     * Maps "type\tstatus" to the number of requests.
+     */
+    private final ConcurrentMap<String,AtomicLong> requests = new ConcurrentHashMap<String,AtomicLong> ();
+    
+    private final Histogram requestDuration = new Histogram (LATENCY_BOUNDS);
+    private final Histogram processingDuration = new Histogram (LATENCY_BOUNDS);
+    private final AtomicLong bytesSent = new AtomicLong ();
+    private final AtomicLong connectionsAccepted = new AtomicLong ();
+    private final AtomicLong connectionErrors = new AtomicLong ();
+    private final AtomicLong exceptions = new AtomicLong ();
+    private final AtomicLong archiveIndexLookups = new AtomicLong ();
+    private final AtomicLong archiveIndexLoads = new AtomicLong ();
+    
+    /**
+     * Counts a response.
+     *
+     * @param type the kind of resource requested, such as "tile" or "descriptor"
+     * @param status the HTTP status of the response
+     * @param processingNanos the time taken to create the response, in nanoseconds
+     */
+    public void request (String type, int status, long processingNanos) {
+        String key = type + "\t" + status;
+        AtomicLong counter = requests.get (key);
+        if (counter == null) {
+            AtomicLong newCounter = new AtomicLong ();
+            counter = requests.putIfAbsent (key, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        counter.incrementAndGet ();
+        processingDuration.observe (processingNanos);
+    }
+    
+    /**
+     * Records the time from when a request was received until the last byte of
+     * its response was sent.
+     */
+    public void requestCompleted (long nanos) {
+        requestDuration.observe (nanos);
+    }
+    
+    public void bytesSent (long bytes) {
+        bytesSent.addAndGet (bytes);
+    }
+    
+    public void connectionAccepted () {
+        connectionsAccepted.incrementAndGet ();
+    }
+    
+    /**
+     * Counts a connection closed because of an I/O error.
+     */
+    public void connectionError () {
+        connectionErrors.incrementAndGet ();
+    }
+    
+    /**
+     * Counts an exception thrown while creating a response.
+     */
+    public void exception () {
+        exceptions.incrementAndGet ();
+    }
+    
+    /**
+     * Counts a lookup of an archive index.
+     *
+     * @param loaded true if the index had to be read from the archive
+     */
+    public void archiveIndexLookup (boolean loaded) {
+        archiveIndexLookups.incrementAndGet ();
+        if (loaded) {
+            archiveIndexLoads.incrementAndGet ();
+        }
+    }
+    
+    private static void counter (StringBuilder sb, String name, String help, long value) {
+        metric (sb, name, help, "counter", value);
+    }
+    
+    private static void gauge (StringBuilder sb, String name, String help, Object value) {
+        metric (sb, name, help, "gauge", value);
+    }
+    
+    private static void metric (StringBuilder sb, String name, String help, String type, Object value) {
+        sb.append ("# HELP ").append (name).append (' ').append (help).append ('\n');
+        sb.append ("# TYPE ").append (name).append (' ').append (type).append ('\n');
+        sb.append (name).append (' ').append (value).append ('\n');
+    }
+    
+    /**
+     * Writes all metrics in the Prometheus text format.
+     *
+     * @param activeConnections the number of open connections
+     * @param cache the response cache, or null
+     * @param includeCache the include processor cache, or null
+     */
+    public String format (int activeConnections, ResponseCache cache, IncludeCache includeCache) {
+        StringBuilder sb = new StringBuilder ();
+        
+        sb.append ("# HELP bigshot_http_requests_total Requests answered, by resource type and status.\n");
+        sb.append ("# TYPE bigshot_http_requests_total counter\n");
+        for (Map.Entry<String,AtomicLong> e : new TreeMap<String,AtomicLong> (requests).entrySet ()) {
+            String[] key = e.getKey ().split ("\t");
+            sb.append ("bigshot_http_requests_total{type=\"").append (key[0]).append ("\",status=\"").append (key[1]).append ("\"} ")
+                .append (e.getValue ().get ()).append ('\n');
+        }
+        
+        requestDuration.format (sb, "bigshot_http_request_duration_seconds", 
+            "Time from receiving a request until the last byte of the response was sent.");
+        processingDuration.format (sb, "bigshot_http_processing_duration_seconds", 
+            "Time spent creating responses.");
+        counter (sb, "bigshot_http_sent_bytes_total", "Bytes sent, including headers.", bytesSent.get ());
+        gauge (sb, "bigshot_http_active_connections", "Open connections.", activeConnections);
+        counter (sb, "bigshot_http_connections_total", "Connections accepted.", connectionsAccepted.get ());
+        counter (sb, "bigshot_http_connection_errors_total", "Connections closed because of I/O errors.", connectionErrors.get ());
+        counter (sb, "bigshot_http_exceptions_total", "Exceptions thrown while creating responses.", exceptions.get ());
+        counter (sb, "bigshot_archive_index_lookups_total", "Archive index lookups.", archiveIndexLookups.get ());
+        counter (sb, "bigshot_archive_index_loads_total", "Archive indexes read from disk.", archiveIndexLoads.get ());
+        
+        if (cache != null) {
+            long hits = cache.getHits ();
+            long misses = cache.getMisses ();
+            counter (sb, "bigshot_cache_hits_total", "Response cache hits.", hits);
+            counter (sb, "bigshot_cache_misses_total", "Response cache misses.", misses);
+            gauge (sb, "bigshot_cache_hit_ratio", "Fraction of response cache lookups that were hits.", 
+                hits + misses > 0 ? (double) hits / (hits + misses) : 0.0);
+            gauge (sb, "bigshot_cache_bytes", "Bytes held by the response cache.", cache.getSize ());
+            gauge (sb, "bigshot_cache_entries", "Regions held by the response cache.", cache.getEntryCount ());
+        }
+        if (includeCache != null) {
+            counter (sb, "bigshot_include_cache_hits_total", "Include processor cache hits.", includeCache.getHits ());
+            counter (sb, "bigshot_include_cache_misses_total", "Include processor runs.", includeCache.getMisses ());
+        }
+        return sb.toString ();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2010 - 2012 Leo Sutic <leo.sutic@gmail.com>
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * You may obtain a copy of the License at 
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0 
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+package bigshot.tools.minihttpd;
+
+/**
+ * A token bucket bandwidth limiter. Tokens are bytes. The bucket fills at a fixed
+ * rate up to its capacity, and sending takes tokens out of it. A send may take more
+ * tokens than there are in the bucket; the debt is paid off before the next send.
+ */
+public class TokenBucket {
+    
+    private final long rate;
+    private final long capacity;
+    private double tokens;
+    private long lastRefill;
+    
+    /**
+     * Creates a new, full bucket.
+     *
+     * @param rate the fill rate, in bytes per second
+     * @param capacity the largest number of bytes that can be sent in a burst
+     */
+    public TokenBucket (long rate, long capacity) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException ("rate must be positive: " + rate);
+        }
+        this.rate = rate;
+        this.capacity = Math.max (1, capacity);
+        this.tokens = this.capacity;
+        this.lastRefill = System.currentTimeMillis ();
+    }
+    
+    private void refill (long now) {
+        if (now > lastRefill) {
+            tokens = Math.min (capacity, tokens + rate * (now - lastRefill) / 1000.0);
+            lastRefill = now;
+        }
+    }
+    
+    /**
+     * Returns the number of bytes that may be sent now. Negative if the bucket
+     * is in debt.
+     *
+     * @param now the current time, in milliseconds
+     */
+    public long available (long now) {
+        refill (now);
+        return (long) Math.floor (tokens);
+    }
+    
+    /**
+     * Takes tokens out of the bucket.
+     *
+     * @param bytes the number of bytes sent
+     * @param now the current time, in milliseconds
+     */
+    public void consume (long bytes, long now) {
+        refill (now);
+        tokens -= bytes;
+    }
+    
+    /**
+     * Returns the number of milliseconds until the given number of bytes may be sent,
+     * or until the bucket is full, whichever comes first.
+     *
+     * @param bytes the number of bytes
+     * @param now the current time, in milliseconds
+     */
+    public long delay (long bytes, long now) {
+        refill (now);
+        double missing = Math.min (bytes, capacity) - tokens;
+        if (missing <= 0) {
+            return 0;
+        }
+        return Math.max (1, (long) Math.ceil (missing * 1000 / rate));
+    }
+    
+    /**
+     * The largest number of bytes that can be sent in a burst.
+     */
+    public long getCapacity () {
+        return capacity;
+    }
+    
+    /**
+     * The fill rate, in bytes per second.
+     */
+    public long getRate () {
+        return rate;
+    }
+}